@@ -42,6 +42,7 @@ public abstract class BaseRuntimeElementDefinition<T extends IBase> {
 	private final String myName;
 	private final boolean myStandardType;
 	private final Map<Class<?>, Constructor<T>> myConstructors = new ConcurrentHashMap<>();
+	private volatile Constructor<T> myNoArgConstructor;
 	private List<RuntimeChildDeclaredExtensionDefinition> myExtensions = new ArrayList<>();
 	private List<RuntimeChildDeclaredExtensionDefinition> myExtensionsModifier = new ArrayList<>();
 	private List<RuntimeChildDeclaredExtensionDefinition> myExtensionsNonModifier = new ArrayList<>();
@@ -170,7 +171,13 @@ public abstract class BaseRuntimeElementDefinition<T extends IBase> {
 	public T newInstance(Object theArgument) {
 		try {
 			if (theArgument == null) {
-				return getConstructor(null).newInstance();
+				// Parsers create a new instance for every element they encounter, so skip the map lookup
+				Constructor<T> constructor = myNoArgConstructor;
+				if (constructor == null) {
+					constructor = getConstructor(null);
+					myNoArgConstructor = constructor;
+				}
+				return constructor.newInstance();
 			}
 			return getConstructor(theArgument).newInstance(theArgument);
 
@@ -22,6 +22,7 @@ package ca.uhn.fhir.context;
 import ca.uhn.fhir.context.api.AddProfileTagEnum;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.fhirpath.FhirPathExpressionCache;
 import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.HapiLocalizer;
 import ca.uhn.fhir.i18n.Msg;
@@ -122,21 +123,21 @@ public class FhirContext {
 	private HapiLocalizer myLocalizer = new HapiLocalizer();
 	private volatile Map<String, BaseRuntimeElementDefinition<?>> myNameToElementDefinition = Collections.emptyMap();
 	private volatile Map<String, RuntimeResourceDefinition> myNameToResourceDefinition = Collections.emptyMap();
-	private volatile Map<String, Class<? extends IBaseResource>> myNameToResourceType;
+	private volatile Map<String, String> myNameToResourceType;
 	private volatile INarrativeGenerator myNarrativeGenerator;
 	private volatile IParserErrorHandler myParserErrorHandler = new LenientErrorHandler();
 	private ParserOptions myParserOptions = new ParserOptions();
 	private volatile IRestfulClientFactory myRestfulClientFactory;
 	private volatile RuntimeChildUndeclaredExtensionDefinition myRuntimeChildUndeclaredExtensionDefinition;
 	private IValidationSupport myValidationSupport;
-	private Map<FhirVersionEnum, Map<String, Class<? extends IBaseResource>>> myVersionToNameToResourceType =
-			Collections.emptyMap();
+	private Map<FhirVersionEnum, Map<String, String>> myVersionToNameToResourceType = Collections.emptyMap();
 	private volatile Set<String> myResourceNames;
 	private volatile Boolean myFormatXmlSupported;
 	private volatile Boolean myFormatJsonSupported;
 	private volatile Boolean myFormatNDJsonSupported;
 	private volatile Boolean myFormatRdfSupported;
 	private IFhirValidatorFactory myFhirValidatorFactory = FhirValidator::new;
+	private volatile FhirPathExpressionCache myFhirPathExpressionCache;
 	/**
 	 * If true, parsed resources will have the json string
 	 * used to create them stored
@@ -521,25 +522,24 @@ public class FhirContext {
 			return getResourceDefinition(theResourceName);
 		}
 
-		Map<String, Class<? extends IBaseResource>> nameToType = myVersionToNameToResourceType.get(theVersion);
+		Map<String, String> nameToType = myVersionToNameToResourceType.get(theVersion);
 		if (nameToType == null) {
 			nameToType = new HashMap<>();
 			Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> existing = new HashMap<>();
 			ModelScanner.scanVersionPropertyFile(null, nameToType, theVersion, existing);
 
-			Map<FhirVersionEnum, Map<String, Class<? extends IBaseResource>>> newVersionToNameToResourceType =
-					new HashMap<>();
+			Map<FhirVersionEnum, Map<String, String>> newVersionToNameToResourceType = new HashMap<>();
 			newVersionToNameToResourceType.putAll(myVersionToNameToResourceType);
 			newVersionToNameToResourceType.put(theVersion, nameToType);
 			myVersionToNameToResourceType = newVersionToNameToResourceType;
 		}
 
-		Class<? extends IBaseResource> resourceType = nameToType.get(theResourceName.toLowerCase());
+		String resourceType = nameToType.get(theResourceName.toLowerCase());
 		if (resourceType == null) {
 			throw new DataFormatException(Msg.code(1683) + createUnknownResourceNameError(theResourceName, theVersion));
 		}
 
-		return getResourceDefinition(resourceType);
+		return getResourceDefinition(ModelScanner.loadResourceType(theResourceName, resourceType));
 	}
 
 	/**
@@ -597,8 +597,8 @@ public class FhirContext {
 		RuntimeResourceDefinition retVal = myNameToResourceDefinition.get(resourceName);
 
 		if (retVal == null) {
-			Class<? extends IBaseResource> clazz = myNameToResourceType.get(resourceName.toLowerCase());
-			if (clazz == null) {
+			String className = myNameToResourceType.get(resourceName);
+			if (className == null) {
 				// ***********************************************************************
 				// Multiple spots in HAPI FHIR and Smile CDR depend on DataFormatException
 				// being thrown by this method, don't change that.
@@ -606,9 +606,7 @@ public class FhirContext {
 				throw new DataFormatException(
 						Msg.code(1684) + createUnknownResourceNameError(theResourceName, myVersion.getVersion()));
 			}
-			if (IBaseResource.class.isAssignableFrom(clazz)) {
-				retVal = scanResourceType(clazz);
-			}
+			retVal = scanResourceType(ModelScanner.loadResourceType(theResourceName, className));
 		}
 		return retVal;
 	}
@@ -890,6 +888,38 @@ public class FhirContext {
 		return myVersion.createFhirPathExecutor(this);
 	}
 
+	/**
+	 * Returns the cache of parsed FHIRPath expressions for this context. Parsed expressions
+	 * from this cache can be evaluated by any {@link IFhirPath} returned by {@link #newFhirPath()}.
+	 *
+	 * @see FhirPathExpressionCache
+	 * @since 8.4.0
+	 */
+	public FhirPathExpressionCache getFhirPathExpressionCache() {
+		FhirPathExpressionCache retVal = myFhirPathExpressionCache;
+		if (retVal == null) {
+			synchronized (this) {
+				retVal = myFhirPathExpressionCache;
+				if (retVal == null) {
+					retVal = new FhirPathExpressionCache();
+					myFhirPathExpressionCache = retVal;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Replaces the cache of parsed FHIRPath expressions for this context, e.g. in order to
+	 * use a different maximum size.
+	 *
+	 * @since 8.4.0
+	 */
+	public void setFhirPathExpressionCache(@Nonnull FhirPathExpressionCache theFhirPathExpressionCache) {
+		Validate.notNull(theFhirPathExpressionCache, "theFhirPathExpressionCache must not be null");
+		myFhirPathExpressionCache = theFhirPathExpressionCache;
+	}
+
 	/**
 	 * Create and return a new JSON parser.
 	 *
@@ -78,7 +78,12 @@ class ModelScanner {
 	private Map<String, RuntimeResourceDefinition> myIdToResourceDefinition = new HashMap<>();
 	private Map<String, BaseRuntimeElementDefinition<?>> myNameToElementDefinitions = new HashMap<>();
 	private Map<String, RuntimeResourceDefinition> myNameToResourceDefinitions = new HashMap<>();
-	private Map<String, Class<? extends IBaseResource>> myNameToResourceType = new HashMap<>();
+	/**
+	 * Resource name (lowercase) to implementing class name. Class names are kept instead of
+	 * classes so that resource classes are only loaded once they are actually needed.
+	 */
+	private Map<String, String> myNameToResourceType = new HashMap<>();
+
 	private RuntimeChildUndeclaredExtensionDefinition myRuntimeChildUndeclaredExtensionDefinition;
 	private Set<Class<? extends IBase>> myScanAlso = new HashSet<>();
 	private FhirVersionEnum myVersion;
@@ -114,7 +119,7 @@ class ModelScanner {
 		return myNameToResourceDefinitions;
 	}
 
-	Map<String, Class<? extends IBaseResource>> getNameToResourceType() {
+	Map<String, String> getNameToResourceType() {
 		return myNameToResourceType;
 	}
 
@@ -131,7 +136,7 @@ class ModelScanner {
 
 		int startSize = myClassToElementDefinitions.size();
 		long start = System.currentTimeMillis();
-		Map<String, Class<? extends IBaseResource>> resourceTypes = myNameToResourceType;
+		Map<String, String> resourceTypes = myNameToResourceType;
 
 		Set<Class<? extends IBase>> typesToScan = theTypesToScan;
 		myVersionTypes = scanVersionPropertyFile(typesToScan, resourceTypes, myVersion, myClassToElementDefinitions);
@@ -341,10 +346,10 @@ class ModelScanner {
 		}
 
 		String resourceNameLowerCase = resourceName.toLowerCase();
-		Class<? extends IBaseResource> builtInType = myNameToResourceType.get(resourceNameLowerCase);
-		boolean standardType = builtInType != null && builtInType.equals(theClass) == true;
+		String builtInType = myNameToResourceType.get(resourceNameLowerCase);
+		boolean standardType = builtInType != null && builtInType.equals(theClass.getName());
 		if (primaryNameProvider) {
-			if (builtInType != null && builtInType.equals(theClass) == false) {
+			if (builtInType != null && !builtInType.equals(theClass.getName())) {
 				primaryNameProvider = false;
 			}
 		}
@@ -570,7 +575,7 @@ class ModelScanner {
 
 	static Set<Class<? extends IBase>> scanVersionPropertyFile(
 			Set<Class<? extends IBase>> theDatatypes,
-			Map<String, Class<? extends IBaseResource>> theResourceTypes,
+			Map<String, String> theResourceTypes,
 			FhirVersionEnum theVersion,
 			Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> theExistingElementDefinitions) {
 		Set<Class<? extends IBase>> retVal = new HashSet<>();
@@ -616,27 +621,9 @@ class ModelScanner {
 						}
 					}
 				} else if (nextKey.startsWith("resource.")) {
-					// Resources
+					// Resources - These are only loaded when they are first used, see loadResourceType(..)
 					String resName = nextKey.substring("resource.".length()).toLowerCase();
-					try {
-						@SuppressWarnings("unchecked")
-						Class<? extends IBaseResource> nextClass =
-								(Class<? extends IBaseResource>) Class.forName(nextValue);
-						if (theExistingElementDefinitions.containsKey(nextClass)) {
-							continue;
-						}
-						if (!IBaseResource.class.isAssignableFrom(nextClass)) {
-							throw new ConfigurationException(Msg.code(1726) + "Class is not assignable from "
-									+ IBaseResource.class.getSimpleName() + ": " + nextValue);
-						}
-
-						theResourceTypes.put(resName, nextClass);
-					} catch (ClassNotFoundException e) {
-						throw new ConfigurationException(
-								Msg.code(1727) + "Unknown class[" + nextValue + "] for resource definition: "
-										+ nextKey.substring("resource.".length()),
-								e);
-					}
+					theResourceTypes.put(resName, nextValue);
 				} else {
 					throw new ConfigurationException(Msg.code(1728) + "Unexpected property in version property file: "
 							+ nextKey + "=" + nextValue);
@@ -649,4 +636,25 @@ class ModelScanner {
 
 		return retVal;
 	}
+
+	/**
+	 * Loads a resource class whose name was found by
+	 * {@link #scanVersionPropertyFile(Set, Map, FhirVersionEnum, Map)}
+	 */
+	@SuppressWarnings("unchecked")
+	static Class<? extends IBaseResource> loadResourceType(String theResourceName, String theClassName) {
+		Class<?> retVal;
+		try {
+			retVal = Class.forName(theClassName);
+		} catch (ClassNotFoundException e) {
+			throw new ConfigurationException(
+					Msg.code(1727) + "Unknown class[" + theClassName + "] for resource definition: " + theResourceName,
+					e);
+		}
+		if (!IBaseResource.class.isAssignableFrom(retVal)) {
+			throw new ConfigurationException(Msg.code(1726) + "Class is not assignable from "
+					+ IBaseResource.class.getSimpleName() + ": " + theClassName);
+		}
+		return (Class<? extends IBaseResource>) retVal;
+	}
 }
@@ -0,0 +1,135 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.fhirpath;
+
+import ca.uhn.fhir.i18n.Msg;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded (least recently used) cache of parsed FHIRPath expressions, keyed by the expression string.
+ * An instance of this class is available from {@link ca.uhn.fhir.context.FhirContext#getFhirPathExpressionCache()},
+ * and since a parsed expression may be evaluated by any {@link IFhirPath} created by the same
+ * context, callers which repeatedly evaluate the same expressions should use it instead of
+ * {@link IFhirPath#evaluate(org.hl7.fhir.instance.model.api.IBase, String, Class)}.
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public class FhirPathExpressionCache {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+	private final Cache<String, IFhirPath.IParsedExpression> myCache;
+	private final int myMaximumSize;
+
+	/**
+	 * Constructor using the {@link #DEFAULT_MAXIMUM_SIZE default maximum size}
+	 */
+	public FhirPathExpressionCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumSize The maximum number of parsed expressions to keep
+	 */
+	public FhirPathExpressionCache(int theMaximumSize) {
+		Validate.isTrue(theMaximumSize > 0, "theMaximumSize must be positive");
+		myMaximumSize = theMaximumSize;
+		myCache = CacheBuilder.newBuilder()
+				.maximumSize(theMaximumSize)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Returns the parsed form of the given expression, parsing it using the given FHIRPath
+	 * engine if it is not already cached. Expressions which can not be parsed are not cached,
+	 * and the exception thrown by {@link IFhirPath#parse(String)} is rethrown unchanged
+	 * (unless it is a checked exception, in which case it is wrapped in a
+	 * {@link FhirPathExecutionException}).
+	 *
+	 * @param theFhirPath   The engine used to parse the expression if needed. This must come from the
+	 *                      same FhirContext as this cache.
+	 * @param theExpression The FHIRPath expression
+	 */
+	public IFhirPath.IParsedExpression getOrParse(IFhirPath theFhirPath, String theExpression) {
+		try {
+			return myCache.get(theExpression, () -> theFhirPath.parse(theExpression));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new FhirPathExecutionException(
+					Msg.code(2791) + "Failed to parse FHIRPath expression \"" + theExpression + "\": " + cause, cause);
+		}
+	}
+
+	/**
+	 * Removes all parsed expressions from the cache
+	 */
+	public void invalidateAll() {
+		myCache.invalidateAll();
+	}
+
+	public int getMaximumSize() {
+		return myMaximumSize;
+	}
+
+	/**
+	 * Returns the approximate number of parsed expressions currently in the cache
+	 */
+	public long getSize() {
+		return myCache.size();
+	}
+
+	/**
+	 * Returns the number of times that a requested expression was already cached
+	 */
+	public long getHitCount() {
+		return myCache.stats().hitCount();
+	}
+
+	/**
+	 * Returns the number of times that a requested expression had to be parsed
+	 */
+	public long getMissCount() {
+		return myCache.stats().missCount();
+	}
+
+	/**
+	 * Returns the ratio of requests which were already cached, or <code>1.0</code> if no requests
+	 * have been made
+	 */
+	public double getHitRate() {
+		CacheStats stats = myCache.stats();
+		return stats.hitRate();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.fhirpath;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.Constants;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.BatchCallback;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * This class provides OpenTelemetry metrics for the {@link FhirPathExpressionCache} of a
+ * {@link FhirContext}. The hit rate of the cache is the hit count divided by the total of
+ * the hit and miss counts.
+ *
+ * @since 8.4.0
+ */
+public class FhirPathExpressionCacheMetrics {
+
+	public static final String CLASS_OPENTELEMETRY_BASE_NAME =
+			Constants.OPENTELEMETRY_BASE_NAME + ".fhirpath_expression_cache";
+	static final String INSTRUMENTATION_NAME = CLASS_OPENTELEMETRY_BASE_NAME;
+	private static final AttributeKey<String> FHIR_VERSION = stringKey(INSTRUMENTATION_NAME + ".fhir_version");
+	public static final String HIT_COUNT = CLASS_OPENTELEMETRY_BASE_NAME + ".hit_count";
+	public static final String MISS_COUNT = CLASS_OPENTELEMETRY_BASE_NAME + ".miss_count";
+	public static final String CURRENT_ENTRIES = CLASS_OPENTELEMETRY_BASE_NAME + ".current_entries";
+	private final FhirContext myFhirContext;
+	private BatchCallback myBatchCallback;
+
+	public FhirPathExpressionCacheMetrics(FhirContext theFhirContext) {
+		myFhirContext = theFhirContext;
+	}
+
+	@PostConstruct
+	public void start() {
+		OpenTelemetry openTelemetry = GlobalOpenTelemetry.get();
+		Meter meter = openTelemetry
+				.getMeterProvider()
+				.meterBuilder(INSTRUMENTATION_NAME)
+				.build();
+
+		Attributes baseAttribute = Attributes.of(
+				FHIR_VERSION, myFhirContext.getVersion().getVersion().name());
+
+		ObservableLongMeasurement hitCount = meter.counterBuilder(HIT_COUNT)
+				.setUnit("{lookups}")
+				.setDescription("The number of FHIRPath expressions which were found in the cache.")
+				.buildObserver();
+		ObservableLongMeasurement missCount = meter.counterBuilder(MISS_COUNT)
+				.setUnit("{lookups}")
+				.setDescription("The number of FHIRPath expressions which had to be parsed.")
+				.buildObserver();
+		ObservableLongMeasurement currentEntries = meter.gaugeBuilder(CURRENT_ENTRIES)
+				.ofLongs()
+				.setUnit("{entries}")
+				.setDescription("The current number of parsed FHIRPath expressions in the cache.")
+				.buildObserver();
+
+		myBatchCallback = meter.batchCallback(
+				() -> {
+					FhirPathExpressionCache cache = myFhirContext.getFhirPathExpressionCache();
+					hitCount.record(cache.getHitCount(), baseAttribute);
+					missCount.record(cache.getMissCount(), baseAttribute);
+					currentEntries.record(cache.getSize(), baseAttribute);
+				},
+				hitCount,
+				missCount,
+				currentEntries);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (myBatchCallback != null) {
+			myBatchCallback.close();
+			myBatchCallback = null;
+		}
+	}
+}
@@ -45,14 +45,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -80,7 +84,14 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private final ListMultimap<POINTCUT, IInvoker> myAnonymousInvokers = ArrayListMultimap.create();
 	private final Object myRegistryMutex = new Object();
 	private final Class<POINTCUT> myPointcutType;
-	private volatile EnumSet<POINTCUT> myRegisteredPointcuts;
+
+	/**
+	 * An immutable snapshot of the sorted invokers for each pointcut which has at least one
+	 * registered hook. This is replaced (never modified) whenever the registry changes so that
+	 * hooks can be dispatched without locking or building a new list on every call.
+	 */
+	private volatile Map<POINTCUT, List<IInvoker>> myInvokersByPointcut;
+
 	private boolean myWarnOnInterceptorWithNoHooks = true;
 
 	/**
@@ -100,7 +111,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	public BaseInterceptorService(Class<POINTCUT> thePointcutType, String theName) {
 		super();
 		myPointcutType = thePointcutType;
-		rebuildRegisteredPointcutSet();
+		rebuildInvokersByPointcut();
 	}
 
 	/**
@@ -132,7 +143,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				myInterceptors.add(theInterceptor);
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokersByPointcut();
 		}
 	}
 
@@ -193,7 +204,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				}
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokersByPointcut();
 		}
 	}
 
@@ -218,17 +229,29 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			myInterceptors.add(theInterceptor);
 			sortByOrderAnnotation(myInterceptors);
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokersByPointcut();
 
 			return true;
 		}
 	}
 
-	private void rebuildRegisteredPointcutSet() {
+	/**
+	 * Must be called while holding {@link #myRegistryMutex} any time that the
+	 * global or anonymous invokers change
+	 */
+	private void rebuildInvokersByPointcut() {
 		EnumSet<POINTCUT> registeredPointcuts = EnumSet.noneOf(myPointcutType);
 		registeredPointcuts.addAll(myAnonymousInvokers.keySet());
 		registeredPointcuts.addAll(myGlobalInvokers.keySet());
-		myRegisteredPointcuts = registeredPointcuts;
+
+		Map<POINTCUT, List<IInvoker>> invokersByPointcut = new EnumMap<>(myPointcutType);
+		for (POINTCUT nextPointcut : registeredPointcuts) {
+			List<IInvoker> globalInvokers = myGlobalInvokers.get(nextPointcut);
+			List<IInvoker> anonymousInvokers = myAnonymousInvokers.get(nextPointcut);
+			List<IInvoker> invokers = union(Arrays.asList(globalInvokers, anonymousInvokers));
+			invokersByPointcut.put(nextPointcut, List.copyOf(invokers));
+		}
+		myInvokersByPointcut = invokersByPointcut;
 	}
 
 	private boolean isInterceptorAlreadyRegistered(Object theInterceptor) {
@@ -246,7 +269,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			boolean removed = myInterceptors.removeIf(t -> t == theInterceptor);
 			removed |= myGlobalInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
 			removed |= myAnonymousInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
-			rebuildRegisteredPointcutSet();
+			rebuildInvokersByPointcut();
 			return removed;
 		}
 	}
@@ -276,7 +299,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 	@Override
 	public boolean hasHooks(POINTCUT thePointcut) {
-		return myRegisteredPointcuts.contains(thePointcut);
+		return myInvokersByPointcut.containsKey(thePointcut);
 	}
 
 	protected Class<?> getBooleanReturnType() {
@@ -294,7 +317,10 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	private Object doCallHooks(POINTCUT thePointcut, HookParams theParams) {
-		List<IInvoker> invokers = getInvokersForPointcut(thePointcut);
+		List<IInvoker> invokers = myInvokersByPointcut.get(thePointcut);
+		if (invokers == null) {
+			return null;
+		}
 		return callInvokers(thePointcut, theParams, invokers);
 	}
 
@@ -310,18 +336,15 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	 * is ordered by the invoker order (specified on the {@link Interceptor#order()}
 	 * and {@link Hook#order()} values.
 	 *
-	 * @return The list returned by this method will always be a newly created list, so it will be stable and can be modified.
+	 * @return The list returned by this method is an immutable snapshot, so it will be stable even if
+	 * 	interceptors are registered or unregistered while it is being used. It can not be modified.
 	 */
 	@Override
 	public List<IInvoker> getInvokersForPointcut(POINTCUT thePointcut) {
-		List<IInvoker> invokers;
-
-		synchronized (myRegistryMutex) {
-			List<IInvoker> globalInvokers = myGlobalInvokers.get(thePointcut);
-			List<IInvoker> anonymousInvokers = myAnonymousInvokers.get(thePointcut);
-			invokers = union(Arrays.asList(globalInvokers, anonymousInvokers));
+		List<IInvoker> invokers = myInvokersByPointcut.get(thePointcut);
+		if (invokers == null) {
+			return Collections.emptyList();
 		}
-
 		return invokers;
 	}
 
@@ -421,16 +444,21 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	protected abstract Optional<HookDescriptor> scanForHook(Method nextMethod);
 
 	public static Object callInvokers(IPointcut thePointcut, HookParams theParams, List<IInvoker> invokers) {
+		if (invokers.isEmpty()) {
+			return null;
+		}
 
 		Object retVal = null;
 
 		/*
 		 * Call each hook in order
 		 */
-		for (IInvoker nextInvoker : invokers) {
+		Class<?> pointcutReturnType = thePointcut.getReturnType();
+		boolean booleanReturnType = pointcutReturnType.equals(thePointcut.getBooleanReturnTypeForEnum());
+		for (int i = 0; i < invokers.size(); i++) {
+			IInvoker nextInvoker = invokers.get(i);
 			Object nextOutcome = nextInvoker.invoke(theParams);
-			Class<?> pointcutReturnType = thePointcut.getReturnType();
-			if (pointcutReturnType.equals(thePointcut.getBooleanReturnTypeForEnum())) {
+			if (booleanReturnType) {
 				Boolean nextOutcomeAsBoolean = (Boolean) nextOutcome;
 				if (Boolean.FALSE.equals(nextOutcomeAsBoolean)) {
 					ourLog.trace("callHooks({}) for invoker({}) returned false", thePointcut, nextInvoker);
@@ -525,6 +553,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private class HookInvoker extends BaseInvoker {
 
 		private final Method myMethod;
+		private final MethodHandle myMethodHandle;
 		private final Class<?>[] myParameterTypes;
 		private final int[] myParameterIndexes;
 		private final POINTCUT myPointcut;
@@ -564,6 +593,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			}
 
 			myMethod.setAccessible(true);
+			myMethodHandle = createMethodHandle(theInterceptor, theHookMethod, myParameterTypes.length);
 		}
 
 		@Override
@@ -603,8 +633,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			// Invoke the method
 			try {
 				return invokeMethod(args);
-			} catch (InvocationTargetException e) {
-				Throwable targetException = e.getTargetException();
+			} catch (Throwable targetException) {
 				if (myPointcut.isShouldLogAndSwallowException(targetException)) {
 					ourLog.error("Exception thrown by interceptor: " + targetException.toString(), targetException);
 					return null;
@@ -617,13 +646,11 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 							Msg.code(1910) + "Failure invoking interceptor for pointcut(s) " + getPointcut(),
 							targetException);
 				}
-			} catch (Exception e) {
-				throw new InternalErrorException(Msg.code(1911) + e);
 			}
 		}
 
 		@WithSpan("hapifhir.interceptor")
-		private Object invokeMethod(Object[] args) throws InvocationTargetException, IllegalAccessException {
+		private Object invokeMethod(Object[] args) throws Throwable {
 			// Add attributes to the opentelemetry span
 			Span currentSpan = Span.current();
 			currentSpan.setAttribute(OTEL_INTERCEPTOR_POINTCUT_NAME_ATT_KEY, myPointcut.name());
@@ -632,7 +659,26 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 					myMethod.getDeclaringClass().getName());
 			currentSpan.setAttribute(OTEL_INTERCEPTOR_METHOD_NAME_ATT_KEY, myMethod.getName());
 
-			return myMethod.invoke(getInterceptor(), args);
+			return myMethodHandle.invokeExact(args);
+		}
+	}
+
+	/**
+	 * Creates a method handle for a hook method which is bound to the interceptor instance and
+	 * accepts the arguments as an array, so that it can be invoked with
+	 * {@link MethodHandle#invokeExact(Object...)} without the reflective access checks and argument
+	 * boxing done by {@link Method#invoke(Object, Object...)} on every call.
+	 */
+	private static MethodHandle createMethodHandle(Object theInterceptor, Method theHookMethod, int theParameterCount) {
+		try {
+			MethodHandle handle = MethodHandles.lookup().unreflect(theHookMethod);
+			if (!Modifier.isStatic(theHookMethod.getModifiers())) {
+				handle = handle.bindTo(theInterceptor);
+			}
+			return handle.asSpreader(Object[].class, theParameterCount)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+		} catch (IllegalAccessException e) {
+			throw new InternalErrorException(Msg.code(1911) + e, e);
 		}
 	}
 
@@ -23,6 +23,8 @@ import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.model.api.BasePrimitive;
 import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
 import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.util.DateTimeParser;
+import ca.uhn.fhir.util.DateTimeParser.ParsedDateTime;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.time.DateUtils;
@@ -230,44 +232,6 @@ public abstract class BaseDateTimeDt extends BasePrimitive<Date> {
 		return Long.parseLong(retVal);
 	}
 
-	/**
-	 * Find the offset for a timestamp.  If it exists.  An offset may start either with '-', 'Z', '+', or ' '.
-	 * <p/>
-	 * There is a special case where ' ' is considered a valid offset initial character and this is because when
-	 * handling URLs with timestamps, '+' is considered an escape character for ' ', so '+' may have been replaced with
-	 * ' ' by the time execution reaches this method.  This is why this method handles both characters.
-	 *
-	 * @param theValueString A timestamp containing either a timezone offset or nothing.
-	 * @return The index of the offset portion of the timestamp, if applicable, otherwise -1
-	 */
-	private int getOffsetIndex(String theValueString) {
-		int plusIndex = theValueString.indexOf('+', 16);
-		int spaceIndex = theValueString.indexOf(' ', 16);
-		int minusIndex = theValueString.indexOf('-', 16);
-		int zIndex = theValueString.indexOf('Z', 16);
-		int maxIndexPlusAndMinus = Math.max(Math.max(plusIndex, minusIndex), zIndex);
-		int maxIndexSpaceAndMinus = Math.max(Math.max(spaceIndex, minusIndex), zIndex);
-		if (maxIndexPlusAndMinus == -1 && maxIndexSpaceAndMinus == -1) {
-			return -1;
-		}
-		int retVal = 0;
-		if (maxIndexPlusAndMinus != -1) {
-			if ((maxIndexPlusAndMinus - 2) != (plusIndex + minusIndex + zIndex)) {
-				throwBadDateFormat(theValueString);
-			}
-			retVal = maxIndexPlusAndMinus;
-		}
-
-		if (maxIndexSpaceAndMinus != -1) {
-			if ((maxIndexSpaceAndMinus - 2) != (spaceIndex + minusIndex + zIndex)) {
-				throwBadDateFormat(theValueString);
-			}
-			retVal = maxIndexSpaceAndMinus;
-		}
-
-		return retVal;
-	}
-
 	/**
 	 * Gets the precision for this datatype (using the default for the given type if not set)
 	 *
@@ -355,129 +319,28 @@ public abstract class BaseDateTimeDt extends BasePrimitive<Date> {
 
 	@Override
 	protected Date parse(String theValue) throws DataFormatException {
-		Calendar cal = new GregorianCalendar(0, 0, 0);
-		cal.setTimeZone(TimeZone.getDefault());
-		String value = theValue;
-		boolean fractionalSecondsSet = false;
-
-		if (value.length() > 0 && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ')) {
-			value = value.trim();
-		}
-
-		int length = value.length();
-		if (length == 0) {
+		ParsedDateTime parsed = DateTimeParser.parse(theValue);
+		if (parsed == null) {
 			return null;
 		}
 
-		if (length < 4) {
-			throwBadDateFormat(value);
-		}
-
-		TemporalPrecisionEnum precision = null;
-		cal.set(Calendar.YEAR, parseInt(value, value.substring(0, 4), 0, 9999));
-		precision = TemporalPrecisionEnum.YEAR;
-		if (length > 4) {
-			validateCharAtIndexIs(value, 4, '-');
-			validateLengthIsAtLeast(value, 7);
-			int monthVal = parseInt(value, value.substring(5, 7), 1, 12) - 1;
-			cal.set(Calendar.MONTH, monthVal);
-			precision = TemporalPrecisionEnum.MONTH;
-			if (length > 7) {
-				validateCharAtIndexIs(value, 7, '-');
-				validateLengthIsAtLeast(value, 10);
-				cal.set(Calendar.DATE, 1); // for some reason getActualMaximum works incorrectly if date isn't set
-				int actualMaximum = cal.getActualMaximum(Calendar.DAY_OF_MONTH);
-				cal.set(Calendar.DAY_OF_MONTH, parseInt(value, value.substring(8, 10), 1, actualMaximum));
-				precision = TemporalPrecisionEnum.DAY;
-				if (length > 10) {
-					validateLengthIsAtLeast(value, 16);
-					validateCharAtIndexIs(value, 10, 'T'); // yyyy-mm-ddThh:mm:ss
-					int offsetIdx = getOffsetIndex(value);
-					String time;
-					if (offsetIdx == -1) {
-						// throwBadDateFormat(theValue);
-						// No offset - should this be an error?
-						time = value.substring(11);
-					} else {
-						time = value.substring(11, offsetIdx);
-						String offsetString = value.substring(offsetIdx);
-						setTimeZone(value, offsetString);
-						cal.setTimeZone(getTimeZone());
-					}
-					int timeLength = time.length();
-
-					validateCharAtIndexIs(value, 13, ':');
-					cal.set(Calendar.HOUR_OF_DAY, parseInt(value, value.substring(11, 13), 0, 23));
-					cal.set(Calendar.MINUTE, parseInt(value, value.substring(14, 16), 0, 59));
-					precision = TemporalPrecisionEnum.MINUTE;
-					if (timeLength > 5) {
-						validateLengthIsAtLeast(value, 19);
-						validateCharAtIndexIs(value, 16, ':'); // yyyy-mm-ddThh:mm:ss
-						cal.set(Calendar.SECOND, parseInt(value, value.substring(17, 19), 0, 59));
-						precision = TemporalPrecisionEnum.SECOND;
-						if (timeLength > 8) {
-							validateCharAtIndexIs(value, 19, '.'); // yyyy-mm-ddThh:mm:ss.SSSS
-							validateLengthIsAtLeast(value, 20);
-							int endIndex = getOffsetIndex(value);
-							if (endIndex == -1) {
-								endIndex = value.length();
-							}
-							int millis;
-							String millisString;
-							if (endIndex > 23) {
-								myFractionalSeconds = value.substring(20, endIndex);
-								fractionalSecondsSet = true;
-								endIndex = 23;
-								millisString = value.substring(20, endIndex);
-								millis = parseInt(value, millisString, 0, 999);
-							} else {
-								millisString = value.substring(20, endIndex);
-								millis = parseInt(value, millisString, 0, 999);
-								myFractionalSeconds = millisString;
-								fractionalSecondsSet = true;
-							}
-							if (millisString.length() == 1) {
-								millis = millis * 100;
-							} else if (millisString.length() == 2) {
-								millis = millis * 10;
-							}
-							cal.set(Calendar.MILLISECOND, millis);
-							precision = TemporalPrecisionEnum.MILLI;
-						}
-					}
-				}
-			} else {
-				cal.set(Calendar.DATE, 1);
-			}
-		} else {
-			cal.set(Calendar.DATE, 1);
-		}
-
-		if (fractionalSecondsSet == false) {
-			myFractionalSeconds = "";
+		if (parsed.isTimeZoneZulu()) {
+			myTimeZone = null;
+			myTimeZoneZulu = true;
+		} else if (parsed.getTimeZone() != null) {
+			myTimeZone = parsed.getTimeZone();
+			myTimeZoneZulu = false;
 		}
+		myFractionalSeconds = parsed.getFractionalSeconds();
 
+		TemporalPrecisionEnum precision = parsed.getPrecision();
 		if (precision == TemporalPrecisionEnum.MINUTE) {
-			validatePrecisionAndThrowDataFormatException(value, precision);
+			validatePrecisionAndThrowDataFormatException(parsed.getValue(), precision);
 		}
 
-		setPrecision(precision);
-		return cal.getTime();
-	}
-
-	private int parseInt(String theValue, String theSubstring, int theLowerBound, int theUpperBound) {
-		int retVal = 0;
-		try {
-			retVal = Integer.parseInt(theSubstring);
-		} catch (NumberFormatException e) {
-			throwBadDateFormat(theValue);
-		}
-
-		if (retVal < theLowerBound || retVal > theUpperBound) {
-			throwBadDateFormat(theValue);
-		}
-
-		return retVal;
+		// The string value is replaced by the caller, so there is no need to re-encode it here
+		myPrecision = precision;
+		return parsed.getValueAsDate();
 	}
 
 	/**
@@ -589,29 +452,6 @@ public abstract class BaseDateTimeDt extends BasePrimitive<Date> {
 		return this;
 	}
 
-	private BaseDateTimeDt setTimeZone(String theWholeValue, String theValue) {
-
-		if (isBlank(theValue)) {
-			throwBadDateFormat(theWholeValue);
-		} else if (theValue.charAt(0) == 'Z') {
-			clearTimeZone();
-			setTimeZoneZulu(true);
-		} else if (theValue.length() != 6) {
-			throwBadDateFormat(theWholeValue, "Timezone offset must be in the form \"Z\", \"-HH:mm\", or \"+HH:mm\"");
-		} else if (theValue.charAt(3) != ':'
-				|| !(theValue.charAt(0) == '+' || theValue.charAt(0) == ' ' || theValue.charAt(0) == '-')) {
-			throwBadDateFormat(theWholeValue, "Timezone offset must be in the form \"Z\", \"-HH:mm\", or \"+HH:mm\"");
-		} else {
-			parseInt(theWholeValue, theValue.substring(1, 3), 0, 23);
-			parseInt(theWholeValue, theValue.substring(4, 6), 0, 59);
-			clearTimeZone();
-			final String valueToUse = theValue.startsWith(" ") ? theValue.replace(' ', '+') : theValue;
-			setTimeZone(getTimeZone("GMT" + valueToUse));
-		}
-
-		return this;
-	}
-
 	private TimeZone getTimeZone(String offset) {
 		return timezoneCache.computeIfAbsent(offset, TimeZone::getTimeZone);
 	}
@@ -689,15 +529,6 @@ public abstract class BaseDateTimeDt extends BasePrimitive<Date> {
 		return this;
 	}
 
-	private void throwBadDateFormat(String theValue) {
-		throw new DataFormatException(Msg.code(1882) + "Invalid date/time format: \"" + theValue + "\"");
-	}
-
-	private void throwBadDateFormat(String theValue, String theMesssage) {
-		throw new DataFormatException(
-				Msg.code(1883) + "Invalid date/time format: \"" + theValue + "\": " + theMesssage);
-	}
-
 	/**
 	 * Returns a human readable version of this date/time using the system local format.
 	 * <p>
@@ -744,21 +575,6 @@ public abstract class BaseDateTimeDt extends BasePrimitive<Date> {
 		}
 	}
 
-	private void validateCharAtIndexIs(String theValue, int theIndex, char theChar) {
-		if (theValue.charAt(theIndex) != theChar) {
-			throwBadDateFormat(
-					theValue,
-					"Expected character '" + theChar + "' at index " + theIndex + " but found "
-							+ theValue.charAt(theIndex));
-		}
-	}
-
-	private void validateLengthIsAtLeast(String theValue, int theLength) {
-		if (theValue.length() < theLength) {
-			throwBadDateFormat(theValue);
-		}
-	}
-
 	private void validateValueInRange(long theValue, long theMinimum, long theMaximum) {
 		if (theValue < theMinimum || theValue > theMaximum) {
 			throw new IllegalArgumentException(Msg.code(1884) + "Value " + theValue
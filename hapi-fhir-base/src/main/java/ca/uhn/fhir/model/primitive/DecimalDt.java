@@ -22,6 +22,7 @@ package ca.uhn.fhir.model.primitive;
 import ca.uhn.fhir.model.api.BasePrimitive;
 import ca.uhn.fhir.model.api.annotation.DatatypeDef;
 import ca.uhn.fhir.model.api.annotation.SimpleSetter;
+import ca.uhn.fhir.util.DecimalParser;
 import org.hl7.fhir.instance.model.api.IBaseDecimalDatatype;
 
 import java.math.BigDecimal;
@@ -103,7 +104,7 @@ public class DecimalDt extends BasePrimitive<BigDecimal> implements Comparable<D
 
 	@Override
 	protected BigDecimal parse(String theValue) {
-		return new BigDecimal(theValue);
+		return DecimalParser.parse(theValue);
 	}
 
 	/**
@@ -49,6 +49,7 @@ import ca.uhn.fhir.util.MetaUtil;
 import ca.uhn.fhir.util.ResourceUtil;
 import ca.uhn.fhir.util.UrlUtil;
 import com.google.common.base.Charsets;
+import com.google.common.collect.Iterators;
 import jakarta.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.StringBuilderWriter;
@@ -73,6 +74,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -80,10 +82,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -107,6 +111,21 @@ public abstract class BaseParser implements IParser {
 	private static final Set<String> notEncodeForContainedResource =
 			new HashSet<>(Arrays.asList("security", "versionId", "lastUpdated"));
 
+	/**
+	 * The meta element is copied for every resource that gets encoded, so we look up
+	 * the <code>copy()</code> method once per meta type instead of every time
+	 */
+	private static final ClassValue<Method> ourMetaCopyMethods = new ClassValue<>() {
+		@Override
+		protected Method computeValue(Class<?> theType) {
+			try {
+				return theType.getMethod("copy");
+			} catch (NoSuchMethodException e) {
+				throw new InternalErrorException(Msg.code(2781) + "No copy() method on type: " + theType, e);
+			}
+		}
+	};
+
 	private boolean myEncodeElementsAppliesToChildResourcesOnly;
 	private final FhirContext myContext;
 	private Collection<String> myDontEncodeElements;
@@ -276,6 +295,72 @@ public abstract class BaseParser implements IParser {
 		encodeResourceToWriter(theResource, theWriter, encodeContext);
 	}
 
+	@Override
+	public void encodeBundleToWriter(IBaseBundle theBundle, Iterator<? extends IBase> theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		Validate.notNull(theBundle, "theBundle can not be null");
+		Validate.notNull(theEntries, "theEntries can not be null");
+
+		if (isSupportsStreamingBundleEntries()) {
+			EncodeContext encodeContext =
+					new EncodeContext(this, myContext.getParserOptions(), new FhirTerser.ContainedResources());
+			encodeContext.setStreamedBundleEntries(theBundle, theEntries);
+			encodeResourceToWriter(theBundle, theWriter, encodeContext);
+			return;
+		}
+
+		/*
+		 * This parser can't pull entries while it is writing, so temporarily add them
+		 * to the Bundle and encode it normally
+		 */
+		BaseRuntimeChildDefinition entryChild =
+				myContext.getResourceDefinition(theBundle).getChildByName("entry");
+		List<IBase> originalEntries = new ArrayList<>(entryChild.getAccessor().getValues(theBundle));
+		try {
+			theEntries.forEachRemaining(t -> entryChild.getMutator().addValue(theBundle, t));
+			encodeResourceToWriter(theBundle, theWriter);
+		} finally {
+			entryChild.getMutator().setValue(theBundle, null);
+			for (IBase next : originalEntries) {
+				entryChild.getMutator().addValue(theBundle, next);
+			}
+		}
+	}
+
+	/**
+	 * Subclasses which call {@link #getValuesToEncode(IBase, BaseRuntimeChildDefinition, List, EncodeContext)}
+	 * when iterating over child values should override this method to return <code>true</code>, which
+	 * allows {@link #encodeBundleToWriter(IBaseBundle, Iterator, Writer)} to pull entries lazily
+	 * instead of adding them to the Bundle before encoding.
+	 */
+	protected boolean isSupportsStreamingBundleEntries() {
+		return false;
+	}
+
+	/**
+	 * Returns the values to encode for the given child. This is normally just the supplied
+	 * values, but if the child is <code>Bundle.entry</code> on a Bundle being encoded by
+	 * {@link #encodeBundleToWriter(IBaseBundle, Iterator, Writer)} the streamed entries are
+	 * appended. In that case the returned Iterable can only be iterated once.
+	 *
+	 * @return The values to encode, or <code>null</code> if there is nothing to encode
+	 */
+	@Nullable
+	protected Iterable<? extends IBase> getValuesToEncode(
+			IBase theElement,
+			BaseRuntimeChildDefinition theChild,
+			List<? extends IBase> theValues,
+			EncodeContext theEncodeContext) {
+		Iterator<? extends IBase> streamedEntries = theEncodeContext.takeStreamedBundleEntries(theElement, theChild);
+		if (streamedEntries == null || !streamedEntries.hasNext()) {
+			return theValues == null || theValues.isEmpty() ? null : theValues;
+		}
+		if (theValues == null || theValues.isEmpty()) {
+			return () -> Iterators.unmodifiableIterator(streamedEntries);
+		}
+		return () -> Iterators.concat(theValues.iterator(), streamedEntries);
+	}
+
 	@Override
 	public String encodeToString(IBase theElement) throws DataFormatException {
 		Writer stringWriter = new StringBuilderWriter();
@@ -583,7 +668,7 @@ public abstract class BaseParser implements IParser {
 		return myOmitResourceId;
 	}
 
-	private boolean isOverrideResourceIdWithBundleEntryFullUrl() {
+	boolean isOverrideResourceIdWithBundleEntryFullUrl() {
 		Boolean overrideResourceIdWithBundleEntryFullUrl = myOverrideResourceIdWithBundleEntryFullUrl;
 		if (overrideResourceIdWithBundleEntryFullUrl != null) {
 			return overrideResourceIdWithBundleEntryFullUrl;
@@ -688,48 +773,75 @@ public abstract class BaseParser implements IParser {
 
 		RuntimeResourceDefinition def = myContext.getResourceDefinition(retVal);
 		if ("Bundle".equals(def.getName())) {
-
 			if (isOverrideResourceIdWithBundleEntryFullUrl()) {
-				BundleUtil.processEntries(myContext, (IBaseBundle) retVal, t -> {
-					String fullUrl = t.getFullUrl();
-					if (fullUrl != null) {
-						IBaseResource resource = t.getResource();
-						if (resource != null) {
-							IIdType resourceId = resource.getIdElement();
-							if (isBlank(resourceId.getValue())) {
-								resourceId.setValue(fullUrl);
-							} else {
-								if (fullUrl.startsWith("urn:")
-										&& fullUrl.length()
-												> resourceId.getIdPart().length()
-										&& fullUrl.charAt(fullUrl.length()
-														- resourceId.getIdPart().length()
-														- 1)
-												== ':'
-										&& fullUrl.endsWith(resourceId.getIdPart())) {
-									resourceId.setValue(fullUrl);
-								} else {
-									IIdType fullUrlId = myContext.getVersion().newIdType();
-									fullUrlId.setValue(fullUrl);
-									if (myContext.getVersion().getVersion().isOlderThan(FhirVersionEnum.DSTU3)) {
-										IIdType newId = fullUrlId;
-										if (!newId.hasVersionIdPart() && resourceId.hasVersionIdPart()) {
-											newId = newId.withVersion(resourceId.getVersionIdPart());
-										}
-										resourceId.setValue(newId.getValue());
-									} else if (StringUtils.equals(fullUrlId.getIdPart(), resourceId.getIdPart())) {
-										if (fullUrlId.hasBaseUrl()) {
-											IIdType newResourceId = resourceId.withServerBase(
-													fullUrlId.getBaseUrl(), resourceId.getResourceType());
-											resourceId.setValue(newResourceId.getValue());
-										}
-									}
+				overrideResourceIdsWithBundleEntryFullUrl((IBaseBundle) retVal);
+			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Replaces the ID of each resource in the given Bundle with the <code>Bundle.entry.fullUrl</code>
+	 * of the entry containing it, according to the rules described in
+	 * {@link ParserOptions#setOverrideResourceIdWithBundleEntryFullUrl(boolean)}.
+	 */
+	void overrideResourceIdsWithBundleEntryFullUrl(IBaseBundle theBundle) {
+		BundleUtil.processEntries(myContext, theBundle, t -> {
+			String fullUrl = t.getFullUrl();
+			if (fullUrl != null) {
+				IBaseResource resource = t.getResource();
+				if (resource != null) {
+					IIdType resourceId = resource.getIdElement();
+					if (isBlank(resourceId.getValue())) {
+						resourceId.setValue(fullUrl);
+					} else {
+						if (fullUrl.startsWith("urn:")
+								&& fullUrl.length() > resourceId.getIdPart().length()
+								&& fullUrl.charAt(fullUrl.length()
+												- resourceId.getIdPart().length()
+												- 1)
+										== ':'
+								&& fullUrl.endsWith(resourceId.getIdPart())) {
+							resourceId.setValue(fullUrl);
+						} else {
+							IIdType fullUrlId = myContext.getVersion().newIdType();
+							fullUrlId.setValue(fullUrl);
+							if (myContext.getVersion().getVersion().isOlderThan(FhirVersionEnum.DSTU3)) {
+								IIdType newId = fullUrlId;
+								if (!newId.hasVersionIdPart() && resourceId.hasVersionIdPart()) {
+									newId = newId.withVersion(resourceId.getVersionIdPart());
+								}
+								resourceId.setValue(newId.getValue());
+							} else if (StringUtils.equals(fullUrlId.getIdPart(), resourceId.getIdPart())) {
+								if (fullUrlId.hasBaseUrl()) {
+									IIdType newResourceId = resourceId.withServerBase(
+											fullUrlId.getBaseUrl(), resourceId.getResourceType());
+									resourceId.setValue(newResourceId.getValue());
 								}
 							}
 						}
 					}
-				});
+				}
 			}
+		});
+	}
+
+	@Override
+	public <T extends IBaseBundle> T parseBundleEntries(
+			Class<T> theBundleType, Reader theReader, Consumer<IBase> theEntryConsumer) throws DataFormatException {
+		Validate.notNull(theBundleType, "theBundleType must not be null");
+		Validate.notNull(theEntryConsumer, "theEntryConsumer must not be null");
+
+		T retVal = parseResource(theBundleType, theReader);
+
+		BaseRuntimeChildDefinition entryChild =
+				myContext.getResourceDefinition(retVal).getChildByName("entry");
+		List<IBase> entries = new ArrayList<>(entryChild.getAccessor().getValues(retVal));
+		entryChild.getMutator().setValue(retVal, null);
+
+		for (IBase next : entries) {
+			theEntryConsumer.accept(next);
 		}
 
 		return retVal;
@@ -778,7 +890,7 @@ public abstract class BaseParser implements IParser {
 				IBaseMetaType metaValue = (IBaseMetaType) theValues.get(0);
 				try {
 					metaValue = (IBaseMetaType)
-							metaValue.getClass().getMethod("copy").invoke(metaValue);
+							ourMetaCopyMethods.get(metaValue.getClass()).invoke(metaValue);
 				} catch (Exception e) {
 					throw new InternalErrorException(Msg.code(1830) + "Failed to duplicate meta", e);
 				}
@@ -1078,6 +1190,8 @@ public abstract class BaseParser implements IParser {
 		private final Set<String> myEncodeElementsAppliesToResourceTypes;
 		private final List<EncodeContextPath> myDontEncodeElementPaths;
 		private FhirTerser.ContainedResources myContainedResources;
+		private IBaseBundle myStreamedBundle;
+		private Iterator<? extends IBase> myStreamedBundleEntries;
 
 		public EncodeContext(
 				BaseParser theParser,
@@ -1122,6 +1236,28 @@ public abstract class BaseParser implements IParser {
 		public void setContainedResources(FhirTerser.ContainedResources theContainedResources) {
 			myContainedResources = theContainedResources;
 		}
+
+		void setStreamedBundleEntries(IBaseBundle theBundle, Iterator<? extends IBase> theEntries) {
+			myStreamedBundle = theBundle;
+			myStreamedBundleEntries = theEntries;
+		}
+
+		/**
+		 * Returns the streamed entries if the given child is <code>Bundle.entry</code> of the
+		 * Bundle being streamed, or <code>null</code> otherwise. The entries are only returned once.
+		 */
+		@Nullable
+		Iterator<? extends IBase> takeStreamedBundleEntries(IBase theElement, BaseRuntimeChildDefinition theChild) {
+			if (myStreamedBundle == null
+					|| myStreamedBundle != theElement
+					|| !"entry".equals(theChild.getElementName())) {
+				return null;
+			}
+			Iterator<? extends IBase> retVal = myStreamedBundleEntries;
+			myStreamedBundle = null;
+			myStreamedBundleEntries = null;
+			return retVal;
+		}
 	}
 
 	protected class CompositeChildElement {
@@ -1129,6 +1265,11 @@ public abstract class BaseParser implements IParser {
 		private final CompositeChildElement myParent;
 		private final RuntimeResourceDefinition myResDef;
 		private final EncodeContext myEncodeContext;
+		/**
+		 * These objects are used as (part of) the key for the composite children cache, so the
+		 * hash code is computed once up front instead of walking the parent chain on every lookup
+		 */
+		private final int myHashCode;
 
 		public CompositeChildElement(
 				CompositeChildElement theParent,
@@ -1138,6 +1279,7 @@ public abstract class BaseParser implements IParser {
 			myParent = theParent;
 			myResDef = null;
 			myEncodeContext = theEncodeContext;
+			myHashCode = computeHashCode();
 
 			if (ourLog.isTraceEnabled()) {
 				if (theParent != null) {
@@ -1158,6 +1300,7 @@ public abstract class BaseParser implements IParser {
 			myDef = null;
 			myParent = null;
 			myEncodeContext = theEncodeContext;
+			myHashCode = computeHashCode();
 		}
 
 		@Override
@@ -1334,8 +1477,7 @@ public abstract class BaseParser implements IParser {
 			return retVal;
 		}
 
-		@Override
-		public int hashCode() {
+		private int computeHashCode() {
 			final int prime = 31;
 			int result = 1;
 			result = prime * result + ((myDef == null) ? 0 : myDef.hashCode());
@@ -1345,13 +1487,19 @@ public abstract class BaseParser implements IParser {
 			return result;
 		}
 
+		@Override
+		public int hashCode() {
+			return myHashCode;
+		}
+
 		@Override
 		public boolean equals(Object obj) {
 			if (this == obj) return true;
 
 			if (obj instanceof CompositeChildElement) {
 				final CompositeChildElement that = (CompositeChildElement) obj;
-				return Objects.equals(this.getEnclosingInstance(), that.getEnclosingInstance())
+				return this.myHashCode == that.myHashCode
+						&& Objects.equals(this.getEnclosingInstance(), that.getEnclosingInstance())
 						&& Objects.equals(this.myDef, that.myDef)
 						&& Objects.equals(this.myParent, that.myParent)
 						&& Objects.equals(this.myResDef, that.myResDef)
@@ -1370,6 +1518,7 @@ public abstract class BaseParser implements IParser {
 		private final boolean theContainedResource;
 		private final BaseParser.CompositeChildElement theParent;
 		private final BaseParser.EncodeContext theEncodeContext;
+		private final int myHashCode;
 
 		public Key(
 				BaseRuntimeElementCompositeDefinition<?> resDef,
@@ -1380,10 +1529,15 @@ public abstract class BaseParser implements IParser {
 			this.theContainedResource = theContainedResource;
 			this.theParent = theParent;
 			this.theEncodeContext = theEncodeContext;
+			this.myHashCode = computeHashCode();
 		}
 
 		@Override
 		public int hashCode() {
+			return myHashCode;
+		}
+
+		private int computeHashCode() {
 			final int prime = 31;
 			int result = 1;
 			result = prime * result + ((resDef == null) ? 0 : resDef.hashCode());
@@ -1400,7 +1554,8 @@ public abstract class BaseParser implements IParser {
 			}
 			if (obj instanceof Key) {
 				final Key that = (Key) obj;
-				return Objects.equals(this.resDef, that.resDef)
+				return this.myHashCode == that.myHashCode
+						&& Objects.equals(this.resDef, that.resDef)
 						&& this.theContainedResource == that.theContainedResource
 						&& Objects.equals(this.theParent, that.theParent)
 						&& Objects.equals(this.theEncodeContext, that.theEncodeContext);
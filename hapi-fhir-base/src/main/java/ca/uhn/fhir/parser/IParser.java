@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.parser;
 
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.ParserOptions;
@@ -31,6 +32,7 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
@@ -39,9 +41,12 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * A parser, which can be used to convert between HAPI FHIR model/structure objects, and their respective String wire
@@ -71,6 +76,42 @@ public interface IParser {
 	 */
 	void encodeResourceToWriter(IBaseResource theResource, Writer theWriter) throws IOException, DataFormatException;
 
+	/**
+	 * Encodes a Bundle, pulling the entries to encode from the given iterator one at a time
+	 * instead of requiring every entry to be present in the Bundle object. This allows very
+	 * large Bundles (e.g. large search pages or <code>$everything</code> results) to be written
+	 * while entries are being produced, without holding the complete Bundle in memory.
+	 * <p>
+	 * The JSON and XML parsers write the Bundle header (all elements which precede
+	 * <code>Bundle.entry</code>), then each entry as it is returned by the iterator, and then
+	 * any remaining elements (e.g. <code>Bundle.signature</code>). The output is identical to
+	 * encoding a Bundle containing all of the entries. Other encodings, including the default
+	 * implementation of this method, add the entries to the Bundle temporarily and encode it normally.
+	 * </p>
+	 *
+	 * @param theBundle  The Bundle to encode. Any entries already present in the Bundle are encoded
+	 *                   before the entries supplied by <code>theEntries</code>.
+	 * @param theEntries The entries to encode (e.g. R4 <code>Bundle.BundleEntryComponent</code> instances)
+	 * @param theWriter  The writer to write to. Note that the writer will not be closed by the parser.
+	 * @since 8.4.0
+	 */
+	default void encodeBundleToWriter(IBaseBundle theBundle, Iterator<? extends IBase> theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		BaseRuntimeChildDefinition entryChild = FhirContext.forCached(theBundle.getStructureFhirVersionEnum())
+				.getResourceDefinition(theBundle)
+				.getChildByName("entry");
+		List<IBase> originalEntries = new ArrayList<>(entryChild.getAccessor().getValues(theBundle));
+		try {
+			theEntries.forEachRemaining(t -> entryChild.getMutator().addValue(theBundle, t));
+			encodeResourceToWriter(theBundle, theWriter);
+		} finally {
+			entryChild.getMutator().setValue(theBundle, null);
+			for (IBase next : originalEntries) {
+				entryChild.getMutator().addValue(theBundle, next);
+			}
+		}
+	}
+
 	/**
 	 * Encodes any FHIR element to a string.
 	 * If a {@link IBaseResource resource object} is passed in, the resource will be encoded using standard FHIR
@@ -245,6 +286,38 @@ public interface IParser {
 	 */
 	<T extends IBaseResource> T parseResource(Class<T> theResourceType, Reader theReader) throws DataFormatException;
 
+	/**
+	 * Parses a Bundle, passing each <code>Bundle.entry</code> to the given consumer in document
+	 * order instead of adding it to the returned Bundle. This is intended for processing very
+	 * large Bundles (e.g. large transactions or <code>$everything</code> results) without
+	 * holding every entry in memory at the same time.
+	 * <p>
+	 * The JSON parser reads the input incrementally, so only a single entry is held in memory
+	 * at any given time. Other encodings parse the complete Bundle first and then pass the
+	 * entries to the consumer one at a time.
+	 * </p>
+	 *
+	 * @param theBundleType    The Bundle type to parse (e.g. <code>org.hl7.fhir.r4.model.Bundle</code>)
+	 * @param theReader        The reader to parse input from. Note that the Reader will not be closed by the parser upon completion.
+	 * @param theEntryConsumer Receives each parsed entry (e.g. an R4 <code>Bundle.BundleEntryComponent</code>)
+	 * @return The parsed Bundle, containing every element except <code>Bundle.entry</code>
+	 * @throws DataFormatException If the resource can not be parsed because the data is not recognized or invalid for any reason
+	 * @since 8.4.0
+	 */
+	default <T extends IBaseBundle> T parseBundleEntries(
+			Class<T> theBundleType, Reader theReader, Consumer<IBase> theEntryConsumer) throws DataFormatException {
+		T retVal = parseResource(theBundleType, theReader);
+
+		BaseRuntimeChildDefinition entryChild = FhirContext.forCached(retVal.getStructureFhirVersionEnum())
+				.getResourceDefinition(retVal)
+				.getChildByName("entry");
+		List<IBase> entries = new ArrayList<>(entryChild.getAccessor().getValues(retVal));
+		entryChild.getMutator().setValue(retVal, null);
+
+		entries.forEach(theEntryConsumer);
+		return retVal;
+	}
+
 	/**
 	 * Parses a resource
 	 *
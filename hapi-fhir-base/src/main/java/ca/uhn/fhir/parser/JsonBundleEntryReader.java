@@ -0,0 +1,194 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a JSON encoded Bundle incrementally, returning one <code>Bundle.entry</code> at a
+ * time. The input is consumed as a stream of JSON tokens and only the entry currently being
+ * returned is held in memory, so arbitrarily large Bundles can be processed with bounded heap.
+ * <p>
+ * All elements of the Bundle other than <code>Bundle.entry</code> are collected as they
+ * are encountered and can be retrieved using {@link #getBundle()}. Because JSON object
+ * properties may appear in any order, the Bundle returned by that method is only guaranteed to
+ * be complete once {@link #hasNext()} has returned <code>false</code>.
+ * </p>
+ * <p>
+ * Instances are created using {@link JsonParser#newBundleEntryReader(Class, Reader)} and are not
+ * thread safe. Closing this reader does not close the underlying {@link Reader}.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public class JsonBundleEntryReader<T extends IBaseBundle> implements Iterator<IBase>, Closeable {
+
+	private final JsonParser myParser;
+	private final Class<T> myBundleType;
+	private final com.fasterxml.jackson.core.JsonParser myJsonParser;
+	private final ObjectNode myBundleObject;
+	private final BaseRuntimeChildDefinition myEntryChild;
+	private boolean myInEntryArray;
+	private IBase myNext;
+	private int myEntryIndex;
+
+	JsonBundleEntryReader(JsonParser theParser, Class<T> theBundleType, Reader theReader) {
+		myParser = theParser;
+		myBundleType = theBundleType;
+		myEntryChild =
+				theParser.getContext().getResourceDefinition(theBundleType).getChildByName("entry");
+
+		try {
+			myJsonParser = JacksonStructure.createStreamingParser(theReader);
+			myBundleObject = (ObjectNode) myJsonParser.getCodec().createObjectNode();
+			if (myJsonParser.nextToken() != JsonToken.START_OBJECT) {
+				throw new DataFormatException(
+						Msg.code(2775) + "Content does not appear to be a FHIR JSON Bundle, it must start with '{'");
+			}
+			readBundleProperties();
+		} catch (IOException e) {
+			throw newDataFormatException(e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			while (myNext == null && myInEntryArray) {
+				JsonToken token = myJsonParser.nextToken();
+				if (token == JsonToken.END_ARRAY) {
+					myInEntryArray = false;
+					readBundleProperties();
+				} else if (token == JsonToken.START_OBJECT) {
+					ObjectNode entry = myJsonParser.readValueAsTree();
+					myNext = parseEntry(entry);
+					myEntryIndex++;
+				} else {
+					throw new DataFormatException(Msg.code(2776) + "Bundle.entry[" + myEntryIndex
+							+ "] must be a JSON object, found: " + token);
+				}
+			}
+		} catch (IOException e) {
+			throw newDataFormatException(e);
+		}
+		return myNext != null;
+	}
+
+	@Override
+	public IBase next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException(Msg.code(2777) + "No more Bundle entries");
+		}
+		IBase retVal = myNext;
+		myNext = null;
+		return retVal;
+	}
+
+	/**
+	 * Returns a Bundle populated with every element read so far other than
+	 * <code>Bundle.entry</code>.
+	 */
+	public T getBundle() {
+		ObjectNode bundleObject = myBundleObject.deepCopy();
+		if (!bundleObject.has("resourceType")) {
+			bundleObject.put("resourceType", "Bundle");
+		}
+		JacksonStructure structure = new JacksonStructure();
+		structure.setNativeObject(bundleObject);
+		return myParser.doParseResource(myBundleType, structure);
+	}
+
+	@Override
+	public void close() throws IOException {
+		myJsonParser.close();
+	}
+
+	/**
+	 * Reads properties of the Bundle object until either the start of the
+	 * <code>entry</code> array or the end of the Bundle has been reached.
+	 */
+	private void readBundleProperties() throws IOException {
+		while (true) {
+			JsonToken token = myJsonParser.nextToken();
+			if (token == null || token == JsonToken.END_OBJECT) {
+				return;
+			}
+
+			String name = myJsonParser.currentName();
+			token = myJsonParser.nextToken();
+			if ("entry".equals(name)) {
+				if (token != JsonToken.START_ARRAY) {
+					throw new DataFormatException(
+							Msg.code(2778) + "Bundle.entry must be a JSON array, found: " + token);
+				}
+				myInEntryArray = true;
+				return;
+			}
+
+			JsonNode value = myJsonParser.readValueAsTree();
+			if ("resourceType".equals(name) && !"Bundle".equals(value.asText())) {
+				throw new DataFormatException(
+						Msg.code(2779) + "Expected a resource of type Bundle, found: " + value.asText());
+			}
+			myBundleObject.set(name, value);
+		}
+	}
+
+	/**
+	 * Parses a single entry by wrapping it in an otherwise empty Bundle, so that it goes
+	 * through exactly the same parsing logic (including the handling of
+	 * <code>Bundle.entry.fullUrl</code>) as it would in a fully parsed Bundle.
+	 */
+	private IBase parseEntry(ObjectNode theEntry) {
+		ObjectNode bundleObject = (ObjectNode) myJsonParser.getCodec().createObjectNode();
+		bundleObject.put("resourceType", "Bundle");
+		bundleObject.putArray("entry").add(theEntry);
+
+		JacksonStructure structure = new JacksonStructure();
+		structure.setNativeObject(bundleObject);
+		T bundle = myParser.doParseResource(myBundleType, structure);
+		if (myParser.isOverrideResourceIdWithBundleEntryFullUrl()) {
+			myParser.overrideResourceIdsWithBundleEntryFullUrl(bundle);
+		}
+
+		List<IBase> entries = myEntryChild.getAccessor().getValues(bundle);
+		return entries.get(0);
+	}
+
+	private static DataFormatException newDataFormatException(IOException theException) {
+		return new DataFormatException(
+				Msg.code(2780) + "Failed to parse JSON encoded FHIR content: " + theException.getMessage(),
+				theException);
+	}
+}
@@ -61,6 +61,7 @@ import org.apache.commons.lang3.Validate;
 import org.apache.commons.text.WordUtils;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBooleanDatatype;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseDecimalDatatype;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
 import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
@@ -81,6 +82,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.ID_DATATYPE;
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.PRIMITIVE_DATATYPE;
@@ -555,7 +557,9 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
 			values = preProcessValues(nextChild, theResource, values, nextChildElem, theEncodeContext);
 
-			if (values == null || values.isEmpty()) {
+			Iterable<? extends IBase> valuesToEncode =
+					getValuesToEncode(theElement, nextChild, values, theEncodeContext);
+			if (valuesToEncode == null) {
 				continue;
 			}
 
@@ -568,7 +572,7 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			ArrayList<String> ids = new ArrayList<>(0);
 
 			int valueIdx = 0;
-			for (IBase nextValue : values) {
+			for (IBase nextValue : valuesToEncode) {
 
 				if (nextValue == null || nextValue.isEmpty()) {
 					if (nextValue instanceof BaseContainedDt) {
@@ -1245,6 +1249,11 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	@Override
+	protected boolean isSupportsStreamingBundleEntries() {
+		return true;
+	}
+
 	@Override
 	public EncodingEnum getEncoding() {
 		return EncodingEnum.JSON;
@@ -1667,6 +1676,34 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	/**
+	 * Creates a reader which parses a JSON Bundle incrementally, returning one
+	 * <code>Bundle.entry</code> at a time without ever holding the complete Bundle
+	 * in memory.
+	 *
+	 * @param theBundleType The Bundle type to parse (e.g. <code>org.hl7.fhir.r4.model.Bundle</code>)
+	 * @param theReader     The reader to parse input from. Note that the Reader will not be closed by the parser.
+	 * @see IParser#parseBundleEntries(Class, Reader, Consumer)
+	 * @since 8.4.0
+	 */
+	public <T extends IBaseBundle> JsonBundleEntryReader<T> newBundleEntryReader(
+			Class<T> theBundleType, Reader theReader) {
+		Validate.notNull(theBundleType, "theBundleType must not be null");
+		return new JsonBundleEntryReader<>(this, theBundleType, theReader);
+	}
+
+	@Override
+	public <T extends IBaseBundle> T parseBundleEntries(
+			Class<T> theBundleType, Reader theReader, Consumer<IBase> theEntryConsumer) throws DataFormatException {
+		Validate.notNull(theEntryConsumer, "theEntryConsumer must not be null");
+
+		JsonBundleEntryReader<T> reader = newBundleEntryReader(theBundleType, theReader);
+		while (reader.hasNext()) {
+			theEntryConsumer.accept(reader.next());
+		}
+		return reader.getBundle();
+	}
+
 	@Override
 	public IBaseResource parseResource(JsonLikeStructure theJsonLikeStructure) throws DataFormatException {
 		return parseResource(null, theJsonLikeStructure);
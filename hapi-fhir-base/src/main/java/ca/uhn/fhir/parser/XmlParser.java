@@ -489,10 +489,12 @@ public class XmlParser extends BaseParser {
 				List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
 				values = preProcessValues(nextChild, theResource, values, nextChildElem, theEncodeContext);
 
-				if (values == null || values.isEmpty()) {
+				Iterable<? extends IBase> valuesToEncode =
+						getValuesToEncode(theElement, nextChild, values, theEncodeContext);
+				if (valuesToEncode == null) {
 					continue;
 				}
-				for (IBase nextValue : values) {
+				for (IBase nextValue : valuesToEncode) {
 					if ((nextValue == null || nextValue.isEmpty())) {
 						continue;
 					}
@@ -997,6 +999,11 @@ public class XmlParser extends BaseParser {
 		}
 	}
 
+	@Override
+	protected boolean isSupportsStreamingBundleEntries() {
+		return true;
+	}
+
 	@Override
 	public EncodingEnum getEncoding() {
 		return EncodingEnum.XML;
@@ -34,6 +34,7 @@ import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.DecimalNode;
@@ -151,6 +152,19 @@ public class JacksonStructure implements JsonLikeStructure {
 		}
 	}
 
+	/**
+	 * Creates a streaming (token based) Jackson parser which uses the same configuration
+	 * as the tree parser used by {@link #load(Reader)}. Subtrees read from the returned
+	 * parser can be passed to {@link #setNativeObject(ObjectNode)}. Trailing tokens are
+	 * permitted since subtrees are read one at a time from the middle of the document.
+	 */
+	public static JsonParser createStreamingParser(Reader theReader) throws IOException {
+		ObjectReader reader = OBJECT_MAPPER.reader().without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+		JsonParser retVal = reader.createParser(theReader);
+		retVal.setCodec(reader);
+		return retVal;
+	}
+
 	@Override
 	public BaseJsonLikeWriter getJsonLikeWriter(Writer writer) throws IOException {
 		if (null == jacksonWriter) {
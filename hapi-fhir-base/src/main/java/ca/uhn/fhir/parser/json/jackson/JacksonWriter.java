@@ -40,6 +40,14 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 		setWriter(theWriter);
 	}
 
+	/**
+	 * Creates a writer which writes to an existing generator. This can be used to
+	 * write to a non-text format such as a binary Jackson dataformat.
+	 */
+	public JacksonWriter(JsonGenerator theJsonGenerator) {
+		myJsonGenerator = theJsonGenerator;
+	}
+
 	public JacksonWriter() {}
 
 	@Override
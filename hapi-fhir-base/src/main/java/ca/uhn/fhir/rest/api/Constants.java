@@ -217,6 +217,12 @@ public class Constants {
 	public static final String PARAM_CONTENT = "_content";
 	public static final String PARAM_COUNT = "_count";
 	public static final String PARAM_OFFSET = "_offset";
+	/**
+	 * Used in keyset paging links to carry the sort key of the last result on the previous page
+	 *
+	 * @since 8.4.0
+	 */
+	public static final String PARAM_SEARCH_AFTER = "_searchAfter";
 	public static final String PARAM_DELETE = "_delete";
 	public static final String PARAM_ELEMENTS = "_elements";
 	public static final String PARAM_ELEMENTS_EXCLUDE_MODIFIER = ":exclude";
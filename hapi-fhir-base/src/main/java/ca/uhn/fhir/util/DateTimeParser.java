@@ -0,0 +1,462 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.util;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+import ca.uhn.fhir.parser.DataFormatException;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parses the FHIR <code>date</code>, <code>dateTime</code> and <code>instant</code> string formats
+ * (a subset of ISO-8601).
+ * <p>
+ * The value is read in place without creating substrings or a {@link Calendar}, and the resulting
+ * {@link ParsedDateTime} only creates a {@link Date} or {@link Calendar} when one is asked for. This
+ * parser is shared by {@link ca.uhn.fhir.model.primitive.BaseDateTimeDt} and may also be used by the
+ * <code>BaseDateTimeType</code> classes in the HL7.org structures.
+ * </p>
+ */
+public class DateTimeParser {
+
+	/**
+	 * Dates before the Gregorian cutover in 1582 are interpreted using the Julian calendar by
+	 * {@link GregorianCalendar}, so those are left to the calendar to convert
+	 */
+	private static final int FIRST_GREGORIAN_YEAR = 1583;
+
+	private static final long DAYS_0000_TO_1970 = 719528L;
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+	private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+	private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+	private static final int MAX_OFFSET_MINUTES = 24 * 60;
+	private static final TimeZone ourGmt = TimeZone.getTimeZone("GMT");
+
+	/**
+	 * Offset time zones, indexed by {@link #offsetZoneIndex(boolean, int)}. Negative and positive zero
+	 * offsets are kept separate since they have different IDs.
+	 */
+	private static final AtomicReferenceArray<TimeZone> ourOffsetTimeZones =
+			new AtomicReferenceArray<>(2 * MAX_OFFSET_MINUTES);
+
+	/**
+	 * Non instantiable
+	 */
+	private DateTimeParser() {}
+
+	/**
+	 * Parses a FHIR date/time string. Leading and trailing spaces are ignored.
+	 *
+	 * @param theValue The value to parse, must not be null
+	 * @return The parsed value, or <code>null</code> if the value is empty
+	 * @throws DataFormatException If the value is not a valid date/time
+	 */
+	public static ParsedDateTime parse(String theValue) throws DataFormatException {
+		String value = theValue;
+		if (value.length() > 0 && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ')) {
+			value = value.trim();
+		}
+
+		int length = value.length();
+		if (length == 0) {
+			return null;
+		}
+
+		if (length < 4) {
+			throwBadDateFormat(value);
+		}
+
+		ParsedDateTime retVal = new ParsedDateTime(value);
+		retVal.myYear = parseInt(value, 0, 4, 0, 9999);
+		retVal.myPrecision = TemporalPrecisionEnum.YEAR;
+		if (length > 4) {
+			validateCharAtIndexIs(value, 4, '-');
+			validateLengthIsAtLeast(value, 7);
+			retVal.myMonth = parseInt(value, 5, 7, 1, 12);
+			retVal.myPrecision = TemporalPrecisionEnum.MONTH;
+			if (length > 7) {
+				validateCharAtIndexIs(value, 7, '-');
+				validateLengthIsAtLeast(value, 10);
+				retVal.myDay = parseInt(value, 8, 10, 1, daysInMonth(retVal.myYear, retVal.myMonth));
+				retVal.myPrecision = TemporalPrecisionEnum.DAY;
+				if (length > 10) {
+					validateLengthIsAtLeast(value, 16);
+					validateCharAtIndexIs(value, 10, 'T'); // yyyy-mm-ddThh:mm:ss
+					int offsetIdx = getOffsetIndex(value);
+					int timeEnd = length;
+					if (offsetIdx != -1) {
+						timeEnd = offsetIdx;
+						parseTimeZone(value, offsetIdx, retVal);
+					}
+					int timeLength = timeEnd - 11;
+
+					validateCharAtIndexIs(value, 13, ':');
+					retVal.myHour = parseInt(value, 11, 13, 0, 23);
+					retVal.myMinute = parseInt(value, 14, 16, 0, 59);
+					retVal.myPrecision = TemporalPrecisionEnum.MINUTE;
+					if (timeLength > 5) {
+						validateLengthIsAtLeast(value, 19);
+						validateCharAtIndexIs(value, 16, ':'); // yyyy-mm-ddThh:mm:ss
+						retVal.mySecond = parseInt(value, 17, 19, 0, 59);
+						retVal.myPrecision = TemporalPrecisionEnum.SECOND;
+						if (timeLength > 8) {
+							validateCharAtIndexIs(value, 19, '.'); // yyyy-mm-ddThh:mm:ss.SSSS
+							validateLengthIsAtLeast(value, 20);
+							int millisEnd = Math.min(timeEnd, 23);
+							int millis = parseInt(value, 20, millisEnd, 0, 999);
+							if (millisEnd - 20 == 1) {
+								millis = millis * 100;
+							} else if (millisEnd - 20 == 2) {
+								millis = millis * 10;
+							}
+							retVal.myMillis = millis;
+							retVal.myFractionalSecondsStart = 20;
+							retVal.myFractionalSecondsEnd = timeEnd;
+							retVal.myPrecision = TemporalPrecisionEnum.MILLI;
+						}
+					}
+				}
+			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Find the offset for a timestamp.  If it exists.  An offset may start either with '-', 'Z', '+', or ' '.
+	 * <p/>
+	 * There is a special case where ' ' is considered a valid offset initial character and this is because when
+	 * handling URLs with timestamps, '+' is considered an escape character for ' ', so '+' may have been replaced with
+	 * ' ' by the time execution reaches this method.  This is why this method handles both characters.
+	 *
+	 * @param theValueString A timestamp containing either a timezone offset or nothing.
+	 * @return The index of the offset portion of the timestamp, if applicable, otherwise -1
+	 */
+	private static int getOffsetIndex(String theValueString) {
+		int plusIndex = theValueString.indexOf('+', 16);
+		int spaceIndex = theValueString.indexOf(' ', 16);
+		int minusIndex = theValueString.indexOf('-', 16);
+		int zIndex = theValueString.indexOf('Z', 16);
+		int maxIndexPlusAndMinus = Math.max(Math.max(plusIndex, minusIndex), zIndex);
+		int maxIndexSpaceAndMinus = Math.max(Math.max(spaceIndex, minusIndex), zIndex);
+		if (maxIndexPlusAndMinus == -1 && maxIndexSpaceAndMinus == -1) {
+			return -1;
+		}
+		int retVal = 0;
+		if (maxIndexPlusAndMinus != -1) {
+			if ((maxIndexPlusAndMinus - 2) != (plusIndex + minusIndex + zIndex)) {
+				throwBadDateFormat(theValueString);
+			}
+			retVal = maxIndexPlusAndMinus;
+		}
+
+		if (maxIndexSpaceAndMinus != -1) {
+			if ((maxIndexSpaceAndMinus - 2) != (spaceIndex + minusIndex + zIndex)) {
+				throwBadDateFormat(theValueString);
+			}
+			retVal = maxIndexSpaceAndMinus;
+		}
+
+		return retVal;
+	}
+
+	private static void parseTimeZone(String theValue, int theOffsetIdx, ParsedDateTime theTarget) {
+		if (theValue.charAt(theOffsetIdx) == 'Z') {
+			theTarget.myTimeZoneZulu = true;
+		} else if (theValue.length() - theOffsetIdx != 6) {
+			throwBadDateFormat(theValue, "Timezone offset must be in the form \"Z\", \"-HH:mm\", or \"+HH:mm\"");
+		} else if (theValue.charAt(theOffsetIdx + 3) != ':') {
+			throwBadDateFormat(theValue, "Timezone offset must be in the form \"Z\", \"-HH:mm\", or \"+HH:mm\"");
+		} else {
+			boolean negative = theValue.charAt(theOffsetIdx) == '-';
+			int hours = parseInt(theValue, theOffsetIdx + 1, theOffsetIdx + 3, 0, 23);
+			int minutes = parseInt(theValue, theOffsetIdx + 4, theOffsetIdx + 6, 0, 59);
+			int offsetMinutes = hours * 60 + minutes;
+			theTarget.myTimeZone = getOffsetTimeZone(negative, offsetMinutes);
+			theTarget.myOffsetMillis = (int) ((negative ? -offsetMinutes : offsetMinutes) * MILLIS_PER_MINUTE);
+		}
+	}
+
+	private static TimeZone getOffsetTimeZone(boolean theNegative, int theOffsetMinutes) {
+		int index = offsetZoneIndex(theNegative, theOffsetMinutes);
+		TimeZone retVal = ourOffsetTimeZones.get(index);
+		if (retVal == null) {
+			int hours = theOffsetMinutes / 60;
+			int minutes = theOffsetMinutes % 60;
+			StringBuilder id = new StringBuilder("GMT");
+			id.append(theNegative ? '-' : '+');
+			id.append(hours < 10 ? "0" : "").append(hours);
+			id.append(':');
+			id.append(minutes < 10 ? "0" : "").append(minutes);
+			retVal = TimeZone.getTimeZone(id.toString());
+			ourOffsetTimeZones.set(index, retVal);
+		}
+		return retVal;
+	}
+
+	private static int offsetZoneIndex(boolean theNegative, int theOffsetMinutes) {
+		return (theNegative ? 0 : MAX_OFFSET_MINUTES) + theOffsetMinutes;
+	}
+
+	/**
+	 * Parses the non-negative integer between the given indexes, which must consist only of digits
+	 */
+	private static int parseInt(String theValue, int theStart, int theEnd, int theLowerBound, int theUpperBound) {
+		if (theStart >= theEnd) {
+			throwBadDateFormat(theValue);
+		}
+		int retVal = 0;
+		for (int i = theStart; i < theEnd; i++) {
+			char next = theValue.charAt(i);
+			if (next < '0' || next > '9') {
+				throwBadDateFormat(theValue);
+			}
+			retVal = retVal * 10 + (next - '0');
+		}
+
+		if (retVal < theLowerBound || retVal > theUpperBound) {
+			throwBadDateFormat(theValue);
+		}
+
+		return retVal;
+	}
+
+	private static int daysInMonth(int theYear, int theMonth) {
+		switch (theMonth) {
+			case 2:
+				return isLeapYear(theYear) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	private static boolean isLeapYear(int theYear) {
+		if (theYear < FIRST_GREGORIAN_YEAR) {
+			return theYear % 4 == 0;
+		}
+		return (theYear % 4 == 0 && theYear % 100 != 0) || theYear % 400 == 0;
+	}
+
+	private static void validateCharAtIndexIs(String theValue, int theIndex, char theChar) {
+		if (theValue.charAt(theIndex) != theChar) {
+			throwBadDateFormat(
+					theValue,
+					"Expected character '" + theChar + "' at index " + theIndex + " but found "
+							+ theValue.charAt(theIndex));
+		}
+	}
+
+	private static void validateLengthIsAtLeast(String theValue, int theLength) {
+		if (theValue.length() < theLength) {
+			throwBadDateFormat(theValue);
+		}
+	}
+
+	private static void throwBadDateFormat(String theValue) {
+		throw new DataFormatException(Msg.code(1882) + "Invalid date/time format: \"" + theValue + "\"");
+	}
+
+	private static void throwBadDateFormat(String theValue, String theMesssage) {
+		throw new DataFormatException(
+				Msg.code(1883) + "Invalid date/time format: \"" + theValue + "\": " + theMesssage);
+	}
+
+	/**
+	 * The result of {@link DateTimeParser#parse(String)}. Fields which are not present in the value
+	 * (according to {@link #getPrecision()}) have their lowest value, e.g. a month of 1.
+	 */
+	public static class ParsedDateTime {
+
+		private final String myValue;
+		private TemporalPrecisionEnum myPrecision;
+		private int myYear;
+		private int myMonth = 1;
+		private int myDay = 1;
+		private int myHour;
+		private int myMinute;
+		private int mySecond;
+		private int myMillis;
+		private int myFractionalSecondsStart;
+		private int myFractionalSecondsEnd;
+		private boolean myTimeZoneZulu;
+		private TimeZone myTimeZone;
+		private int myOffsetMillis;
+
+		private ParsedDateTime(String theValue) {
+			myValue = theValue;
+		}
+
+		/**
+		 * Returns the value that was parsed, with any leading and trailing spaces removed
+		 */
+		public String getValue() {
+			return myValue;
+		}
+
+		public TemporalPrecisionEnum getPrecision() {
+			return myPrecision;
+		}
+
+		public int getYear() {
+			return myYear;
+		}
+
+		/**
+		 * Returns the month with 1-index, e.g. 1=January
+		 */
+		public int getMonth() {
+			return myMonth;
+		}
+
+		public int getDay() {
+			return myDay;
+		}
+
+		public int getHour() {
+			return myHour;
+		}
+
+		public int getMinute() {
+			return myMinute;
+		}
+
+		public int getSecond() {
+			return mySecond;
+		}
+
+		public int getMillis() {
+			return myMillis;
+		}
+
+		/**
+		 * Returns the fractional seconds exactly as they appear in the value (which may be more precise
+		 * than {@link #getMillis()}), or an empty string if there are none
+		 */
+		public String getFractionalSeconds() {
+			if (myFractionalSecondsEnd == 0) {
+				return "";
+			}
+			return myValue.substring(myFractionalSecondsStart, myFractionalSecondsEnd);
+		}
+
+		/**
+		 * Returns <code>true</code> if the value has the <code>Z</code> time zone
+		 */
+		public boolean isTimeZoneZulu() {
+			return myTimeZoneZulu;
+		}
+
+		/**
+		 * Returns the time zone specified in the value, or <code>null</code> if the value has
+		 * no time zone (in which case the system default time zone applies)
+		 */
+		public TimeZone getTimeZone() {
+			if (myTimeZoneZulu) {
+				return ourGmt;
+			}
+			return myTimeZone;
+		}
+
+		/**
+		 * Returns the point in time represented by this value
+		 */
+		public long getValueAsEpochMillis() {
+			if (myYear >= FIRST_GREGORIAN_YEAR) {
+				long localMillis = getLocalMillis();
+				if (myTimeZoneZulu) {
+					return localMillis;
+				}
+				if (myTimeZone != null) {
+					return localMillis - myOffsetMillis;
+				}
+
+				/*
+				 * Local times which are skipped or repeated by a daylight savings transition are resolved
+				 * by the calendar, so only take the short path when the default time zone has the same
+				 * offset for a day on either side of the value
+				 */
+				TimeZone defaultTimeZone = TimeZone.getDefault();
+				int offset = defaultTimeZone.getOffset(localMillis - defaultTimeZone.getRawOffset());
+				long retVal = localMillis - offset;
+				if (defaultTimeZone.getOffset(retVal) == offset
+						&& defaultTimeZone.getOffset(retVal - MILLIS_PER_DAY) == offset
+						&& defaultTimeZone.getOffset(retVal + MILLIS_PER_DAY) == offset) {
+					return retVal;
+				}
+			}
+			return getValueAsCalendar().getTimeInMillis();
+		}
+
+		/**
+		 * Creates a new {@link Date} representing this value
+		 */
+		public Date getValueAsDate() {
+			return new Date(getValueAsEpochMillis());
+		}
+
+		/**
+		 * Creates a new {@link GregorianCalendar} set to this value, in the time zone of the value
+		 * or the system default time zone if the value has none
+		 */
+		public GregorianCalendar getValueAsCalendar() {
+			GregorianCalendar retVal = new GregorianCalendar(0, 0, 0);
+			TimeZone timeZone = getTimeZone();
+			retVal.setTimeZone(timeZone != null ? timeZone : TimeZone.getDefault());
+			retVal.set(Calendar.YEAR, myYear);
+			retVal.set(Calendar.MONTH, myMonth - 1);
+			retVal.set(Calendar.DATE, myDay);
+			retVal.set(Calendar.HOUR_OF_DAY, myHour);
+			retVal.set(Calendar.MINUTE, myMinute);
+			retVal.set(Calendar.SECOND, mySecond);
+			retVal.set(Calendar.MILLISECOND, myMillis);
+			return retVal;
+		}
+
+		private long getLocalMillis() {
+			long year = myYear;
+			long days = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+			days += (367 * myMonth - 362) / 12;
+			days += myDay - 1;
+			if (myMonth > 2) {
+				days--;
+				if (!isLeapYear(myYear)) {
+					days--;
+				}
+			}
+			days -= DAYS_0000_TO_1970;
+			return days * MILLIS_PER_DAY
+					+ myHour * MILLIS_PER_HOUR
+					+ myMinute * MILLIS_PER_MINUTE
+					+ mySecond * MILLIS_PER_SECOND
+					+ myMillis;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Parses the FHIR <code>decimal</code> string format.
+ * <p>
+ * Typical decimal values (no exponent and at most 18 digits) are read directly into the unscaled
+ * value and scale of the {@link BigDecimal}, without copying the string into a character array the
+ * way {@link BigDecimal#BigDecimal(String)} does. Anything else is passed to that constructor.
+ * </p>
+ */
+public class DecimalParser {
+
+	/**
+	 * Any 18 digit number fits in a long
+	 */
+	private static final int MAX_COMPACT_DIGITS = 18;
+
+	/**
+	 * Non instantiable
+	 */
+	private DecimalParser() {}
+
+	/**
+	 * Parses a decimal value. The result is equal (including its scale) to the value produced by
+	 * {@link BigDecimal#BigDecimal(String)}.
+	 *
+	 * @throws NumberFormatException If the value is not a valid decimal
+	 */
+	public static BigDecimal parse(String theValue) {
+		int length = theValue.length();
+		int index = 0;
+		boolean negative = false;
+		if (length > 0) {
+			char first = theValue.charAt(0);
+			if (first == '-' || first == '+') {
+				negative = first == '-';
+				index++;
+			}
+		}
+
+		long unscaled = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean seenPoint = false;
+		for (; index < length; index++) {
+			char next = theValue.charAt(index);
+			if (next >= '0' && next <= '9') {
+				if (++digits > MAX_COMPACT_DIGITS) {
+					return new BigDecimal(theValue);
+				}
+				unscaled = unscaled * 10 + (next - '0');
+				if (seenPoint) {
+					scale++;
+				}
+			} else if (next == '.' && !seenPoint) {
+				seenPoint = true;
+			} else {
+				return new BigDecimal(theValue);
+			}
+		}
+
+		if (digits == 0) {
+			return new BigDecimal(theValue);
+		}
+
+		return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+	}
+}
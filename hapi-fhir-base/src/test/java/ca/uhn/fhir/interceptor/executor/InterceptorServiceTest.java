@@ -863,6 +863,25 @@ class InterceptorServiceTest {
 		assertThat(invokers).hasSize(1);
 		assertThat(invokers.get(0).getHookDescription()).isEqualTo("ca.uhn.fhir.interceptor.executor.InterceptorServiceTest$HookClass1.hook1");
 	}
+
+	@Test
+	void testGetInvokersForPointcut_ReturnsStableSnapshot() {
+		InterceptorService svc = new InterceptorService();
+		assertThat(svc.getInvokersForPointcut(Pointcut.JPA_PERFTRACE_INFO)).isEmpty();
+
+		svc.registerInterceptor(new HookClass1());
+		List<IBaseInterceptorBroadcaster.IInvoker> invokers = svc.getInvokersForPointcut(Pointcut.JPA_PERFTRACE_INFO);
+		assertThat(invokers).hasSize(1);
+
+		svc.registerInterceptor(new HookClass1());
+		assertThat(invokers).hasSize(1);
+		assertThat(svc.getInvokersForPointcut(Pointcut.JPA_PERFTRACE_INFO)).hasSize(2);
+
+		svc.unregisterAllInterceptors();
+		assertThat(invokers).hasSize(1);
+		assertFalse(svc.hasHooks(Pointcut.JPA_PERFTRACE_INFO));
+		assertThat(svc.getInvokersForPointcut(Pointcut.JPA_PERFTRACE_INFO)).isEmpty();
+	}
 	
 
 }
@@ -0,0 +1,121 @@
+package ca.uhn.fhir.util;
+
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.util.DateTimeParser.ParsedDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DateTimeParserTest {
+
+	private final TimeZone myDefaultTimeZone = TimeZone.getDefault();
+
+	@AfterEach
+	public void after() {
+		TimeZone.setDefault(myDefaultTimeZone);
+	}
+
+	@Test
+	public void testParseInstant() {
+		ParsedDateTime parsed = DateTimeParser.parse("2024-03-01T10:15:30.123456+05:30");
+
+		assertEquals(TemporalPrecisionEnum.MILLI, parsed.getPrecision());
+		assertEquals(2024, parsed.getYear());
+		assertEquals(3, parsed.getMonth());
+		assertEquals(1, parsed.getDay());
+		assertEquals(10, parsed.getHour());
+		assertEquals(15, parsed.getMinute());
+		assertEquals(30, parsed.getSecond());
+		assertEquals(123, parsed.getMillis());
+		assertEquals("123456", parsed.getFractionalSeconds());
+		assertFalse(parsed.isTimeZoneZulu());
+		assertEquals("GMT+05:30", parsed.getTimeZone().getID());
+		assertEquals(1709268330123L, parsed.getValueAsEpochMillis());
+	}
+
+	@Test
+	public void testParseZulu() {
+		ParsedDateTime parsed = DateTimeParser.parse("2024-03-01T10:15:30.5Z");
+
+		assertTrue(parsed.isTimeZoneZulu());
+		assertEquals(500, parsed.getMillis());
+		assertEquals("5", parsed.getFractionalSeconds());
+		assertEquals(1709288130500L, parsed.getValueAsEpochMillis());
+	}
+
+	@Test
+	public void testParseDate() {
+		ParsedDateTime parsed = DateTimeParser.parse(" 2024-02 ");
+
+		assertEquals("2024-02", parsed.getValue());
+		assertEquals(TemporalPrecisionEnum.MONTH, parsed.getPrecision());
+		assertEquals(1, parsed.getDay());
+		assertEquals("", parsed.getFractionalSeconds());
+		assertNull(parsed.getTimeZone());
+	}
+
+	@Test
+	public void testParseEmpty() {
+		assertNull(DateTimeParser.parse(""));
+		assertNull(DateTimeParser.parse("  "));
+	}
+
+	@Test
+	public void testOffsetTimeZonesAreShared() {
+		TimeZone first = DateTimeParser.parse("2024-03-01T10:15:30-08:00").getTimeZone();
+		TimeZone second = DateTimeParser.parse("2021-01-01T00:00:00-08:00").getTimeZone();
+
+		assertSame(first, second);
+		assertEquals("GMT-08:00", first.getID());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"202", "2024-1", "2024-13", "2023-02-29", "2024-02-30", "2024-01-01T10", "2024-01-01T25:00",
+		"2024-01-01T10:00:00.+01:00", "2024-01-01T10:00:00+1:00", "2024-01-01T10:00:00-05:00Z", "20a4"})
+	public void testParseInvalid(String theValue) {
+		DataFormatException e = assertThrows(DataFormatException.class, () -> DateTimeParser.parse(theValue));
+		assertThat(e.getMessage()).contains("Invalid date/time format: \"" + theValue + "\"");
+	}
+
+	/**
+	 * The calculated time must always match the calendar, including around daylight savings
+	 * transitions in the default time zone and for dates before the Gregorian calendar
+	 */
+	@ParameterizedTest
+	@CsvSource({
+		"America/New_York, 2024-03-10T02:30:00",
+		"America/New_York, 2024-03-10T01:59:59.999",
+		"America/New_York, 2024-11-03T01:30:00",
+		"America/New_York, 2024-11-03",
+		"America/Sao_Paulo, 2018-11-04",
+		"Pacific/Apia,      2011-12-30",
+		"Europe/London,     1900-06-15T12:00:00",
+		"UTC,               2024-02-29T23:59:59.999",
+		"UTC,               1582-10-10",
+		"UTC,               0001-01-01",
+		"Asia/Kolkata,      2024",
+		"Asia/Kolkata,      1970-01-01T00:00:00+14:00",
+		"Asia/Kolkata,      9999-12-31T23:59:59.999-12:00",
+	})
+	public void testValueMatchesCalendar(String theDefaultTimeZone, String theValue) {
+		TimeZone.setDefault(TimeZone.getTimeZone(theDefaultTimeZone));
+
+		ParsedDateTime parsed = DateTimeParser.parse(theValue);
+
+		assertEquals(parsed.getValueAsCalendar().getTimeInMillis(), parsed.getValueAsEpochMillis());
+		assertEquals(parsed.getValueAsEpochMillis(), parsed.getValueAsDate().getTime());
+	}
+}
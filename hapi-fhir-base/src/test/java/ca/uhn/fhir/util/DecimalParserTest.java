@@ -0,0 +1,30 @@
+package ca.uhn.fhir.util;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecimalParserTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "-0", "0.0", "70.5", "+70.50", "-3.14159265358979", "007.250", ".5", "5.", "-.5",
+		"123456789012345678", "1234567890123456789", "0.000000000000000000001", "1.5E3", "-1e-7"})
+	public void testParse(String theValue) {
+		BigDecimal expected = new BigDecimal(theValue);
+		BigDecimal actual = DecimalParser.parse(theValue);
+
+		assertEquals(expected, actual);
+		assertEquals(expected.toPlainString(), actual.toPlainString());
+		assertEquals(expected.precision(), actual.precision());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "-", ".", "1.2.3", " 1", "1 ", "abc", "1,5"})
+	public void testParseInvalid(String theValue) {
+		assertThrows(NumberFormatException.class, () -> DecimalParser.parse(theValue));
+	}
+}
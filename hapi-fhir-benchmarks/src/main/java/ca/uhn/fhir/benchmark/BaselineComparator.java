@@ -0,0 +1,124 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files produced with <code>-rf json</code> (typically a
+ * baseline recorded locally from the reference build, e.g. to <code>/tmp/baseline.json</code>,
+ * and a fresh run of the candidate on the same machine) and prints the relative change
+ * of every benchmark/parameter combination present in both.
+ * <p>
+ * Usage: <code>java -cp target/benchmarks.jar ca.uhn.fhir.benchmark.BaselineComparator
+ * baseline.json current.json [maxRegressionPercent]</code>
+ * </p>
+ * <p>
+ * When a maximum regression percentage is supplied, the process exits with a
+ * non-zero status if any benchmark got slower by more than that amount, so the
+ * comparison can gate a release pipeline.
+ * </p>
+ */
+public class BaselineComparator {
+
+	private static final ObjectMapper ourObjectMapper = new ObjectMapper();
+
+	public static void main(String[] theArgs) throws IOException {
+		if (theArgs.length < 2) {
+			System.err.println("Usage: BaselineComparator <baseline.json> <current.json> [maxRegressionPercent]");
+			System.exit(2);
+		}
+
+		Map<String, Result> baseline = load(new File(theArgs[0]));
+		Map<String, Result> current = load(new File(theArgs[1]));
+		Double maxRegression = theArgs.length > 2 ? Double.parseDouble(theArgs[2]) : null;
+
+		boolean failed = false;
+		System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+		for (Map.Entry<String, Result> next : current.entrySet()) {
+			Result base = baseline.get(next.getKey());
+			if (base == null) {
+				System.out.printf("%-90s %14s %14.3f %9s%n", next.getKey(), "-", next.getValue().myScore, "new");
+				continue;
+			}
+
+			double change = percentSlower(base, next.getValue());
+			boolean regression = maxRegression != null && change > maxRegression;
+			failed |= regression;
+			System.out.printf(
+					"%-90s %14.3f %14.3f %+8.1f%%%s%n",
+					next.getKey(),
+					base.myScore,
+					next.getValue().myScore,
+					change,
+					regression ? "  REGRESSION" : "");
+		}
+
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Returns how much slower (positive) or faster (negative) the current result is,
+	 * as a percentage, taking into account whether the benchmark mode reports time
+	 * per operation or operations per unit of time.
+	 */
+	static double percentSlower(Result theBaseline, Result theCurrent) {
+		double ratio = theCurrent.myScore / theBaseline.myScore;
+		if (theCurrent.myThroughput) {
+			ratio = 1.0 / ratio;
+		}
+		return (ratio - 1.0) * 100.0;
+	}
+
+	static Map<String, Result> load(File theFile) throws IOException {
+		Map<String, Result> retVal = new TreeMap<>();
+		for (JsonNode next : ourObjectMapper.readTree(theFile)) {
+			StringBuilder key = new StringBuilder(next.get("benchmark").asText());
+			JsonNode params = next.get("params");
+			if (params != null) {
+				for (Iterator<Map.Entry<String, JsonNode>> iter = params.fields(); iter.hasNext(); ) {
+					Map.Entry<String, JsonNode> param = iter.next();
+					key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+				}
+			}
+
+			JsonNode metric = next.get("primaryMetric");
+			Result result = new Result();
+			result.myScore = metric.get("score").asDouble();
+			result.myThroughput = "thrpt".equals(next.get("mode").asText());
+			retVal.put(key.toString(), result);
+		}
+		return retVal;
+	}
+
+	static class Result {
+		double myScore;
+		boolean myThroughput;
+	}
+}
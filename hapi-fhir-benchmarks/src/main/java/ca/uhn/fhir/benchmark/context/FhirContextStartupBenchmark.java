@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.context;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start cost of a {@link FhirContext}: creating the context, scanning
+ * the model and parsing a first resource, as a CLI invocation or a serverless function
+ * would. Every measurement runs in a fresh JVM, so the numbers include class loading
+ * and interpreted execution. Run with <code>-prof gc</code> to see the allocation
+ * attributable to model scanning.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+public class FhirContextStartupBenchmark {
+
+	private static final String PATIENT = "{\"resourceType\":\"Patient\",\"id\":\"123\",\"active\":true,"
+			+ "\"name\":[{\"family\":\"Simpson\",\"given\":[\"Homer\"]}],\"birthDate\":\"1956-05-12\"}";
+
+	@Benchmark
+	public FhirContext createContext() {
+		FhirContext retVal = new FhirContext(FhirVersionEnum.R4);
+		retVal.getResourceDefinition("Patient");
+		return retVal;
+	}
+
+	@Benchmark
+	public IBaseResource createContextAndParse() {
+		FhirContext ctx = new FhirContext(FhirVersionEnum.R4);
+		return ctx.newJsonParser().parseResource(PATIENT);
+	}
+}
@@ -0,0 +1,283 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.fixture;
+
+import org.hl7.fhir.r4.model.Address;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.ContactPoint;
+import org.hl7.fhir.r4.model.DateType;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Practitioner;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds the R4 resources used as benchmark inputs. All fixtures are generated
+ * from a fixed random seed so that every run (and every release being compared)
+ * measures exactly the same payloads.
+ */
+public class R4Fixtures {
+
+	public static final String LOINC = "http://loinc.org";
+	public static final String UCUM = "http://unitsofmeasure.org";
+	public static final String MRN_SYSTEM = "http://example.org/benchmark/mrn";
+
+	private static final long SEED = 20250101L;
+	private static final long BASE_TIME = 1735689600000L; // 2025-01-01T00:00:00Z
+
+	private static final String[][] VITALS = {
+		{"8867-4", "Heart rate", "/min"},
+		{"9279-1", "Respiratory rate", "/min"},
+		{"8310-5", "Body temperature", "Cel"},
+		{"8480-6", "Systolic blood pressure", "mm[Hg]"},
+		{"8462-4", "Diastolic blood pressure", "mm[Hg]"},
+		{"2708-6", "Oxygen saturation in Arterial blood", "%"},
+		{"29463-7", "Body weight", "kg"},
+		{"8302-2", "Body height", "cm"},
+	};
+
+	private static final String[] FAMILY_NAMES = {"Smith", "Tremblay", "Nguyen", "Garcia", "Okafor", "Kowalski"};
+	private static final String[] GIVEN_NAMES = {"Alex", "Jordan", "Sam", "Taylor", "Morgan", "Casey"};
+
+	private final Random myRandom = new Random(SEED);
+
+	/**
+	 * A Patient with a deep element graph: many identifiers, names, telecoms,
+	 * addresses, contacts and nested extensions, plus contained Organization and
+	 * Practitioner resources that are referenced from within the Patient.
+	 */
+	public Patient createDeepPatient(int theIndex) {
+		Patient patient = new Patient();
+		patient.setId("Patient/P" + theIndex);
+		patient.setMeta(new Meta()
+				.setVersionId("1")
+				.setLastUpdatedElement(new InstantType(new Date(BASE_TIME + theIndex * 1000L))));
+		patient.getMeta().addProfile("http://hl7.org/fhir/StructureDefinition/Patient");
+		patient.getMeta().addTag("http://example.org/benchmark/tags", "synthetic", "Synthetic data");
+
+		patient.getText().setStatus(Narrative.NarrativeStatus.GENERATED);
+		patient.getText().setDivAsString("<div xmlns=\"http://www.w3.org/1999/xhtml\">Synthetic patient " + theIndex
+				+ " generated for benchmarking</div>");
+
+		Organization org = new Organization();
+		org.setId("org");
+		org.setName("Benchmark General Hospital");
+		org.addIdentifier().setSystem("http://example.org/benchmark/org").setValue("ORG-" + theIndex);
+		org.addAddress(createAddress(theIndex));
+		patient.getContained().add(org);
+
+		Practitioner practitioner = new Practitioner();
+		practitioner.setId("gp");
+		practitioner.addName(createName(theIndex + 7));
+		practitioner.addTelecom().setSystem(ContactPoint.ContactPointSystem.PHONE).setValue("555-0100");
+		patient.getContained().add(practitioner);
+
+		for (int i = 0; i < 5; i++) {
+			patient.addIdentifier()
+					.setUse(Identifier.IdentifierUse.OFFICIAL)
+					.setType(new CodeableConcept()
+							.addCoding(new Coding("http://terminology.hl7.org/CodeSystem/v2-0203", "MR", "Medical record number")))
+					.setSystem(MRN_SYSTEM + "/" + i)
+					.setValue("MRN-" + theIndex + "-" + i)
+					.setAssigner(new Reference("#org"));
+		}
+		for (int i = 0; i < 3; i++) {
+			patient.addName(createName(theIndex + i));
+			patient.addAddress(createAddress(theIndex + i));
+			patient.addTelecom()
+					.setSystem(ContactPoint.ContactPointSystem.PHONE)
+					.setUse(ContactPoint.ContactPointUse.HOME)
+					.setValue("555-" + (1000 + myRandom.nextInt(9000)));
+		}
+		patient.setGender(theIndex % 2 == 0 ? Enumerations.AdministrativeGender.FEMALE : Enumerations.AdministrativeGender.MALE);
+		patient.setBirthDateElement(new DateType(
+				String.format("%04d-%02d-%02d", 1950 + theIndex % 50, 1 + theIndex % 12, 1 + theIndex % 28)));
+		patient.setManagingOrganization(new Reference("#org"));
+		patient.addGeneralPractitioner(new Reference("#gp"));
+
+		for (int i = 0; i < 2; i++) {
+			Patient.ContactComponent contact = patient.addContact();
+			contact.addRelationship()
+					.addCoding()
+					.setSystem("http://terminology.hl7.org/CodeSystem/v2-0131")
+					.setCode("N");
+			contact.setName(createName(theIndex + 11 + i));
+			contact.setAddress(createAddress(theIndex + 13 + i));
+			contact.addTelecom().setSystem(ContactPoint.ContactPointSystem.EMAIL).setValue("contact" + i + "@example.org");
+		}
+
+		Extension race = patient.addExtension();
+		race.setUrl("http://hl7.org/fhir/us/core/StructureDefinition/us-core-race");
+		race.addExtension()
+				.setUrl("ombCategory")
+				.setValue(new Coding("urn:oid:2.16.840.1.113883.6.238", "2106-3", "White"));
+		race.addExtension().setUrl("text").setValue(new StringType("White"));
+		patient.addExtension()
+				.setUrl("http://hl7.org/fhir/StructureDefinition/patient-birthPlace")
+				.setValue(createAddress(theIndex + 17));
+
+		return patient;
+	}
+
+	/**
+	 * An Observation panel with many components, each carrying a coded value and a
+	 * UCUM quantity, similar to device-generated vital sign panels.
+	 */
+	public Observation createObservationWithComponents(int theIndex, int theComponentCount, String thePatientReference) {
+		Observation obs = new Observation();
+		obs.setId("Observation/O" + theIndex);
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		obs.addCategory()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+				.setCode("vital-signs");
+		obs.getCode().addCoding().setSystem(LOINC).setCode("85353-1").setDisplay("Vital signs panel");
+		obs.setSubject(new Reference(thePatientReference));
+		obs.setEffective(new DateTimeType(new Date(BASE_TIME + theIndex * 60000L)));
+		obs.setIssuedElement(new InstantType(new Date(BASE_TIME + theIndex * 60000L + 5000L)));
+		obs.addIdentifier()
+				.setSystem("http://example.org/benchmark/obs")
+				.setValue(UUID.nameUUIDFromBytes(("obs" + theIndex).getBytes()).toString());
+
+		for (int i = 0; i < theComponentCount; i++) {
+			String[] vital = VITALS[i % VITALS.length];
+			Observation.ObservationComponentComponent component = obs.addComponent();
+			component.getCode().addCoding().setSystem(LOINC).setCode(vital[0]).setDisplay(vital[1]);
+			component.setValue(new Quantity()
+					.setValue(Math.round(myRandom.nextDouble() * 20000) / 100.0)
+					.setUnit(vital[2])
+					.setSystem(UCUM)
+					.setCode(vital[2]));
+			component
+					.addInterpretation()
+					.addCoding()
+					.setSystem("http://terminology.hl7.org/CodeSystem/v3-ObservationInterpretation")
+					.setCode("N");
+		}
+		return obs;
+	}
+
+	/**
+	 * A searchset Bundle containing the given number of Patient/Observation pairs,
+	 * shaped like a large page of search results with <code>_include</code>.
+	 */
+	public Bundle createLargeSearchBundle(int theEntryPairCount) {
+		Bundle bundle = new Bundle();
+		bundle.setId(UUID.nameUUIDFromBytes("searchset".getBytes()).toString());
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.setTotal(theEntryPairCount);
+		bundle.getMeta().setLastUpdatedElement(new InstantType(new Date(BASE_TIME)));
+		bundle.addLink().setRelation("self").setUrl("http://example.org/fhir/Observation?_include=Observation:subject");
+		bundle.addLink().setRelation("next").setUrl("http://example.org/fhir?_getpages=abc&_getpagesoffset=20&_count=20");
+
+		for (int i = 0; i < theEntryPairCount; i++) {
+			Observation obs = createObservationWithComponents(i, 8, "Patient/P" + i);
+			bundle.addEntry()
+					.setFullUrl("http://example.org/fhir/Observation/O" + i)
+					.setResource(obs)
+					.getSearch()
+					.setMode(Bundle.SearchEntryMode.MATCH);
+			Patient patient = createDeepPatient(i);
+			bundle.addEntry()
+					.setFullUrl("http://example.org/fhir/Patient/P" + i)
+					.setResource(patient)
+					.getSearch()
+					.setMode(Bundle.SearchEntryMode.INCLUDE);
+		}
+		return bundle;
+	}
+
+	/**
+	 * A transaction Bundle which conditionally creates one Patient per group and
+	 * then POSTs Observations referencing it through a <code>urn:uuid</code>
+	 * placeholder, the way typical ingest clients submit data.
+	 */
+	public Bundle createTransactionBundle(int thePatientCount, int theObservationsPerPatient, String theRunId) {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+
+		int obsIndex = 0;
+		for (int p = 0; p < thePatientCount; p++) {
+			String mrn = theRunId + "-" + p;
+			String patientUuid = "urn:uuid:" + UUID.nameUUIDFromBytes(mrn.getBytes());
+
+			Patient patient = createDeepPatient(p);
+			patient.setId((String) null);
+			patient.setMeta(null);
+			patient.getIdentifier().clear();
+			patient.addIdentifier().setSystem(MRN_SYSTEM).setValue(mrn);
+			bundle.addEntry()
+					.setFullUrl(patientUuid)
+					.setResource(patient)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Patient")
+					.setIfNoneExist("Patient?identifier=" + MRN_SYSTEM + "|" + mrn);
+
+			for (int o = 0; o < theObservationsPerPatient; o++) {
+				Observation obs = createObservationWithComponents(obsIndex++, 8, patientUuid);
+				obs.setId((String) null);
+				bundle.addEntry()
+						.setResource(obs)
+						.getRequest()
+						.setMethod(Bundle.HTTPVerb.POST)
+						.setUrl("Observation");
+			}
+		}
+		return bundle;
+	}
+
+	private HumanName createName(int theIndex) {
+		return new HumanName()
+				.setUse(HumanName.NameUse.OFFICIAL)
+				.setFamily(FAMILY_NAMES[Math.abs(theIndex) % FAMILY_NAMES.length])
+				.addGiven(GIVEN_NAMES[Math.abs(theIndex) % GIVEN_NAMES.length])
+				.addGiven(GIVEN_NAMES[Math.abs(theIndex + 3) % GIVEN_NAMES.length])
+				.addPrefix("Dr.");
+	}
+
+	private Address createAddress(int theIndex) {
+		return new Address()
+				.setUse(Address.AddressUse.HOME)
+				.addLine((100 + theIndex) + " Benchmark Street")
+				.addLine("Unit " + (theIndex % 20))
+				.setCity("Toronto")
+				.setState("ON")
+				.setPostalCode("M5V 2T6")
+				.setCountry("CA");
+	}
+}
@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.interceptor;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.executor.InterceptorService;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
+import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-call overhead of dispatching a pointcut through {@link InterceptorService},
+ * which happens many times for every request handled by a server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class InterceptorDispatchBenchmark {
+
+	/**
+	 * The number of interceptors registered with the service which have a hook for
+	 * the pointcut being called
+	 */
+	@Param({"0", "1", "5"})
+	public int myHookCount;
+
+	private InterceptorService myInterceptorService;
+	private IInterceptorBroadcaster myCompositeBroadcaster;
+	private HookParams myParams;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myInterceptorService = new InterceptorService();
+		for (int i = 0; i < myHookCount; i++) {
+			myInterceptorService.registerInterceptor(new CountingInterceptor());
+		}
+
+		// The request details have their own (empty) interceptor broadcaster, which is
+		// combined with the service in the same way as the server does for each request
+		RequestDetails requestDetails = new SystemRequestDetails();
+		myCompositeBroadcaster =
+				CompositeInterceptorBroadcaster.newCompositeBroadcaster(myInterceptorService, requestDetails);
+
+		myParams = new HookParams()
+				.add(RequestDetails.class, requestDetails)
+				.add(ServletRequestDetails.class, null)
+				.add(RestOperationTypeEnum.class, RestOperationTypeEnum.READ);
+	}
+
+	@Benchmark
+	public boolean callHooks() {
+		return myInterceptorService.callHooks(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED, myParams);
+	}
+
+	@Benchmark
+	public boolean callHooksComposite() {
+		return myCompositeBroadcaster.callHooks(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED, myParams);
+	}
+
+	@Interceptor
+	public static class CountingInterceptor {
+
+		private long myCount;
+
+		@Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED)
+		public void incomingRequestPreHandled(RequestDetails theRequestDetails) {
+			myCount++;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.jpa;
+
+import ca.uhn.fhir.benchmark.fixture.R4Fixtures;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared JMH state which starts a {@link JpaBenchmarkConfig} application context
+ * once per trial and seeds it with a fixed data set before any measurement
+ * begins.
+ */
+@State(Scope.Benchmark)
+public class JpaServerState {
+
+	/**
+	 * Number of patients loaded before the benchmark starts
+	 */
+	public static final int SEED_PATIENT_COUNT = 50;
+
+	/**
+	 * Number of Observations loaded per seeded patient
+	 */
+	public static final int SEED_OBSERVATIONS_PER_PATIENT = 20;
+
+	private final AtomicInteger myRunCounter = new AtomicInteger();
+	private AnnotationConfigApplicationContext myAppCtx;
+	private JpaStorageSettings myStorageSettings;
+	private IFhirSystemDao<Bundle, Meta> mySystemDao;
+	private IFhirResourceDao<Patient> myPatientDao;
+	private IFhirResourceDao<Observation> myObservationDao;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void start() {
+		myAppCtx = new AnnotationConfigApplicationContext(JpaBenchmarkConfig.class);
+
+		DaoRegistry daoRegistry = myAppCtx.getBean(DaoRegistry.class);
+		myStorageSettings = myAppCtx.getBean(JpaStorageSettings.class);
+		mySystemDao = myAppCtx.getBean(IFhirSystemDao.class);
+		myPatientDao = daoRegistry.getResourceDao(Patient.class);
+		myObservationDao = daoRegistry.getResourceDao(Observation.class);
+
+		R4Fixtures fixtures = new R4Fixtures();
+		for (int i = 0; i < SEED_PATIENT_COUNT; i += 10) {
+			Bundle bundle = fixtures.createTransactionBundle(10, SEED_OBSERVATIONS_PER_PATIENT, "seed" + i);
+			mySystemDao.transaction(new SystemRequestDetails(), bundle);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		if (myAppCtx != null) {
+			myAppCtx.close();
+		}
+	}
+
+	/**
+	 * Returns a value which is unique within this trial, for use in generating
+	 * conditional-create identifiers that do not collide with earlier invocations.
+	 */
+	public String nextRunId() {
+		return "run" + myRunCounter.incrementAndGet();
+	}
+
+	public JpaStorageSettings getStorageSettings() {
+		return myStorageSettings;
+	}
+
+	public IFhirSystemDao<Bundle, Meta> getSystemDao() {
+		return mySystemDao;
+	}
+
+	public IFhirResourceDao<Patient> getPatientDao() {
+		return myPatientDao;
+	}
+
+	public IFhirResourceDao<Observation> getObservationDao() {
+		return myObservationDao;
+	}
+}
@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.jpa;
+
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link HashSet} and {@link JpaPidSet} when de-duplicating a stream of search result
+ * PIDs the way that the search builder does: a new PID is created for every row returned by the
+ * database, checked against the set and added to it, and the set is then copied for the
+ * <code>_include</code> pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PidSetBenchmark {
+
+	/**
+	 * The number of rows in the result stream. One in ten is a duplicate.
+	 */
+	@Param({"1000", "100000"})
+	public int myPidCount;
+
+	private long[] myIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myIds = new long[myPidCount];
+		for (int i = 0; i < myPidCount; i++) {
+			myIds[i] = i % 10 == 9 ? i - 5 : i + 1000;
+		}
+	}
+
+	@Benchmark
+	public void hashSet(Blackhole theBlackhole) {
+		theBlackhole.consume(deduplicate(new HashSet<>(), theBlackhole));
+	}
+
+	@Benchmark
+	public void jpaPidSet(Blackhole theBlackhole) {
+		theBlackhole.consume(deduplicate(new JpaPidSet(), theBlackhole));
+	}
+
+	private Set<JpaPid> deduplicate(Set<JpaPid> theSet, Blackhole theBlackhole) {
+		for (long nextId : myIds) {
+			JpaPid next = JpaPid.fromId(nextId, 1);
+			if (theSet.add(next)) {
+				theBlackhole.consume(next);
+			}
+		}
+		return theSet instanceof JpaPidSet ? new JpaPidSet(theSet) : new HashSet<>(theSet);
+	}
+}
@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.jpa;
+
+import ca.uhn.fhir.benchmark.fixture.R4Fixtures;
+import ca.uhn.fhir.benchmark.parser.ParserBenchmark;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.dao.DictionaryDeflateUtil;
+import ca.uhn.fhir.jpa.dao.GZipUtil;
+import ca.uhn.fhir.jpa.dao.SmileUtil;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.parser.IJsonLikeParser;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting resources to and from the binary contents stored in the
+ * resource history table for each {@link ResourceEncodingEnum} that stores a binary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ResourceEncodingBenchmark {
+
+	@Param({"JSON", "JSONC", "JSOND", "SMILE"})
+	public ResourceEncodingEnum myEncoding;
+
+	@Param({"LARGE_BUNDLE", "OBSERVATION_COMPONENTS", "DEEP_PATIENT"})
+	public ParserBenchmark.FixtureEnum myFixture;
+
+	private FhirContext myFhirContext;
+	private IBaseResource myResource;
+	private byte[] myEncoded;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myFhirContext = FhirContext.forR4Cached();
+
+		R4Fixtures fixtures = new R4Fixtures();
+		switch (myFixture) {
+			case LARGE_BUNDLE:
+				myResource = fixtures.createLargeSearchBundle(50);
+				break;
+			case OBSERVATION_COMPONENTS:
+				myResource = fixtures.createObservationWithComponents(1, 64, "Patient/P1");
+				break;
+			case DEEP_PATIENT:
+			default:
+				myResource = fixtures.createDeepPatient(1);
+				break;
+		}
+
+		myEncoded = encode();
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		IJsonLikeParser parser = newParser();
+		switch (myEncoding) {
+			case SMILE:
+				return SmileUtil.encodeResource(parser, myResource);
+			case JSONC:
+				return GZipUtil.compress(parser.encodeResourceToString(myResource));
+			case JSOND:
+				return DictionaryDeflateUtil.compress(parser.encodeResourceToString(myResource));
+			case JSON:
+			default:
+				return parser.encodeResourceToString(myResource).getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	@Benchmark
+	public IBaseResource parse() {
+		IJsonLikeParser parser = newParser();
+		switch (myEncoding) {
+			case SMILE:
+				return SmileUtil.parseResource(parser, myResource.getClass(), myEncoded);
+			case JSONC:
+				return parser.parseResource(myResource.getClass(), GZipUtil.decompress(myEncoded));
+			case JSOND:
+				return parser.parseResource(myResource.getClass(), DictionaryDeflateUtil.decompress(myEncoded));
+			case JSON:
+			default:
+				return parser.parseResource(myResource.getClass(), new String(myEncoded, StandardCharsets.UTF_8));
+		}
+	}
+
+	private IJsonLikeParser newParser() {
+		return (IJsonLikeParser) myFhirContext.newJsonParser();
+	}
+}
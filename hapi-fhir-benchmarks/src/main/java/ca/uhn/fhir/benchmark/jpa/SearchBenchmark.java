@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.jpa;
+
+import ca.uhn.fhir.benchmark.fixture.R4Fixtures;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.rest.api.SummaryEnum;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.param.TokenParam;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures synchronous JPA searches end to end: SQL generation in
+ * <code>SearchBuilder.createQuery</code> and <code>QueryStack</code>, query
+ * execution against H2, and resource loading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SearchBenchmark {
+
+	@Benchmark
+	public List<IIdType> searchPatientByIdentifier(JpaServerState theState) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(
+				"identifier", new TokenParam(R4Fixtures.MRN_SYSTEM, "seed0-3"));
+		return theState.getPatientDao().searchForResourceIds(map, new SystemRequestDetails());
+	}
+
+	@Benchmark
+	public List<IIdType> searchObservationIdsByCode(JpaServerState theState) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(
+				"code", new TokenParam(R4Fixtures.LOINC, "85353-1"));
+		map.add("component-code", new TokenParam(R4Fixtures.LOINC, "8867-4"));
+		return theState.getObservationDao().searchForResourceIds(map, new SystemRequestDetails());
+	}
+
+	@Benchmark
+	public List<IBaseResource> searchObservationsWithInclude(JpaServerState theState) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(
+				"code", new TokenParam(R4Fixtures.LOINC, "85353-1"));
+		map.addInclude(new Include("Observation:subject"));
+		map.setCount(50);
+		IBundleProvider outcome = theState.getObservationDao().search(map, new SystemRequestDetails());
+		return outcome.getResources(0, 50);
+	}
+
+	@Benchmark
+	public Integer countObservationsByCode(JpaServerState theState) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(
+				"code", new TokenParam(R4Fixtures.LOINC, "85353-1"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		return theState.getObservationDao().search(map, new SystemRequestDetails()).size();
+	}
+}
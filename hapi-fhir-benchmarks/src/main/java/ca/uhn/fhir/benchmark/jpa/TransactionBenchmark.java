@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.jpa;
+
+import ca.uhn.fhir.benchmark.fixture.R4Fixtures;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <code>BaseTransactionProcessor</code> throughput for ingest-style
+ * transaction Bundles: conditional creates of Patients plus POSTs of
+ * Observations that reference them through <code>urn:uuid</code> placeholders.
+ * Every invocation uses fresh identifiers, so the database grows over the course
+ * of a trial in the same way it would under real ingest.
+ * <p>
+ * The <code>myBatchedIndexWrites</code> parameter compares writing search
+ * parameter index rows as Hibernate entities against writing them using
+ * JDBC batches.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TransactionBenchmark {
+
+	@Param({"10"})
+	public int myPatientCount;
+
+	@Param({"10"})
+	public int myObservationsPerPatient;
+
+	@Param({"false", "true"})
+	public boolean myBatchedIndexWrites;
+
+	private final R4Fixtures myFixtures = new R4Fixtures();
+	private Bundle myInput;
+
+	@Setup(Level.Trial)
+	public void configure(JpaServerState theState) {
+		theState.getStorageSettings().setBatchedIndexWritesEnabled(myBatchedIndexWrites);
+	}
+
+	/**
+	 * Builds the input Bundle outside of the measured region. Each operation takes
+	 * milliseconds, so the per-invocation setup overhead is negligible.
+	 */
+	@Setup(Level.Invocation)
+	public void createInput(JpaServerState theState) {
+		myInput = myFixtures.createTransactionBundle(myPatientCount, myObservationsPerPatient, theState.nextRunId());
+	}
+
+	@Benchmark
+	public Bundle transaction(JpaServerState theState) {
+		return theState.getSystemDao().transaction(new SystemRequestDetails(), myInput);
+	}
+}
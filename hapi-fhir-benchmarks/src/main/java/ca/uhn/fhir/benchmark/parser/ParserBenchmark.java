@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.parser;
+
+import ca.uhn.fhir.benchmark.fixture.R4Fixtures;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ca.uhn.fhir.parser.JsonParser} and {@link ca.uhn.fhir.parser.XmlParser}
+ * encode and parse throughput for a set of representative R4 payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ParserBenchmark {
+
+	public enum FixtureEnum {
+		/** A 100 entry searchset Bundle (50 Observations and their included Patients) */
+		LARGE_BUNDLE,
+		/** A single Observation with 64 components */
+		OBSERVATION_COMPONENTS,
+		/** A single Patient with a deep element graph and contained resources */
+		DEEP_PATIENT
+	}
+
+	@Param({"JSON", "XML"})
+	public EncodingEnum myEncoding;
+
+	@Param({"LARGE_BUNDLE", "OBSERVATION_COMPONENTS", "DEEP_PATIENT"})
+	public FixtureEnum myFixture;
+
+	private FhirContext myFhirContext;
+	private IBaseResource myResource;
+	private String myEncoded;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myFhirContext = FhirContext.forR4Cached();
+
+		R4Fixtures fixtures = new R4Fixtures();
+		switch (myFixture) {
+			case LARGE_BUNDLE:
+				myResource = fixtures.createLargeSearchBundle(50);
+				break;
+			case OBSERVATION_COMPONENTS:
+				myResource = fixtures.createObservationWithComponents(1, 64, "Patient/P1");
+				break;
+			case DEEP_PATIENT:
+			default:
+				myResource = fixtures.createDeepPatient(1);
+				break;
+		}
+
+		myEncoded = newParser().encodeResourceToString(myResource);
+	}
+
+	@Benchmark
+	public String encode() {
+		return newParser().encodeResourceToString(myResource);
+	}
+
+	@Benchmark
+	public IBaseResource parse() {
+		return newParser().parseResource(myEncoded);
+	}
+
+	private IParser newParser() {
+		return myEncoding.newParser(myFhirContext);
+	}
+}
@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.parser;
+
+import ca.uhn.fhir.model.api.IPrimitiveDatatype;
+import ca.uhn.fhir.model.primitive.DateDt;
+import ca.uhn.fhir.model.primitive.DateTimeDt;
+import ca.uhn.fhir.model.primitive.DecimalDt;
+import ca.uhn.fhir.model.primitive.InstantDt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures parsing the string form of the date/time and decimal primitive datatypes,
+ * which is done for every such value in every parsed resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PrimitiveParseBenchmark {
+
+	@Param({"INSTANT", "DATE_TIME", "DATE", "DECIMAL"})
+	public PrimitiveTypeEnum myType;
+
+	/**
+	 * Parses a batch of typical values of the given type
+	 */
+	@Benchmark
+	public void parse(Blackhole theBlackhole) {
+		for (String next : myType.myValues) {
+			IPrimitiveDatatype<?> datatype = myType.myFactory.get();
+			datatype.setValueAsString(next);
+			theBlackhole.consume(datatype.getValue());
+		}
+	}
+
+	public enum PrimitiveTypeEnum {
+		INSTANT(
+				InstantDt::new,
+				"2024-03-01T10:15:30.123Z",
+				"2024-03-01T10:15:30.123456+05:30",
+				"2023-12-31T23:59:59Z",
+				"2024-02-29T00:00:00.5-08:00"),
+		DATE_TIME(
+				DateTimeDt::new,
+				"2024-03-01T10:15:30+01:00",
+				"2024-03-01T10:15:30.123-05:00",
+				"2024-03-01",
+				"2024-03"),
+		DATE(DateDt::new, "1970-01-01", "2024-02-29", "1985-07", "1999"),
+		DECIMAL(DecimalDt::new, "70.5", "120", "0.000123", "-3.14159265358979");
+
+		private final Supplier<IPrimitiveDatatype<?>> myFactory;
+		private final String[] myValues;
+
+		PrimitiveTypeEnum(Supplier<IPrimitiveDatatype<?>> theFactory, String... theValues) {
+			myFactory = theFactory;
+			myValues = theValues;
+		}
+	}
+}
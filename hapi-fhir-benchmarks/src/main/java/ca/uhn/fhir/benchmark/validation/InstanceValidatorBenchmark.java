@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark.validation;
+
+import ca.uhn.fhir.benchmark.fixture.R4Fixtures;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
+import ca.uhn.fhir.validation.FhirValidator;
+import ca.uhn.fhir.validation.ValidationResult;
+import org.hl7.fhir.common.hapi.validation.support.CommonCodeSystemsTerminologyService;
+import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
+import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FhirInstanceValidator} throughput against the base R4 profiles,
+ * using an in-memory terminology chain so that no network access is involved.
+ * Validator warm-up (loading and snapshotting the core StructureDefinitions)
+ * happens during setup and is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class InstanceValidatorBenchmark {
+
+	public enum FixtureEnum {
+		/** A single Observation with 16 components */
+		OBSERVATION,
+		/** A single Patient with a deep element graph and contained resources */
+		PATIENT,
+		/** A 20 entry searchset Bundle (10 Observations and their included Patients) */
+		BUNDLE
+	}
+
+	@Param({"OBSERVATION", "PATIENT", "BUNDLE"})
+	public FixtureEnum myFixture;
+
+	private FhirValidator myValidator;
+	private IBaseResource myResource;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		FhirContext ctx = FhirContext.forR4Cached();
+
+		ValidationSupportChain chain = new ValidationSupportChain(
+				new DefaultProfileValidationSupport(ctx),
+				new InMemoryTerminologyServerValidationSupport(ctx),
+				new CommonCodeSystemsTerminologyService(ctx));
+		FhirInstanceValidator module = new FhirInstanceValidator(chain);
+		myValidator = ctx.newValidator().registerValidatorModule(module);
+
+		R4Fixtures fixtures = new R4Fixtures();
+		switch (myFixture) {
+			case OBSERVATION:
+				myResource = fixtures.createObservationWithComponents(1, 16, "Patient/P1");
+				break;
+			case PATIENT:
+				myResource = fixtures.createDeepPatient(1);
+				break;
+			case BUNDLE:
+			default:
+				myResource = fixtures.createLargeSearchBundle(10);
+				break;
+		}
+
+		// Prime the validator so that profile loading is excluded from the measurement
+		myValidator.validateWithResult(myResource);
+	}
+
+	@Benchmark
+	public ValidationResult validate() {
+		return myValidator.validateWithResult(myResource);
+	}
+}
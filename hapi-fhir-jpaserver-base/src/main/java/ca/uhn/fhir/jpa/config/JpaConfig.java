@@ -24,9 +24,13 @@ import ca.uhn.fhir.batch2.api.IJobPersistence;
 import ca.uhn.fhir.batch2.jobs.export.BulkDataExportProvider;
 import ca.uhn.fhir.batch2.jobs.expunge.DeleteExpungeJobSubmitterImpl;
 import ca.uhn.fhir.batch2.util.Batch2TaskHelper;
+import ca.uhn.fhir.broker.api.IBrokerClient;
+import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.fhirpath.FhirPathExpressionCacheMetrics;
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.IInterceptorService;
 import ca.uhn.fhir.interceptor.executor.InterceptorService;
@@ -60,6 +64,7 @@ import ca.uhn.fhir.jpa.dao.MatchResourceUrlService;
 import ca.uhn.fhir.jpa.dao.ResourceHistoryCalculator;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.TransactionProcessor;
+import ca.uhn.fhir.jpa.dao.TransactionWriteStatistics;
 import ca.uhn.fhir.jpa.dao.data.IResourceIndexedSearchParamIdentityDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceLinkDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceModifiedDao;
@@ -76,6 +81,7 @@ import ca.uhn.fhir.jpa.dao.expunge.ResourceTableFKProvider;
 import ca.uhn.fhir.jpa.dao.index.DaoResourceLinkResolver;
 import ca.uhn.fhir.jpa.dao.index.DaoSearchParamSynchronizer;
 import ca.uhn.fhir.jpa.dao.index.IdHelperService;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityNearCache;
 import ca.uhn.fhir.jpa.dao.index.SearchParamWithInlineReferencesExtractor;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
@@ -110,6 +116,7 @@ import ca.uhn.fhir.jpa.provider.IReplaceReferencesSvc;
 import ca.uhn.fhir.jpa.provider.InstanceReindexProvider;
 import ca.uhn.fhir.jpa.provider.ProcessMessageProvider;
 import ca.uhn.fhir.jpa.provider.ReplaceReferencesSvcImpl;
+import ca.uhn.fhir.jpa.provider.SearchParameterStatisticsProvider;
 import ca.uhn.fhir.jpa.provider.SubscriptionTriggeringProvider;
 import ca.uhn.fhir.jpa.provider.TerminologyUploaderProvider;
 import ca.uhn.fhir.jpa.provider.ValueSetOperationProvider;
@@ -121,6 +128,7 @@ import ca.uhn.fhir.jpa.search.PersistedJpaBundleProvider;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.PersistedJpaSearchFirstPageBundleProvider;
 import ca.uhn.fhir.jpa.search.ResourceSearchUrlSvc;
+import ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc;
 import ca.uhn.fhir.jpa.search.SearchStrategyFactory;
 import ca.uhn.fhir.jpa.search.SearchUrlJobMaintenanceSvcImpl;
 import ca.uhn.fhir.jpa.search.SynchronousSearchSvcImpl;
@@ -147,11 +155,16 @@ import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
+import ca.uhn.fhir.jpa.search.cache.CompactSearchResultCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchResultCacheSvcImpl;
+import ca.uhn.fhir.jpa.search.cache.FileSystemSearchResultPidStore;
 import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
+import ca.uhn.fhir.jpa.search.cache.MemorySearchResultPidStore;
 import ca.uhn.fhir.jpa.search.elastic.IndexNamePrefixLayoutStrategy;
+import ca.uhn.fhir.jpa.search.reindex.DeferredIndexingSvcImpl;
+import ca.uhn.fhir.jpa.search.reindex.IDeferredIndexingSvc;
 import ca.uhn.fhir.jpa.search.reindex.IInstanceReindexService;
 import ca.uhn.fhir.jpa.search.reindex.IResourceReindexingSvc;
 import ca.uhn.fhir.jpa.search.reindex.InstanceReindexServiceImpl;
@@ -219,8 +232,11 @@ import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.scheduling.concurrent.ScheduledExecutorFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.nio.file.Path;
 import java.util.Date;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
 @Configuration
 // repositoryFactoryBeanClass: EnversRevisionRepositoryFactoryBean is needed primarily for unit testing
 @EnableJpaRepositories(
@@ -295,6 +311,11 @@ public class JpaConfig {
 				myFhirContext, validationSupportChainCacheConfiguration(), workerContextValidationSupportAdapter());
 	}
 
+	@Bean
+	public FhirPathExpressionCacheMetrics fhirPathExpressionCacheMetrics() {
+		return new FhirPathExpressionCacheMetrics(myFhirContext);
+	}
+
 	@Bean("myDaoRegistry")
 	public DaoRegistry daoRegistry() {
 		return new DaoRegistry();
@@ -379,6 +400,11 @@ public class JpaConfig {
 		return new TransactionProcessor();
 	}
 
+	@Bean
+	public TransactionWriteStatistics transactionWriteStatistics() {
+		return new TransactionWriteStatistics();
+	}
+
 	@Bean(name = "myAttachmentBinaryAccessProvider")
 	@Lazy
 	public BinaryAccessProvider binaryAccessProvider() {
@@ -429,7 +455,28 @@ public class JpaConfig {
 
 	@Bean
 	public ISearchResultCacheSvc searchResultCacheSvc() {
-		return new DatabaseSearchResultCacheSvcImpl();
+		switch (myStorageSettings.getSearchResultStorage()) {
+			case MEMORY:
+				return new CompactSearchResultCacheSvcImpl(newMemorySearchResultPidStore());
+			case FILE_SYSTEM:
+				String directory = myStorageSettings.getSearchResultStorageDirectory();
+				if (isBlank(directory)) {
+					throw new ConfigurationException(Msg.code(2798)
+							+ "A search result storage directory must be configured when search result storage is "
+							+ JpaStorageSettings.SearchResultStorageEnum.FILE_SYSTEM);
+				}
+				return new CompactSearchResultCacheSvcImpl(
+						newMemorySearchResultPidStore(), new FileSystemSearchResultPidStore(Path.of(directory)));
+			case DATABASE:
+			default:
+				return new DatabaseSearchResultCacheSvcImpl();
+		}
+	}
+
+	private MemorySearchResultPidStore newMemorySearchResultPidStore() {
+		return new MemorySearchResultPidStore(
+				myStorageSettings.getSearchResultStorageMaximumMemoryBytes(),
+				myStorageSettings.getExpireSearchResultsAfterMillis());
 	}
 
 	@Bean
@@ -458,6 +505,11 @@ public class JpaConfig {
 		return new ResourceReindexingSvcImpl();
 	}
 
+	@Bean
+	public IDeferredIndexingSvc deferredIndexingSvc() {
+		return new DeferredIndexingSvcImpl();
+	}
+
 	@Bean
 	@Lazy
 	public IInstanceReindexService instanceReindexService() {
@@ -470,6 +522,16 @@ public class JpaConfig {
 		return new InstanceReindexProvider(theInstanceReindexService);
 	}
 
+	@Bean
+	@Lazy
+	public SearchParameterStatisticsProvider searchParameterStatisticsProvider(
+			FhirContext theFhirContext,
+			SearchParameterStatisticsSvc theSearchParameterStatisticsSvc,
+			ISearchParamRegistry theSearchParamRegistry) {
+		return new SearchParameterStatisticsProvider(
+				theFhirContext, theSearchParameterStatisticsSvc, theSearchParamRegistry);
+	}
+
 	@Bean
 	public ResourceReindexer resourceReindexer(FhirContext theFhirContext) {
 		return new ResourceReindexer(theFhirContext);
@@ -803,6 +865,12 @@ public class JpaConfig {
 		return new IdHelperService();
 	}
 
+	@Bean
+	public ResourceIdentityNearCache resourceIdentityNearCache(
+			JpaStorageSettings theStorageSettings, @Autowired(required = false) IBrokerClient theBrokerClient) {
+		return new ResourceIdentityNearCache(theStorageSettings, theBrokerClient);
+	}
+
 	@Bean
 	public SearchStrategyFactory searchStrategyFactory(@Autowired(required = false) IFulltextSearchSvc theFulltextSvc) {
 		return new SearchStrategyFactory(myStorageSettings, theFulltextSvc);
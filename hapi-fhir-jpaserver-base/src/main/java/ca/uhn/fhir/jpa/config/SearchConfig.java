@@ -39,8 +39,12 @@ import ca.uhn.fhir.jpa.search.ExceptionService;
 import ca.uhn.fhir.jpa.search.ISynchronousSearchSvc;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.SearchCoordinatorSvcImpl;
+import ca.uhn.fhir.jpa.search.SearchCountViewSvc;
+import ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc;
 import ca.uhn.fhir.jpa.search.SearchStrategyFactory;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
+import ca.uhn.fhir.jpa.search.builder.SearchResultLoadingExecutor;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryPlanCache;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchContinuationTask;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
@@ -137,7 +141,7 @@ public class SearchConfig {
 
 	@Bean
 	public ISearchCoordinatorSvc searchCoordinatorSvc() {
-		return new SearchCoordinatorSvcImpl(
+		SearchCoordinatorSvcImpl retVal = new SearchCoordinatorSvcImpl(
 				myContext,
 				myStorageSettings,
 				myInterceptorBroadcaster,
@@ -152,6 +156,8 @@ public class SearchConfig {
 				mySearchStrategyFactory,
 				exceptionService(),
 				myBeanFactory);
+		retVal.setSearchParameterStatisticsSvc(searchParameterStatisticsSvc());
+		return retVal;
 	}
 
 	@Bean
@@ -159,6 +165,26 @@ public class SearchConfig {
 		return new ExceptionService(myContext);
 	}
 
+	@Bean
+	public SearchResultLoadingExecutor searchResultLoadingExecutor() {
+		return new SearchResultLoadingExecutor(myStorageSettings);
+	}
+
+	@Bean
+	public SearchQueryPlanCache searchQueryPlanCache() {
+		return new SearchQueryPlanCache();
+	}
+
+	@Bean
+	public SearchParameterStatisticsSvc searchParameterStatisticsSvc() {
+		return new SearchParameterStatisticsSvc();
+	}
+
+	@Bean
+	public SearchCountViewSvc searchCountViewSvc() {
+		return new SearchCountViewSvc();
+	}
+
 	@Bean(name = ISearchBuilder.SEARCH_BUILDER_BEAN_NAME)
 	@Scope("prototype")
 	public ISearchBuilder newSearchBuilder(String theResourceName, Class<? extends IBaseResource> theResourceType) {
@@ -44,6 +44,7 @@ import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.expunge.ExpungeService;
 import ca.uhn.fhir.jpa.dao.index.DaoSearchParamSynchronizer;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityNearCache;
 import ca.uhn.fhir.jpa.dao.index.SearchParamWithInlineReferencesExtractor;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.delete.DeleteConflictService;
@@ -174,6 +175,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 	@Autowired
 	protected IIdHelperService<JpaPid> myIdHelperService;
 
+	@Autowired(required = false)
+	private ResourceIdentityNearCache myResourceIdentityNearCache;
+
 	@Autowired
 	protected ISearchCoordinatorSvc<JpaPid> mySearchCoordinatorSvc;
 
@@ -880,6 +884,13 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		ourLog.debug("Starting entity update");
 
 		ResourceTable entity = (ResourceTable) theEntity;
+		boolean wasDeleted = entity.getDeleted() != null;
+
+		// Only the initial version of a resource can have its indexing deferred
+		if (theDeletedTimestampOrNull != null || theUpdateVersion) {
+			entity.setIndexingDeferred(false);
+		}
+		boolean indexingDeferred = entity.isIndexingDeferred();
 
 		/*
 		 * This should be the very first thing..
@@ -914,6 +925,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 
 			entity.setDeleted(theDeletedTimestampOrNull);
 			entity.setUpdated(theDeletedTimestampOrNull);
+			if (!wasDeleted) {
+				invalidateResourceIdentity(entity);
+			}
 			entity.setNarrativeText(null);
 			entity.setContentText(null);
 			entity.setIndexStatus(getEntityIndexedStatusEnum());
@@ -945,9 +959,28 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 				existingSearchParams.put(entity, existingParams);
 			}
 			entity.setDeleted(null);
+			if (wasDeleted) {
+				invalidateResourceIdentity(entity);
+			}
+
+			if (indexingDeferred) {
+
+				/*
+				 * The resource is being created in an append-only partition, so we store
+				 * the resource body now but leave the index status empty. The search
+				 * parameter indexes will be written by DeferredIndexingSvcImpl.
+				 */
+				if (thePerformIndexing) {
+					mySearchParamWithInlineReferencesExtractor.extractInlineReferences(
+							theRequest, theResource, theTransactionDetails);
+				}
 
-			// TODO: is this IF statement always true? Try removing it
-			if (thePerformIndexing || theEntity.getVersion() == 1) {
+				changed = populateResourceIntoEntity(theTransactionDetails, theRequest, theResource, entity, true);
+				entity.setUpdated(theTransactionDetails.getTransactionDate());
+				entity.setIndexStatus(null);
+
+			} else if (thePerformIndexing || theEntity.getVersion() == 1) {
+				// TODO: is this IF statement always true? Try removing it
 
 				newParams = ResourceIndexedSearchParams.withSets();
 
@@ -1089,7 +1122,7 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		/*
 		 * Indexing
 		 */
-		if (thePerformIndexing) {
+		if (thePerformIndexing && !indexingDeferred) {
 			if (newParams == null) {
 				myExpungeService.deleteAllSearchParams(entity.getPersistentId());
 				entity.clearAllParamsPopulated();
@@ -1134,6 +1167,16 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		return entity;
 	}
 
+	/**
+	 * Called when the deleted status of a resource changes, so that any cached identity for
+	 * the resource is evicted from the {@link ResourceIdentityNearCache} (if it is enabled)
+	 */
+	protected void invalidateResourceIdentity(ResourceTable theEntity) {
+		if (myResourceIdentityNearCache != null && theEntity.getFhirId() != null) {
+			myResourceIdentityNearCache.invalidateAfterCommit(theEntity.getResourceType(), theEntity.getFhirId());
+		}
+	}
+
 	private static IdentityHashMap<ResourceTable, ResourceIndexedSearchParams> getSearchParamsMapFromTransaction(
 			TransactionDetails theTransactionDetails) {
 		return theTransactionDetails.getOrCreateUserData(
@@ -1267,11 +1310,10 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			ResourceEncodingEnum encoding = myStorageSettings.getResourceEncoding();
 			List<String> excludeElements = new ArrayList<>(8);
 			getExcludedElements(historyEntity.getResourceType(), excludeElements, theResource.getMeta());
-			String encodedResourceString =
-					myResourceHistoryCalculator.encodeResource(theResource, encoding, excludeElements);
-			byte[] resourceBinary = ResourceHistoryCalculator.getResourceBinary(encoding, encodedResourceString);
+			final ResourceHistoryState calculate =
+					myResourceHistoryCalculator.calculateResourceHistoryState(theResource, encoding, excludeElements);
 			final boolean changed = myResourceHistoryCalculator.isResourceHistoryChanged(
-					historyEntity, resourceBinary, encodedResourceString);
+					historyEntity, calculate.getResourceBinary(), calculate.getResourceText());
 
 			historyEntity.setUpdated(theTransactionDetails.getTransactionDate());
 
@@ -1284,7 +1326,10 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			}
 
 			myResourceHistoryCalculator.populateEncodedResource(
-					encodedResource, encodedResourceString, resourceBinary, encoding);
+					encodedResource,
+					calculate.getResourceText(),
+					calculate.getResourceBinary(),
+					calculate.getEncoding());
 		}
 		/*
 		 * Save the resource itself to the resourceHistoryTable
@@ -1735,6 +1780,12 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceText = GZipUtil.decompress(theResourceBytes);
 				break;
+			case SMILE:
+				resourceText = SmileUtil.toJson(theResourceBytes);
+				break;
+			case JSOND:
+				resourceText = DictionaryDeflateUtil.decompress(theResourceBytes);
+				break;
 			case DEL:
 			case ESR:
 				break;
@@ -69,9 +69,11 @@ import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProvider;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.ResourceSearchUrlSvc;
+import ca.uhn.fhir.jpa.search.builder.KeysetPageKey;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
 import ca.uhn.fhir.jpa.search.builder.StorageInterceptorHooksFacade;
 import ca.uhn.fhir.jpa.search.cache.SearchCacheStatusEnum;
+import ca.uhn.fhir.jpa.search.reindex.IDeferredIndexingSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.ResourceSearch;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -115,6 +117,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceVersionConflictException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import ca.uhn.fhir.util.DateUtils;
 import ca.uhn.fhir.util.ReflectionUtil;
 import ca.uhn.fhir.util.StopWatch;
 import ca.uhn.fhir.util.UrlUtil;
@@ -134,6 +137,7 @@ import jakarta.persistence.TypedQuery;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.function.TriFunction;
+import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseCoding;
 import org.hl7.fhir.instance.model.api.IBaseMetaType;
 import org.hl7.fhir.instance.model.api.IBaseOperationOutcome;
@@ -189,6 +193,9 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	@Autowired(required = false)
 	protected IFulltextSearchSvc mySearchDao;
 
+	@Autowired(required = false)
+	private IDeferredIndexingSvc myDeferredIndexingSvc;
+
 	@Autowired
 	protected HapiTransactionService myTransactionService;
 
@@ -584,6 +591,13 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 			// because we need to set it before we persist the ResourceTable entity in order to
 			// avoid triggering an extra DB update
 			entity.setSearchUrlPresent(true);
+		} else {
+			// Unconditional creates in an append-only partition are indexed in the background. Conditional
+			// creates are always indexed synchronously since later match URLs need to be able to find them.
+			Integer partitionId = entity.getPartitionId().getPartitionId();
+			if (partitionId != null && getStorageSettings().getAppendOnlyPartitionIds().contains(partitionId)) {
+				entity.setIndexingDeferred(true);
+			}
 		}
 
 		// Perform actual DB update
@@ -1773,12 +1787,19 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	 * in order to avoid growing the number of resources in memory to be too big
 	 */
 	private void reindexOptimizeStorageHistoryEntity(ResourceTable entity, ResourceHistoryTable historyEntity) {
-		if (historyEntity.getEncoding() == ResourceEncodingEnum.JSONC
-				|| historyEntity.getEncoding() == ResourceEncodingEnum.JSON) {
+		ResourceEncodingEnum encoding = historyEntity.getEncoding();
+		ResourceEncodingEnum targetEncoding = myStorageSettings.getResourceEncoding();
+		if (encoding == ResourceEncodingEnum.JSONC
+				|| encoding == ResourceEncodingEnum.JSON
+				|| encoding.isAlwaysStoredAsBinary()) {
 			byte[] resourceBytes = historyEntity.getResource();
 			if (resourceBytes != null) {
-				String resourceText = decodeResource(resourceBytes, historyEntity.getEncoding());
-				myResourceHistoryCalculator.conditionallyAlterHistoryEntity(entity, historyEntity, resourceText);
+				String resourceText = decodeResource(resourceBytes, encoding);
+				myResourceHistoryCalculator.conditionallyAlterHistoryEntity(
+						entity, historyEntity, resourceText, targetEncoding);
+			} else if (targetEncoding.isAlwaysStoredAsBinary() && historyEntity.getResourceTextVc() != null) {
+				myResourceHistoryCalculator.conditionallyAlterHistoryEntity(
+						entity, historyEntity, historyEntity.getResourceTextVc(), targetEncoding);
 			}
 		}
 		if (myStorageSettings.isAccessMetaSourceInformationFromProvenanceTable()) {
@@ -2060,6 +2081,14 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 			}
 		}
 
+		// Resources in append-only partitions may not be searchable yet, so tell the client how fresh the indexes are
+		if (theServletResponse != null && myDeferredIndexingSvc != null) {
+			Date indexedThrough = myDeferredIndexingSvc.getIndexedThrough(requestPartitionId);
+			if (indexedThrough != null) {
+				theServletResponse.addHeader(JpaConstants.HEADER_INDEXED_THROUGH, DateUtils.formatDate(indexedThrough));
+			}
+		}
+
 		return retVal;
 	}
 
@@ -2129,6 +2158,40 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 			} else if (theRequest.getServer().getDefaultPageSize() != null) {
 				theParams.setCount(theRequest.getServer().getDefaultPageSize());
 			}
+
+			setKeysetPaging(theParams, theRequest, offset);
+		}
+	}
+
+	/**
+	 * Searches sorted only on <code>_lastUpdated</code> or <code>_id</code> are keyset paged (and
+	 * therefore loaded synchronously) if this is enabled
+	 */
+	private void setKeysetPaging(SearchParameterMap theParams, RequestDetails theRequest, Integer theOffset) {
+		String[] searchAfterValues = theRequest.getParameters().get(Constants.PARAM_SEARCH_AFTER);
+		String searchAfter = searchAfterValues != null && searchAfterValues.length > 0 ? searchAfterValues[0] : null;
+
+		boolean keysetPaging = getStorageSettings().isKeysetPagingEnabled()
+				&& theOffset == null
+				&& theParams.getCount() != null
+				&& theParams.getEverythingMode() == null
+				&& KeysetPageKey.isSupportedSort(theParams.getSort());
+		if (!keysetPaging) {
+			if (isNotBlank(searchAfter)) {
+				throw new InvalidRequestException(Msg.code(2801) + "The " + Constants.PARAM_SEARCH_AFTER
+						+ " parameter can only be used with keyset paging, which requires a " + Constants.PARAM_COUNT
+						+ " and a " + Constants.PARAM_SORT + " on only " + Constants.PARAM_LASTUPDATED + " or "
+						+ IAnyResource.SP_RES_ID);
+			}
+			return;
+		}
+
+		theParams.setLoadSynchronous(true);
+		theParams.setKeysetPaging(true);
+		if (isNotBlank(searchAfter)) {
+			// Validate the key before the search starts
+			KeysetPageKey.parse(theParams.getSort(), searchAfter);
+			theParams.setSearchAfter(searchAfter);
 		}
 	}
 
@@ -52,7 +52,6 @@ import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.model.primitive.InstantDt;
 import ca.uhn.fhir.model.valueset.BundleEntryTransactionMethodEnum;
 import ca.uhn.fhir.parser.DataFormatException;
-import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.parser.LenientErrorHandler;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.util.IMetaTagSorter;
@@ -238,7 +237,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		Class<R> resourceType = determineTypeToParse(theResourceType, tagList);
 
 		// 4. parse the text to FHIR
-		R retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
+		R retVal = parseResource(theEntity, resourceEncoding, resourceBytes, decodedResourceText, resourceType);
 
 		// 5. fill MetaData
 		retVal = populateResourceMetadata(theEntity, theForHistoryOperation, tagList, version, retVal);
@@ -273,6 +272,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 	private <R extends IBaseResource> R parseResource(
 			IBaseResourceEntity<?> theEntity,
 			ResourceEncodingEnum theResourceEncoding,
+			byte[] theResourceBytes,
 			String theDecodedResourceText,
 			Class<R> theResourceType) {
 		R retVal;
@@ -290,11 +290,15 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 
 		} else if (theResourceEncoding != ResourceEncodingEnum.DEL) {
 
-			IParser parser = new TolerantJsonParser(
+			TolerantJsonParser parser = new TolerantJsonParser(
 					getContext(theEntity.getFhirVersion()), LENIENT_ERROR_HANDLER, theEntity.getResourceId());
 
 			try {
-				retVal = parser.parseResource(theResourceType, theDecodedResourceText);
+				if (theResourceEncoding == ResourceEncodingEnum.SMILE) {
+					retVal = SmileUtil.parseResource(parser, theResourceType, theResourceBytes);
+				} else {
+					retVal = parser.parseResource(theResourceType, theDecodedResourceText);
+				}
 			} catch (Exception e) {
 				StringBuilder b = new StringBuilder();
 				b.append("Failed to parse database resource[");
@@ -569,6 +573,9 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		String decodedResourceText;
 		if (resourceText != null) {
 			decodedResourceText = resourceText;
+		} else if (resourceEncoding == ResourceEncodingEnum.SMILE) {
+			// Smile contents are parsed directly, without being converted to text first
+			decodedResourceText = null;
 		} else {
 			decodedResourceText = decodeResource(resourceBytes, resourceEncoding);
 		}
@@ -23,6 +23,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.parser.IJsonLikeParser;
 import ca.uhn.fhir.parser.IParser;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
@@ -55,13 +56,20 @@ public class ResourceHistoryCalculator {
 
 	ResourceHistoryState calculateResourceHistoryState(
 			IBaseResource theResource, ResourceEncodingEnum theEncoding, List<String> theExcludeElements) {
+		if (theEncoding == ResourceEncodingEnum.SMILE) {
+			IJsonLikeParser parser = (IJsonLikeParser) theEncoding.newParser(myFhirContext);
+			parser.setDontEncodeElements(theExcludeElements);
+			byte[] resourceBinary = SmileUtil.encodeResource(parser, theResource);
+			return new ResourceHistoryState(null, resourceBinary, theEncoding, SHA_256.hashBytes(resourceBinary));
+		}
+
 		final String encodedResource = encodeResource(theResource, theEncoding, theExcludeElements);
 		final byte[] resourceBinary;
 		final String resourceText;
 		final ResourceEncodingEnum encoding;
 		final HashCode hashCode;
 
-		if (myIsOracleDialect) {
+		if (myIsOracleDialect || theEncoding.isAlwaysStoredAsBinary()) {
 			resourceText = null;
 			resourceBinary = getResourceBinary(theEncoding, encodedResource);
 			encoding = theEncoding;
@@ -92,11 +100,51 @@ public class ResourceHistoryCalculator {
 		return false;
 	}
 
+	/**
+	 * Re-encodes the contents of a history entity if they are not stored the way that resources
+	 * with the given encoding would be stored. This is used by reindex when storage optimization
+	 * is requested.
+	 *
+	 * @return {@literal true} if the history entity was modified
+	 */
+	boolean conditionallyAlterHistoryEntity(
+			ResourceTable theEntity,
+			ResourceHistoryTable theHistoryEntity,
+			String theResourceText,
+			ResourceEncodingEnum theEncoding) {
+		if (theEncoding.isAlwaysStoredAsBinary()) {
+			if (theHistoryEntity.getEncoding() == theEncoding) {
+				return false;
+			}
+			ourLog.debug(
+					"Storing resource {} version {} as {}",
+					theEntity.getResourceId(),
+					theHistoryEntity.getVersion(),
+					theEncoding);
+			theHistoryEntity.setResource(getResourceBinary(theEncoding, theResourceText));
+			theHistoryEntity.setResourceTextVc(null);
+			theHistoryEntity.setEncoding(theEncoding);
+			return true;
+		}
+
+		if (conditionallyAlterHistoryEntity(theEntity, theHistoryEntity, theResourceText)) {
+			return true;
+		}
+
+		if (theHistoryEntity.getEncoding().isAlwaysStoredAsBinary()) {
+			theHistoryEntity.setResource(getResourceBinary(theEncoding, theResourceText));
+			theHistoryEntity.setEncoding(theEncoding);
+			return true;
+		}
+
+		return false;
+	}
+
 	boolean isResourceHistoryChanged(
 			ResourceHistoryTable theCurrentHistoryVersion,
 			@Nullable byte[] theResourceBinary,
 			@Nullable String resourceText) {
-		if (myIsOracleDialect) {
+		if (myIsOracleDialect || (theResourceBinary != null && resourceText == null)) {
 			return !Arrays.equals(theCurrentHistoryVersion.getResource(), theResourceBinary);
 		}
 
@@ -124,6 +172,10 @@ public class ResourceHistoryCalculator {
 				return theEncodedResource.getBytes(StandardCharsets.UTF_8);
 			case JSONC:
 				return GZipUtil.compress(theEncodedResource);
+			case SMILE:
+				return SmileUtil.fromJson(theEncodedResource);
+			case JSOND:
+				return DictionaryDeflateUtil.compress(theEncodedResource);
 			default:
 				return new byte[0];
 		}
@@ -134,7 +186,7 @@ public class ResourceHistoryCalculator {
 			String theEncodedResourceString,
 			@Nullable byte[] theResourceBinary,
 			ResourceEncodingEnum theEncoding) {
-		if (myIsOracleDialect) {
+		if (myIsOracleDialect || theEncoding.isAlwaysStoredAsBinary()) {
 			populateEncodedResourceInner(theEncodedResource, null, theResourceBinary, theEncoding);
 		} else {
 			populateEncodedResourceInner(theEncodedResource, theEncodedResourceString, null, ResourceEncodingEnum.JSON);
@@ -37,6 +37,8 @@ import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.search.ResourceSearchUrlSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
 import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.model.api.IQueryParameterType;
@@ -48,10 +50,12 @@ import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.ResourceReferenceInfo;
 import ca.uhn.fhir.util.StopWatch;
 import ca.uhn.fhir.util.TaskChunker;
+import ca.uhn.fhir.util.ThreadPoolUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.FlushModeType;
 import jakarta.persistence.PersistenceContext;
@@ -63,7 +67,10 @@ import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
+import org.hibernate.Session;
 import org.hibernate.internal.SessionImpl;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
@@ -73,9 +80,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -84,11 +93,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.util.UrlUtil.determineResourceTypeInResourceUrl;
 import static org.apache.commons.lang3.StringUtils.countMatches;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class TransactionProcessor extends BaseTransactionProcessor {
@@ -134,10 +147,24 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionHelperSvc;
 
+	@Autowired
+	private SearchParamExtractorService mySearchParamExtractorService;
+
+	@Autowired(required = false)
+	private TransactionWriteStatistics myTransactionWriteStatistics;
+
+	private ThreadPoolTaskExecutor myIndexingExecutor;
+	private int myIndexingPoolSize;
+
 	public void setEntityManagerForUnitTest(EntityManager theEntityManager) {
 		myEntityManager = theEntityManager;
 	}
 
+	@VisibleForTesting
+	public void setSearchParamExtractorServiceForUnitTest(SearchParamExtractorService theSearchParamExtractorService) {
+		mySearchParamExtractorService = theSearchParamExtractorService;
+	}
+
 	@Override
 	protected void validateDependencies() {
 		super.validateDependencies();
@@ -189,9 +216,24 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		 * we reset it just to be safe.
 		 */
 		FlushModeType initialFlushMode = myEntityManager.getFlushMode();
+		Session session = null;
+		Integer initialJdbcBatchSize = null;
 		try {
 			myEntityManager.setFlushMode(FlushModeType.COMMIT);
 
+			/*
+			 * If a JDBC batch size has been configured for transactions, apply it to the
+			 * session for the duration of the write operations. Inserts are ordered by
+			 * table when the session is flushed, so this controls how many rows of
+			 * HFJ_RESOURCE, HFJ_RES_VER, etc. are sent to the database in each batch.
+			 */
+			Integer jdbcBatchSize = myStorageSettings.getTransactionWriteJdbcBatchSize();
+			if (jdbcBatchSize != null) {
+				session = myEntityManager.unwrap(Session.class);
+				initialJdbcBatchSize = session.getJdbcBatchSize();
+				session.setJdbcBatchSize(jdbcBatchSize);
+			}
+
 			ITransactionProcessorVersionAdapter<?, ?> versionAdapter = getVersionAdapter();
 			RequestPartitionId requestPartitionId =
 					super.determineRequestPartitionIdForWriteEntries(theRequest, theEntries);
@@ -213,6 +255,9 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 					theTransactionStopWatch);
 		} finally {
 			myEntityManager.setFlushMode(initialFlushMode);
+			if (session != null) {
+				session.setJdbcBatchSize(initialJdbcBatchSize);
+			}
 		}
 	}
 
@@ -560,6 +605,7 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 
 		Set<Long> systemAndValueHashes = new HashSet<>();
 		Set<Long> valueHashes = new HashSet<>();
+		ListMultimap<List<String>, MatchUrlToResolve> multipleTokenShapeToMatchUrls = ArrayListMultimap.create();
 
 		for (MatchUrlToResolve next : theInputParameters) {
 			Collection<List<List<IQueryParameterType>>> values = next.myMatchUrlSearchMap.values();
@@ -569,10 +615,13 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 			 * up into a single query against the HFJ_SPIDX_TOKEN table so that we only
 			 * perform one SQL query for all of them.
 			 *
-			 * We could potentially add other patterns in the future, but it's much more
-			 * tricky to implement this when there are multiple parameters, and non-token
-			 * parameter types aren't often used on their own in conditional URLs. So for
-			 * now we handle single-token only, and that's probably good enough.
+			 * Conditional URLs that consist of several token parameters (e.g.
+			 * identifier=foo|bar&active=true) are grouped by their shape, and each
+			 * group is resolved using a single query which joins the HFJ_SPIDX_TOKEN
+			 * table once per parameter.
+			 *
+			 * Other parameter types aren't handled here, since their matching semantics
+			 * (e.g. date ranges, string normalization) can't be reduced to a hash lookup.
 			 */
 			boolean canBeHandledInAggregateQuery = false;
 
@@ -584,6 +633,9 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 					canBeHandledInAggregateQuery = buildHashPredicateFromTokenParam(
 							tokenParam, theRequestPartitionId, next, systemAndValueHashes, valueHashes);
 				}
+			} else if (values.size() > 1) {
+				canBeHandledInAggregateQuery =
+						buildHashTupleFromTokenParams(theRequestPartitionId, next, multipleTokenShapeToMatchUrls);
 			}
 
 			if (!canBeHandledInAggregateQuery) {
@@ -620,6 +672,15 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 				theInputParameters,
 				theOutputPidsToLoadBodiesFor,
 				theOutputPidsToLoadVersionsFor);
+		for (List<String> nextShape : multipleTokenShapeToMatchUrls.keySet()) {
+			preFetchSearchParameterMapsMultipleTokens(
+					nextShape,
+					multipleTokenShapeToMatchUrls.get(nextShape),
+					theTransactionDetails,
+					theRequestPartitionId,
+					theOutputPidsToLoadBodiesFor,
+					theOutputPidsToLoadVersionsFor);
+		}
 
 		// For each SP Map which did not return a result, tag it as not found.
 		theInputParameters.stream()
@@ -664,18 +725,7 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 				masterPredicate = from.get(theIndexColumnName).in(theHashesForIndexColumn);
 			}
 
-			if (myPartitionSettings.isPartitioningEnabled()
-					&& !myPartitionSettings.isIncludePartitionInSearchHashes()) {
-				if (myRequestPartitionHelperSvc.isDefaultPartition(theRequestPartitionId)
-						&& myPartitionSettings.getDefaultPartitionId() == null) {
-					Predicate partitionIdCriteria = cb.isNull(from.get("myPartitionIdValue"));
-					masterPredicate = cb.and(partitionIdCriteria, masterPredicate);
-				} else if (!theRequestPartitionId.isAllPartitions()) {
-					Predicate partitionIdCriteria =
-							from.get("myPartitionIdValue").in(theRequestPartitionId.getPartitionIds());
-					masterPredicate = cb.and(partitionIdCriteria, masterPredicate);
-				}
-			}
+			masterPredicate = addPartitionPredicate(cb, from, masterPredicate, theRequestPartitionId);
 
 			cq.where(masterPredicate);
 
@@ -717,6 +767,106 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		}
 	}
 
+	/**
+	 * Here we resolve a group of match URLs which all consist of several token parameters and which all
+	 * have the same shape, meaning that each URL has the same number of parameters and the parameters
+	 * are matched against the same hash columns. The {@link ResourceIndexedSearchParamToken} table is
+	 * joined to itself once per parameter, and the tuple of hashes for every URL is added to a single
+	 * predicate, so the whole group is resolved with one query no matter how many URLs it contains.
+	 */
+	private void preFetchSearchParameterMapsMultipleTokens(
+			List<String> theIndexColumnNames,
+			List<MatchUrlToResolve> theInputParameters,
+			TransactionDetails theTransactionDetails,
+			RequestPartitionId theRequestPartitionId,
+			Set<JpaPid> theOutputPidsToLoadFully,
+			Set<JpaPid> theOutputPidsToLoadVersionsFor) {
+		CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+
+		List<Root<ResourceIndexedSearchParamToken>> froms = new ArrayList<>();
+		List<Selection<?>> selections = new ArrayList<>();
+		List<Predicate> joinPredicates = new ArrayList<>();
+		for (String nextIndexColumnName : theIndexColumnNames) {
+			Root<ResourceIndexedSearchParamToken> from = cq.from(ResourceIndexedSearchParamToken.class);
+			if (froms.isEmpty()) {
+				selections.add(from.get("myPartitionIdValue"));
+				selections.add(from.get("myResourcePid"));
+			} else {
+				joinPredicates.add(cb.equal(from.get("myResourcePid"), froms.get(0).get("myResourcePid")));
+			}
+			selections.add(from.get(nextIndexColumnName));
+			froms.add(from);
+		}
+		cq.multiselect(selections);
+
+		ListMultimap<List<Long>, MatchUrlToResolve> hashTupleToSearchMap = ArrayListMultimap.create();
+		List<Predicate> hashTuplePredicates = new ArrayList<>();
+		for (MatchUrlToResolve next : theInputParameters) {
+			if (!hashTupleToSearchMap.containsKey(next.myHashTuple)) {
+				Predicate[] hashPredicates = new Predicate[theIndexColumnNames.size()];
+				for (int i = 0; i < theIndexColumnNames.size(); i++) {
+					hashPredicates[i] =
+							cb.equal(froms.get(i).get(theIndexColumnNames.get(i)), next.myHashTuple.get(i));
+				}
+				hashTuplePredicates.add(cb.and(hashPredicates));
+			}
+			hashTupleToSearchMap.put(next.myHashTuple, next);
+		}
+
+		joinPredicates.add(cb.or(hashTuplePredicates.toArray(new Predicate[0])));
+		Predicate masterPredicate = cb.and(joinPredicates.toArray(new Predicate[0]));
+		masterPredicate = addPartitionPredicate(cb, froms.get(0), masterPredicate, theRequestPartitionId);
+		cq.where(masterPredicate);
+
+		TypedQuery<Tuple> query = myEntityManager.createQuery(cq);
+
+		// See preFetchSearchParameterMapsToken(..) for an explanation of this limit
+		query.setMaxResults(hashTupleToSearchMap.keySet().size() + 1);
+
+		List<Tuple> results = query.getResultList();
+
+		for (Tuple nextResult : results) {
+			Integer nextPartitionId = nextResult.get(0, Integer.class);
+			Long nextResourcePid = nextResult.get(1, Long.class);
+			List<Long> nextHashTuple = new ArrayList<>(theIndexColumnNames.size());
+			for (int i = 0; i < theIndexColumnNames.size(); i++) {
+				nextHashTuple.add(nextResult.get(i + 2, Long.class));
+			}
+
+			List<MatchUrlToResolve> matchedSearch = hashTupleToSearchMap.get(nextHashTuple);
+			matchedSearch.forEach(matchUrl -> {
+				ourLog.debug("Matched url {} from database", matchUrl.myRequestUrl);
+				JpaPid pid = JpaPid.fromId(nextResourcePid, nextPartitionId);
+				handleFoundPreFetchResourceId(
+						theTransactionDetails, theOutputPidsToLoadFully, theOutputPidsToLoadVersionsFor, matchUrl, pid);
+			});
+		}
+	}
+
+	/**
+	 * If partitioning is enabled but the partition ID isn't included in the search hashes, the
+	 * hash predicate must also be constrained to the partition(s) being searched.
+	 */
+	private Predicate addPartitionPredicate(
+			CriteriaBuilder theCriteriaBuilder,
+			Root<ResourceIndexedSearchParamToken> theFrom,
+			Predicate thePredicate,
+			RequestPartitionId theRequestPartitionId) {
+		if (myPartitionSettings.isPartitioningEnabled() && !myPartitionSettings.isIncludePartitionInSearchHashes()) {
+			if (myRequestPartitionHelperSvc.isDefaultPartition(theRequestPartitionId)
+					&& myPartitionSettings.getDefaultPartitionId() == null) {
+				Predicate partitionIdCriteria = theCriteriaBuilder.isNull(theFrom.get("myPartitionIdValue"));
+				return theCriteriaBuilder.and(partitionIdCriteria, thePredicate);
+			} else if (!theRequestPartitionId.isAllPartitions()) {
+				Predicate partitionIdCriteria =
+						theFrom.get("myPartitionIdValue").in(theRequestPartitionId.getPartitionIds());
+				return theCriteriaBuilder.and(partitionIdCriteria, thePredicate);
+			}
+		}
+		return thePredicate;
+	}
+
 	private void handleFoundPreFetchResourceId(
 			TransactionDetails theTransactionDetails,
 			Set<JpaPid> theOutputPidsToLoadFully,
@@ -826,6 +976,62 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		return false;
 	}
 
+	/**
+	 * Given a match URL consisting of several parameters, calculates the hash for each parameter if every
+	 * one of them is a plain token with a single value. The hashes are stored on the match URL sorted by
+	 * index column and then by hash, so that equivalent URLs produce equal tuples regardless of parameter
+	 * order, and the URL is added to the output map keyed by its shape (i.e. the sorted index column names).
+	 *
+	 * @return Returns {@literal true} if the match URL was added to the output map
+	 */
+	private boolean buildHashTupleFromTokenParams(
+			RequestPartitionId theRequestPartitionId,
+			MatchUrlToResolve theMatchUrl,
+			ListMultimap<List<String>, MatchUrlToResolve> theOutputShapeToMatchUrls) {
+		SearchParameterMap matchUrlSearchMap = theMatchUrl.myMatchUrlSearchMap;
+		if (matchUrlSearchMap.getLastUpdated() != null) {
+			return false;
+		}
+
+		String resourceType = theMatchUrl.myResourceDefinition.getName();
+		List<Pair<String, Long>> columnsAndHashes = new ArrayList<>();
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextEntry : matchUrlSearchMap.entrySet()) {
+			String paramName = nextEntry.getKey();
+			List<List<IQueryParameterType>> andList = nextEntry.getValue();
+			if (paramName.startsWith("_") || andList.size() != 1 || andList.get(0).size() != 1) {
+				return false;
+			}
+			if (!(andList.get(0).get(0) instanceof TokenParam tokenParam)
+					|| tokenParam.getModifier() != null
+					|| tokenParam.getMissing() != null
+					|| tokenParam.isMdmExpand()
+					|| isBlank(tokenParam.getValue())) {
+				return false;
+			}
+
+			if (isNotBlank(tokenParam.getSystem())) {
+				long hash = ResourceIndexedSearchParamToken.calculateHashSystemAndValue(
+						myPartitionSettings,
+						theRequestPartitionId,
+						resourceType,
+						paramName,
+						tokenParam.getSystem(),
+						tokenParam.getValue());
+				columnsAndHashes.add(Pair.of("myHashSystemAndValue", hash));
+			} else {
+				long hash = ResourceIndexedSearchParamToken.calculateHashValue(
+						myPartitionSettings, theRequestPartitionId, resourceType, paramName, tokenParam.getValue());
+				columnsAndHashes.add(Pair.of("myHashValue", hash));
+			}
+		}
+
+		columnsAndHashes.sort(Comparator.comparing(Pair<String, Long>::getLeft).thenComparing(Pair::getRight));
+		List<String> shape = columnsAndHashes.stream().map(Pair::getLeft).toList();
+		theMatchUrl.myHashTuple = columnsAndHashes.stream().map(Pair::getRight).toList();
+		theOutputShapeToMatchUrls.put(shape, theMatchUrl);
+		return true;
+	}
+
 	private ListMultimap<Long, MatchUrlToResolve> buildHashToSearchMap(
 			List<MatchUrlToResolve> searchParameterMapsToResolve, String theIndex) {
 		ListMultimap<Long, MatchUrlToResolve> hashToSearch = ArrayListMultimap.create();
@@ -841,6 +1047,78 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		return hashToSearch;
 	}
 
+	/**
+	 * Extracts the search parameter indexes for the resources in the transaction concurrently.
+	 * If extraction fails for any resource, it is simply extracted again on the request thread
+	 * when the resource is stored, so that any error is reported in the usual way.
+	 *
+	 * @see JpaStorageSettings#setTransactionIndexingParallelism(int)
+	 */
+	@Override
+	protected void preIndexResources(
+			RequestDetails theRequest, TransactionDetails theTransactionDetails, List<IBaseResource> theResources) {
+		int parallelism = myStorageSettings.getTransactionIndexingParallelism();
+		if (parallelism <= 1 || theResources.size() < 2) {
+			return;
+		}
+
+		StopWatch sw = new StopWatch();
+		Executor executor = getIndexingExecutor(parallelism);
+		List<CompletableFuture<ResourceIndexedSearchParams>> futures = new ArrayList<>(theResources.size());
+		for (IBaseResource next : theResources) {
+			futures.add(CompletableFuture.supplyAsync(
+					() -> mySearchParamExtractorService.preExtractFromResource(theRequest, next), executor));
+		}
+
+		int extractedCount = 0;
+		for (int i = 0; i < theResources.size(); i++) {
+			try {
+				ResourceIndexedSearchParams params = futures.get(i).join();
+				mySearchParamExtractorService.addPreExtractedParams(theTransactionDetails, theResources.get(i), params);
+				extractedCount++;
+			} catch (CompletionException e) {
+				ourLog.debug("Failed to pre-extract search parameters, will retry when storing: {}", e.getMessage());
+			}
+		}
+
+		ourLog.debug(
+				"Extracted search parameters for {} of {} resources using {} threads in {}",
+				extractedCount,
+				theResources.size(),
+				parallelism,
+				sw);
+	}
+
+	/**
+	 * Other transactions may be using the pool, so if the parallelism changes it is resized
+	 * rather than replaced
+	 */
+	private synchronized Executor getIndexingExecutor(int theParallelism) {
+		if (myIndexingExecutor == null) {
+			myIndexingExecutor = ThreadPoolUtil.newThreadPool(theParallelism, theParallelism, "transaction-indexing-");
+			myIndexingPoolSize = theParallelism;
+		} else if (myIndexingPoolSize != theParallelism) {
+			// The core size can never be larger than the maximum size, so the order matters
+			if (theParallelism > myIndexingPoolSize) {
+				myIndexingExecutor.setMaxPoolSize(theParallelism);
+				myIndexingExecutor.setCorePoolSize(theParallelism);
+			} else {
+				myIndexingExecutor.setCorePoolSize(theParallelism);
+				myIndexingExecutor.setMaxPoolSize(theParallelism);
+			}
+			myIndexingPoolSize = theParallelism;
+		}
+		return myIndexingExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void shutdownIndexingExecutor() {
+		if (myIndexingExecutor != null) {
+			myIndexingExecutor.shutdown();
+			myIndexingExecutor = null;
+		}
+	}
+
 	@Override
 	protected void flushSession(Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome) {
 		try {
@@ -857,11 +1135,14 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 
 			StopWatch sw = new StopWatch();
 			myEntityManager.flush();
+			long flushMillis = sw.getMillis();
 			ourLog.debug(
-					"Session flush took {}ms for {} inserts and {} updates",
-					sw.getMillis(),
-					insertionCount,
-					updateCount);
+					"Session flush took {}ms for {} inserts and {} updates", flushMillis, insertionCount, updateCount);
+
+			if (myTransactionWriteStatistics != null && session != null) {
+				myTransactionWriteStatistics.recordFlush(
+						theIdToPersistedOutcome.size(), insertionCount, updateCount, flushMillis);
+			}
 		} catch (PersistenceException e) {
 			if (myHapiFhirHibernateJpaDialect != null) {
 				String transactionTypes = createDescriptionOfResourceTypesInBundle(theIdToPersistedOutcome);
@@ -933,6 +1214,7 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		public boolean myResolved;
 		private Long myHashValue;
 		private Long myHashSystemAndValue;
+		private List<Long> myHashTuple;
 
 		public MatchUrlToResolve(
 				String theRequestUrl,
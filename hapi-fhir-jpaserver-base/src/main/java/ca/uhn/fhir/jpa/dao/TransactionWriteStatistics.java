@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.util.StopWatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative statistics about the writes performed when the Hibernate session is flushed at
+ * the end of the write operations of a FHIR transaction (see
+ * {@link TransactionProcessor#flushSession(java.util.Map)}). These can be used to monitor
+ * the ingest throughput of the server, e.g. while tuning
+ * {@link ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setTransactionWriteJdbcBatchSize(Integer)}.
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public class TransactionWriteStatistics {
+
+	private final AtomicLong myFlushCount = new AtomicLong();
+	private final AtomicLong myResourceCount = new AtomicLong();
+	private final AtomicLong myInsertCount = new AtomicLong();
+	private final AtomicLong myUpdateCount = new AtomicLong();
+	private final AtomicLong myFlushMillis = new AtomicLong();
+
+	/**
+	 * Records a single session flush
+	 *
+	 * @param theResourceCount The number of resources written by the transaction
+	 * @param theInsertCount   The number of rows inserted by the flush
+	 * @param theUpdateCount   The number of rows updated by the flush
+	 * @param theFlushMillis   The time taken by the flush, in milliseconds
+	 */
+	public void recordFlush(int theResourceCount, int theInsertCount, int theUpdateCount, long theFlushMillis) {
+		myFlushCount.incrementAndGet();
+		myResourceCount.addAndGet(theResourceCount);
+		myInsertCount.addAndGet(theInsertCount);
+		myUpdateCount.addAndGet(theUpdateCount);
+		myFlushMillis.addAndGet(theFlushMillis);
+	}
+
+	/**
+	 * Returns the number of transactions which have been flushed
+	 */
+	public long getFlushCount() {
+		return myFlushCount.get();
+	}
+
+	/**
+	 * Returns the number of resources written by the flushed transactions
+	 */
+	public long getResourceCount() {
+		return myResourceCount.get();
+	}
+
+	/**
+	 * Returns the number of rows inserted across all tables
+	 */
+	public long getInsertCount() {
+		return myInsertCount.get();
+	}
+
+	/**
+	 * Returns the number of rows updated across all tables
+	 */
+	public long getUpdateCount() {
+		return myUpdateCount.get();
+	}
+
+	/**
+	 * Returns the total time spent flushing, in milliseconds
+	 */
+	public long getFlushMillis() {
+		return myFlushMillis.get();
+	}
+
+	/**
+	 * Returns the average number of rows (inserted or updated) written to the database per
+	 * second of flush time, or 0 if nothing has been flushed
+	 */
+	public double getRowsPerSecond() {
+		return perSecond(getInsertCount() + getUpdateCount());
+	}
+
+	/**
+	 * Returns the average number of resources written per second of flush time, or 0 if
+	 * nothing has been flushed
+	 */
+	public double getResourcesPerSecond() {
+		return perSecond(getResourceCount());
+	}
+
+	/**
+	 * Resets all statistics to zero
+	 */
+	public void reset() {
+		myFlushCount.set(0);
+		myResourceCount.set(0);
+		myInsertCount.set(0);
+		myUpdateCount.set(0);
+		myFlushMillis.set(0);
+	}
+
+	private double perSecond(long theCount) {
+		long millis = getFlushMillis();
+		return millis == 0 ? 0 : StopWatch.getThroughput(theCount, millis, TimeUnit.SECONDS);
+	}
+}
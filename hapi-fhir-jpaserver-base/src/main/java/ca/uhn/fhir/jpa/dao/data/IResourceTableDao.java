@@ -85,6 +85,11 @@ public interface IResourceTableDao
 	Stream<Object[]> streamIdsTypesAndUpdateTimesOfResourcesWithinUpdatedRangeOrderedFromOldestForDefaultPartition(
 			@Param("low") Date theLow, @Param("high") Date theHigh, @Param("dpid") Integer theDefaultPartitionId);
 
+	@Query(
+			"SELECT t.myResourceType, t.myFhirId, t.myPartitionIdValue, t.myUpdated FROM ResourceTable t WHERE t.myIndexStatus IS NULL AND t.myPartitionIdValue IN (:partition_ids) AND t.myDeleted IS NULL ORDER BY t.myUpdated ASC")
+	Slice<Object[]> findTypesIdsAndUpdateTimesOfUnindexedResourcesForPartitionIds(
+			Pageable thePage, @Param("partition_ids") Collection<Integer> thePartitionIds);
+
 	@Query(
 			"SELECT t.myPid FROM ResourceTable t WHERE t.myUpdated >= :low AND t.myUpdated <= :high AND t.myResourceType = :restype ORDER BY t.myUpdated ASC")
 	Slice<JpaPid> findIdsOfResourcesWithinUpdatedRangeOrderedFromOldest(
@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.SearchCountViewEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ISearchCountViewDao extends JpaRepository<SearchCountViewEntity, Long>, IHapiFhirJpaRepository {
+
+	@Query("SELECT t FROM SearchCountViewEntity t ORDER BY t.myId")
+	List<SearchCountViewEntity> findAllViews();
+
+	@Modifying
+	@Query(
+			"UPDATE SearchCountViewEntity t SET t.myCount = COALESCE(t.myCount, 0) + :delta, t.myModCount = t.myModCount + 1 WHERE t.myId = :id")
+	int adjustCount(@Param("id") Long theId, @Param("delta") long theDelta);
+
+	@Modifying
+	@Query(
+			"UPDATE SearchCountViewEntity t SET t.myChanged = COALESCE(t.myChanged, :now), t.myModCount = t.myModCount + 1, t.myChangedModCount = t.myModCount + 1 WHERE t.myId = :id")
+	int markChanged(@Param("id") Long theId, @Param("now") Date theNow);
+
+	/**
+	 * Stores a recount. The count query saw the view as of roughly when the snapshot was read, so the
+	 * correction (the recount minus the count in the snapshot) is applied to the current count, which
+	 * keeps the adjustments committed since then. If a change of unknown effect was committed since
+	 * the snapshot, the view remains marked as changed as of the snapshot time.
+	 */
+	@Modifying
+	@Query(
+			"UPDATE SearchCountViewEntity t SET t.myCount = COALESCE(t.myCount, 0) + :correction, t.myCounted = :now, t.myChanged = CASE WHEN t.myChangedModCount > :snapshotModCount THEN :snapshotTime ELSE NULL END WHERE t.myId = :id")
+	int updateCount(
+			@Param("id") Long theId,
+			@Param("correction") long theCorrection,
+			@Param("now") Date theNow,
+			@Param("snapshotModCount") long theSnapshotModCount,
+			@Param("snapshotTime") Date theSnapshotTime);
+
+	@Modifying
+	@Query("DELETE FROM SearchCountViewEntity t WHERE t.myCriteria = :criteria")
+	int deleteByCriteria(@Param("criteria") String theCriteria);
+
+	@Modifying
+	@Query("DELETE FROM SearchCountViewEntity t")
+	void deleteAllViews();
+}
@@ -0,0 +1,38 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.SearchParamStatisticsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Date;
+
+public interface ISearchParamStatisticsDao
+		extends JpaRepository<SearchParamStatisticsEntity, Long>, IHapiFhirJpaRepository {
+
+	@Query("SELECT MAX(t.mySampled) FROM SearchParamStatisticsEntity t")
+	Date findLastSampled();
+
+	@Modifying
+	@Query("DELETE FROM SearchParamStatisticsEntity t")
+	void deleteAllStatistics();
+}
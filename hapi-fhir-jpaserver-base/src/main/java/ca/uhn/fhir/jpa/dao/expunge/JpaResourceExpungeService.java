@@ -42,6 +42,7 @@ import ca.uhn.fhir.jpa.dao.data.IResourceLinkDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchParamPresentDao;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityNearCache;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryProvenanceEntity;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
@@ -138,6 +139,9 @@ public class JpaResourceExpungeService implements IResourceExpungeService<JpaPid
 	@Autowired
 	private MemoryCacheService myMemoryCacheService;
 
+	@Autowired(required = false)
+	private ResourceIdentityNearCache myResourceIdentityNearCache;
+
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
 
@@ -222,6 +226,9 @@ public class JpaResourceExpungeService implements IResourceExpungeService<JpaPid
 				myMemoryCacheService.invalidateAllCaches();
 			}
 		});
+		if (myResourceIdentityNearCache != null) {
+			myResourceIdentityNearCache.invalidateAllAfterCommit();
+		}
 	}
 
 	private void expungeHistoricalVersion(
@@ -131,6 +131,8 @@ public class DaoSearchParamSynchronizer {
 			next.calculateHashes();
 		}
 
+		SearchParamIndexBatchWriter batchWriter = getBatchWriterIfEnabled(theNewParams, theExistingParams);
+
 		/*
 		 * It's technically possible that the existing index collection
 		 * contains duplicates. Duplicates don't actually cause any
@@ -150,7 +152,11 @@ public class DaoSearchParamSynchronizer {
 			next.setPlaceholderHashesIfMissing();
 			if (!existingParamsAsSet.add(next)) {
 				iterator.remove();
-				myEntityManager.remove(next);
+				if (batchWriter != null) {
+					batchWriter.queueRemove(next);
+				} else {
+					myEntityManager.remove(next);
+				}
 			}
 		}
 
@@ -167,10 +173,18 @@ public class DaoSearchParamSynchronizer {
 			theAddParamPreSaveHook.preSave(paramsToRemove, paramsToAdd);
 		}
 
-		tryToReuseIndexEntities(paramsToRemove, paramsToAdd);
+		if (batchWriter == null) {
+			// When batching, the removals and additions are written as cheap JDBC batches
+			// anyway, and rows queued earlier in this transaction can't be updated in place
+			tryToReuseIndexEntities(paramsToRemove, paramsToAdd);
+		}
 		updateExistingParamsIfRequired(theExistingParams, paramsToAdd, newParams, paramsToRemove);
 
 		for (T next : paramsToRemove) {
+			if (batchWriter != null) {
+				batchWriter.queueRemove(next);
+				continue;
+			}
 			if (!myEntityManager.contains(next)) {
 				// If a resource is created and deleted in the same transaction, we can end up
 				// in a state where we're deleting entities that don't actually exist. Hibernate
@@ -182,7 +196,9 @@ public class DaoSearchParamSynchronizer {
 
 		for (T next : paramsToAdd) {
 			findOrCreateSearchParamIdentity(next);
-			if (next.getId() == null) {
+			if (batchWriter != null && next.getId() == null) {
+				batchWriter.queueInsert(next, theEntity.getId().getId());
+			} else if (next.getId() == null) {
 				myEntityManager.persist(next);
 			} else {
 				myEntityManager.merge(next);
@@ -202,6 +218,27 @@ public class DaoSearchParamSynchronizer {
 		theNewParams.removeAll(paramsToRemove);
 	}
 
+	/**
+	 * Returns a writer if index rows of this type should be written using JDBC batches,
+	 * or <code>null</code> if they should be persisted as entities.
+	 *
+	 * @see JpaStorageSettings#setBatchedIndexWritesEnabled(boolean)
+	 */
+	@Nullable
+	private <T extends BaseResourceIndex> SearchParamIndexBatchWriter getBatchWriterIfEnabled(
+			Collection<T> theNewParams, Collection<T> theExistingParams) {
+		if (!myStorageSettings.isBatchedIndexWritesEnabled() || !SearchParamIndexBatchWriter.isAvailable()) {
+			return null;
+		}
+		T sample = !theNewParams.isEmpty()
+				? theNewParams.iterator().next()
+				: theExistingParams.stream().findFirst().orElse(null);
+		if (sample == null || !SearchParamIndexBatchWriter.isBatchable(sample)) {
+			return null;
+		}
+		return new SearchParamIndexBatchWriter(myEntityManager, myStorageSettings);
+	}
+
 	/**
 	 * Checks whether the Indexed Search Parameter hash identity exists in the cache.
 	 * If the identity is missing, a new {@link IndexedSearchParamIdentity} will be
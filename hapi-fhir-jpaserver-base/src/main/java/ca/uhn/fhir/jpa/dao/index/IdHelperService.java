@@ -72,6 +72,8 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -124,6 +126,9 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 	@Autowired
 	private PartitionSettings myPartitionSettings;
 
+	@Autowired(required = false)
+	private ResourceIdentityNearCache myResourceIdentityNearCache;
+
 	private boolean myDontCheckActiveTransactionForUnitTest;
 
 	@VisibleForTesting
@@ -213,13 +218,32 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 				MultimapBuilder.hashKeys(theIds.size()).arrayListValues(1).build();
 
 		// Do we have any FHIR ID lookups cached for any of the IDs
-		if (theMode.isUseCache(myStorageSettings.isDeleteEnabled()) && !ids.isEmpty()) {
+		boolean useNearCache = false;
+		long nearCacheGeneration = 0;
+		if (theMode.isUseCache(myStorageSettings.isDeleteEnabled())) {
 			resolveResourceIdentitiesForFhirIdsUsingCache(requestPartitionId, theMode, ids, idToLookup);
+		} else if (myResourceIdentityNearCache != null && myResourceIdentityNearCache.isEnabled()) {
+			useNearCache = true;
+			nearCacheGeneration = myResourceIdentityNearCache.getGeneration();
+			resolveResourceIdentitiesForFhirIdsUsingNearCache(requestPartitionId, ids, idToLookup);
 		}
 
 		// We still haven't found IDs, let's look them up in the DB
 		if (!ids.isEmpty()) {
-			resolveResourceIdentitiesForFhirIdsUsingDatabase(requestPartitionId, ids, idToLookup);
+			ListMultimap<IIdType, IResourceLookup<JpaPid>> databaseLookups =
+					MultimapBuilder.hashKeys(ids.size()).arrayListValues(1).build();
+			resolveResourceIdentitiesForFhirIdsUsingDatabase(requestPartitionId, ids, databaseLookups);
+			if (useNearCache) {
+				for (IIdType next : databaseLookups.keySet()) {
+					myResourceIdentityNearCache.putAfterCommit(
+							next.getResourceType(),
+							next.getIdPart(),
+							requestPartitionId,
+							databaseLookups.get(next),
+							nearCacheGeneration);
+				}
+			}
+			idToLookup.putAll(databaseLookups);
 		}
 
 		// Convert the multimap into a simple map
@@ -300,6 +324,36 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		}
 	}
 
+	/**
+	 * Fetch the resource identity ({@link IResourceLookup}) for a collection of
+	 * resource IDs from the {@link ResourceIdentityNearCache}. Unlike the regular
+	 * memory cache, the near cache can be used even when deletes are enabled since
+	 * entries are evicted whenever the deleted status of a resource changes. Untyped
+	 * IDs are never resolved using the near cache.
+	 *
+	 * @param theRequestPartitionId The partition(s) to search
+	 * @param theIdsToResolve       The IDs we should look up. Any IDs that are resolved
+	 *                              will be removed from this list.
+	 * @param theMapToPopulate      The results will be populated into this map
+	 */
+	private void resolveResourceIdentitiesForFhirIdsUsingNearCache(
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			Collection<IIdType> theIdsToResolve,
+			ListMultimap<IIdType, IResourceLookup<JpaPid>> theMapToPopulate) {
+		for (Iterator<IIdType> idIterator = theIdsToResolve.iterator(); idIterator.hasNext(); ) {
+			IIdType nextId = idIterator.next();
+			if (!nextId.hasResourceType()) {
+				continue;
+			}
+			List<IResourceLookup<JpaPid>> cachedLookups = myResourceIdentityNearCache.get(
+					nextId.getResourceType(), nextId.getIdPart(), theRequestPartitionId);
+			if (cachedLookups != null && !cachedLookups.isEmpty()) {
+				idIterator.remove();
+				theMapToPopulate.putAll(nextId.toUnqualifiedVersionless(), cachedLookups);
+			}
+		}
+	}
+
 	/**
 	 * Fetch the resource identity ({@link IResourceLookup}) for a collection of
 	 * resource IDs from the database
@@ -342,19 +396,31 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			getOptionalPartitionPredicate(theRequestPartitionId, cb, from).ifPresent(outerAndPredicates::add);
 		}
 
-		// one create one clause per id.
-		List<Predicate> innerIdPredicates = new ArrayList<>(theIdsToResolve.size());
+		/*
+		 * Group the IDs by resource type so that we create one clause per type, e.g.
+		 * (RES_TYPE = 'Patient' AND FHIR_ID IN ('A', 'B')) OR (RES_TYPE = 'Observation' AND FHIR_ID IN ('C'))
+		 * rather than one clause per ID. Untyped IDs are grouped together without a type criteria.
+		 */
+		Map<String, Set<String>> typeToIds = new LinkedHashMap<>();
 		for (IIdType next : theIdsToResolve) {
-			List<Predicate> idPredicates = new ArrayList<>(2);
-
-			if (isNotBlank(next.getResourceType())) {
-				Predicate typeCriteria = cb.equal(from.get("myResourceType"), next.getResourceType());
-				idPredicates.add(typeCriteria);
+			String resourceType = isNotBlank(next.getResourceType()) ? next.getResourceType() : null;
+			typeToIds.computeIfAbsent(resourceType, t -> new LinkedHashSet<>()).add(next.getIdPart());
+		}
+		List<Predicate> innerIdPredicates = new ArrayList<>(typeToIds.size());
+		for (Map.Entry<String, Set<String>> next : typeToIds.entrySet()) {
+			Predicate idCriteria;
+			if (next.getValue().size() == 1) {
+				idCriteria = cb.equal(
+						from.get("myFhirId"), next.getValue().iterator().next());
+			} else {
+				idCriteria = from.get("myFhirId").in(next.getValue());
+			}
+			if (next.getKey() != null) {
+				Predicate typeCriteria = cb.equal(from.get("myResourceType"), next.getKey());
+				innerIdPredicates.add(cb.and(typeCriteria, idCriteria));
+			} else {
+				innerIdPredicates.add(idCriteria);
 			}
-			Predicate idCriteria = cb.equal(from.get("myFhirId"), next.getIdPart());
-			idPredicates.add(idCriteria);
-
-			innerIdPredicates.add(cb.and(idPredicates.toArray(EMPTY_PREDICATE_ARRAY)));
 		}
 		outerAndPredicates.add(cb.or(innerIdPredicates.toArray(EMPTY_PREDICATE_ARRAY)));
 
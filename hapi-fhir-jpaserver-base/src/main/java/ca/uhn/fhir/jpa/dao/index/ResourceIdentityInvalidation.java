@@ -0,0 +1,88 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.model.api.IModelJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payload for a message notifying other servers in the cluster that cached resource
+ * identities held by the {@link ResourceIdentityNearCache} are no longer valid
+ */
+public class ResourceIdentityInvalidation implements IModelJson {
+
+	@JsonProperty("sourceNodeId")
+	private String mySourceNodeId;
+
+	@JsonProperty("invalidateAll")
+	private boolean myInvalidateAll;
+
+	@JsonProperty("resourceIds")
+	private List<String> myResourceIds;
+
+	/**
+	 * Constructor
+	 */
+	public ResourceIdentityInvalidation() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public ResourceIdentityInvalidation(String theSourceNodeId, boolean theInvalidateAll, List<String> theResourceIds) {
+		mySourceNodeId = theSourceNodeId;
+		myInvalidateAll = theInvalidateAll;
+		myResourceIds = theResourceIds;
+	}
+
+	public String getSourceNodeId() {
+		return mySourceNodeId;
+	}
+
+	public void setSourceNodeId(String theSourceNodeId) {
+		mySourceNodeId = theSourceNodeId;
+	}
+
+	public boolean isInvalidateAll() {
+		return myInvalidateAll;
+	}
+
+	public void setInvalidateAll(boolean theInvalidateAll) {
+		myInvalidateAll = theInvalidateAll;
+	}
+
+	/**
+	 * The invalidated resource IDs, in the form <code>[resourceType]/[id]</code>
+	 */
+	public List<String> getResourceIds() {
+		if (myResourceIds == null) {
+			myResourceIds = new ArrayList<>();
+		}
+		return myResourceIds;
+	}
+
+	public void setResourceIds(List<String> theResourceIds) {
+		myResourceIds = theResourceIds;
+	}
+}
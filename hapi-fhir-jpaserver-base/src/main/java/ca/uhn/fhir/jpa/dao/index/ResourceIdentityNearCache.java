@@ -0,0 +1,318 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.broker.api.ChannelConsumerSettings;
+import ca.uhn.fhir.broker.api.ChannelProducerSettings;
+import ca.uhn.fhir.broker.api.IBrokerClient;
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.util.IoUtils;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.time.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of resource identities ({@link IResourceLookup}) which, unlike the
+ * {@link MemoryCacheService.CacheEnum#RESOURCE_LOOKUP_BY_FORCED_ID} cache, can be used even when
+ * deletes are enabled. Instead of relying on a short expiry, entries are evicted whenever
+ * the deleted status of a resource changes, and the eviction is published to the other servers
+ * in the cluster using the {@link IBrokerClient}.
+ * <p>
+ * Puts are guarded by a generation counter which is incremented on every eviction, so that a
+ * lookup which was read from the database before an eviction can never be cached after it.
+ * </p>
+ *
+ * @see JpaStorageSettings#setResourceIdentityNearCacheEnabled(boolean)
+ * @since 8.4.0
+ */
+public class ResourceIdentityNearCache implements IMessageListener<ResourceIdentityInvalidation> {
+
+	public static final String CHANNEL_NAME = "resource-identity-invalidation";
+	private static final Logger ourLog = LoggerFactory.getLogger(ResourceIdentityNearCache.class);
+	private static final String PENDING_INVALIDATION_KEY =
+			ResourceIdentityNearCache.class.getName() + "_PENDING_INVALIDATION";
+	private static final long EXPIRE_AFTER_MILLIS = DateUtils.MILLIS_PER_HOUR;
+	private static final long MAXIMUM_SIZE = 100000;
+
+	private final JpaStorageSettings myStorageSettings;
+	private final IBrokerClient myBrokerClient;
+	private final String myNodeId = UUID.randomUUID().toString();
+	private final Cache<String, Map<MemoryCacheService.ForcedIdCacheKey, List<IResourceLookup<JpaPid>>>> myCache;
+	private long myGeneration;
+	private IChannelProducer<ResourceIdentityInvalidation> myProducer;
+	private IChannelConsumer<ResourceIdentityInvalidation> myConsumer;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theBrokerClient The broker used to publish and receive invalidations. If <code>null</code>,
+	 *                        entries are only invalidated on this server.
+	 */
+	public ResourceIdentityNearCache(
+			@Nonnull JpaStorageSettings theStorageSettings, @Nullable IBrokerClient theBrokerClient) {
+		myStorageSettings = theStorageSettings;
+		myBrokerClient = theBrokerClient;
+		myCache = CacheFactory.build(EXPIRE_AFTER_MILLIS, MAXIMUM_SIZE);
+	}
+
+	public boolean isEnabled() {
+		return myStorageSettings.isResourceIdentityNearCacheEnabled();
+	}
+
+	@EventListener(ContextRefreshedEvent.class)
+	public synchronized void start() {
+		if (!isEnabled() || myBrokerClient == null || myConsumer != null) {
+			return;
+		}
+		myProducer = myBrokerClient.getOrCreateProducer(
+				CHANNEL_NAME, ResourceIdentityInvalidationJsonMessage.class, new ChannelProducerSettings());
+		myConsumer = myBrokerClient.getOrCreateConsumer(
+				CHANNEL_NAME, ResourceIdentityInvalidationJsonMessage.class, this, new ChannelConsumerSettings());
+		ourLog.info("Resource identity near cache subscribed to invalidation channel {}", CHANNEL_NAME);
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if (myConsumer != null) {
+			IoUtils.closeQuietly(myConsumer, ourLog);
+			myConsumer = null;
+		}
+	}
+
+	/**
+	 * Returns the current generation, which must be captured before reading identities from the
+	 * database and then passed to {@link #putAfterCommit(String, String, RequestPartitionId, List, long)}
+	 */
+	public synchronized long getGeneration() {
+		return myGeneration;
+	}
+
+	@Nullable
+	public List<IResourceLookup<JpaPid>> get(
+			@Nonnull String theResourceType,
+			@Nonnull String theFhirId,
+			@Nonnull RequestPartitionId theRequestPartitionId) {
+		Map<MemoryCacheService.ForcedIdCacheKey, List<IResourceLookup<JpaPid>>> entries =
+				myCache.getIfPresent(toCacheKey(theResourceType, theFhirId));
+		if (entries == null) {
+			return null;
+		}
+		return entries.get(new MemoryCacheService.ForcedIdCacheKey(theResourceType, theFhirId, theRequestPartitionId));
+	}
+
+	/**
+	 * Caches the given lookups once the current transaction is committed, unless any entry
+	 * has been invalidated since <code>theGeneration</code> was captured
+	 */
+	public void putAfterCommit(
+			@Nonnull String theResourceType,
+			@Nonnull String theFhirId,
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			@Nonnull List<IResourceLookup<JpaPid>> theLookups,
+			long theGeneration) {
+		List<IResourceLookup<JpaPid>> lookups = List.copyOf(theLookups);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					put(theResourceType, theFhirId, theRequestPartitionId, lookups, theGeneration);
+				}
+			});
+		} else {
+			put(theResourceType, theFhirId, theRequestPartitionId, lookups, theGeneration);
+		}
+	}
+
+	private synchronized void put(
+			String theResourceType,
+			String theFhirId,
+			RequestPartitionId theRequestPartitionId,
+			List<IResourceLookup<JpaPid>> theLookups,
+			long theGeneration) {
+		if (theGeneration != myGeneration) {
+			return;
+		}
+		myCache.get(toCacheKey(theResourceType, theFhirId), t -> new ConcurrentHashMap<>())
+				.put(
+						new MemoryCacheService.ForcedIdCacheKey(theResourceType, theFhirId, theRequestPartitionId),
+						theLookups);
+	}
+
+	/**
+	 * Evicts the given resource identity on this server immediately (so that the current
+	 * transaction doesn't see a stale entry), and again on this server and all other servers
+	 * in the cluster once the current transaction is committed.
+	 */
+	public void invalidateAfterCommit(@Nonnull String theResourceType, @Nonnull String theFhirId) {
+		if (!isEnabled()) {
+			return;
+		}
+		String cacheKey = toCacheKey(theResourceType, theFhirId);
+		invalidateLocally(List.of(cacheKey));
+		PendingInvalidation pending = getOrCreatePendingInvalidation();
+		if (pending != null) {
+			pending.myResourceIds.add(cacheKey);
+		} else {
+			publish(new ResourceIdentityInvalidation(myNodeId, false, List.of(cacheKey)));
+		}
+	}
+
+	/**
+	 * Evicts all cached resource identities on this server and all other servers in the cluster
+	 * once the current transaction is committed. This is used when resources are expunged.
+	 */
+	public void invalidateAllAfterCommit() {
+		if (!isEnabled()) {
+			return;
+		}
+		PendingInvalidation pending = getOrCreatePendingInvalidation();
+		if (pending != null) {
+			pending.myInvalidateAll = true;
+		} else {
+			invalidateAllLocally();
+			publish(new ResourceIdentityInvalidation(myNodeId, true, null));
+		}
+	}
+
+	@Override
+	public void handleMessage(@Nonnull IMessage<ResourceIdentityInvalidation> theMessage) {
+		ResourceIdentityInvalidation invalidation = theMessage.getPayload();
+		if (myNodeId.equals(invalidation.getSourceNodeId())) {
+			return;
+		}
+		ourLog.debug("Received resource identity invalidation: {}", invalidation);
+		if (invalidation.isInvalidateAll()) {
+			invalidateAllLocally();
+		} else {
+			invalidateLocally(invalidation.getResourceIds());
+		}
+	}
+
+	@Override
+	public Class<ResourceIdentityInvalidation> getPayloadType() {
+		return ResourceIdentityInvalidation.class;
+	}
+
+	@VisibleForTesting
+	public long getEstimatedSize() {
+		return myCache.estimatedSize();
+	}
+
+	private synchronized void invalidateLocally(List<String> theCacheKeys) {
+		myGeneration++;
+		myCache.invalidateAll(theCacheKeys);
+	}
+
+	private synchronized void invalidateAllLocally() {
+		myGeneration++;
+		myCache.invalidateAll();
+	}
+
+	private void publish(ResourceIdentityInvalidation theInvalidation) {
+		if (myProducer != null) {
+			myProducer.send(new ResourceIdentityInvalidationJsonMessage(theInvalidation));
+		}
+	}
+
+	/**
+	 * Returns the invalidations to be published when the current transaction commits, or
+	 * <code>null</code> if no transaction is active. All invalidations in a transaction
+	 * are published as a single message.
+	 */
+	@Nullable
+	private PendingInvalidation getOrCreatePendingInvalidation() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		PendingInvalidation retVal =
+				(PendingInvalidation) TransactionSynchronizationManager.getResource(PENDING_INVALIDATION_KEY);
+		if (retVal == null) {
+			PendingInvalidation pending = new PendingInvalidation();
+			TransactionSynchronizationManager.bindResource(PENDING_INVALIDATION_KEY, pending);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					if (pending.myInvalidateAll) {
+						invalidateAllLocally();
+						publish(new ResourceIdentityInvalidation(myNodeId, true, null));
+					} else {
+						List<String> resourceIds = new ArrayList<>(pending.myResourceIds);
+						invalidateLocally(resourceIds);
+						publish(new ResourceIdentityInvalidation(myNodeId, false, resourceIds));
+					}
+				}
+
+				@Override
+				public void suspend() {
+					// Like Spring's own resource holders, unbind while a nested transaction is running
+					// so that its invalidations are published when that transaction commits
+					TransactionSynchronizationManager.unbindResource(PENDING_INVALIDATION_KEY);
+				}
+
+				@Override
+				public void resume() {
+					TransactionSynchronizationManager.bindResource(PENDING_INVALIDATION_KEY, pending);
+				}
+
+				@Override
+				public void afterCompletion(int theStatus) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_INVALIDATION_KEY);
+				}
+			});
+			retVal = pending;
+		}
+		return retVal;
+	}
+
+	private static String toCacheKey(String theResourceType, String theFhirId) {
+		return theResourceType + "/" + theFhirId;
+	}
+
+	private static class PendingInvalidation {
+		private final Set<String> myResourceIds = new HashSet<>();
+		private boolean myInvalidateAll;
+	}
+}
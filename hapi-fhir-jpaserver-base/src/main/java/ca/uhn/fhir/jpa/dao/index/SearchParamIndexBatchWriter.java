@@ -0,0 +1,415 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndex;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParamQuantity;
+import ca.uhn.fhir.jpa.model.entity.IdAndPartitionId;
+import ca.uhn.fhir.jpa.model.entity.PartitionablePartitionId;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamCoords;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamDate;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamNumber;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamQuantity;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamQuantityNormalized;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamUri;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.model.listener.IndexStorageOptimizationListener;
+import ca.uhn.fhir.util.StopWatch;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import org.apache.commons.lang3.Validate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes search parameter index rows (the <code>HFJ_SPIDX_xxx</code> tables) using plain JDBC
+ * batches instead of persisting and removing one Hibernate entity per row.
+ * <p>
+ * Rows are converted to column value tuples as soon as they are queued, and are collected
+ * per table for the current transaction. Just before the transaction commits, the session is
+ * flushed (so that the owning <code>HFJ_RESOURCE</code> rows exist) and the pending deletes and
+ * inserts are written with one JDBC batch per table. The entities themselves are never attached
+ * to the persistence context, so Hibernate does not need to track, dirty-check or flush them.
+ * </p>
+ * <p>
+ * IDs for new rows are allocated using the same Hibernate sequence generator that the entity
+ * path uses, so rows written in either mode can be mixed freely.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setBatchedIndexWritesEnabled(boolean)
+ * @since 8.4.0
+ */
+class SearchParamIndexBatchWriter {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchParamIndexBatchWriter.class);
+	private static final int MAX_ROWS_PER_BATCH = 1000;
+
+	private static final List<IndexColumn> COMMON_COLUMNS = List.of(
+			new IndexColumn("SP_ID", Types.BIGINT),
+			new IndexColumn("PARTITION_ID", Types.INTEGER),
+			new IndexColumn("PARTITION_DATE", Types.DATE),
+			new IndexColumn("SP_MISSING", Types.BOOLEAN),
+			new IndexColumn("SP_NAME", Types.VARCHAR),
+			new IndexColumn("RES_ID", Types.BIGINT),
+			new IndexColumn("RES_TYPE", Types.VARCHAR),
+			new IndexColumn("HASH_IDENTITY", Types.BIGINT),
+			new IndexColumn("SP_UPDATED", Types.TIMESTAMP));
+
+	private static final List<IndexColumn> QUANTITY_COLUMNS = List.of(
+			new IndexColumn("SP_SYSTEM", Types.VARCHAR),
+			new IndexColumn("SP_UNITS", Types.VARCHAR),
+			new IndexColumn("HASH_IDENTITY_AND_UNITS", Types.BIGINT),
+			new IndexColumn("HASH_IDENTITY_SYS_UNITS", Types.BIGINT),
+			new IndexColumn("SP_VALUE", Types.DOUBLE));
+
+	private static final Map<Class<?>, IndexTable<?>> TABLES = Map.of(
+			ResourceIndexedSearchParamString.class,
+			new IndexTable<ResourceIndexedSearchParamString>(
+					ResourceIndexedSearchParamString.HFJ_SPIDX_STRING,
+					List.of(
+							new IndexColumn("SP_VALUE_EXACT", Types.VARCHAR),
+							new IndexColumn("SP_VALUE_NORMALIZED", Types.VARCHAR),
+							new IndexColumn("HASH_NORM_PREFIX", Types.BIGINT),
+							new IndexColumn("HASH_EXACT", Types.BIGINT)),
+					t -> new Object[] {
+						t.getValueExact(), t.getValueNormalized(), t.getHashNormalizedPrefix(), t.getHashExact()
+					}),
+			ResourceIndexedSearchParamToken.class,
+			new IndexTable<ResourceIndexedSearchParamToken>(
+					ResourceIndexedSearchParamToken.HFJ_SPIDX_TOKEN,
+					List.of(
+							new IndexColumn("SP_SYSTEM", Types.VARCHAR),
+							new IndexColumn("SP_VALUE", Types.VARCHAR),
+							new IndexColumn("HASH_SYS", Types.BIGINT),
+							new IndexColumn("HASH_SYS_AND_VALUE", Types.BIGINT),
+							new IndexColumn("HASH_VALUE", Types.BIGINT)),
+					t -> {
+						// Normally done by a @PrePersist callback
+						t.truncateFieldsForDB();
+						return new Object[] {
+							t.getSystem(), t.getValue(), t.getHashSystem(), t.getHashSystemAndValue(), t.getHashValue()
+						};
+					}),
+			ResourceIndexedSearchParamNumber.class,
+			new IndexTable<ResourceIndexedSearchParamNumber>(
+					"HFJ_SPIDX_NUMBER",
+					List.of(new IndexColumn("SP_VALUE", Types.DECIMAL)),
+					t -> new Object[] {t.getValue()}),
+			ResourceIndexedSearchParamQuantity.class,
+			new IndexTable<ResourceIndexedSearchParamQuantity>(
+					"HFJ_SPIDX_QUANTITY", QUANTITY_COLUMNS, t -> toQuantityRow(t, t.myValue)),
+			ResourceIndexedSearchParamQuantityNormalized.class,
+			new IndexTable<ResourceIndexedSearchParamQuantityNormalized>(
+					"HFJ_SPIDX_QUANTITY_NRML", QUANTITY_COLUMNS, t -> toQuantityRow(t, t.getValue())),
+			ResourceIndexedSearchParamDate.class,
+			new IndexTable<ResourceIndexedSearchParamDate>(
+					"HFJ_SPIDX_DATE",
+					List.of(
+							new IndexColumn("SP_VALUE_LOW", Types.TIMESTAMP),
+							new IndexColumn("SP_VALUE_HIGH", Types.TIMESTAMP),
+							new IndexColumn("SP_VALUE_LOW_DATE_ORDINAL", Types.INTEGER),
+							new IndexColumn("SP_VALUE_HIGH_DATE_ORDINAL", Types.INTEGER)),
+					t -> new Object[] {
+						t.getValueLow(), t.getValueHigh(), t.getValueLowDateOrdinal(), t.getValueHighDateOrdinal()
+					}),
+			ResourceIndexedSearchParamUri.class,
+			new IndexTable<ResourceIndexedSearchParamUri>(
+					"HFJ_SPIDX_URI",
+					List.of(new IndexColumn("SP_URI", Types.VARCHAR), new IndexColumn("HASH_URI", Types.BIGINT)),
+					t -> new Object[] {t.getUri(), t.getHashUri()}),
+			ResourceIndexedSearchParamCoords.class,
+			new IndexTable<ResourceIndexedSearchParamCoords>(
+					"HFJ_SPIDX_COORDS",
+					List.of(
+							new IndexColumn("SP_LATITUDE", Types.DOUBLE),
+							new IndexColumn("SP_LONGITUDE", Types.DOUBLE)),
+					t -> new Object[] {t.getLatitude(), t.getLongitude()}));
+
+	private final EntityManager myEntityManager;
+	private final IndexStorageOptimizationListener myIndexStorageOptimizationListener;
+
+	SearchParamIndexBatchWriter(EntityManager theEntityManager, StorageSettings theStorageSettings) {
+		myEntityManager = theEntityManager;
+		myIndexStorageOptimizationListener = new IndexStorageOptimizationListener(theStorageSettings);
+	}
+
+	/**
+	 * Queues a new (never persisted) index row for insertion when the current transaction commits.
+	 * The row is assigned an ID immediately.
+	 */
+	void queueInsert(BaseResourceIndex theIndex, Long theResourcePid) {
+		IndexTable<?> table = getTable(theIndex);
+		Validate.isTrue(theIndex.getId() == null, "Index row has already been persisted");
+
+		SessionImplementor session = myEntityManager.unwrap(SessionImplementor.class);
+		Long id = generateId(session, theIndex);
+		theIndex.setId(id);
+
+		// Normally invoked as an entity listener when the row is persisted
+		myIndexStorageOptimizationListener.optimizeSearchParams(theIndex);
+
+		Object[] row = table.toRow((BaseResourceIndexedSearchParam) theIndex, theResourcePid);
+		getPendingRows(session).myInserts.computeIfAbsent(table, t -> new LinkedHashMap<>()).put(id, row);
+	}
+
+	/**
+	 * Removes an index row. Rows that were queued by {@link #queueInsert(BaseResourceIndex, Long)}
+	 * earlier in this transaction are simply dropped from the queue, and rows that are already
+	 * in the database are detached from the session and deleted when the transaction commits.
+	 */
+	void queueRemove(BaseResourceIndex theIndex) {
+		IndexTable<?> table = getTable(theIndex);
+		if (theIndex.getId() == null) {
+			return;
+		}
+
+		SessionImplementor session = myEntityManager.unwrap(SessionImplementor.class);
+		PendingRows pendingRows = getPendingRows(session);
+		Map<Long, Object[]> pendingInserts = pendingRows.myInserts.get(table);
+		if (pendingInserts != null && pendingInserts.remove(theIndex.getId()) != null) {
+			return;
+		}
+
+		if (!session.contains(theIndex)) {
+			// Not pending and not loaded, so there is nothing to delete. See the comment
+			// in DaoSearchParamSynchronizer about resources created and deleted in the
+			// same transaction.
+			return;
+		}
+
+		session.detach(theIndex);
+		pendingRows.myDeletes.computeIfAbsent(table, t -> new ArrayList<>()).add(theIndex.getId());
+	}
+
+	/**
+	 * Can index rows of this type be written by this class?
+	 */
+	static boolean isBatchable(BaseResourceIndex theIndex) {
+		return TABLES.containsKey(theIndex.getClass());
+	}
+
+	@Nonnull
+	private static IndexTable<?> getTable(BaseResourceIndex theIndex) {
+		IndexTable<?> retVal = TABLES.get(theIndex.getClass());
+		Validate.notNull(retVal, "Index type can not be batched: %s", theIndex.getClass());
+		return retVal;
+	}
+
+	/**
+	 * Uses the generator Hibernate would use when persisting the entity. Depending on whether the
+	 * partition ID is part of the primary key, this is either the sequence generator itself or a
+	 * composite generator wrapping it.
+	 */
+	private static Long generateId(SessionImplementor theSession, BaseResourceIndex theIndex) {
+		EntityPersister persister = theSession.getEntityPersister(null, theIndex);
+		Object generated = ((IdentifierGenerator) persister.getGenerator()).generate(theSession, theIndex);
+		if (generated instanceof Long id) {
+			return id;
+		}
+		if (generated instanceof IdAndPartitionId idAndPartitionId) {
+			return idAndPartitionId.getId();
+		}
+		// The composite generator may also inject the value directly into the entity
+		return theIndex.getId();
+	}
+
+	/**
+	 * Rows can only be queued if there is a transaction that will tell us when it is about to commit
+	 */
+	static boolean isAvailable() {
+		return TransactionSynchronizationManager.isSynchronizationActive()
+				&& TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	/**
+	 * The pending rows are bound to the current transaction, keyed by the Hibernate session
+	 * so that a suspended outer transaction never sees the rows of a nested one.
+	 */
+	@Nonnull
+	private static PendingRows getPendingRows(SessionImplementor theSession) {
+		PendingRows retVal = (PendingRows) TransactionSynchronizationManager.getResource(theSession);
+		if (retVal == null) {
+			retVal = new PendingRows(theSession);
+			TransactionSynchronizationManager.bindResource(theSession, retVal);
+			TransactionSynchronizationManager.registerSynchronization(retVal);
+		}
+		return retVal;
+	}
+
+	private static Object[] toQuantityRow(BaseResourceIndexedSearchParamQuantity theIndex, @Nullable Double theValue) {
+		return new Object[] {
+			theIndex.getSystem(),
+			theIndex.getUnits(),
+			theIndex.getHashIdentityAndUnits(),
+			theIndex.getHashIdentitySystemAndUnits(),
+			theValue
+		};
+	}
+
+	private static void bind(PreparedStatement theStatement, int theIndex, Object theValue, int theSqlType)
+			throws SQLException {
+		if (theValue == null) {
+			theStatement.setNull(theIndex, theSqlType);
+		} else if (theValue instanceof Date date) {
+			theStatement.setTimestamp(theIndex, new Timestamp(date.getTime()));
+		} else if (theValue instanceof LocalDate localDate) {
+			theStatement.setDate(theIndex, java.sql.Date.valueOf(localDate));
+		} else if (theValue instanceof Boolean bool) {
+			theStatement.setBoolean(theIndex, bool);
+		} else {
+			theStatement.setObject(theIndex, theValue, theSqlType);
+		}
+	}
+
+	private record IndexColumn(String name, int sqlType) {}
+
+	private record IndexTable<T extends BaseResourceIndexedSearchParam>(
+			String tableName, List<IndexColumn> specificColumns, Function<T, Object[]> specificValues) {
+
+		List<IndexColumn> columns() {
+			List<IndexColumn> retVal = new ArrayList<>(COMMON_COLUMNS);
+			retVal.addAll(specificColumns);
+			return retVal;
+		}
+
+		String insertSql() {
+			List<IndexColumn> columns = columns();
+			return "INSERT INTO " + tableName + " ("
+					+ columns.stream().map(IndexColumn::name).collect(Collectors.joining(", "))
+					+ ") VALUES ("
+					+ columns.stream().map(c -> "?").collect(Collectors.joining(", "))
+					+ ")";
+		}
+
+		String deleteSql() {
+			return "DELETE FROM " + tableName + " WHERE SP_ID = ?";
+		}
+
+		@SuppressWarnings("unchecked")
+		Object[] toRow(BaseResourceIndexedSearchParam theIndex, Long theResourcePid) {
+			Object[] specific = specificValues.apply((T) theIndex);
+			PartitionablePartitionId partitionId = theIndex.getPartitionId();
+			boolean optimized = theIndex.isIndexStorageOptimized();
+
+			Object[] retVal = new Object[COMMON_COLUMNS.size() + specific.length];
+			retVal[0] = theIndex.getId();
+			retVal[1] = partitionId.getPartitionId();
+			retVal[2] = partitionId.getPartitionDate();
+			retVal[3] = theIndex.isMissing();
+			retVal[4] = optimized ? null : theIndex.getParamName();
+			retVal[5] = theResourcePid;
+			retVal[6] = optimized ? null : theIndex.getResourceType();
+			retVal[7] = theIndex.getHashIdentity();
+			retVal[8] = theIndex.getUpdated();
+			System.arraycopy(specific, 0, retVal, COMMON_COLUMNS.size(), specific.length);
+			return retVal;
+		}
+	}
+
+	private static class PendingRows implements TransactionSynchronization {
+
+		private final SessionImplementor mySession;
+		private final Map<IndexTable<?>, Map<Long, Object[]>> myInserts = new LinkedHashMap<>();
+		private final Map<IndexTable<?>, List<Long>> myDeletes = new HashMap<>();
+
+		private PendingRows(SessionImplementor theSession) {
+			mySession = theSession;
+		}
+
+		@Override
+		public void beforeCommit(boolean theReadOnly) {
+			// The index rows reference HFJ_RESOURCE, so any pending resource inserts must go first
+			mySession.flush();
+			mySession.doWork(this::write);
+		}
+
+		@Override
+		public void afterCompletion(int theStatus) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(mySession);
+		}
+
+		private void write(Connection theConnection) throws SQLException {
+			StopWatch sw = new StopWatch();
+			int deleteCount = 0;
+			int insertCount = 0;
+
+			for (Map.Entry<IndexTable<?>, List<Long>> entry : myDeletes.entrySet()) {
+				try (PreparedStatement statement = theConnection.prepareStatement(entry.getKey().deleteSql())) {
+					for (Long next : entry.getValue()) {
+						statement.setLong(1, next);
+						statement.addBatch();
+						if (++deleteCount % MAX_ROWS_PER_BATCH == 0) {
+							statement.executeBatch();
+						}
+					}
+					statement.executeBatch();
+				}
+			}
+
+			for (Map.Entry<IndexTable<?>, Map<Long, Object[]>> entry : myInserts.entrySet()) {
+				Collection<Object[]> rows = entry.getValue().values();
+				if (rows.isEmpty()) {
+					continue;
+				}
+				List<IndexColumn> columns = entry.getKey().columns();
+				try (PreparedStatement statement = theConnection.prepareStatement(entry.getKey().insertSql())) {
+					for (Object[] row : rows) {
+						for (int i = 0; i < row.length; i++) {
+							bind(statement, i + 1, row[i], columns.get(i).sqlType());
+						}
+						statement.addBatch();
+						if (++insertCount % MAX_ROWS_PER_BATCH == 0) {
+							statement.executeBatch();
+						}
+					}
+					statement.executeBatch();
+				}
+			}
+
+			ourLog.debug(
+					"Wrote {} index row inserts and {} deletes in {}ms", insertCount, deleteCount, sw.getMillis());
+		}
+	}
+}
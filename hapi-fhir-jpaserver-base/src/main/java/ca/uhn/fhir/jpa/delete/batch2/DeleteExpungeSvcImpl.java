@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.delete.batch2;
 
 import ca.uhn.fhir.jpa.api.svc.IDeleteExpungeSvc;
 import ca.uhn.fhir.jpa.dao.IFulltextSearchSvc;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityNearCache;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import jakarta.persistence.EntityManager;
@@ -38,6 +39,9 @@ public class DeleteExpungeSvcImpl implements IDeleteExpungeSvc<JpaPid> {
 	private final DeleteExpungeSqlBuilder myDeleteExpungeSqlBuilder;
 	private final IFulltextSearchSvc myFullTextSearchSvc;
 
+	@Autowired(required = false)
+	private ResourceIdentityNearCache myResourceIdentityNearCache;
+
 	public DeleteExpungeSvcImpl(
 			EntityManager theEntityManager,
 			DeleteExpungeSqlBuilder theDeleteExpungeSqlBuilder,
@@ -63,6 +67,10 @@ public class DeleteExpungeSvcImpl implements IDeleteExpungeSvc<JpaPid> {
 		ourLog.info("{} records deleted", totalDeleted);
 		clearHibernateSearchIndex(theJpaPids);
 
+		if (myResourceIdentityNearCache != null) {
+			myResourceIdentityNearCache.invalidateAllAfterCommit();
+		}
+
 		// TODO KHS instead of logging progress, produce result chunks that get aggregated into a delete expunge report
 		return sqlResult.getRecordCount();
 	}
@@ -0,0 +1,155 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import ca.uhn.fhir.rest.api.Constants;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.util.Date;
+
+/**
+ * A registered count view, along with its count. The count is adjusted by each transaction which
+ * changes a matching resource, so a recount can carry over the adjustments committed while it was
+ * counting. {@link #getModCount()} is incremented by every change, and {@link #getChangedModCount()}
+ * records the mod count of the last change whose effect on the count isn't known, so that a recount
+ * can tell whether such a change was committed while it was counting.
+ *
+ * @see ca.uhn.fhir.jpa.search.SearchCountViewSvc
+ * @since 8.4.0
+ */
+@Entity
+@Table(
+		name = "HFJ_COUNT_VIEW",
+		uniqueConstraints = {
+			@UniqueConstraint(
+					name = SearchCountViewEntity.IDX_COUNTVIEW_CRITERIA,
+					columnNames = {"RES_TYPE", "CRITERIA"})
+		})
+public class SearchCountViewEntity {
+
+	public static final String IDX_COUNTVIEW_CRITERIA = "IDX_COUNTVIEW_CRITERIA";
+
+	/**
+	 * Kept short enough for the unique index on the resource type and criteria to stay within
+	 * the index key size limits of the supported databases
+	 */
+	public static final int MAX_CRITERIA_LENGTH = 512;
+
+	@Id
+	@GenericGenerator(name = "SEQ_COUNT_VIEW", type = ca.uhn.fhir.jpa.model.dialect.HapiSequenceStyleGenerator.class)
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_COUNT_VIEW")
+	@Column(name = "PID")
+	private Long myId;
+
+	@Column(name = "RES_TYPE", nullable = false, length = Constants.MAX_RESOURCE_NAME_LENGTH)
+	private String myResourceType;
+
+	@Column(name = "CRITERIA", nullable = false, length = MAX_CRITERIA_LENGTH)
+	private String myCriteria;
+
+	/**
+	 * The number of matching resources. Until the view has been counted for the first time (see
+	 * {@link #getCounted()}), this is only the sum of the adjustments made since it was registered.
+	 */
+	@Column(name = "VIEW_COUNT", nullable = true)
+	private Long myCount;
+
+	@Column(name = "MOD_COUNT", nullable = false)
+	private long myModCount;
+
+	@Column(name = "CHANGED_MOD_COUNT", nullable = true)
+	private Long myChangedModCount;
+
+	/**
+	 * The time the view was first changed without its count being adjusted, or <code>null</code> if
+	 * it hasn't been since it was last counted
+	 */
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "CHANGED_TIME", nullable = true)
+	private Date myChanged;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "COUNTED_TIME", nullable = true)
+	private Date myCounted;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "REGISTERED_TIME", nullable = false)
+	private Date myRegistered;
+
+	public Long getId() {
+		return myId;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	public SearchCountViewEntity setResourceType(String theResourceType) {
+		myResourceType = theResourceType;
+		return this;
+	}
+
+	public String getCriteria() {
+		return myCriteria;
+	}
+
+	public SearchCountViewEntity setCriteria(String theCriteria) {
+		myCriteria = theCriteria;
+		return this;
+	}
+
+	public Long getCount() {
+		return myCount;
+	}
+
+	public long getModCount() {
+		return myModCount;
+	}
+
+	public Long getChangedModCount() {
+		return myChangedModCount;
+	}
+
+	public Date getChanged() {
+		return myChanged;
+	}
+
+	public Date getCounted() {
+		return myCounted;
+	}
+
+	public Date getRegistered() {
+		return myRegistered;
+	}
+
+	public SearchCountViewEntity setRegistered(Date theRegistered) {
+		myRegistered = theRegistered;
+		return this;
+	}
+}
@@ -0,0 +1,106 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import ca.uhn.fhir.rest.api.Constants;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.util.Date;
+
+/**
+ * Holds the most recently sampled search parameter statistics, so that they only need to be sampled
+ * by one server in a cluster. Each row holds either the estimated number of non-deleted resources
+ * of a given type (if {@link #getResourceType()} is set) or the estimated number of index rows
+ * for a given hash identity (if {@link #getHashIdentity()} is set).
+ *
+ * @see ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc
+ * @since 8.4.0
+ */
+@Entity
+@Table(name = "HFJ_SPIDX_STATS")
+public class SearchParamStatisticsEntity {
+
+	@Id
+	@GenericGenerator(name = "SEQ_SPIDX_STATS", type = ca.uhn.fhir.jpa.model.dialect.HapiSequenceStyleGenerator.class)
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_SPIDX_STATS")
+	@Column(name = "PID")
+	private Long myId;
+
+	@Column(name = "RES_TYPE", nullable = true, length = Constants.MAX_RESOURCE_NAME_LENGTH)
+	private String myResourceType;
+
+	@Column(name = "HASH_IDENTITY", nullable = true)
+	private Long myHashIdentity;
+
+	@Column(name = "EST_ROW_COUNT", nullable = false)
+	private long myRowCount;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "SAMPLED_TIME", nullable = false)
+	private Date mySampled;
+
+	public Long getId() {
+		return myId;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	public SearchParamStatisticsEntity setResourceType(String theResourceType) {
+		myResourceType = theResourceType;
+		return this;
+	}
+
+	public Long getHashIdentity() {
+		return myHashIdentity;
+	}
+
+	public SearchParamStatisticsEntity setHashIdentity(Long theHashIdentity) {
+		myHashIdentity = theHashIdentity;
+		return this;
+	}
+
+	public long getRowCount() {
+		return myRowCount;
+	}
+
+	public SearchParamStatisticsEntity setRowCount(long theRowCount) {
+		myRowCount = theRowCount;
+		return this;
+	}
+
+	public Date getSampled() {
+		return mySampled;
+	}
+
+	public SearchParamStatisticsEntity setSampled(Date theSampled) {
+		mySampled = theSampled;
+		return this;
+	}
+}
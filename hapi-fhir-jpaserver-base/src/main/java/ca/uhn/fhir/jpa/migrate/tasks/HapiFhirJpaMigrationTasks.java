@@ -169,6 +169,53 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 			resLink.addColumn("20250515.501", "SRC_RES_TYPE_ID").nullable().type(ColumnTypeEnum.SMALLINT);
 			resLink.addColumn("20250515.502", "TARGET_RES_TYPE_ID").nullable().type(ColumnTypeEnum.SMALLINT);
 		}
+
+		// Add HFJ_SPIDX_STATS table
+		{
+			version.addIdGenerator("20251017.1", "SEQ_SPIDX_STATS");
+			Builder.BuilderAddTableByColumns spidxStats =
+					version.addTableByColumns("20251017.2", "HFJ_SPIDX_STATS", "PID");
+
+			spidxStats.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+			spidxStats.addColumn("RES_TYPE").nullable().type(ColumnTypeEnum.STRING, 100);
+			spidxStats.addColumn("HASH_IDENTITY").nullable().type(ColumnTypeEnum.LONG);
+			spidxStats.addColumn("EST_ROW_COUNT").nonNullable().type(ColumnTypeEnum.LONG);
+			spidxStats.addColumn("SAMPLED_TIME").nonNullable().type(ColumnTypeEnum.DATE_TIMESTAMP);
+		}
+
+		// Add HFJ_COUNT_VIEW table
+		{
+			version.addIdGenerator("20251017.3", "SEQ_COUNT_VIEW");
+			Builder.BuilderAddTableByColumns countView =
+					version.addTableByColumns("20251017.4", "HFJ_COUNT_VIEW", "PID");
+
+			countView.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+			countView.addColumn("RES_TYPE").nonNullable().type(ColumnTypeEnum.STRING, 100);
+			countView.addColumn("CRITERIA").nonNullable().type(ColumnTypeEnum.STRING, 512);
+			countView.addColumn("VIEW_COUNT").nullable().type(ColumnTypeEnum.LONG);
+			countView.addColumn("MOD_COUNT").nonNullable().type(ColumnTypeEnum.LONG);
+			countView.addColumn("CHANGED_MOD_COUNT").nullable().type(ColumnTypeEnum.LONG);
+			countView.addColumn("CHANGED_TIME").nullable().type(ColumnTypeEnum.DATE_TIMESTAMP);
+			countView.addColumn("COUNTED_TIME").nullable().type(ColumnTypeEnum.DATE_TIMESTAMP);
+			countView.addColumn("REGISTERED_TIME").nonNullable().type(ColumnTypeEnum.DATE_TIMESTAMP);
+		}
+
+		// Add an index for finding the resources in append-only partitions which are waiting to be indexed
+		{
+			version.onTable("HFJ_RESOURCE")
+					.addIndex("20251017.5", "IDX_RES_IDXSTATUS_UPDATED")
+					.unique(false)
+					.online(true)
+					.withColumns("SP_INDEX_STATUS", "PARTITION_ID", "RES_UPDATED");
+		}
+
+		// Prevent servers registering the same count view concurrently from creating duplicate rows
+		{
+			version.onTable("HFJ_COUNT_VIEW")
+					.addIndex("20251017.6", "IDX_COUNTVIEW_CRITERIA")
+					.unique(true)
+					.withColumns("RES_TYPE", "CRITERIA");
+		}
 	}
 
 	protected void init820() {
@@ -0,0 +1,138 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.provider;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc;
+import ca.uhn.fhir.model.api.annotation.Description;
+import ca.uhn.fhir.rest.annotation.Operation;
+import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.server.provider.ProviderConstants;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.ParametersUtil;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseParameters;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Provides the <code>$search-statistics</code> operation, which returns the search parameter
+ * statistics sampled by {@link SearchParameterStatisticsSvc}
+ */
+public class SearchParameterStatisticsProvider {
+
+	private final FhirContext myContext;
+	private final SearchParameterStatisticsSvc mySearchParameterStatisticsSvc;
+	private final ISearchParamRegistry mySearchParamRegistry;
+
+	/**
+	 * Constructor
+	 */
+	public SearchParameterStatisticsProvider(
+			@Nonnull FhirContext theContext,
+			@Nonnull SearchParameterStatisticsSvc theSearchParameterStatisticsSvc,
+			@Nonnull ISearchParamRegistry theSearchParamRegistry) {
+		Validate.notNull(theContext);
+		Validate.notNull(theSearchParameterStatisticsSvc);
+		Validate.notNull(theSearchParamRegistry);
+		myContext = theContext;
+		mySearchParameterStatisticsSvc = theSearchParameterStatisticsSvc;
+		mySearchParamRegistry = theSearchParamRegistry;
+	}
+
+	@Description(
+			value =
+					"Returns the number of resources of each type and the number of index rows for each search parameter, as sampled for planning searches.",
+			shortDefinition = "Show search parameter statistics")
+	@Operation(name = ProviderConstants.OPERATION_SEARCH_STATISTICS, idempotent = true)
+	public IBaseParameters searchStatistics(
+			@Description(value = "If true, the statistics are sampled again before being returned")
+					@OperationParam(name = "refresh", typeName = "boolean", min = 0, max = 1)
+					IPrimitiveType<Boolean> theRefresh) {
+		if (theRefresh != null && Boolean.TRUE.equals(theRefresh.getValue())) {
+			mySearchParameterStatisticsSvc.refresh();
+		}
+
+		IBaseParameters retVal = ParametersUtil.newInstance(myContext);
+		ParametersUtil.addParameterToParametersInteger(
+				myContext, retVal, "generation", mySearchParameterStatisticsSvc.getGeneration());
+		Date lastSampled = mySearchParameterStatisticsSvc.getLastSampled();
+		if (lastSampled != null) {
+			@SuppressWarnings("unchecked")
+			IPrimitiveType<Date> sampled = (IPrimitiveType<Date>)
+					Objects.requireNonNull(myContext.getElementDefinition("instant")).newInstance();
+			sampled.setValue(lastSampled);
+			ParametersUtil.addParameterToParameters(myContext, retVal, "sampled", sampled);
+		}
+
+		Map<String, Long> resourceCounts = new TreeMap<>(mySearchParameterStatisticsSvc.getResourceCounts());
+		for (Map.Entry<String, Long> nextResourceType : resourceCounts.entrySet()) {
+			String resourceType = nextResourceType.getKey();
+			long resourceCount = nextResourceType.getValue();
+			IBase resourceParam = ParametersUtil.addParameterToParameters(myContext, retVal, "resourceType");
+			ParametersUtil.addPartString(myContext, resourceParam, "name", resourceType);
+			addPartCount(resourceParam, "count", resourceCount);
+
+			Set<String> searchParamNames = new TreeSet<>(mySearchParamRegistry
+					.getActiveSearchParams(resourceType, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH)
+					.getSearchParamNames());
+			for (String nextParamName : searchParamNames) {
+				Long rows = mySearchParameterStatisticsSvc.getIndexRowCount(
+						resourceType, RequestPartitionId.defaultPartition(), nextParamName);
+				if (rows == null || rows == 0) {
+					continue;
+				}
+				IBase searchParamParam = ParametersUtil.createPart(myContext, resourceParam, "searchParameter");
+				ParametersUtil.addPartString(myContext, searchParamParam, "name", nextParamName);
+				addPartCount(searchParamParam, "rows", rows);
+				if (resourceCount > 0) {
+					double rowsPerResource = BigDecimal.valueOf(rows)
+							.divide(BigDecimal.valueOf(resourceCount), 2, RoundingMode.HALF_UP)
+							.doubleValue();
+					ParametersUtil.addPartDecimal(myContext, searchParamParam, "rowsPerResource", rowsPerResource);
+				}
+			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Counts can be larger than the FHIR integer type allows, so they are stored as decimals
+	 */
+	@SuppressWarnings("unchecked")
+	private void addPartCount(IBase theParameter, String theName, long theCount) {
+		IPrimitiveType<BigDecimal> value = (IPrimitiveType<BigDecimal>)
+				Objects.requireNonNull(myContext.getElementDefinition("decimal")).newInstance();
+		value.setValue(BigDecimal.valueOf(theCount));
+		ParametersUtil.addPart(myContext, theParameter, theName, value);
+	}
+}
@@ -25,6 +25,7 @@ import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import jakarta.annotation.Nullable;
 
 public interface ISynchronousSearchSvc extends ISearchSvc {
 
@@ -35,4 +36,24 @@ public interface ISynchronousSearchSvc extends ISearchSvc {
 			ISearchBuilder theSb,
 			Integer theLoadSynchronousUpTo,
 			RequestPartitionId theRequestPartitionId);
+
+	/**
+	 * Performs the search synchronously, unless it matches more than the given number of
+	 * resources. In that case the search is abandoned before any resources are loaded and
+	 * <code>null</code> is returned, so that the caller can fall back to an asynchronous search.
+	 * <p>
+	 * The default implementation always returns <code>null</code>, so searches are never
+	 * performed synchronously because of this method.
+	 * </p>
+	 */
+	@Nullable
+	default IBundleProvider executeQueryIfNoMoreThan(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			int theMaximumResults,
+			RequestPartitionId theRequestPartitionId) {
+		return null;
+	}
 }
@@ -34,6 +34,7 @@ import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
@@ -268,12 +269,15 @@ public class PersistedJpaBundleProvider implements IBundleProvider {
 		theResponsePageBuilder.setTotalRequestedResourcesFetched(pidsSubList.size());
 
 		List<JpaPid> firstBatchOfPids = pidsSubList.subList(0, maxSize);
-		List<IBaseResource> resources = myTxService
-				.withRequest(myRequest)
-				.withRequestPartitionId(requestPartitionId)
-				.execute(() -> {
-					return toResourceList(sb, firstBatchOfPids, theResponsePageBuilder);
-				});
+		IHapiTransactionService.IExecutionBuilder txSettings =
+				myTxService.withRequest(myRequest).withRequestPartitionId(requestPartitionId);
+		if (myStorageSettings.getSearchResultLoadingParallelism() > 1) {
+			// The search builder only loads resources in parallel within a read-only transaction
+			txSettings.readOnly();
+		}
+		List<IBaseResource> resources = txSettings.execute(() -> {
+			return toResourceList(sb, firstBatchOfPids, theResponsePageBuilder);
+		});
 
 		return resources;
 	}
@@ -55,6 +55,7 @@ import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
 import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.IPagingProvider;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
@@ -119,6 +120,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 	private long myMaxMillisToWaitForRemoteResults = DateUtils.MILLIS_PER_MINUTE;
 	private boolean myNeverUseLocalSearchForUnitTests;
 	private int mySyncSize = DEFAULT_SYNC_SIZE;
+	private SearchParameterStatisticsSvc mySearchParameterStatisticsSvc;
 
 	/**
 	 * Constructor
@@ -157,6 +159,14 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 		myStorageInterceptorHooks = new StorageInterceptorHooksFacade(myInterceptorBroadcaster);
 	}
 
+	/**
+	 * If set, sampled search parameter statistics are used to perform searches which are
+	 * estimated to be small synchronously
+	 */
+	public void setSearchParameterStatisticsSvc(SearchParameterStatisticsSvc theSearchParameterStatisticsSvc) {
+		mySearchParameterStatisticsSvc = theSearchParameterStatisticsSvc;
+	}
+
 	@VisibleForTesting
 	Set<String> getActiveSearchIds() {
 		return myIdToSearchTask.keySet();
@@ -373,11 +383,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 
 		validateSearch(theParams);
 
-		Class<? extends IBaseResource> resourceTypeClass =
-				myContext.getResourceDefinition(theResourceType).getImplementingClass();
-		final ISearchBuilder<JpaPid> sb = mySearchBuilderFactory.newSearchBuilder(theResourceType, resourceTypeClass);
-		sb.setFetchSize(mySyncSize);
-		sb.setRequireTotal(theParams.getCount() != null);
+		ISearchBuilder<JpaPid> sb = newSearchBuilder(theResourceType, theParams);
 
 		final Integer loadSynchronousUpTo = getLoadSynchronousUpToOrNull(theCacheControlDirective);
 		boolean isOffsetQuery = theParams.isOffsetQuery();
@@ -435,12 +441,83 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 			}
 		}
 
+		/*
+		 * If the statistics say this search fits in a single page, try it synchronously so that
+		 * its results don't need to be stored. If it turns out to be bigger than a page, nothing
+		 * has been loaded yet and we fall back to a normal search.
+		 */
+		Integer smallSearchPageSize =
+				getSmallSearchPageSize(theParams, theResourceType, theRequestDetails, theRequestPartitionId);
+		if (smallSearchPageSize != null) {
+			sb.setMaxResultsToFetch(smallSearchPageSize + 1);
+			IBundleProvider synchronousResult = mySynchronousSearchSvc.executeQueryIfNoMoreThan(
+					theParams.clone(),
+					theRequestDetails,
+					searchUuid,
+					sb,
+					smallSearchPageSize,
+					theRequestPartitionId);
+			if (synchronousResult != null) {
+				ourLog.debug("Search {} is estimated to be small and was loaded in synchronous mode", searchUuid);
+				return synchronousResult;
+			}
+			ourLog.debug("Search {} is larger than estimated, falling back to asynchronous mode", searchUuid);
+			sb = newSearchBuilder(theResourceType, theParams);
+		}
+
 		PersistedJpaSearchFirstPageBundleProvider retVal = submitSearch(
 				theCallingDao, theParams, theResourceType, theRequestDetails, sb, theRequestPartitionId, search);
 		retVal.setCacheStatus(cacheStatus);
 		return retVal;
 	}
 
+	private ISearchBuilder<JpaPid> newSearchBuilder(String theResourceType, SearchParameterMap theParams) {
+		Class<? extends IBaseResource> resourceTypeClass =
+				myContext.getResourceDefinition(theResourceType).getImplementingClass();
+		ISearchBuilder<JpaPid> retVal = mySearchBuilderFactory.newSearchBuilder(theResourceType, resourceTypeClass);
+		retVal.setFetchSize(mySyncSize);
+		retVal.setRequireTotal(theParams.getCount() != null);
+		return retVal;
+	}
+
+	/**
+	 * Returns the size of the first page if the search parameter statistics estimate that all
+	 * results of the given search fit in it, or <code>null</code> otherwise
+	 */
+	@Nullable
+	private Integer getSmallSearchPageSize(
+			SearchParameterMap theParams,
+			String theResourceType,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		int threshold = myStorageSettings.getSearchParameterStatisticsSynchronousThreshold();
+		if (mySearchParameterStatisticsSvc == null
+				|| !myStorageSettings.isSearchParameterStatisticsEnabled()
+				|| threshold <= 0
+				|| theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| theParams.isWantOnlyCount()) {
+			return null;
+		}
+
+		IPagingProvider pagingProvider = theRequestDetails != null && theRequestDetails.getServer() != null
+				? theRequestDetails.getServer().getPagingProvider()
+				: null;
+		if (pagingProvider == null) {
+			return null;
+		}
+		int pageSize = theParams.getCount() != null
+				? Math.min(theParams.getCount(), pagingProvider.getMaximumPageSize())
+				: pagingProvider.getDefaultPageSize();
+
+		long estimate = mySearchParameterStatisticsSvc.estimateMatchCount(
+				theResourceType, theRequestPartitionId, theParams);
+		if (estimate == SearchParameterStatisticsSvc.UNKNOWN || estimate > threshold || estimate > pageSize) {
+			return null;
+		}
+		return pageSize;
+	}
+
 	/**
 	 * 	The max results to return if this is a synchronous search.
 	 *
@@ -0,0 +1,635 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search;
+
+import ca.uhn.fhir.IHapiBootOrder;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.dao.data.ISearchCountViewDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.SearchCountViewEntity;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
+import ca.uhn.fhir.rest.api.SummaryEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Maintains "count views": search criteria (e.g. <code>Observation?status=final</code>) whose total
+ * number of matching resources is stored in the <code>HFJ_COUNT_VIEW</code> table, so that
+ * <code>_summary=count</code> and <code>_total=accurate</code> searches using the same criteria can
+ * read it instead of running a count query.
+ * <p>
+ * Counts are maintained by the transactions which change resources. If the criteria can be evaluated
+ * in memory, each created, updated or deleted resource adjusts the stored count in the same transaction,
+ * so the count stays exact. Otherwise (or if the previous contents of an updated resource aren't known,
+ * e.g. in mass ingestion mode) the view is marked as changed, and it is recounted in the background.
+ * Changed views are only used for as long as {@link JpaStorageSettings#setSearchCountViewMaxStalenessMillis(long)}
+ * allows.
+ * </p>
+ * <p>
+ * Every server loads the registered views periodically, and a newly registered view is only counted once
+ * every server has had time to load it. Views are also recounted periodically, so that changes which bypass
+ * the storage pointcuts (e.g. <code>$delete-expunge</code>) are eventually reflected. Count views are only
+ * used when partitioning is disabled. Every transaction changing a resource of a type with count views
+ * updates their rows, so count views should be reserved for criteria which are counted frequently.
+ * </p>
+ */
+public class SearchCountViewSvc implements IHasScheduledJobs {
+
+	/**
+	 * Requests carrying this user data key never use count views
+	 */
+	static final String USER_DATA_KEY_RECOUNT = SearchCountViewSvc.class.getName() + "_RECOUNT";
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchCountViewSvc.class);
+	private static final long REFRESH_INTERVAL_MILLIS = 10 * DateUtils.MILLIS_PER_SECOND;
+	private static final long DEFAULT_REGISTRATION_GRACE_MILLIS = DateUtils.MILLIS_PER_MINUTE;
+	private static final long VERIFY_INTERVAL_MILLIS = DateUtils.MILLIS_PER_HOUR;
+
+	private volatile Map<String, Map<String, CountView>> myResourceTypeToKeyToView = Collections.emptyMap();
+	private long myRegistrationGraceMillis = DEFAULT_REGISTRATION_GRACE_MILLIS;
+	private Runnable myAfterCountQueryListenerForUnitTest;
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private PartitionSettings myPartitionSettings;
+
+	@Autowired
+	private DaoRegistry myDaoRegistry;
+
+	@Autowired
+	private MatchUrlService myMatchUrlService;
+
+	@Autowired
+	private SearchParamMatcher mySearchParamMatcher;
+
+	@Autowired
+	private InMemoryResourceMatcher myInMemoryResourceMatcher;
+
+	@Autowired
+	private IInterceptorService myInterceptorService;
+
+	@Autowired
+	private IHapiTransactionService myTxService;
+
+	@Autowired
+	private ISearchCountViewDao mySearchCountViewDao;
+
+	@EventListener(classes = {ContextRefreshedEvent.class})
+	@Order(IHapiBootOrder.REGISTER_INTERCEPTORS)
+	public void start() {
+		refreshViews();
+		myInterceptorService.registerInterceptor(this);
+	}
+
+	@PreDestroy
+	public void stop() {
+		myInterceptorService.unregisterInterceptor(this);
+	}
+
+	/**
+	 * Registers a count view. The view is counted in the background once every server has had time
+	 * to load it, and is not used until then. Registering criteria which are already registered has
+	 * no effect.
+	 *
+	 * @param theCriteria The search criteria, e.g. <code>Observation?status=final</code>
+	 */
+	public void registerCountView(@Nonnull String theCriteria) {
+		int questionMarkIdx = theCriteria.indexOf('?');
+		String resourceType = questionMarkIdx != -1 ? theCriteria.substring(0, questionMarkIdx) : theCriteria;
+		if (isBlank(resourceType) || !myDaoRegistry.isResourceTypeSupported(resourceType)) {
+			throw new InvalidRequestException(
+					Msg.code(2803) + "Invalid count view criteria, unknown resource type: " + theCriteria);
+		}
+		if (theCriteria.length() > SearchCountViewEntity.MAX_CRITERIA_LENGTH) {
+			throw new InvalidRequestException(Msg.code(2809) + "Invalid count view criteria, longer than "
+					+ SearchCountViewEntity.MAX_CRITERIA_LENGTH + " characters: " + theCriteria);
+		}
+
+		String key = toKey(translate(resourceType, theCriteria));
+		refreshViews();
+		Map<String, CountView> views = myResourceTypeToKeyToView.get(resourceType);
+		if (views != null && views.containsKey(key)) {
+			ourLog.info("Count view {} is already registered", theCriteria);
+			return;
+		}
+
+		try {
+			myTxService
+					.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+					.execute(() -> mySearchCountViewDao.save(new SearchCountViewEntity()
+							.setResourceType(resourceType)
+							.setCriteria(theCriteria)
+							.setRegistered(new Date())));
+			ourLog.info("Registered count view {}", theCriteria);
+		} catch (DataIntegrityViolationException e) {
+			// Another server registered the same criteria at the same time
+			ourLog.info("Count view {} is already registered", theCriteria);
+		}
+		refreshViews();
+	}
+
+	/**
+	 * Removes a count view
+	 *
+	 * @param theCriteria The search criteria, as they were passed to {@link #registerCountView(String)}
+	 */
+	public void unregisterCountView(@Nonnull String theCriteria) {
+		myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.execute(() -> mySearchCountViewDao.deleteByCriteria(theCriteria));
+		refreshViews();
+	}
+
+	public void unregisterAllCountViews() {
+		myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.execute(() -> mySearchCountViewDao.deleteAllViews());
+		refreshViews();
+	}
+
+	/**
+	 * Returns the criteria of all registered count views
+	 */
+	public List<String> getCountViewCriteria() {
+		List<String> retVal = new ArrayList<>();
+		for (Map<String, CountView> next : myResourceTypeToKeyToView.values()) {
+			next.values().forEach(t -> retVal.add(t.myCriteria));
+		}
+		return retVal;
+	}
+
+	/**
+	 * Called periodically on every server. Loads the registered count views, so that every server
+	 * maintains the counts of views registered on any server.
+	 */
+	public void refreshViews() {
+		List<SearchCountViewEntity> entities = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> mySearchCountViewDao.findAllViews());
+
+		Map<Long, CountView> existingViews = new HashMap<>();
+		myResourceTypeToKeyToView.values().forEach(t -> t.values().forEach(v -> existingViews.put(v.myId, v)));
+
+		Map<String, Map<String, CountView>> resourceTypeToKeyToView = new HashMap<>();
+		for (SearchCountViewEntity next : entities) {
+			CountView view = existingViews.get(next.getId());
+			if (view == null) {
+				try {
+					view = newCountView(next);
+				} catch (Exception e) {
+					ourLog.warn("Unable to load count view {}: {}", next.getCriteria(), e.getMessage());
+					continue;
+				}
+			}
+			resourceTypeToKeyToView
+					.computeIfAbsent(view.myResourceType, t -> new HashMap<>())
+					.put(view.myKey, view);
+		}
+		myResourceTypeToKeyToView = resourceTypeToKeyToView;
+	}
+
+	/**
+	 * Returns the number of resources matching the given search if it has a count view which is
+	 * current enough to use, or <code>null</code> otherwise. Must be called within a transaction.
+	 */
+	@Nullable
+	public Long getCount(
+			@Nonnull String theResourceType,
+			@Nonnull SearchParameterMap theParams,
+			@Nullable RequestDetails theRequest,
+			@Nullable RequestPartitionId theRequestPartitionId) {
+		Map<String, CountView> views = myResourceTypeToKeyToView.get(theResourceType);
+		if (views == null
+				|| views.isEmpty()
+				|| myPartitionSettings.isPartitioningEnabled()
+				|| theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| (theRequest != null && theRequest.getUserData().containsKey(USER_DATA_KEY_RECOUNT))) {
+			return null;
+		}
+
+		CountView view = views.get(toKey(theParams));
+		if (view == null) {
+			return null;
+		}
+		SearchCountViewEntity entity = mySearchCountViewDao.findById(view.myId).orElse(null);
+		if (entity == null || entity.getCounted() == null) {
+			return null;
+		}
+		if (entity.getChanged() != null) {
+			long maxStalenessMillis = myStorageSettings.getSearchCountViewMaxStalenessMillis();
+			if (maxStalenessMillis <= 0
+					|| System.currentTimeMillis() - entity.getChanged().getTime() > maxStalenessMillis) {
+				return null;
+			}
+		}
+		return entity.getCount();
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_CREATED)
+	public void created(IBaseResource theResource) {
+		handleChange(null, theResource, true);
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED)
+	public void updated(IBaseResource theOldResource, IBaseResource theNewResource) {
+		// The previous contents aren't provided in mass ingestion mode
+		handleChange(theOldResource, theNewResource, theOldResource != null);
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_DELETED)
+	public void deleted(IBaseResource theResource) {
+		handleChange(theResource, null, true);
+	}
+
+	/**
+	 * @param theOldResourceKnown Is <code>theOldResource</code> the previous contents of the resource
+	 *                            (<code>null</code> if it didn't exist), as opposed to unknown
+	 */
+	private void handleChange(
+			@Nullable IBaseResource theOldResource,
+			@Nullable IBaseResource theNewResource,
+			boolean theOldResourceKnown) {
+		IBaseResource resource = theNewResource != null ? theNewResource : theOldResource;
+		if (resource == null || myResourceTypeToKeyToView.isEmpty()) {
+			return;
+		}
+		Map<String, CountView> views = myResourceTypeToKeyToView.get(myFhirContext.getResourceType(resource));
+		if (views == null || views.isEmpty()) {
+			return;
+		}
+
+		for (CountView next : views.values()) {
+			Integer delta = null;
+			if (next.myEvaluatedInMemory && theOldResourceKnown) {
+				delta = matchDelta(next, theOldResource, theNewResource);
+			}
+			applyInTransaction(next, delta);
+		}
+	}
+
+	/**
+	 * Returns the change in the count of the view caused by a resource changing from the old
+	 * to the new contents, or <code>null</code> if this can't be evaluated in memory
+	 */
+	@Nullable
+	private Integer matchDelta(
+			CountView theView, @Nullable IBaseResource theOldResource, @Nullable IBaseResource theNewResource) {
+		int delta = 0;
+		if (theOldResource != null) {
+			InMemoryMatchResult result = mySearchParamMatcher.match(theView.myCriteria, theOldResource, null);
+			if (!result.supported()) {
+				return null;
+			}
+			if (result.matched()) {
+				delta--;
+			}
+		}
+		if (theNewResource != null) {
+			InMemoryMatchResult result = mySearchParamMatcher.match(theView.myCriteria, theNewResource, null);
+			if (!result.supported()) {
+				return null;
+			}
+			if (result.matched()) {
+				delta++;
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * Records a change to the view, which is written to its row just before the current transaction
+	 * commits so that the row lock is only held briefly. Synchronizations belong to the current
+	 * transaction only, so changes made in a nested transaction are written when it commits.
+	 *
+	 * @param theDelta The change in the count, or <code>null</code> if it isn't known
+	 */
+	private void applyInTransaction(CountView theView, @Nullable Integer theDelta) {
+		if (theDelta != null && theDelta == 0) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			PendingChanges pendingChanges = new PendingChanges();
+			pendingChanges.add(theView.myId, theDelta);
+			myTxService
+					.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+					.execute(pendingChanges::write);
+			return;
+		}
+
+		PendingChanges pendingChanges = null;
+		for (TransactionSynchronization next : TransactionSynchronizationManager.getSynchronizations()) {
+			if (next instanceof PendingChanges) {
+				pendingChanges = (PendingChanges) next;
+			}
+		}
+		if (pendingChanges == null) {
+			pendingChanges = new PendingChanges();
+			TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+		}
+		pendingChanges.add(theView.myId, theDelta);
+	}
+
+	/**
+	 * Called periodically by the clustered job. Counts any count views which are new, have changed,
+	 * or haven't been counted for a while.
+	 */
+	public void recountChangedViews() {
+		List<SearchCountViewEntity> entities = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> mySearchCountViewDao.findAllViews());
+
+		long now = System.currentTimeMillis();
+		for (SearchCountViewEntity next : entities) {
+			if (now < next.getRegistered().getTime() + myRegistrationGraceMillis) {
+				// Not every server may have loaded the view yet, so their changes wouldn't be counted
+				continue;
+			}
+			if (next.getCounted() != null
+					&& next.getChanged() == null
+					&& next.getCounted().getTime() + VERIFY_INTERVAL_MILLIS > now) {
+				continue;
+			}
+			try {
+				recount(next);
+			} catch (Exception e) {
+				ourLog.warn("Failed to recount count view {}", next.getCriteria(), e);
+			}
+		}
+	}
+
+	/**
+	 * Counts the view. The row is read just before the count query runs, and the count is stored as a
+	 * correction to the count in that snapshot, so adjustments committed while the query was running
+	 * are kept rather than overwritten, and a busy view is still counted. A change committed in the
+	 * short interval between reading the snapshot and the query starting may be counted twice, which
+	 * the periodic verification corrects.
+	 */
+	private void recount(SearchCountViewEntity theEntity) {
+		SearchParameterMap params = translate(theEntity.getResourceType(), theEntity.getCriteria());
+		params.setLoadSynchronous(true);
+		params.setSummaryMode(SummaryEnum.COUNT);
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		requestDetails.getUserData().put(USER_DATA_KEY_RECOUNT, Boolean.TRUE);
+
+		Date snapshotTime = new Date();
+		SearchCountViewEntity snapshot = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> mySearchCountViewDao.findById(theEntity.getId()))
+				.orElse(null);
+		if (snapshot == null) {
+			return;
+		}
+
+		Integer size = myDaoRegistry
+				.getResourceDao(theEntity.getResourceType())
+				.search(params, requestDetails)
+				.size();
+		if (size == null) {
+			return;
+		}
+		if (myAfterCountQueryListenerForUnitTest != null) {
+			myAfterCountQueryListenerForUnitTest.run();
+		}
+
+		long snapshotCount = snapshot.getCount() != null ? snapshot.getCount() : 0;
+		long correction = size - snapshotCount;
+		myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.execute(() -> mySearchCountViewDao.updateCount(
+						theEntity.getId(), correction, new Date(), snapshot.getModCount(), snapshotTime));
+		if (correction != 0 && snapshot.getCounted() != null && snapshot.getChanged() == null) {
+			ourLog.info(
+					"Count view {} was off by {}, possibly due to changes bypassing the storage pointcuts",
+					theEntity.getCriteria(),
+					-correction);
+		}
+	}
+
+	private CountView newCountView(SearchCountViewEntity theEntity) {
+		SearchParameterMap params = translate(theEntity.getResourceType(), theEntity.getCriteria());
+		InMemoryMatchResult canBeEvaluatedInMemory =
+				myInMemoryResourceMatcher.canBeEvaluatedInMemory(theEntity.getCriteria());
+		return new CountView(
+				theEntity.getId(),
+				theEntity.getCriteria(),
+				theEntity.getResourceType(),
+				toKey(params),
+				canBeEvaluatedInMemory.supported());
+	}
+
+	private SearchParameterMap translate(String theResourceType, String theCriteria) {
+		RuntimeResourceDefinition resourceDefinition = myFhirContext.getResourceDefinition(theResourceType);
+		return myMatchUrlService.translateMatchUrl(theCriteria, resourceDefinition);
+	}
+
+	/**
+	 * The key describes the criteria of a search, but not how its results are returned
+	 */
+	private static String toKey(SearchParameterMap theParams) {
+		SearchParameterMap params = theParams.clone();
+		params.setSort(null);
+		params.setIncludes(new HashSet<>());
+		params.setRevIncludes(new HashSet<>());
+		params.setCount(null);
+		params.setOffset(null);
+		params.setSearchAfter(null);
+		params.setSummaryMode(null);
+		params.setSearchTotalMode(null);
+		return params.toNormalizedQueryString(null);
+	}
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		ScheduledJobDefinition refreshJobDetail = new ScheduledJobDefinition();
+		refreshJobDetail.setId(getClass().getName() + "_refresh");
+		refreshJobDetail.setJobClass(RefreshJob.class);
+		theSchedulerService.scheduleLocalJob(REFRESH_INTERVAL_MILLIS, refreshJobDetail);
+
+		ScheduledJobDefinition recountJobDetail = new ScheduledJobDefinition();
+		recountJobDetail.setId(getClass().getName() + "_recount");
+		recountJobDetail.setJobClass(RecountJob.class);
+		theSchedulerService.scheduleClusteredJob(REFRESH_INTERVAL_MILLIS, recountJobDetail);
+	}
+
+	public static class RefreshJob implements HapiJob {
+		@Autowired
+		private SearchCountViewSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			myTarget.refreshViews();
+		}
+	}
+
+	public static class RecountJob implements HapiJob {
+		@Autowired
+		private SearchCountViewSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			myTarget.recountChangedViews();
+		}
+	}
+
+	private static class CountView {
+
+		private final Long myId;
+		private final String myCriteria;
+		private final String myResourceType;
+		private final String myKey;
+		private final boolean myEvaluatedInMemory;
+
+		private CountView(
+				Long theId,
+				String theCriteria,
+				String theResourceType,
+				String theKey,
+				boolean theEvaluatedInMemory) {
+			myId = theId;
+			myCriteria = theCriteria;
+			myResourceType = theResourceType;
+			myKey = theKey;
+			myEvaluatedInMemory = theEvaluatedInMemory;
+		}
+	}
+
+	/**
+	 * The changes made to count views by one transaction
+	 */
+	private class PendingChanges implements TransactionSynchronization {
+
+		/**
+		 * Sorted so that concurrent transactions lock the rows in the same order.
+		 * A <code>null</code> value means that the change in the count isn't known.
+		 */
+		private final TreeMap<Long, Long> myViewIdToDelta = new TreeMap<>();
+
+		private void add(Long theViewId, @Nullable Integer theDelta) {
+			if (myViewIdToDelta.containsKey(theViewId) && myViewIdToDelta.get(theViewId) == null) {
+				return;
+			}
+			Long delta = null;
+			if (theDelta != null) {
+				delta = myViewIdToDelta.getOrDefault(theViewId, 0L) + theDelta;
+			}
+			myViewIdToDelta.put(theViewId, delta);
+		}
+
+		private void write() {
+			Date now = new Date();
+			myViewIdToDelta.forEach((id, delta) -> {
+				if (delta == null) {
+					mySearchCountViewDao.markChanged(id, now);
+				} else if (delta != 0) {
+					mySearchCountViewDao.adjustCount(id, delta);
+				}
+			});
+		}
+
+		@Override
+		public void beforeCommit(boolean theReadOnly) {
+			write();
+		}
+	}
+
+	@VisibleForTesting
+	public void setRegistrationGraceMillisForUnitTest(long theRegistrationGraceMillis) {
+		myRegistrationGraceMillis = theRegistrationGraceMillis;
+	}
+
+	/**
+	 * The given listener is called by each recount just after its count query has run
+	 */
+	@VisibleForTesting
+	public void setAfterCountQueryListenerForUnitTest(Runnable theListener) {
+		myAfterCountQueryListenerForUnitTest = theListener;
+	}
+
+	@VisibleForTesting
+	public boolean isChangedForUnitTest(String theCriteria) {
+		for (Map<String, CountView> next : myResourceTypeToKeyToView.values()) {
+			for (CountView view : next.values()) {
+				if (view.myCriteria.equals(theCriteria)) {
+					SearchCountViewEntity entity = myTxService
+							.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+							.readOnly()
+							.execute(() -> mySearchCountViewDao.findById(view.myId))
+							.orElseThrow();
+					return entity.getCounted() == null || entity.getChanged() != null;
+				}
+			}
+		}
+		return false;
+	}
+}
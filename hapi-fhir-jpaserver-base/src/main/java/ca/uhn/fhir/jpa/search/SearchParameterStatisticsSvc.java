@@ -0,0 +1,528 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ISearchParamStatisticsDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.SearchParamStatisticsEntity;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamCoords;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamDate;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamNumber;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamQuantity;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamQuantityNormalized;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamUri;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import org.apache.commons.lang3.time.DateUtils;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Periodically samples the number of rows in each of the <code>HFJ_SPIDX_*</code> index tables
+ * (grouped by hash identity, meaning per resource type and search parameter) as well as the
+ * number of non-deleted resources of each type. These statistics are used by the search builder
+ * to order joins and pick subqueries, and by the search coordinator to decide whether a search
+ * can be performed synchronously.
+ * <p>
+ * Large tables are not counted in full. Instead, a number of ranges of primary keys are counted
+ * and the counts are scaled up, so the statistics are estimates. Sampling is performed by a
+ * clustered job on one server and stored in the <code>HFJ_SPIDX_STATS</code> table, and every
+ * server periodically loads the most recent sample from there.
+ * </p>
+ *
+ * @see JpaStorageSettings#setSearchParameterStatisticsEnabled(boolean)
+ * @see JpaStorageSettings#setSearchParameterStatisticsRefreshIntervalMillis(long)
+ */
+public class SearchParameterStatisticsSvc implements IHasScheduledJobs {
+
+	/**
+	 * Returned by {@link #estimateMatchCount(String, RequestPartitionId, SearchParameterMap)} if
+	 * no estimate can be made
+	 */
+	public static final long UNKNOWN = -1;
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchParameterStatisticsSvc.class);
+	private static final List<Class<? extends BaseResourceIndexedSearchParam>> INDEX_TYPES = List.of(
+			ResourceIndexedSearchParamCoords.class,
+			ResourceIndexedSearchParamDate.class,
+			ResourceIndexedSearchParamNumber.class,
+			ResourceIndexedSearchParamQuantity.class,
+			ResourceIndexedSearchParamQuantityNormalized.class,
+			ResourceIndexedSearchParamString.class,
+			ResourceIndexedSearchParamToken.class,
+			ResourceIndexedSearchParamUri.class);
+
+	/**
+	 * Parameter types whose index rows are stored in an <code>HFJ_SPIDX_*</code> table
+	 * using the standard hash identity
+	 */
+	private static final Set<RestSearchParameterTypeEnum> ESTIMABLE_TYPES = EnumSet.of(
+			RestSearchParameterTypeEnum.DATE,
+			RestSearchParameterTypeEnum.NUMBER,
+			RestSearchParameterTypeEnum.QUANTITY,
+			RestSearchParameterTypeEnum.STRING,
+			RestSearchParameterTypeEnum.TOKEN,
+			RestSearchParameterTypeEnum.URI);
+
+	/**
+	 * Tables whose primary keys span more than this many values are sampled rather than counted in full
+	 */
+	static final long SAMPLE_ROWS_PER_TABLE = 100_000;
+
+	/**
+	 * The number of ranges of primary keys counted when sampling a table
+	 */
+	private static final int SAMPLE_WINDOWS = 10;
+
+	/**
+	 * How often the jobs check whether the statistics need to be sampled or loaded. The time between
+	 * samples is configured separately.
+	 */
+	private static final long JOB_INTERVAL_MILLIS = DateUtils.MILLIS_PER_MINUTE;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private ISearchParamStatisticsDao mySearchParamStatisticsDao;
+
+	@Autowired
+	private PartitionSettings myPartitionSettings;
+
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@Autowired
+	private IHapiTransactionService myTxService;
+
+	@Autowired
+	private EntityManager myEntityManager;
+
+	private volatile Statistics myStatistics;
+
+	/**
+	 * Called periodically by the clustered job. Samples the statistics if they are enabled and
+	 * the most recently stored sample is older than the configured refresh interval.
+	 */
+	public void sampleIfDue() {
+		if (!myStorageSettings.isSearchParameterStatisticsEnabled()) {
+			return;
+		}
+		Date lastSampled = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> mySearchParamStatisticsDao.findLastSampled());
+		long interval = myStorageSettings.getSearchParameterStatisticsRefreshIntervalMillis();
+		if (lastSampled == null || lastSampled.getTime() + interval <= System.currentTimeMillis()) {
+			refresh();
+		}
+	}
+
+	/**
+	 * Called periodically on every server. Loads the most recently stored sample if statistics
+	 * are enabled and it is not the one already held in memory.
+	 */
+	public void loadIfChanged() {
+		if (!myStorageSettings.isSearchParameterStatisticsEnabled()) {
+			return;
+		}
+		Date lastSampled = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> mySearchParamStatisticsDao.findLastSampled());
+		Statistics statistics = myStatistics;
+		if (lastSampled != null && (statistics == null || statistics.mySampled.getTime() != lastSampled.getTime())) {
+			load();
+		}
+	}
+
+	/**
+	 * Samples the statistics now and stores them, replacing any previously sampled statistics
+	 */
+	public synchronized void refresh() {
+		long start = System.currentTimeMillis();
+		// Truncated so that the time is unchanged by databases with less precise timestamps
+		Date sampled = DateUtils.truncate(new Date(), Calendar.SECOND);
+		Statistics statistics = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.execute(() -> {
+					Map<String, Long> resourceCounts =
+							sampleGroupCounts("ResourceTable", "myPid.myId", "myResourceType", "t.myDeleted IS NULL");
+
+					Map<Long, Long> indexRowCounts = new HashMap<>();
+					for (Class<? extends BaseResourceIndexedSearchParam> nextType : INDEX_TYPES) {
+						Map<Long, Long> counts = sampleGroupCounts(
+								nextType.getSimpleName(), "myId", "myHashIdentity", "t.myMissing = false");
+						// Each search parameter only has rows in one table, except that quantity parameters
+						// can also have normalized rows with the same hash identity. These are alternate forms
+						// of the same values, so the larger count is used instead of the sum.
+						counts.forEach((hash, count) -> indexRowCounts.merge(hash, count, Math::max));
+					}
+
+					mySearchParamStatisticsDao.deleteAllStatistics();
+					List<SearchParamStatisticsEntity> entities = new ArrayList<>();
+					resourceCounts.forEach((type, count) -> entities.add(new SearchParamStatisticsEntity()
+							.setResourceType(type)
+							.setRowCount(count)
+							.setSampled(sampled)));
+					indexRowCounts.forEach((hash, count) -> entities.add(new SearchParamStatisticsEntity()
+							.setHashIdentity(hash)
+							.setRowCount(count)
+							.setSampled(sampled)));
+					mySearchParamStatisticsDao.saveAll(entities);
+
+					return new Statistics(nextGeneration(), sampled, resourceCounts, indexRowCounts);
+				});
+
+		myStatistics = statistics;
+		ourLog.info(
+				"Sampled search parameter statistics for {} resource types and {} search parameters in {}ms",
+				statistics.myResourceCounts.size(),
+				statistics.myIndexRowCounts.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	private synchronized void load() {
+		Statistics statistics = myTxService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> {
+					Map<String, Long> resourceCounts = new HashMap<>();
+					Map<Long, Long> indexRowCounts = new HashMap<>();
+					Date sampled = null;
+					for (SearchParamStatisticsEntity next : mySearchParamStatisticsDao.findAll()) {
+						if (next.getResourceType() != null) {
+							resourceCounts.put(next.getResourceType(), next.getRowCount());
+						} else if (next.getHashIdentity() != null) {
+							indexRowCounts.put(next.getHashIdentity(), next.getRowCount());
+						}
+						sampled = new Date(next.getSampled().getTime());
+					}
+					if (sampled == null) {
+						return null;
+					}
+					return new Statistics(nextGeneration(), sampled, resourceCounts, indexRowCounts);
+				});
+
+		if (statistics != null) {
+			myStatistics = statistics;
+			ourLog.debug("Loaded search parameter statistics sampled at {}", statistics.mySampled);
+		}
+	}
+
+	/**
+	 * Counts the rows of an entity grouped by the given property. If the range of primary keys in the
+	 * table is larger than {@link #SAMPLE_ROWS_PER_TABLE}, only {@link #SAMPLE_WINDOWS} randomly placed
+	 * ranges of primary keys are counted, and the counts are scaled up to estimate the whole table.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> Map<T, Long> sampleGroupCounts(
+			String theEntityName, String theIdProperty, String theGroupProperty, String theCondition) {
+		Map<T, Long> retVal = new HashMap<>();
+		String rangeQuery =
+				"SELECT MIN(t." + theIdProperty + "), MAX(t." + theIdProperty + ") FROM " + theEntityName + " t";
+		Object[] range = myEntityManager.createQuery(rangeQuery, Object[].class).getSingleResult();
+		if (range[0] == null) {
+			return retVal;
+		}
+
+		long min = ((Number) range[0]).longValue();
+		long span = ((Number) range[1]).longValue() - min + 1;
+		List<long[]> windows = new ArrayList<>(SAMPLE_WINDOWS);
+		double scale = 1.0;
+		if (span <= SAMPLE_ROWS_PER_TABLE) {
+			windows.add(new long[] {min, min + span - 1});
+		} else {
+			long windowSize = SAMPLE_ROWS_PER_TABLE / SAMPLE_WINDOWS;
+			long stride = span / SAMPLE_WINDOWS;
+			for (int i = 0; i < SAMPLE_WINDOWS; i++) {
+				long low = min + i * stride + ThreadLocalRandom.current().nextLong(stride - windowSize + 1);
+				windows.add(new long[] {low, low + windowSize - 1});
+			}
+			scale = (double) span / (windowSize * SAMPLE_WINDOWS);
+		}
+
+		String query = "SELECT t." + theGroupProperty + ", COUNT(t) FROM " + theEntityName + " t WHERE "
+				+ theCondition + " AND t." + theIdProperty + " BETWEEN :low AND :high GROUP BY t."
+				+ theGroupProperty;
+		for (long[] nextWindow : windows) {
+			List<Object[]> rows = myEntityManager
+					.createQuery(query, Object[].class)
+					.setParameter("low", nextWindow[0])
+					.setParameter("high", nextWindow[1])
+					.getResultList();
+			for (Object[] next : rows) {
+				if (next[0] != null) {
+					retVal.merge((T) next[0], ((Number) next[1]).longValue(), Long::sum);
+				}
+			}
+		}
+
+		if (scale != 1.0) {
+			double finalScale = scale;
+			retVal.replaceAll((key, count) -> Math.round(count * finalScale));
+		}
+		return retVal;
+	}
+
+	private int nextGeneration() {
+		Statistics statistics = myStatistics;
+		return statistics != null ? statistics.myGeneration + 1 : 1;
+	}
+
+	public void clear() {
+		myStatistics = null;
+	}
+
+	/**
+	 * Returns a number which changes every time the statistics are sampled, or 0 if
+	 * statistics have not been sampled
+	 */
+	public int getGeneration() {
+		Statistics statistics = myStatistics;
+		return statistics != null ? statistics.myGeneration : 0;
+	}
+
+	/**
+	 * Returns the time that the statistics were last sampled, or <code>null</code> if
+	 * statistics have not been sampled
+	 */
+	@Nullable
+	public Date getLastSampled() {
+		Statistics statistics = myStatistics;
+		return statistics != null ? statistics.mySampled : null;
+	}
+
+	/**
+	 * Returns the number of non-deleted resources of each type
+	 */
+	@Nonnull
+	public Map<String, Long> getResourceCounts() {
+		Statistics statistics = myStatistics;
+		return statistics != null ? statistics.myResourceCounts : Collections.emptyMap();
+	}
+
+	/**
+	 * Returns the number of non-deleted resources of the given type, or <code>null</code> if
+	 * statistics have not been sampled
+	 */
+	@Nullable
+	public Long getResourceCount(String theResourceType) {
+		Statistics statistics = myStatistics;
+		if (statistics == null) {
+			return null;
+		}
+		return statistics.myResourceCounts.getOrDefault(theResourceType, 0L);
+	}
+
+	/**
+	 * Returns the number of index rows for the given search parameter, or <code>null</code> if
+	 * statistics have not been sampled
+	 */
+	@Nullable
+	public Long getIndexRowCount(
+			String theResourceType, @Nullable RequestPartitionId theRequestPartitionId, String theParamName) {
+		Statistics statistics = myStatistics;
+		if (statistics == null || !isSinglePartitionIfIncludedInHashes(theRequestPartitionId)) {
+			return null;
+		}
+		long hashIdentity = BaseResourceIndexedSearchParam.calculateHashIdentity(
+				myPartitionSettings, theRequestPartitionId, theResourceType, theParamName);
+		return statistics.myIndexRowCounts.getOrDefault(hashIdentity, 0L);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given search parameter has more index rows than there are
+	 * resources of the given type, meaning that joining its index table multiplies the number of
+	 * intermediate rows in a query.
+	 */
+	public boolean isFanOut(
+			String theResourceType, @Nullable RequestPartitionId theRequestPartitionId, String theParamName) {
+		Long resourceCount = getResourceCount(theResourceType);
+		Long indexRowCount = getIndexRowCount(theResourceType, theRequestPartitionId, theParamName);
+		return resourceCount != null && indexRowCount != null && indexRowCount > resourceCount;
+	}
+
+	/**
+	 * Returns the estimated number of index rows which must be scanned for the given search parameter,
+	 * or {@link Long#MAX_VALUE} if the parameter can not be estimated. Lower values are more selective.
+	 */
+	public long estimateParameterRows(
+			String theResourceType,
+			@Nullable RequestPartitionId theRequestPartitionId,
+			String theParamName,
+			List<List<IQueryParameterType>> theAndOrParams) {
+		if (!isEstimable(theResourceType, theParamName, theAndOrParams)) {
+			return Long.MAX_VALUE;
+		}
+		Long rows = getIndexRowCount(theResourceType, theRequestPartitionId, theParamName);
+		return rows != null ? rows : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns an upper bound on the number of resources which can match the given search, or
+	 * {@link #UNKNOWN} if statistics have not been sampled.
+	 * <p>
+	 * Every resource matching a plain (unmodified) search parameter has at least one row in the
+	 * index table for that parameter, so the number of resources matched by a search is never more
+	 * than the smallest number of index rows for any of its plain parameters, or the number of
+	 * resources of the given type. Statistics are sampled periodically, and large tables are only
+	 * partially counted, so this is only an estimate and callers must be prepared for the actual
+	 * number to be higher.
+	 * </p>
+	 */
+	public long estimateMatchCount(
+			String theResourceType,
+			@Nullable RequestPartitionId theRequestPartitionId,
+			@Nonnull SearchParameterMap theParams) {
+		Long retVal = getResourceCount(theResourceType);
+		if (retVal == null) {
+			return UNKNOWN;
+		}
+
+		for (Map.Entry<String, List<List<IQueryParameterType>>> next : theParams.entrySet()) {
+			long rows = estimateParameterRows(theResourceType, theRequestPartitionId, next.getKey(), next.getValue());
+			retVal = Math.min(retVal, rows);
+		}
+
+		return retVal;
+	}
+
+	private boolean isEstimable(
+			String theResourceType, String theParamName, List<List<IQueryParameterType>> theAndOrParams) {
+		RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+				theResourceType, theParamName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+		if (searchParam == null
+				|| !ESTIMABLE_TYPES.contains(searchParam.getParamType())
+				|| isBlank(searchParam.getPath())) {
+			return false;
+		}
+
+		if (theAndOrParams.isEmpty()) {
+			return false;
+		}
+		for (List<IQueryParameterType> nextAnd : theAndOrParams) {
+			for (IQueryParameterType nextOr : nextAnd) {
+				if (nextOr.getMissing() != null || isNotBlank(nextOr.getQueryParameterQualifier())) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * If partitions are included in search hashes, each partition has its own hash identity
+	 * and its own statistics
+	 */
+	private boolean isSinglePartitionIfIncludedInHashes(@Nullable RequestPartitionId theRequestPartitionId) {
+		if (!myPartitionSettings.isPartitioningEnabled() || !myPartitionSettings.isIncludePartitionInSearchHashes()) {
+			return true;
+		}
+		return theRequestPartitionId != null
+				&& !theRequestPartitionId.isAllPartitions()
+				&& theRequestPartitionId.getPartitionIds().size() == 1;
+	}
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		ScheduledJobDefinition sampleJob = new ScheduledJobDefinition();
+		sampleJob.setId(SampleJob.class.getName());
+		sampleJob.setJobClass(SampleJob.class);
+		theSchedulerService.scheduleClusteredJob(JOB_INTERVAL_MILLIS, sampleJob);
+
+		ScheduledJobDefinition loadJob = new ScheduledJobDefinition();
+		loadJob.setId(LoadJob.class.getName());
+		loadJob.setJobClass(LoadJob.class);
+		theSchedulerService.scheduleLocalJob(JOB_INTERVAL_MILLIS, loadJob);
+	}
+
+	public static class SampleJob implements HapiJob {
+		@Autowired
+		private SearchParameterStatisticsSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			myTarget.sampleIfDue();
+		}
+	}
+
+	public static class LoadJob implements HapiJob {
+		@Autowired
+		private SearchParameterStatisticsSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			myTarget.loadIfChanged();
+		}
+	}
+
+	private static class Statistics {
+
+		private final int myGeneration;
+		private final Date mySampled;
+		private final Map<String, Long> myResourceCounts;
+		private final Map<Long, Long> myIndexRowCounts;
+
+		private Statistics(
+				int theGeneration,
+				Date theSampled,
+				Map<String, Long> theResourceCounts,
+				Map<Long, Long> theIndexRowCounts) {
+			myGeneration = theGeneration;
+			mySampled = theSampled;
+			myResourceCounts = Collections.unmodifiableMap(theResourceCounts);
+			myIndexRowCounts = Collections.unmodifiableMap(theIndexRowCounts);
+		}
+	}
+}
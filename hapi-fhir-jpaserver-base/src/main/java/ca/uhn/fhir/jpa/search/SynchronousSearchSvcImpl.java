@@ -33,8 +33,10 @@ import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.search.builder.KeysetPageKey;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.Constants;
@@ -46,6 +48,7 @@ import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.interceptor.ServerInterceptorUtil;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -98,6 +101,42 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 			ISearchBuilder theSb,
 			Integer theLoadSynchronousUpTo,
 			RequestPartitionId theRequestPartitionId) {
+		return executeQuery(
+				theParams,
+				theRequestDetails,
+				theSearchUuid,
+				theSb,
+				theLoadSynchronousUpTo,
+				theRequestPartitionId,
+				null);
+	}
+
+	@Nullable
+	@Override
+	public IBundleProvider executeQueryIfNoMoreThan(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			int theMaximumResults,
+			RequestPartitionId theRequestPartitionId) {
+		return executeQuery(
+				theParams, theRequestDetails, theSearchUuid, theSb, null, theRequestPartitionId, theMaximumResults);
+	}
+
+	/**
+	 * @param theAbortIfMoreThan If not null and the query matches more than this number of resources,
+	 *                           <code>null</code> is returned before any resources are loaded
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private IBundleProvider executeQuery(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			Integer theLoadSynchronousUpTo,
+			RequestPartitionId theRequestPartitionId,
+			@Nullable Integer theAbortIfMoreThan) {
 		SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(theRequestDetails, theSearchUuid);
 		searchRuntimeDetails.setLoadSynchronous(true);
 
@@ -164,12 +203,19 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 									&& pids.size() >= theParams.getLoadSynchronousUpTo()) {
 								break;
 							}
+							if (theAbortIfMoreThan != null && pids.size() > theAbortIfMoreThan) {
+								break;
+							}
 						}
 					} catch (IOException e) {
 						ourLog.error("IO failure during database access", e);
 						throw new InternalErrorException(Msg.code(1164) + e);
 					}
 
+					if (theAbortIfMoreThan != null && pids.size() > theAbortIfMoreThan) {
+						return null;
+					}
+
 					// truncate the list we retrieved - if needed
 					int receivedResourceCount = -1;
 					if (hasACount) {
@@ -179,6 +225,15 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 						pids = pids.subList(0, resourcesToReturn);
 					}
 
+					// For keyset paging, the next page starts after the last result on this page
+					String nextPageSearchAfter = null;
+					if (theParams.isKeysetPaging() && receivedResourceCount > pids.size() && !pids.isEmpty()) {
+						ResourceTable lastResource =
+								myEntityManager.find(ResourceTable.class, pids.get(pids.size() - 1));
+						nextPageSearchAfter = KeysetPageKey.forResource(theParams.getSort(), lastResource)
+								.encode();
+					}
+
 					JpaPreResourceAccessDetails accessDetails = new JpaPreResourceAccessDetails(pids, () -> theSb);
 					IInterceptorBroadcaster compositeBroadcaster =
 							CompositeInterceptorBroadcaster.newCompositeBroadcaster(
@@ -255,13 +310,21 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 					if (theParams.isOffsetQuery()) {
 						bundleProvider.setCurrentPageOffset(theParams.getOffset());
 						bundleProvider.setCurrentPageSize(theParams.getCount());
+					} else if (theParams.isKeysetPaging()) {
+						bundleProvider.setKeysetPaging(true);
+						bundleProvider.setCurrentPageOffset(0);
+						bundleProvider.setCurrentPageSize(theParams.getCount());
+						bundleProvider.setNextPageSearchAfter(nextPageSearchAfter);
 					}
 
 					if (wantCount) {
 						bundleProvider.setSize(count.intValue());
 					} else {
 						Integer queryCount = getQueryCount(theLoadSynchronousUpTo, theParams);
-						if (queryCount == null || queryCount > resources.size()) {
+						if (theParams.getSearchAfter() != null) {
+							// A keyset page doesn't know its position within the results
+							bundleProvider.setSize(null);
+						} else if (queryCount == null || queryCount > resources.size()) {
 							// No limit, last page or everything was fetched within the limit
 							bundleProvider.setSize(getTotalCount(queryCount, theParams.getOffset(), resources.size()));
 						} else {
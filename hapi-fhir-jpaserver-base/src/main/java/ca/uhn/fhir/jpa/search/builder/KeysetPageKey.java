@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+
+import java.util.Date;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The position of a result within a keyset (seek) paged search, which is the value of the sort
+ * column (<code>RES_UPDATED</code> or <code>FHIR_ID</code>) plus the resource PID, which breaks ties.
+ * The next page of the search starts after this position.
+ * <p>
+ * Keys are encoded as <code>[pid]-[sort value]</code>, where the sort value is either the last
+ * updated time in epoch millis or the resource ID.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setKeysetPagingEnabled(boolean)
+ * @since 8.4.0
+ */
+public class KeysetPageKey {
+
+	private static final char SEPARATOR = '-';
+
+	private final long myResourcePid;
+	private final Object mySortValue;
+
+	private KeysetPageKey(long theResourcePid, Object theSortValue) {
+		myResourcePid = theResourcePid;
+		mySortValue = theSortValue;
+	}
+
+	public long getResourcePid() {
+		return myResourcePid;
+	}
+
+	/**
+	 * Returns the value of the sort column, which is a {@link Date} for <code>_lastUpdated</code>
+	 * and a {@link String} for <code>_id</code>
+	 */
+	public Object getSortValue() {
+		return mySortValue;
+	}
+
+	public String encode() {
+		String sortValue = mySortValue instanceof Date
+				? Long.toString(((Date) mySortValue).getTime())
+				: (String) mySortValue;
+		return Long.toString(myResourcePid) + SEPARATOR + sortValue;
+	}
+
+	/**
+	 * Can a search with the given sort be keyset paged?
+	 */
+	public static boolean isSupportedSort(@Nullable SortSpec theSort) {
+		return theSort != null && theSort.getChain() == null && (isLastUpdatedSort(theSort) || isIdSort(theSort));
+	}
+
+	public static boolean isLastUpdatedSort(@Nonnull SortSpec theSort) {
+		return Constants.PARAM_LASTUPDATED.equals(theSort.getParamName());
+	}
+
+	public static boolean isIdSort(@Nonnull SortSpec theSort) {
+		return IAnyResource.SP_RES_ID.equals(theSort.getParamName());
+	}
+
+	public static boolean isAscending(@Nonnull SortSpec theSort) {
+		return theSort.getOrder() == null || theSort.getOrder() == SortOrderEnum.ASC;
+	}
+
+	/**
+	 * Creates the key for the given resource, which is the last result on a page
+	 */
+	public static KeysetPageKey forResource(@Nonnull SortSpec theSort, @Nonnull ResourceTable theResource) {
+		Object sortValue = isLastUpdatedSort(theSort) ? theResource.getUpdatedDate() : theResource.getFhirId();
+		return new KeysetPageKey(theResource.getId().getId(), sortValue);
+	}
+
+	/**
+	 * Parses a key which was produced by {@link #encode()}
+	 *
+	 * @throws InvalidRequestException If the key is not valid for the given sort
+	 */
+	public static KeysetPageKey parse(@Nonnull SortSpec theSort, @Nonnull String theSearchAfter) {
+		int separatorIdx = theSearchAfter.indexOf(SEPARATOR);
+		if (separatorIdx > 0 && separatorIdx < theSearchAfter.length() - 1) {
+			try {
+				long pid = Long.parseLong(theSearchAfter, 0, separatorIdx, 10);
+				String sortValue = theSearchAfter.substring(separatorIdx + 1);
+				if (isLastUpdatedSort(theSort)) {
+					return new KeysetPageKey(pid, new Date(Long.parseLong(sortValue)));
+				} else if (!isBlank(sortValue)) {
+					return new KeysetPageKey(pid, sortValue);
+				}
+			} catch (NumberFormatException e) {
+				// fall through
+			}
+		}
+		throw new InvalidRequestException(
+				Msg.code(2802) + "Invalid " + Constants.PARAM_SEARCH_AFTER + " value: " + theSearchAfter);
+	}
+}
@@ -32,6 +32,7 @@ import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.model.util.UcumServiceUtil;
+import ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc;
 import ca.uhn.fhir.jpa.search.builder.models.MissingParameterQueryParams;
 import ca.uhn.fhir.jpa.search.builder.models.MissingQueryParameterPredicateParams;
 import ca.uhn.fhir.jpa.search.builder.models.PredicateBuilderCacheKey;
@@ -76,6 +77,7 @@ import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.HasParam;
 import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
 import ca.uhn.fhir.rest.param.QuantityParam;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.SpecialParam;
@@ -158,6 +160,7 @@ public class QueryStack {
 	// used for _offset queries with sort, should be removed once the fix is applied to the async path too.
 	private boolean myUseAggregate;
 	private boolean myGroupingAdded;
+	private SearchParameterStatisticsSvc mySearchParameterStatisticsSvc;
 
 	/**
 	 * Constructor
@@ -208,6 +211,13 @@ public class QueryStack {
 		myReusePredicateBuilderTypes = theReusePredicateBuilderTypes;
 	}
 
+	/**
+	 * If set, sampled search parameter statistics are used to decide between joins and subqueries
+	 */
+	public void setSearchParameterStatisticsSvc(SearchParameterStatisticsSvc theSearchParameterStatisticsSvc) {
+		mySearchParameterStatisticsSvc = theSearchParameterStatisticsSvc;
+	}
+
 	public void addSortOnCoordsNear(String theParamName, boolean theAscending, SearchParameterMap theParams) {
 		boolean handled = false;
 		if (myParamNameToPredicateBuilderMap != null) {
@@ -296,6 +306,37 @@ public class QueryStack {
 		mySqlBuilder.addSortString(resourceTablePredicateBuilder.getColumnFhirId(), theAscending, myUseAggregate);
 	}
 
+	/**
+	 * Adds the seek predicate for a keyset paged search, which only matches resources that sort
+	 * after the given key. Resources with the same sort value are ordered by PID, so the search
+	 * must also be sorted on {@link #addSortOnResourcePID(boolean) the PID}.
+	 */
+	public void addPredicateKeysetSearchAfter(KeysetPageKey theKey, boolean theLastUpdatedSort, boolean theAscending) {
+		ResourceTablePredicateBuilder resourceTablePredicateBuilder;
+		BaseJoiningPredicateBuilder firstPredicateBuilder = mySqlBuilder.getOrCreateFirstPredicateBuilder();
+		if (firstPredicateBuilder instanceof ResourceTablePredicateBuilder) {
+			resourceTablePredicateBuilder = (ResourceTablePredicateBuilder) firstPredicateBuilder;
+		} else {
+			resourceTablePredicateBuilder =
+					mySqlBuilder.addResourceTablePredicateBuilder(firstPredicateBuilder.getJoinColumns());
+		}
+
+		DbColumn sortColumn = theLastUpdatedSort
+				? resourceTablePredicateBuilder.getColumnLastUpdated()
+				: resourceTablePredicateBuilder.getColumnFhirId();
+		ParamPrefixEnum comparator = theAscending ? ParamPrefixEnum.GREATERTHAN : ParamPrefixEnum.LESSTHAN;
+
+		// (SORT > ?) OR (SORT = ? AND RES_ID > ?)
+		Condition afterSortValue =
+				mySqlBuilder.createConditionForValueWithComparator(comparator, sortColumn, theKey.getSortValue());
+		Condition sameSortValue =
+				BinaryCondition.equalTo(sortColumn, mySqlBuilder.generatePlaceholder(theKey.getSortValue()));
+		Condition afterResourceId = mySqlBuilder.createConditionForValueWithComparator(
+				comparator, resourceTablePredicateBuilder.getResourceIdColumn(), theKey.getResourcePid());
+		mySqlBuilder.addPredicate(
+				ComboCondition.or(afterSortValue, ComboCondition.and(sameSortValue, afterResourceId)));
+	}
+
 	/** Sort on RES_ID -- used to break ties for reliable sort */
 	public void addSortOnResourcePID(boolean theAscending) {
 		BaseJoiningPredicateBuilder predicateBuilder = mySqlBuilder.getOrCreateFirstPredicateBuilder();
@@ -1625,7 +1666,21 @@ public class QueryStack {
 		// someday?
 		// Note: the first element in each chain is assumed to be discrete. This may need to change when we add proper
 		// support for `_contained`
-		if (nextChain.size() == 1) {
+		if (nextChain.size() > 1 && theEmbeddedChainedSearchModeEnum == EmbeddedChainedSearchModeEnum.UPLIFTED_ONLY) {
+			// discrete -> uplifted refchain, e.g. "subject.organization.name" indexed directly on the source resource
+			String pathPrefix = nextChain.stream()
+					.map(ChainElement::getSearchParameterName)
+					.collect(Collectors.joining("."));
+			RuntimeSearchParam firstParamDefinition =
+					leafNodes.iterator().next().getParamDefinition();
+			updateMapOfReferenceLinks(
+					referenceLinks,
+					Lists.newArrayList(),
+					leafNodes.stream()
+							.map(t -> t.withPathPrefix(nextChain.get(0).getResourceType(), pathPrefix))
+							.map(t -> t.withParam(firstParamDefinition))
+							.collect(Collectors.toSet()));
+		} else if (nextChain.size() == 1) {
 			// discrete -> discrete
 			if (theEmbeddedChainedSearchModeEnum == EmbeddedChainedSearchModeEnum.UPLIFTED_AND_REF_JOIN) {
 				// If !theWantChainedAndNormal that means we're only processing refchains
@@ -2294,6 +2349,37 @@ public class QueryStack {
 						theRequestPartitionId));
 			}
 
+			if (isUseTokenSubquery(
+					theSourceJoinColumn,
+					theResourceName,
+					theSpnamePrefix,
+					paramName,
+					theRequestPartitionId,
+					theSqlBuilder)) {
+				/*
+				 * This parameter has more index rows than there are resources, so joining it would
+				 * multiply the rows produced by the joins before it. A subquery only filters them.
+				 */
+				SearchQueryBuilder sqlBuilder =
+						theSqlBuilder.newChildSqlBuilder(myPartitionSettings.isDatabasePartitionMode());
+				TokenPredicateBuilder tokenSelector = sqlBuilder.addTokenPredicateBuilder(null);
+				sqlBuilder.addPredicate(tokenSelector.combineWithRequestPartitionIdPredicate(
+						theRequestPartitionId,
+						tokenSelector.createPredicateToken(
+								tokens,
+								theResourceName,
+								theSpnamePrefix,
+								theSearchParam,
+								theOperation,
+								theRequestPartitionId)));
+				Expression subSelect = new Subquery(sqlBuilder.getSelect());
+
+				join = theSqlBuilder.getOrCreateFirstPredicateBuilder();
+				Object left = new ColumnTupleObject(join.getJoinColumns());
+				predicate = new InCondition(left, subSelect);
+				return join.combineWithRequestPartitionIdPredicate(theRequestPartitionId, predicate);
+			}
+
 			TokenPredicateBuilder tokenJoin = createOrReusePredicateBuilder(
 							PredicateBuilderTypeEnum.TOKEN,
 							theSourceJoinColumn,
@@ -2309,6 +2395,25 @@ public class QueryStack {
 		return join.combineWithRequestPartitionIdPredicate(theRequestPartitionId, predicate);
 	}
 
+	/**
+	 * A subquery is only used for a top level parameter which isn't the first one in the query,
+	 * since the first one is the root table the other parameters are joined to.
+	 */
+	private boolean isUseTokenSubquery(
+			@Nullable DbColumn[] theSourceJoinColumn,
+			String theResourceName,
+			String theSpnamePrefix,
+			String theParamName,
+			RequestPartitionId theRequestPartitionId,
+			SearchQueryBuilder theSqlBuilder) {
+		return mySearchParameterStatisticsSvc != null
+				&& theSourceJoinColumn == null
+				&& isBlank(theSpnamePrefix)
+				&& theSqlBuilder == mySqlBuilder
+				&& theSqlBuilder.haveAtLeastOnePredicate()
+				&& mySearchParameterStatisticsSvc.isFanOut(theResourceName, theRequestPartitionId, theParamName);
+	}
+
 	public Condition createPredicateUri(
 			@Nullable DbColumn[] theSourceJoinColumn,
 			String theResourceName,
@@ -2788,6 +2893,8 @@ public class QueryStack {
 	 *    with paramName="organization.name", that's {@link EmbeddedChainedSearchModeEnum#UPLIFTED_ONLY}.
 	 *    We only do this if there is an uplifted refchain declared on the "organization"
 	 *    search parameter for the "name" search parameter, and contained indexing is disabled.
+	 *    Multi-level chains such as paramName="subject.organization.name" work the same way if
+	 *    the "subject" search parameter declares an uplifted refchain for "organization.name".
 	 *    This kind of index can come from indexing normal references where the search parameter
 	 * 	has an uplifted refchain declared, and it can also come from indexing contained resources.
 	 * 	For both of these cases, the actual index in the database is identical. But the important
@@ -2812,23 +2919,31 @@ public class QueryStack {
 			return EmbeddedChainedSearchModeEnum.REF_JOIN_ONLY;
 		}
 
-		boolean haveUpliftCandidates = theParameter.stream()
+		List<String> chains = theParameter.stream()
 				.filter(t -> t instanceof ReferenceParam)
 				.map(t -> ((ReferenceParam) t).getChain())
 				.filter(StringUtils::isNotBlank)
 				// Chains on _has can't be indexed for contained searches - At least not yet. It's not clear to me if we
 				// ever want to support this, it would be really hard to do.
 				.filter(t -> !t.startsWith(PARAM_HAS + ":"))
-				.anyMatch(t -> {
-					if (indexOnContainedResources) {
-						return true;
-					}
-					RuntimeSearchParam param = mySearchParamRegistry.getActiveSearchParam(
-							theResourceType,
-							theParameterName,
-							ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
-					return param != null && param.hasUpliftRefchain(t);
-				});
+				.collect(Collectors.toList());
+
+		boolean haveUpliftCandidates;
+		if (indexOnContainedResources) {
+			haveUpliftCandidates = !chains.isEmpty();
+		} else {
+			RuntimeSearchParam param = mySearchParamRegistry.getActiveSearchParam(
+					theResourceType, theParameterName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+			haveUpliftCandidates = param != null && chains.stream().anyMatch(param::hasUpliftRefchain);
+
+			// Multi-level uplifted refchains (e.g. "subject.organization.name") are searched
+			// without joining through the intermediate references at all, so every multi-level
+			// chain in the parameter needs to be uplifted for that to be used
+			if (haveUpliftCandidates
+					&& chains.stream().anyMatch(t -> t.indexOf('.') != -1 && !param.hasUpliftRefchain(t))) {
+				haveUpliftCandidates = false;
+			}
+		}
 
 		if (haveUpliftCandidates) {
 			if (indexOnContainedResources) {
@@ -44,11 +44,13 @@ import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTagDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.search.ResourceNotFoundInIndexException;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.dao.JpaPidFk;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
 import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
 import ca.uhn.fhir.jpa.model.entity.BaseTag;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
@@ -61,11 +63,15 @@ import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.search.SearchConstants;
+import ca.uhn.fhir.jpa.search.SearchCountViewSvc;
+import ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc;
 import ca.uhn.fhir.jpa.search.builder.models.ResolvedSearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.models.SearchQueryProperties;
 import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryPlanCache;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryShapeKey;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.lastn.IElasticsearchSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -150,6 +156,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -195,6 +202,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private static final String MY_TARGET_RESOURCE_TYPE = "myTargetResourceType";
 	private static final String MY_TARGET_RESOURCE_VERSION = "myTargetResourceVersion";
 	public static final JpaPid[] EMPTY_JPA_PID_ARRAY = new JpaPid[0];
+
+	/**
+	 * When loading resources in parallel, chunks smaller than this aren't worth a separate query
+	 */
+	private static final int MINIMUM_PARALLEL_LOAD_CHUNK_SIZE = 25;
+
 	public static boolean myUseMaxPageSize50ForTest = false;
 	public static Integer myMaxPageSizeForTests = null;
 	protected final IInterceptorBroadcaster myInterceptorBroadcaster;
@@ -227,7 +240,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	/**
 	 * @see SearchBuilder#setDeduplicateInDatabase(boolean)
 	 */
-	private Set<JpaPid> myPidSet;
+	private JpaPidSet myPidSet;
 
 	private boolean myHasNextIteratorQuery = false;
 	private RequestPartitionId myRequestPartitionId;
@@ -245,6 +258,21 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	@Autowired
 	private IResourceHistoryTagDao myResourceHistoryTagDao;
 
+	@Autowired(required = false)
+	private IHapiTransactionService myTxService;
+
+	@Autowired(required = false)
+	private SearchResultLoadingExecutor mySearchResultLoadingExecutor;
+
+	@Autowired(required = false)
+	private SearchQueryPlanCache mySearchQueryPlanCache;
+
+	@Autowired(required = false)
+	private SearchParameterStatisticsSvc mySearchParameterStatisticsSvc;
+
+	@Autowired(required = false)
+	private SearchCountViewSvc mySearchCountViewSvc;
+
 	@Autowired
 	private IRequestPartitionHelperSvc myPartitionHelperSvc;
 
@@ -339,6 +367,18 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				.filter(t -> !t.equals(IAnyResource.SP_RES_ID))
 				.filter(t -> !t.equals(Constants.PARAM_TAG))
 				.collect(Collectors.toList());
+		if (isUseSearchParameterStatistics()) {
+			// Join the most selective parameters first. This sort is stable, so parameters which
+			// can't be estimated keep their relative order after the ones which can.
+			Map<String, Long> estimatedRows = new HashMap<>();
+			for (String nextParamName : paramNames) {
+				estimatedRows.put(
+						nextParamName,
+						mySearchParameterStatisticsSvc.estimateParameterRows(
+								myResourceName, myRequestPartitionId, nextParamName, myParams.get(nextParamName)));
+			}
+			paramNames.sort(Comparator.comparing(estimatedRows::get));
+		}
 		if (myParams.containsKey(IAnyResource.SP_RES_ID)) {
 			paramNames.add(IAnyResource.SP_RES_ID);
 		}
@@ -365,6 +405,16 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 	}
 
+	private boolean isUseSearchParameterStatistics() {
+		return mySearchParameterStatisticsSvc != null
+				&& myStorageSettings.isSearchParameterStatisticsEnabled()
+				&& mySearchParameterStatisticsSvc.getGeneration() > 0;
+	}
+
+	private int getSearchParameterStatisticsGeneration() {
+		return isUseSearchParameterStatistics() ? mySearchParameterStatisticsSvc.getGeneration() : 0;
+	}
+
 	/**
 	 * A search is a candidate for Composite Unique SP if unique indexes are enabled, there is no EverythingMode, and the
 	 * parameters all have no modifiers.
@@ -386,6 +436,13 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		init(theParams, theSearchUuid, theRequestPartitionId);
 
+		if (mySearchCountViewSvc != null) {
+			Long count = mySearchCountViewSvc.getCount(myResourceName, theParams, theRequest, theRequestPartitionId);
+			if (count != null) {
+				return count;
+			}
+		}
+
 		if (checkUseHibernateSearch()) {
 			return myFulltextSearchSvc.count(myResourceName, theParams.clone());
 		}
@@ -409,7 +466,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	 */
 	@Override
 	public void setPreviouslyAddedResourcePids(@Nonnull List<JpaPid> thePidSet) {
-		myPidSet = new HashSet<>(thePidSet);
+		myPidSet = new JpaPidSet(thePidSet);
 	}
 
 	@SuppressWarnings("ConstantConditions")
@@ -425,7 +482,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		init(theParams, theSearchRuntimeDetails.getSearchUuid(), theRequestPartitionId);
 
 		if (myPidSet == null) {
-			myPidSet = new HashSet<>();
+			myPidSet = new JpaPidSet();
 		}
 
 		return new QueryIterator(theSearchRuntimeDetails, theRequest);
@@ -710,6 +767,26 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			RequestDetails theRequest,
 			List<JpaPid> thePidList,
 			List<ISearchQueryExecutor> theSearchQueryExecutors) {
+		/*
+		 * The shape of the search is captured before building the query, since building it
+		 * can modify the search parameter map
+		 */
+		String shapeKey = null;
+		int statisticsGeneration = getSearchParameterStatisticsGeneration();
+		if (mySearchQueryPlanCache != null && myStorageSettings.isSearchQueryPlanCacheEnabled()) {
+			shapeKey = SearchQueryShapeKey.create(
+					myResourceName,
+					myRequestPartitionId,
+					myParams,
+					mySearchParamRegistry,
+					theSearchProperties,
+					thePidList != null ? thePidList.size() : 0);
+			if (shapeKey != null) {
+				// The join order depends on the statistics, so a new sample needs new SQL
+				shapeKey = shapeKey + "|st=" + statisticsGeneration;
+			}
+		}
+
 		SearchQueryBuilder sqlBuilder = new SearchQueryBuilder(
 				myContext,
 				myStorageSettings,
@@ -727,6 +804,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				sqlBuilder,
 				mySearchParamRegistry,
 				myPartitionSettings);
+		if (isUseSearchParameterStatistics()) {
+			queryStack3.setSearchParameterStatisticsSvc(mySearchParameterStatisticsSvc);
+		}
 
 		if (theParams.keySet().size() > 1
 				|| theParams.getSort() != null
@@ -755,6 +835,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		// Normal search
 		searchForIdsWithAndOr(sqlBuilder, queryStack3, myParams, theRequest);
+		if (statisticsGeneration != getSearchParameterStatisticsGeneration()) {
+			// Statistics were sampled while building the query, so it may not match the key
+			shapeKey = null;
+		}
 
 		// If we haven't added any predicates yet, we're doing a search for all resources. Make sure we add the
 		// partition ID predicate in that case.
@@ -773,6 +857,18 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		// Last updated
 		addLastUpdatePredicate(sqlBuilder);
 
+		/*
+		 * Keyset paging - Counts include the whole result set, so the seek predicate is only
+		 * added when fetching results
+		 */
+		boolean keysetPaging = theParams.isKeysetPaging() && KeysetPageKey.isSupportedSort(theParams.getSort());
+		if (keysetPaging && theParams.getSearchAfter() != null && !theSearchProperties.isDoCountOnlyFlag()) {
+			SortSpec sort = theParams.getSort();
+			KeysetPageKey searchAfter = KeysetPageKey.parse(sort, theParams.getSearchAfter());
+			queryStack3.addPredicateKeysetSearchAfter(
+					searchAfter, KeysetPageKey.isLastUpdatedSort(sort), KeysetPageKey.isAscending(sort));
+		}
+
 		/*
 		 * Exclude the pids already in the previous iterator. This is an optimization, as opposed
 		 * to something needed to guarantee correct results.
@@ -789,9 +885,11 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		 * parameters in one query. So we only do this optimization if there aren't too
 		 * many results.
 		 */
+		int excludedPidCount = 0;
 		if (myHasNextIteratorQuery) {
 			if (myPidSet.size() + sqlBuilder.countBindVariables() < 900) {
 				sqlBuilder.excludeResourceIdsPredicate(myPidSet);
+				excludedPidCount = myPidSet.size();
 			}
 		}
 
@@ -816,20 +914,32 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			assert !theSearchProperties.isDoCountOnlyFlag();
 
 			createSort(queryStack3, theSearchProperties.getSortSpec(), theParams);
+
+			// Keyset paging needs a unique sort key, so ties are broken by PID
+			if (keysetPaging) {
+				queryStack3.addSortOnResourcePID(KeysetPageKey.isAscending(theParams.getSort()));
+			}
 		}
 
 		/*
 		 * Now perform the search
 		 */
-		executeSearch(theSearchProperties, theSearchQueryExecutors, sqlBuilder);
+		if (shapeKey != null) {
+			shapeKey = shapeKey + "|x=" + excludedPidCount;
+		}
+		executeSearch(theSearchProperties, theSearchQueryExecutors, sqlBuilder, shapeKey);
 	}
 
 	private void executeSearch(
 			SearchQueryProperties theProperties,
 			List<ISearchQueryExecutor> theSearchQueryExecutors,
-			SearchQueryBuilder sqlBuilder) {
-		GeneratedSql generatedSql =
-				sqlBuilder.generate(theProperties.getOffset(), theProperties.getMaxResultsRequested());
+			SearchQueryBuilder sqlBuilder,
+			@Nullable String theShapeKey) {
+		GeneratedSql generatedSql = sqlBuilder.generate(
+				theProperties.getOffset(),
+				theProperties.getMaxResultsRequested(),
+				theShapeKey != null ? mySearchQueryPlanCache : null,
+				theShapeKey);
 		if (!generatedSql.isMatchNothing()) {
 			SearchQueryExecutor executor =
 					mySqlBuilderFactory.newSearchQueryExecutor(generatedSql, theProperties.getMaxResultsRequested());
@@ -923,7 +1033,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		/*
 		 * Now perform the search
 		 */
-		executeSearch(theSearchQueryProperties, theSearchQueryExecutors, sqlBuilder);
+		executeSearch(theSearchQueryProperties, theSearchQueryExecutors, sqlBuilder, null);
 	}
 
 	private void addPidListPredicate(List<JpaPid> thePidList, SearchQueryBuilder theSqlBuilder) {
@@ -1211,6 +1321,16 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			List<IBaseResource> theResourceListToPopulate,
 			boolean theForHistoryOperation,
 			Map<Long, Integer> thePosition) {
+		List<Pair<JpaPid, IBaseResource>> loaded = fetchAndParseResources(thePids, theForHistoryOperation);
+		addLoadedResources(loaded, theIncludedPids, theResourceListToPopulate, thePosition);
+	}
+
+	/**
+	 * Fetches the current (or requested) version of each resource and parses it. This does not
+	 * touch any state other than the database, so it is safe to call from worker threads.
+	 */
+	private List<Pair<JpaPid, IBaseResource>> fetchAndParseResources(
+			Collection<JpaPid> thePids, boolean theForHistoryOperation) {
 
 		Map<JpaPid, Long> resourcePidToVersion = null;
 		for (JpaPid next : thePids) {
@@ -1258,6 +1378,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		// -- preload all tags with tag definition if any
 		Map<JpaPid, Collection<BaseTag>> tagMap = getResourceTagMap(resourceSearchViewList);
 
+		List<Pair<JpaPid, IBaseResource>> retVal = new ArrayList<>(resourceSearchViewList.size());
 		for (ResourceHistoryTable next : resourceSearchViewList) {
 			if (next.getDeleted() != null) {
 				continue;
@@ -1285,6 +1406,20 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				continue;
 			}
 
+			retVal.add(Pair.of(resourceId, resource));
+		}
+		return retVal;
+	}
+
+	private void addLoadedResources(
+			List<Pair<JpaPid, IBaseResource>> theLoadedResources,
+			Collection<JpaPid> theIncludedPids,
+			List<IBaseResource> theResourceListToPopulate,
+			Map<Long, Integer> thePosition) {
+		for (Pair<JpaPid, IBaseResource> next : theLoadedResources) {
+			JpaPid resourceId = next.getKey();
+			IBaseResource resource = next.getValue();
+
 			Integer index = thePosition.get(resourceId.getId());
 			if (index == null) {
 				ourLog.warn("Got back unexpected resource PID {}", resourceId);
@@ -1430,12 +1565,72 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			}
 		}
 
+		if (isParallelLoadingEnabled(thePids)) {
+			loadResourcesByPidInParallel(
+					thePids, theIncludedPids, theResourceListToPopulate, theForHistoryOperation, theDetails, position);
+			return;
+		}
+
 		// We only chunk because some jdbc drivers can't handle long param lists.
 		QueryChunker.chunk(
 				thePids,
 				t -> doLoadPids(t, theIncludedPids, theResourceListToPopulate, theForHistoryOperation, position));
 	}
 
+	/**
+	 * Worker threads use their own connections and can not see changes made by the calling
+	 * transaction, so resources are only loaded in parallel within a read-only transaction
+	 */
+	private boolean isParallelLoadingEnabled(Collection<JpaPid> thePids) {
+		return myStorageSettings.getSearchResultLoadingParallelism() > 1
+				&& mySearchResultLoadingExecutor != null
+				&& myTxService != null
+				&& thePids.size() > MINIMUM_PARALLEL_LOAD_CHUNK_SIZE
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	/**
+	 * Splits the PIDs into one chunk per worker (each containing PIDs from a single partition),
+	 * then fetches and parses each chunk in its own read-only transaction on the
+	 * {@link SearchResultLoadingExecutor}, or in the current transaction if no worker is free
+	 * to take it. The results are added in chunk order on the calling
+	 * thread, and placed using the position of each PID, so ordering is the same as when
+	 * loading sequentially.
+	 */
+	private void loadResourcesByPidInParallel(
+			Collection<JpaPid> thePids,
+			Collection<JpaPid> theIncludedPids,
+			List<IBaseResource> theResourceListToPopulate,
+			boolean theForHistoryOperation,
+			RequestDetails theDetails,
+			Map<Long, Integer> thePosition) {
+		int parallelism = myStorageSettings.getSearchResultLoadingParallelism();
+		int chunkSize = (thePids.size() + parallelism - 1) / parallelism;
+		chunkSize = Math.min(Math.max(chunkSize, MINIMUM_PARALLEL_LOAD_CHUNK_SIZE), getMaximumPageSize());
+		List<Collection<JpaPid>> chunks = partitionBySizeAndPartitionId(new ArrayList<>(thePids), chunkSize);
+
+		List<List<Pair<JpaPid, IBaseResource>>> loaded = mySearchResultLoadingExecutor.invokeAll(
+				chunks,
+				chunk -> myTxService
+						.withRequest(theDetails)
+						.withRequestPartitionId(getRequestPartitionIdForLoading(chunk))
+						.readOnly()
+						.execute(() -> fetchAndParseResources(chunk, theForHistoryOperation)),
+				chunk -> fetchAndParseResources(chunk, theForHistoryOperation));
+
+		for (List<Pair<JpaPid, IBaseResource>> nextLoaded : loaded) {
+			addLoadedResources(nextLoaded, theIncludedPids, theResourceListToPopulate, thePosition);
+		}
+	}
+
+	private RequestPartitionId getRequestPartitionIdForLoading(Collection<JpaPid> theChunk) {
+		Integer partitionId = theChunk.iterator().next().getPartitionId();
+		if (partitionId != null) {
+			return RequestPartitionId.fromPartitionId(partitionId);
+		}
+		return myRequestPartitionId != null ? myRequestPartitionId : RequestPartitionId.allPartitions();
+	}
+
 	/**
 	 * Check if we can load the resources from Hibernate Search instead of the database.
 	 * We assume this is faster.
@@ -1518,8 +1713,11 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		IInterceptorBroadcaster compositeBroadcaster =
 				CompositeInterceptorBroadcaster.newCompositeBroadcaster(myInterceptorBroadcaster, request);
 
+		// Queries run on worker threads by parallel include loading are collected here
+		SqlQueryList workerQueries = null;
 		if (compositeBroadcaster.hasHooks(Pointcut.JPA_PERFTRACE_RAW_SQL)) {
 			CurrentThreadCaptureQueriesListener.startCapturing();
+			workerQueries = new SqlQueryList();
 		}
 		if (matches.isEmpty()) {
 			return new HashSet<>();
@@ -1541,7 +1739,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		List<JpaPid> nextRoundMatches = new ArrayList<>(matches);
 		HashSet<JpaPid> allAdded = new HashSet<>();
-		HashSet<JpaPid> original = new HashSet<>(matches);
+		JpaPidSet original = new JpaPidSet(matches);
+		// Every PID which has been seen so far, whether it was an original match or was included
+		JpaPidSet seen = new JpaPidSet(original);
 		ArrayList<Include> includes = new ArrayList<>(currentIncludes);
 
 		int roundCounts = 0;
@@ -1550,8 +1750,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		boolean addedSomeThisRound;
 		do {
 			roundCounts++;
+			w.startTask("Round " + roundCounts);
 
 			HashSet<JpaPid> pidsToInclude = new HashSet<>();
+			List<Include> specificIncludes = new ArrayList<>();
 
 			for (Iterator<Include> iter = includes.iterator(); iter.hasNext(); ) {
 				Include nextInclude = iter.next();
@@ -1589,25 +1791,30 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 							pidsToInclude,
 							request);
 				} else {
-					loadIncludesMatchSpecific(
-							nextInclude,
-							fhirContext,
-							findPidFieldName,
-							findPartitionIdFieldName,
-							findVersionFieldName,
-							searchPidFieldName,
-							reverseMode,
-							nextRoundMatches,
-							entityManager,
-							maxCount,
-							pidsToInclude,
-							request);
+					specificIncludes.add(nextInclude);
 				}
 			}
 
+			if (!specificIncludes.isEmpty()) {
+				loadIncludesMatchSpecific(
+						specificIncludes,
+						fhirContext,
+						findPidFieldName,
+						findPartitionIdFieldName,
+						findVersionFieldName,
+						searchPidFieldName,
+						reverseMode,
+						nextRoundMatches,
+						entityManager,
+						maxCount,
+						pidsToInclude,
+						request,
+						workerQueries);
+			}
+
 			nextRoundMatches.clear();
 			for (JpaPid next : pidsToInclude) {
-				if (!original.contains(next) && !allAdded.contains(next)) {
+				if (seen.add(next)) {
 					nextRoundMatches.add(next);
 				} else {
 					ourLog.trace("Skipping include since it has already been seen. [jpaPid={}]", next);
@@ -1622,6 +1829,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		} while (!includes.isEmpty() && !nextRoundMatches.isEmpty() && addedSomeThisRound);
 
+		w.endCurrentTask();
 		allAdded.removeAll(original);
 
 		ourLog.info(
@@ -1629,11 +1837,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				allAdded.size(),
 				reverseMode ? "_revincludes" : "_includes",
 				roundCounts,
-				w.getMillisAndRestart(),
+				w.getMillis(),
 				searchIdOrDescription);
+		ourLog.debug("Include round timings for search {}: {}", searchIdOrDescription, w.formatTaskDurations());
 
 		if (compositeBroadcaster.hasHooks(Pointcut.JPA_PERFTRACE_RAW_SQL)) {
-			callRawSqlHookWithCurrentThreadQueries(request, compositeBroadcaster);
+			callRawSqlHookWithCurrentThreadQueries(request, compositeBroadcaster, workerQueries);
 		}
 
 		// Interceptor call: STORAGE_PREACCESS_RESOURCES
@@ -1665,8 +1874,15 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		return allAdded;
 	}
 
+	/**
+	 * Loads the targets (or sources, for revincludes) of all of the non-wildcard includes for one
+	 * round. Include parameters which can't reference canonical URLs and have the same target types
+	 * are combined into a single query covering all of their paths. If there is more than one query
+	 * to run and parallel loading is enabled, the queries are run concurrently in their own
+	 * read-only transactions.
+	 */
 	private void loadIncludesMatchSpecific(
-			Include nextInclude,
+			List<Include> theIncludes,
 			FhirContext fhirContext,
 			String findPidFieldName,
 			String findPartitionFieldName,
@@ -1677,167 +1893,291 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			EntityManager entityManager,
 			Integer maxCount,
 			HashSet<JpaPid> pidsToInclude,
-			RequestDetails theRequest) {
-		List<String> paths;
+			RequestDetails theRequest,
+			@Nullable SqlQueryList theWorkerQueries) {
 
-		// Start replace
-		RuntimeSearchParam param;
-		String resType = nextInclude.getParamType();
-		if (isBlank(resType)) {
-			return;
-		}
-		RuntimeResourceDefinition def = fhirContext.getResourceDefinition(resType);
-		if (def == null) {
-			ourLog.warn("Unknown resource type in include/revinclude=" + nextInclude.getValue());
-			return;
+		List<IncludeQuery> includeQueries = new ArrayList<>();
+		Map<Set<String>, IncludeQuery> targetResourceTypesToCombinedQuery = new HashMap<>();
+		for (Include nextInclude : theIncludes) {
+			String resType = nextInclude.getParamType();
+			if (isBlank(resType)) {
+				continue;
+			}
+			RuntimeResourceDefinition def = fhirContext.getResourceDefinition(resType);
+			if (def == null) {
+				ourLog.warn("Unknown resource type in include/revinclude=" + nextInclude.getValue());
+				continue;
+			}
+
+			String paramName = nextInclude.getParamName();
+			RuntimeSearchParam param = null;
+			if (isNotBlank(paramName)) {
+				param = mySearchParamRegistry.getActiveSearchParam(
+						resType, paramName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+			}
+			if (param == null) {
+				ourLog.warn("Unknown param name in include/revinclude=" + nextInclude.getValue());
+				continue;
+			}
+
+			List<String> paths = param.getPathsSplitForResourceType(resType);
+			if (paths.isEmpty()) {
+				continue;
+			}
+
+			Set<String> targetResourceTypes = computeTargetResourceTypes(nextInclude, param);
+			Pair<String, Map<String, Object>> canonicalQuery =
+					buildCanonicalUrlQuery(findVersionFieldName, targetResourceTypes, reverseMode, theRequest, param);
+			if (canonicalQuery == null) {
+				IncludeQuery combinedQuery =
+						targetResourceTypesToCombinedQuery.computeIfAbsent(targetResourceTypes, t -> {
+							IncludeQuery newQuery = new IncludeQuery(new LinkedHashSet<>(), t, null);
+							includeQueries.add(newQuery);
+							return newQuery;
+						});
+				combinedQuery.srcPaths().addAll(paths);
+			} else {
+				includeQueries.add(new IncludeQuery(paths, targetResourceTypes, canonicalQuery));
+			}
 		}
 
-		String paramName = nextInclude.getParamName();
-		if (isNotBlank(paramName)) {
-			param = mySearchParamRegistry.getActiveSearchParam(
-					resType, paramName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
-		} else {
-			param = null;
+		List<Pair<String, Map<String, Object>>> sqlAndParams = new ArrayList<>(includeQueries.size());
+		for (IncludeQuery nextQuery : includeQueries) {
+			sqlAndParams.add(buildIncludeQuerySql(
+					nextQuery,
+					findPidFieldName,
+					findPartitionFieldName,
+					findVersionFieldName,
+					searchPidFieldName,
+					maxCount));
 		}
-		if (param == null) {
-			ourLog.warn("Unknown param name in include/revinclude=" + nextInclude.getValue());
+
+		List<Collection<JpaPid>> partitions = partitionBySizeAndPartitionId(nextRoundMatches, getMaximumPageSize());
+		if (isParallelIncludeLoadingEnabled(sqlAndParams.size() * partitions.size())) {
+			loadIncludesMatchSpecificInParallel(
+					sqlAndParams,
+					partitions,
+					findVersionFieldName,
+					entityManager,
+					pidsToInclude,
+					theRequest,
+					theWorkerQueries);
 			return;
 		}
 
-		paths = param.getPathsSplitForResourceType(resType);
-		// end replace
+		for (Pair<String, Map<String, Object>> nextSqlAndParams : sqlAndParams) {
+			for (Collection<JpaPid> nextPartition : partitions) {
+				pidsToInclude.addAll(
+						executeIncludeQuery(entityManager, nextSqlAndParams, nextPartition, findVersionFieldName));
+			}
+		}
+	}
 
-		Set<String> targetResourceTypes = computeTargetResourceTypes(nextInclude, param);
+	/**
+	 * Worker threads use their own connections and can not see changes made by the calling
+	 * transaction, so include queries are only run in parallel within a read-only transaction
+	 */
+	private boolean isParallelIncludeLoadingEnabled(int theQueryCount) {
+		return theQueryCount > 1
+				&& myStorageSettings.getSearchResultLoadingParallelism() > 1
+				&& mySearchResultLoadingExecutor != null
+				&& myTxService != null
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
 
-		for (String nextPath : paths) {
-			String findPidFieldSqlColumn =
-					findPidFieldName.equals(MY_SOURCE_RESOURCE_PID) ? "src_resource_id" : "target_resource_id";
-			String fieldsToLoad = "r." + findPidFieldSqlColumn + " AS " + RESOURCE_ID_ALIAS;
-			if (findVersionFieldName != null) {
-				fieldsToLoad += ", r.target_resource_version AS " + RESOURCE_VERSION_ALIAS;
+	/**
+	 * Runs each include query against each partition of PIDs using the {@link SearchResultLoadingExecutor}.
+	 * If <code>theWorkerQueries</code> is not null, the SQL run on worker threads is added to it so
+	 * that it can be reported to {@link Pointcut#JPA_PERFTRACE_RAW_SQL} along with the queries
+	 * captured on the calling thread.
+	 */
+	private void loadIncludesMatchSpecificInParallel(
+			List<Pair<String, Map<String, Object>>> theSqlAndParams,
+			List<Collection<JpaPid>> thePartitions,
+			String theFindVersionFieldName,
+			EntityManager theEntityManager,
+			HashSet<JpaPid> thePidsToInclude,
+			RequestDetails theRequest,
+			@Nullable SqlQueryList theWorkerQueries) {
+		RequestPartitionId requestPartitionId =
+				myRequestPartitionId != null ? myRequestPartitionId : RequestPartitionId.allPartitions();
+		List<Pair<Pair<String, Map<String, Object>>, Collection<JpaPid>>> queries = new ArrayList<>();
+		for (Pair<String, Map<String, Object>> nextSqlAndParams : theSqlAndParams) {
+			for (Collection<JpaPid> nextPartition : thePartitions) {
+				queries.add(Pair.of(nextSqlAndParams, nextPartition));
 			}
-			if (myPartitionSettings.isDatabasePartitionMode()) {
-				fieldsToLoad += ", r.";
-				fieldsToLoad += findPartitionFieldName.equals(MY_SOURCE_RESOURCE_PARTITION_ID)
-						? "partition_id"
-						: "target_res_partition_id";
-				fieldsToLoad += " as " + PARTITION_ID_ALIAS;
-			}
-
-			// Query for includes lookup has 2 cases
-			// Case 1: Where target_resource_id is available in hfj_res_link table for local references
-			// Case 2: Where target_resource_id is null in hfj_res_link table and referred by a canonical
-			// url in target_resource_url
-
-			// Case 1:
-			Map<String, Object> localReferenceQueryParams = new HashMap<>();
-
-			String searchPidFieldSqlColumn =
-					searchPidFieldName.equals(MY_TARGET_RESOURCE_PID) ? "target_resource_id" : "src_resource_id";
-			StringBuilder localReferenceQuery = new StringBuilder();
-			localReferenceQuery.append("SELECT ").append(fieldsToLoad);
-			localReferenceQuery.append(" FROM hfj_res_link r ");
+		}
+
+		List<List<JpaPid>> loaded = mySearchResultLoadingExecutor.invokeAll(
+				queries,
+				query -> {
+					if (theWorkerQueries != null) {
+						CurrentThreadCaptureQueriesListener.startCapturing();
+					}
+					try {
+						return myTxService
+								.withRequest(theRequest)
+								.withRequestPartitionId(requestPartitionId)
+								.readOnly()
+								.execute(() -> executeIncludeQuery(
+										myEntityManager, query.getLeft(), query.getRight(), theFindVersionFieldName));
+					} finally {
+						if (theWorkerQueries != null) {
+							SqlQueryList captured =
+									CurrentThreadCaptureQueriesListener.getCurrentQueueAndStopCapturing();
+							synchronized (theWorkerQueries) {
+								theWorkerQueries.addAll(captured);
+							}
+						}
+					}
+				},
+				query -> executeIncludeQuery(
+						theEntityManager, query.getLeft(), query.getRight(), theFindVersionFieldName));
+
+		loaded.forEach(thePidsToInclude::addAll);
+	}
+
+	/**
+	 * Builds the native SQL for an include query, and the parameters it needs other than the
+	 * PIDs being searched and their partition ID
+	 */
+	private Pair<String, Map<String, Object>> buildIncludeQuerySql(
+			IncludeQuery theIncludeQuery,
+			String findPidFieldName,
+			String findPartitionFieldName,
+			String findVersionFieldName,
+			String searchPidFieldName,
+			Integer maxCount) {
+		String findPidFieldSqlColumn =
+				findPidFieldName.equals(MY_SOURCE_RESOURCE_PID) ? "src_resource_id" : "target_resource_id";
+		String fieldsToLoad = "r." + findPidFieldSqlColumn + " AS " + RESOURCE_ID_ALIAS;
+		if (findVersionFieldName != null) {
+			fieldsToLoad += ", r.target_resource_version AS " + RESOURCE_VERSION_ALIAS;
+		}
+		if (myPartitionSettings.isDatabasePartitionMode()) {
+			fieldsToLoad += ", r.";
+			fieldsToLoad += findPartitionFieldName.equals(MY_SOURCE_RESOURCE_PARTITION_ID)
+					? "partition_id"
+					: "target_res_partition_id";
+			fieldsToLoad += " as " + PARTITION_ID_ALIAS;
+		}
+
+		// Query for includes lookup has 2 cases
+		// Case 1: Where target_resource_id is available in hfj_res_link table for local references
+		// Case 2: Where target_resource_id is null in hfj_res_link table and referred by a canonical
+		// url in target_resource_url
+
+		// Case 1:
+		Map<String, Object> queryParams = new HashMap<>();
+
+		String searchPidFieldSqlColumn =
+				searchPidFieldName.equals(MY_TARGET_RESOURCE_PID) ? "target_resource_id" : "src_resource_id";
+		StringBuilder localReferenceQuery = new StringBuilder();
+		localReferenceQuery.append("SELECT ").append(fieldsToLoad);
+		localReferenceQuery.append(" FROM hfj_res_link r ");
+		if (theIncludeQuery.srcPaths().size() == 1) {
 			localReferenceQuery.append("WHERE r.src_path = :src_path");
-			if (!"target_resource_id".equals(searchPidFieldSqlColumn)) {
-				localReferenceQuery.append(" AND r.target_resource_id IS NOT NULL");
-			}
+			queryParams.put("src_path", theIncludeQuery.srcPaths().iterator().next());
+		} else {
+			localReferenceQuery.append("WHERE r.src_path IN (:src_paths)");
+			queryParams.put("src_paths", theIncludeQuery.srcPaths());
+		}
+		if (!"target_resource_id".equals(searchPidFieldSqlColumn)) {
+			localReferenceQuery.append(" AND r.target_resource_id IS NOT NULL");
+		}
+		localReferenceQuery
+				.append(" AND r.")
+				.append(searchPidFieldSqlColumn)
+				.append(" IN (:target_pids) ");
+		if (myPartitionSettings.isDatabasePartitionMode()) {
+			String partitionFieldToSearch = findPartitionFieldName.equals(MY_SOURCE_RESOURCE_PARTITION_ID)
+					? "target_res_partition_id"
+					: "partition_id";
 			localReferenceQuery
-					.append(" AND r.")
-					.append(searchPidFieldSqlColumn)
-					.append(" IN (:target_pids) ");
-			if (myPartitionSettings.isDatabasePartitionMode()) {
-				String partitionFieldToSearch = findPartitionFieldName.equals(MY_SOURCE_RESOURCE_PARTITION_ID)
-						? "target_res_partition_id"
-						: "partition_id";
-				localReferenceQuery
-						.append("AND r.")
-						.append(partitionFieldToSearch)
-						.append(" = :search_partition_id ");
-			}
-			localReferenceQueryParams.put("src_path", nextPath);
-			// we loop over target_pids later.
-			if (targetResourceTypes != null) {
-				if (targetResourceTypes.size() == 1) {
-					localReferenceQuery.append("AND r.target_resource_type = :target_resource_type ");
-					localReferenceQueryParams.put(
-							"target_resource_type",
-							targetResourceTypes.iterator().next());
-				} else {
-					localReferenceQuery.append("AND r.target_resource_type in (:target_resource_types) ");
-					localReferenceQueryParams.put("target_resource_types", targetResourceTypes);
-				}
+					.append("AND r.")
+					.append(partitionFieldToSearch)
+					.append(" = :search_partition_id ");
+		}
+		// we loop over target_pids later.
+		Set<String> targetResourceTypes = theIncludeQuery.targetResourceTypes();
+		if (targetResourceTypes != null) {
+			if (targetResourceTypes.size() == 1) {
+				localReferenceQuery.append("AND r.target_resource_type = :target_resource_type ");
+				queryParams.put(
+						"target_resource_type", targetResourceTypes.iterator().next());
+			} else {
+				localReferenceQuery.append("AND r.target_resource_type in (:target_resource_types) ");
+				queryParams.put("target_resource_types", targetResourceTypes);
 			}
+		}
 
-			// Case 2:
-			Pair<String, Map<String, Object>> canonicalQuery =
-					buildCanonicalUrlQuery(findVersionFieldName, targetResourceTypes, reverseMode, theRequest, param);
+		// Case 2:
+		Pair<String, Map<String, Object>> canonicalQuery = theIncludeQuery.canonicalQuery();
 
-			String sql = localReferenceQuery.toString();
-			if (canonicalQuery != null) {
-				sql = localReferenceQuery + "UNION " + canonicalQuery.getLeft();
-			}
+		String sql = localReferenceQuery.toString();
+		if (canonicalQuery != null) {
+			sql = localReferenceQuery + "UNION " + canonicalQuery.getLeft();
+			queryParams.putAll(canonicalQuery.getRight());
+		}
 
-			Map<String, Object> limitParams = new HashMap<>();
-			if (maxCount != null) {
-				LinkedList<Object> bindVariables = new LinkedList<>();
-				sql = SearchQueryBuilder.applyLimitToSql(
-						myDialectProvider.getDialect(), null, maxCount, sql, null, bindVariables);
-
-				// The dialect SQL limiter uses positional params, but we're using
-				// named params here, so we need to replace the positional params
-				// with equivalent named ones
-				StringBuilder sb = new StringBuilder();
-				for (int i = 0; i < sql.length(); i++) {
-					char nextChar = sql.charAt(i);
-					if (nextChar == '?') {
-						String nextName = "limit" + i;
-						sb.append(':').append(nextName);
-						limitParams.put(nextName, bindVariables.removeFirst());
-					} else {
-						sb.append(nextChar);
-					}
+		if (maxCount != null) {
+			LinkedList<Object> bindVariables = new LinkedList<>();
+			sql = SearchQueryBuilder.applyLimitToSql(
+					myDialectProvider.getDialect(), null, maxCount, sql, null, bindVariables);
+
+			// The dialect SQL limiter uses positional params, but we're using
+			// named params here, so we need to replace the positional params
+			// with equivalent named ones
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < sql.length(); i++) {
+				char nextChar = sql.charAt(i);
+				if (nextChar == '?') {
+					String nextName = "limit" + i;
+					sb.append(':').append(nextName);
+					queryParams.put(nextName, bindVariables.removeFirst());
+				} else {
+					sb.append(nextChar);
 				}
-				sql = sb.toString();
 			}
+			sql = sb.toString();
+		}
 
-			List<Collection<JpaPid>> partitions = partitionBySizeAndPartitionId(nextRoundMatches, getMaximumPageSize());
-			for (Collection<JpaPid> nextPartition : partitions) {
-				Query q = entityManager.createNativeQuery(sql, Tuple.class);
-				q.setParameter("target_pids", JpaPid.toLongList(nextPartition));
-				if (myPartitionSettings.isDatabasePartitionMode()) {
-					q.setParameter(
-							"search_partition_id",
-							nextPartition.iterator().next().getPartitionId());
+		return Pair.of(sql, queryParams);
+	}
+
+	private List<JpaPid> executeIncludeQuery(
+			EntityManager theEntityManager,
+			Pair<String, Map<String, Object>> theSqlAndParams,
+			Collection<JpaPid> thePartition,
+			String theFindVersionFieldName) {
+		Query q = theEntityManager.createNativeQuery(theSqlAndParams.getLeft(), Tuple.class);
+		q.setParameter("target_pids", JpaPid.toLongList(thePartition));
+		if (myPartitionSettings.isDatabasePartitionMode()) {
+			q.setParameter("search_partition_id", thePartition.iterator().next().getPartitionId());
+		}
+		theSqlAndParams.getRight().forEach(q::setParameter);
+
+		List<JpaPid> retVal = new ArrayList<>();
+		try (ScrollableResultsIterator<Tuple> iter = new ScrollableResultsIterator<>(toScrollableResults(q))) {
+			Tuple result;
+			while (iter.hasNext()) {
+				result = iter.next();
+				Long resourceId = NumberUtils.createLong(String.valueOf(result.get(RESOURCE_ID_ALIAS)));
+				Long resourceVersion = null;
+				if (theFindVersionFieldName != null && result.get(RESOURCE_VERSION_ALIAS) != null) {
+					resourceVersion = NumberUtils.createLong(String.valueOf(result.get(RESOURCE_VERSION_ALIAS)));
 				}
-				localReferenceQueryParams.forEach(q::setParameter);
-				if (canonicalQuery != null) {
-					canonicalQuery.getRight().forEach(q::setParameter);
+				Integer partitionId = null;
+				if (myPartitionSettings.isDatabasePartitionMode()) {
+					partitionId = result.get(PARTITION_ID_ALIAS, Integer.class);
 				}
-				limitParams.forEach(q::setParameter);
-
-				try (ScrollableResultsIterator<Tuple> iter = new ScrollableResultsIterator<>(toScrollableResults(q))) {
-					Tuple result;
-					while (iter.hasNext()) {
-						result = iter.next();
-						Long resourceId = NumberUtils.createLong(String.valueOf(result.get(RESOURCE_ID_ALIAS)));
-						Long resourceVersion = null;
-						if (findVersionFieldName != null && result.get(RESOURCE_VERSION_ALIAS) != null) {
-							resourceVersion =
-									NumberUtils.createLong(String.valueOf(result.get(RESOURCE_VERSION_ALIAS)));
-						}
-						Integer partitionId = null;
-						if (myPartitionSettings.isDatabasePartitionMode()) {
-							partitionId = result.get(PARTITION_ID_ALIAS, Integer.class);
-						}
 
-						JpaPid pid = JpaPid.fromIdAndVersion(resourceId, resourceVersion);
-						pid.setPartitionId(partitionId);
-						pidsToInclude.add(pid);
-					}
-				}
-				//				myEntityManager.clear();
+				JpaPid pid = JpaPid.fromIdAndVersion(resourceId, resourceVersion);
+				pid.setPartitionId(partitionId);
+				retVal.add(pid);
 			}
 		}
+		return retVal;
 	}
 
 	private void loadIncludesMatchAll(
@@ -2051,7 +2391,21 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	 */
 	private void callRawSqlHookWithCurrentThreadQueries(
 			RequestDetails request, IInterceptorBroadcaster theCompositeBroadcaster) {
+		callRawSqlHookWithCurrentThreadQueries(request, theCompositeBroadcaster, null);
+	}
+
+	/**
+	 * Calls Performance Trace Hook with the queries captured on the current thread, plus
+	 * any captured on worker threads on behalf of the current thread
+	 */
+	private void callRawSqlHookWithCurrentThreadQueries(
+			RequestDetails request,
+			IInterceptorBroadcaster theCompositeBroadcaster,
+			@Nullable SqlQueryList theWorkerQueries) {
 		SqlQueryList capturedQueries = CurrentThreadCaptureQueriesListener.getCurrentQueueAndStopCapturing();
+		if (theWorkerQueries != null) {
+			capturedQueries.addAll(theWorkerQueries);
+		}
 		HookParams params = new HookParams()
 				.add(RequestDetails.class, request)
 				.addIfMatchesType(ServletRequestDetails.class, request)
@@ -2252,6 +2606,14 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 	}
 
+	/**
+	 * A query for the targets (or sources, for revincludes) of one or more include paths
+	 */
+	private record IncludeQuery(
+			@Nonnull Collection<String> srcPaths,
+			@Nullable Set<String> targetResourceTypes,
+			@Nullable Pair<String, Map<String, Object>> canonicalQuery) {}
+
 	/**
 	 * This method takes in a list of {@link JpaPid}'s and returns a series of sublists containing
 	 * those pids where:
@@ -2584,7 +2946,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		private JpaPid myNext;
 
 		IncludesIterator(Set<JpaPid> thePidSet, RequestDetails theRequest) {
-			myCurrentPids = new HashSet<>(thePidSet);
+			myCurrentPids = new JpaPidSet(thePidSet);
 			myCurrentIterator = null;
 			myRequest = theRequest;
 		}
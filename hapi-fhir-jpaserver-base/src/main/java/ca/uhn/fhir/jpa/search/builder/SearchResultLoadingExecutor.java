@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.ThreadPoolUtil;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Holds the shared pool of worker threads used by {@link SearchBuilder} to fetch and parse
+ * search result resources in parallel.
+ *
+ * @see JpaStorageSettings#setSearchResultLoadingParallelism(int)
+ * @since 8.4.0
+ */
+public class SearchResultLoadingExecutor {
+
+	public static final String THREAD_PREFIX = "search-result-loading-";
+
+	/**
+	 * Tasks beyond this many per thread are rejected, so that {@link #invokeAll(List, Function, Function)}
+	 * processes them on the calling thread
+	 */
+	private static final int QUEUE_CAPACITY_PER_THREAD = 10;
+
+	/**
+	 * The longest time the calling thread will wait for a chunk which a worker thread has started
+	 */
+	static final long MAXIMUM_WAIT_MILLIS = DateUtils.MILLIS_PER_MINUTE;
+
+	private final JpaStorageSettings myStorageSettings;
+	private ThreadPoolTaskExecutor myExecutor;
+	private int myPoolSize;
+
+	/**
+	 * Constructor
+	 */
+	public SearchResultLoadingExecutor(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * Returns the executor, creating it if needed. If the configured parallelism has changed
+	 * the existing pool is resized rather than replaced, since other searches may be using it.
+	 */
+	public synchronized Executor getExecutor() {
+		int poolSize = myStorageSettings.getSearchResultLoadingParallelism();
+		if (myExecutor == null) {
+			myExecutor = ThreadPoolUtil.newThreadPool(
+					poolSize,
+					poolSize,
+					THREAD_PREFIX,
+					poolSize * QUEUE_CAPACITY_PER_THREAD,
+					new ThreadPoolExecutor.AbortPolicy());
+			myPoolSize = poolSize;
+		} else if (myPoolSize != poolSize) {
+			// The core size can never be larger than the maximum size, so the order matters
+			if (poolSize > myPoolSize) {
+				myExecutor.setMaxPoolSize(poolSize);
+				myExecutor.setCorePoolSize(poolSize);
+			} else {
+				myExecutor.setCorePoolSize(poolSize);
+				myExecutor.setMaxPoolSize(poolSize);
+			}
+			myPoolSize = poolSize;
+		}
+		return myExecutor;
+	}
+
+	/**
+	 * Applies a function to each of the given chunks using the worker threads, and returns the
+	 * results in chunk order.
+	 * <p>
+	 * The calling thread normally holds a database connection while it waits, and each worker
+	 * needs a connection of its own, so waiting on the workers could deadlock once the connection
+	 * pool is exhausted. To make sure the calling thread always makes progress, any chunk that no
+	 * worker has started by the time its result is needed is processed on the calling thread using
+	 * <code>theCallerFunction</code> instead, and the wait for a chunk that a worker has started
+	 * is bounded by {@link #MAXIMUM_WAIT_MILLIS}.
+	 * </p>
+	 *
+	 * @param theChunks         The chunks to process
+	 * @param theWorkerFunction Processes a chunk on a worker thread
+	 * @param theCallerFunction Processes a chunk on the calling thread
+	 */
+	public <C, T> List<T> invokeAll(
+			List<C> theChunks, Function<C, T> theWorkerFunction, Function<C, T> theCallerFunction) {
+		Executor executor = getExecutor();
+		List<AtomicBoolean> claimed = new ArrayList<>(theChunks.size());
+		List<CompletableFuture<T>> futures = new ArrayList<>(theChunks.size());
+		for (C nextChunk : theChunks) {
+			AtomicBoolean nextClaimed = new AtomicBoolean();
+			CompletableFuture<T> nextFuture;
+			try {
+				nextFuture = CompletableFuture.supplyAsync(
+						() -> nextClaimed.compareAndSet(false, true) ? theWorkerFunction.apply(nextChunk) : null,
+						executor);
+			} catch (RejectedExecutionException e) {
+				// The chunk will be processed on the calling thread
+				nextFuture = null;
+			}
+			claimed.add(nextClaimed);
+			futures.add(nextFuture);
+		}
+
+		List<T> retVal = new ArrayList<>(theChunks.size());
+		try {
+			for (int i = 0; i < theChunks.size(); i++) {
+				if (claimed.get(i).compareAndSet(false, true)) {
+					retVal.add(theCallerFunction.apply(theChunks.get(i)));
+				} else {
+					retVal.add(futures.get(i).get(MAXIMUM_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2806) + "Interrupted while loading search results", e);
+		} catch (TimeoutException e) {
+			throw new InternalErrorException(
+					Msg.code(2807) + "Timed out after " + MAXIMUM_WAIT_MILLIS + "ms loading search results", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2808) + "Failed to load search results: " + e.getCause(), e);
+		} finally {
+			// If we failed, stop any chunks which no worker has started yet
+			claimed.forEach(t -> t.set(true));
+		}
+		return retVal;
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (myExecutor != null) {
+			myExecutor.shutdown();
+			myExecutor = null;
+		}
+	}
+}
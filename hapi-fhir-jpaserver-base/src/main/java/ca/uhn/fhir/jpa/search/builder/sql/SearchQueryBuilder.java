@@ -522,27 +522,40 @@ public class SearchQueryBuilder {
 	 * Generate and return the SQL generated by this builder
 	 */
 	public GeneratedSql generate(@Nullable Integer theOffset, @Nullable Integer theMaxResultsToFetch) {
-		getOrCreateFirstPredicateBuilder();
-
-		mySelect.validate();
-		String sql = mySelect.toString();
+		return generate(theOffset, theMaxResultsToFetch, null, null);
+	}
 
-		List<Object> bindVariables = new ArrayList<>();
-		while (true) {
+	/**
+	 * Generate and return the SQL generated by this builder, reusing the SQL rendered for a
+	 * previous search with the same shape if it is available in the given cache
+	 *
+	 * @param theQueryPlanCache The cache, or <code>null</code> if caching should not be used
+	 * @param theShapeKey       The {@link SearchQueryShapeKey shape} of the search, or <code>null</code>
+	 *                          if the search can not be cached
+	 */
+	public GeneratedSql generate(
+			@Nullable Integer theOffset,
+			@Nullable Integer theMaxResultsToFetch,
+			@Nullable SearchQueryPlanCache theQueryPlanCache,
+			@Nullable String theShapeKey) {
+		getOrCreateFirstPredicateBuilder();
 
-			int idx = sql.indexOf(myBindVariableSubstitutionBase);
-			if (idx == -1) {
-				break;
+		boolean useCache = theQueryPlanCache != null && theShapeKey != null;
+		SearchQueryPlanCache.SearchQueryPlan plan = null;
+		if (useCache) {
+			plan = theQueryPlanCache.get(theShapeKey, myBindVariableValues.size());
+		}
+		if (plan == null) {
+			long start = System.nanoTime();
+			plan = render();
+			if (useCache) {
+				theQueryPlanCache.put(theShapeKey, plan, System.nanoTime() - start);
 			}
-
-			int endIdx = sql.indexOf("'", idx + myBindVariableSubstitutionBase.length());
-			String substitutionIndexString = sql.substring(idx + myBindVariableSubstitutionBase.length(), endIdx);
-			int substitutionIndex = Integer.parseInt(substitutionIndexString);
-			bindVariables.add(myBindVariableValues.get(substitutionIndex));
-
-			sql = sql.substring(0, idx - 1) + "?" + sql.substring(endIdx + 1);
 		}
 
+		String sql = plan.getSql();
+		List<Object> bindVariables = plan.toBindVariables(myBindVariableValues);
+
 		Integer maxResultsToFetch = theMaxResultsToFetch;
 		Integer offset = theOffset;
 		if (offset != null && offset == 0) {
@@ -559,6 +572,37 @@ public class SearchQueryBuilder {
 		return new GeneratedSql(myMatchNothing, sql, bindVariables);
 	}
 
+	/**
+	 * Renders the SQL, replacing each bind variable placeholder (see {@link #generatePlaceholder(Object)})
+	 * with a <code>?</code> bind marker in a single pass
+	 */
+	private SearchQueryPlanCache.SearchQueryPlan render() {
+		mySelect.validate();
+		String rendered = mySelect.toString();
+
+		StringBuilder sql = new StringBuilder(rendered.length());
+		List<Integer> bindVariableIndexes = new ArrayList<>();
+		int substitutionBaseLength = myBindVariableSubstitutionBase.length();
+		int copyFrom = 0;
+		while (true) {
+			int idx = rendered.indexOf(myBindVariableSubstitutionBase, copyFrom);
+			if (idx == -1) {
+				break;
+			}
+
+			// Placeholders are rendered as quoted string literals
+			int endIdx = rendered.indexOf('\'', idx + substitutionBaseLength);
+			bindVariableIndexes.add(Integer.parseInt(rendered, idx + substitutionBaseLength, endIdx, 10));
+
+			sql.append(rendered, copyFrom, idx - 1).append('?');
+			copyFrom = endIdx + 1;
+		}
+		sql.append(rendered, copyFrom, rendered.length());
+
+		int[] indexes = bindVariableIndexes.stream().mapToInt(Integer::intValue).toArray();
+		return new SearchQueryPlanCache.SearchQueryPlan(sql.toString(), indexes, myBindVariableValues.size());
+	}
+
 	/**
 	 * This method applies the theDialect limiter (select first NNN offset MMM etc etc..) to
 	 * a SQL string. It enhances the built-in Hibernate dialect version with some additional
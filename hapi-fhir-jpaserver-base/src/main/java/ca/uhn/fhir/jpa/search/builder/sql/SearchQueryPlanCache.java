@@ -0,0 +1,193 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.sql;
+
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of rendered search SQL, keyed by the shape of the search (see {@link SearchQueryShapeKey}).
+ * The {@link SearchQueryBuilder} object graph still needs to be built for every search, since that
+ * is where the bind variable values are produced, but when the shape has been seen before the
+ * SQL text is not rendered again. Instead, the cached SQL is reused along with the order in which
+ * the bind variables appear in it.
+ * <p>
+ * As a safety check, a cached plan is only used if the search produced the same number of bind
+ * variables as the search which created it. Otherwise the SQL is rendered and the cached plan
+ * is replaced.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchQueryPlanCacheEnabled(boolean)
+ * @since 8.4.0
+ */
+public class SearchQueryPlanCache {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+	private final Cache<String, SearchQueryPlan> myCache;
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+	private final AtomicLong myRenderCount = new AtomicLong();
+	private final AtomicLong myRenderNanos = new AtomicLong();
+
+	/**
+	 * Constructor using the {@link #DEFAULT_MAXIMUM_SIZE default maximum size}
+	 */
+	public SearchQueryPlanCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumSize The maximum number of plans to keep
+	 */
+	public SearchQueryPlanCache(int theMaximumSize) {
+		Validate.isTrue(theMaximumSize > 0, "theMaximumSize must be positive");
+		myCache = CacheFactory.buildEternal(Math.min(theMaximumSize, 100), theMaximumSize);
+	}
+
+	/**
+	 * Returns the cached plan for the given shape, or <code>null</code> if there is none or
+	 * if it was built with a different number of bind variables
+	 */
+	@Nullable
+	public SearchQueryPlan get(@Nonnull String theShapeKey, int theBindVariableCount) {
+		SearchQueryPlan retVal = myCache.getIfPresent(theShapeKey);
+		if (retVal != null && retVal.getBindVariableCount() == theBindVariableCount) {
+			myHitCount.incrementAndGet();
+			return retVal;
+		}
+		myMissCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores a plan which was just rendered
+	 *
+	 * @param theRenderNanos The time taken to render the SQL, used to estimate the time saved by cache hits
+	 */
+	public void put(@Nonnull String theShapeKey, @Nonnull SearchQueryPlan thePlan, long theRenderNanos) {
+		myRenderCount.incrementAndGet();
+		myRenderNanos.addAndGet(theRenderNanos);
+		myCache.put(theShapeKey, thePlan);
+	}
+
+	/**
+	 * Removes all plans from the cache. This should be called if any setting which affects
+	 * the structure of the generated SQL is changed while the server is running.
+	 */
+	public void invalidateAll() {
+		myCache.invalidateAll();
+	}
+
+	/**
+	 * Returns the approximate number of plans currently in the cache
+	 */
+	public long getSize() {
+		return myCache.estimatedSize();
+	}
+
+	/**
+	 * Returns the number of searches which reused a cached plan
+	 */
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	/**
+	 * Returns the number of searches which had to render their SQL
+	 */
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	/**
+	 * Returns the ratio of hits to total requests, or 0 if there have been no requests
+	 */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Returns the average time taken to render the SQL for a search, which is the
+	 * time saved by each cache hit
+	 */
+	public long getAverageTimeSavedPerSearchNanos() {
+		long renders = myRenderCount.get();
+		return renders == 0 ? 0 : myRenderNanos.get() / renders;
+	}
+
+	/**
+	 * Returns the estimated total time saved by cache hits
+	 */
+	public long getEstimatedTimeSavedNanos() {
+		return getHitCount() * getAverageTimeSavedPerSearchNanos();
+	}
+
+	/**
+	 * Rendered SQL (with <code>?</code> bind markers) for one search shape, along with the
+	 * index (in the order the values were generated by the {@link SearchQueryBuilder}) of the
+	 * bind variable that belongs to each bind marker
+	 */
+	public static class SearchQueryPlan {
+
+		private final String mySql;
+		private final int[] myBindVariableIndexes;
+		private final int myBindVariableCount;
+
+		public SearchQueryPlan(String theSql, int[] theBindVariableIndexes, int theBindVariableCount) {
+			mySql = theSql;
+			myBindVariableIndexes = theBindVariableIndexes;
+			myBindVariableCount = theBindVariableCount;
+		}
+
+		public String getSql() {
+			return mySql;
+		}
+
+		public int getBindVariableCount() {
+			return myBindVariableCount;
+		}
+
+		/**
+		 * Returns the given bind variable values in the order that they appear in the SQL
+		 */
+		public List<Object> toBindVariables(List<Object> theBindVariableValues) {
+			List<Object> retVal = new ArrayList<>(myBindVariableIndexes.length);
+			for (int next : myBindVariableIndexes) {
+				retVal.add(theBindVariableValues.get(next));
+			}
+			return retVal;
+		}
+	}
+}
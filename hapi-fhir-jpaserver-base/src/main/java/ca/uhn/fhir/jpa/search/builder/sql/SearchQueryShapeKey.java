@@ -0,0 +1,233 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.sql;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.search.builder.models.SearchQueryProperties;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.util.SourceParam;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.param.QuantityParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.UriParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.contains;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Creates the key used by the {@link SearchQueryPlanCache}. The key describes everything about a
+ * search which affects the structure of the generated SQL (parameter names, types, modifiers,
+ * prefixes, the number of OR and AND values, sort, partition, etc.) but not the parameter values
+ * themselves, which are always passed to the database as bind variables.
+ * <p>
+ * Searches using features where the structure of the SQL depends on the values (e.g. chained
+ * references, <code>_has</code> and <code>_filter</code>) are never cached.
+ * </p>
+ */
+public class SearchQueryShapeKey {
+
+	private static final Set<String> UNCACHEABLE_PARAMS = Set.of(
+			Constants.PARAM_FILTER,
+			Constants.PARAM_HAS,
+			Constants.PARAM_TEXT,
+			Constants.PARAM_CONTENT,
+			Constants.PARAM_LIST);
+
+	/**
+	 * Non instantiable
+	 */
+	private SearchQueryShapeKey() {}
+
+	/**
+	 * Returns the shape key for a (non-<code>$everything</code>) search, or <code>null</code>
+	 * if the search can not be cached
+	 *
+	 * @param thePidListSize The number of PIDs the search is restricted to (e.g. by a full text search)
+	 */
+	@Nullable
+	public static String create(
+			@Nonnull String theResourceType,
+			@Nullable RequestPartitionId theRequestPartitionId,
+			@Nonnull SearchParameterMap theParams,
+			@Nonnull ISearchParamRegistry theSearchParamRegistry,
+			@Nonnull SearchQueryProperties theSearchProperties,
+			int thePidListSize) {
+		if (theParams.getEverythingMode() != null || theParams.isLastN() || theParams.getNearDistanceParam() != null) {
+			return null;
+		}
+
+		StringBuilder b = new StringBuilder(128);
+		b.append(theResourceType);
+		b.append("|p=").append(theRequestPartitionId != null ? theRequestPartitionId.getPartitionIds() : null);
+		b.append("|c=").append(theSearchProperties.isDoCountOnlyFlag());
+		b.append("|d=").append(theSearchProperties.isDeduplicateInDatabase());
+		b.append("|m=").append(theParams.getSearchContainedMode());
+		b.append("|i=").append(thePidListSize);
+		b.append("|k=").append(theParams.isKeysetPaging()).append(':').append(theParams.getSearchAfter() != null);
+
+		for (RuntimeSearchParam next : theSearchParamRegistry.getActiveComboSearchParams(
+				theResourceType, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH)) {
+			b.append("|cb=");
+			appendSearchParamDefinition(b, next);
+			for (RuntimeSearchParam.Component nextComponent : next.getComponents()) {
+				b.append(',').append(nextComponent.getReference()).append(':').append(nextComponent.getExpression());
+			}
+		}
+
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextParam : theParams.entrySet()) {
+			String paramName = nextParam.getKey();
+			if (UNCACHEABLE_PARAMS.contains(paramName)) {
+				return null;
+			}
+			b.append('|').append(paramName);
+			appendSearchParamIdentity(b, theResourceType, paramName, theSearchParamRegistry);
+			boolean source = Constants.PARAM_SOURCE.equals(paramName);
+			for (List<IQueryParameterType> nextAnd : nextParam.getValue()) {
+				b.append('&');
+				for (IQueryParameterType nextOr : nextAnd) {
+					b.append(',');
+					if (!appendParameter(b, nextOr)) {
+						return null;
+					}
+					if (source && !appendSourceForm(b, nextOr)) {
+						return null;
+					}
+				}
+			}
+		}
+
+		DateRangeParam lastUpdated = theParams.getLastUpdated();
+		if (lastUpdated != null && !lastUpdated.isEmpty()) {
+			b.append("|lu=");
+			appendDate(b, lastUpdated.getLowerBound());
+			appendDate(b, lastUpdated.getUpperBound());
+		}
+
+		if (theSearchProperties.hasSort()) {
+			for (SortSpec next = theSearchProperties.getSortSpec(); next != null; next = next.getChain()) {
+				b.append("|s=").append(next.getParamName()).append(':').append(next.getOrder());
+				appendSearchParamIdentity(b, theResourceType, next.getParamName(), theSearchParamRegistry);
+			}
+		}
+
+		return b.toString();
+	}
+
+	/**
+	 * Includes the definition of the search parameter, so that if a parameter is changed (e.g. to
+	 * index a different path) searches using it get a new key
+	 */
+	private static void appendSearchParamIdentity(
+			StringBuilder theBuilder,
+			String theResourceType,
+			String theParamName,
+			ISearchParamRegistry theSearchParamRegistry) {
+		RuntimeSearchParam searchParam = theSearchParamRegistry.getActiveSearchParam(
+				theResourceType, theParamName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+		theBuilder.append('@');
+		if (searchParam != null) {
+			appendSearchParamDefinition(theBuilder, searchParam);
+		}
+	}
+
+	private static void appendSearchParamDefinition(StringBuilder theBuilder, RuntimeSearchParam theSearchParam) {
+		theBuilder.append(theSearchParam.getName());
+		theBuilder.append(':').append(theSearchParam.getParamType());
+		theBuilder.append(':').append(theSearchParam.getPath());
+	}
+
+	/**
+	 * A <code>_source</code> value can match on the source URI, the request ID, or both, and
+	 * each of these produces different SQL, so the form of the value is part of the key
+	 *
+	 * @return Returns <code>false</code> if the parameter type can not be cached
+	 */
+	private static boolean appendSourceForm(StringBuilder theBuilder, IQueryParameterType theParameter) {
+		if (!(theParameter instanceof UriParam)) {
+			return false;
+		}
+		SourceParam source = new SourceParam(((UriParam) theParameter).getValue());
+		theBuilder.append(':');
+		theBuilder.append(isNotBlank(source.getSourceUri()) ? 'u' : '-');
+		theBuilder.append(isNotBlank(source.getRequestId()) ? 'r' : '-');
+		return true;
+	}
+
+	/**
+	 * @return Returns <code>false</code> if the parameter type can not be cached
+	 */
+	private static boolean appendParameter(StringBuilder theBuilder, IQueryParameterType theParameter) {
+		theBuilder.append(theParameter.getClass().getSimpleName());
+		theBuilder.append(':').append(theParameter.getQueryParameterQualifier());
+		theBuilder.append(':').append(theParameter.getMissing());
+
+		if (theParameter instanceof TokenParam) {
+			TokenParam token = (TokenParam) theParameter;
+			theBuilder.append(':').append(token.getSystem() == null ? 'n' : isBlank(token.getSystem()) ? 'e' : 's');
+			theBuilder.append(isBlank(token.getValue()) ? 'e' : 'v');
+			theBuilder.append(token.isMdmExpand() ? 'm' : '-');
+		} else if (theParameter instanceof StringParam) {
+			StringParam string = (StringParam) theParameter;
+			theBuilder.append(':').append(string.isExact()).append(string.isContains());
+		} else if (theParameter instanceof DateParam) {
+			appendDate(theBuilder, (DateParam) theParameter);
+		} else if (theParameter instanceof NumberParam) {
+			theBuilder.append(':').append(((NumberParam) theParameter).getPrefix());
+		} else if (theParameter instanceof QuantityParam) {
+			// Units are included since they determine whether the normalized quantity index is searched
+			QuantityParam quantity = (QuantityParam) theParameter;
+			theBuilder.append(':').append(quantity.getPrefix());
+			theBuilder.append(':').append(quantity.getSystem()).append(':').append(quantity.getUnits());
+		} else if (theParameter instanceof ReferenceParam) {
+			ReferenceParam reference = (ReferenceParam) theParameter;
+			if (isNotBlank(reference.getChain()) || contains(reference.getValue(), "://")) {
+				return false;
+			}
+			theBuilder.append(':').append(reference.getResourceType());
+			theBuilder.append(reference.isMdmExpand() ? 'm' : '-');
+		} else if (!(theParameter instanceof UriParam)) {
+			return false;
+		}
+		return true;
+	}
+
+	private static void appendDate(StringBuilder theBuilder, @Nullable DateParam theDate) {
+		theBuilder.append(':');
+		if (theDate != null && !theDate.isEmpty()) {
+			theBuilder.append(theDate.getPrefix()).append(theDate.getPrecision());
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.google.common.util.concurrent.Striped;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A {@link ISearchResultCacheSvc} which stores the result PIDs of each search as a compact
+ * delta encoded list (see {@link SearchResultPidCodec}) in one or two {@link ISearchResultPidStore}
+ * tiers instead of writing a row per result to the <code>HFJ_SEARCH_RESULT</code> table.
+ * <p>
+ * Results are always written to the local store, and also to the remote store if one is
+ * provided. Reads are served from the local store when it holds enough results, and otherwise
+ * from the remote store, since another server sharing the remote store may have stored more
+ * results for the same search. Results read from the remote store are only copied into the
+ * local store once the search has finished loading, so that a partial copy is never kept.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public class CompactSearchResultCacheSvcImpl implements ISearchResultCacheSvc {
+	private static final Logger ourLog = LoggerFactory.getLogger(CompactSearchResultCacheSvcImpl.class);
+
+	private final ISearchResultPidStore myLocalStore;
+
+	@Nullable
+	private final ISearchResultPidStore myRemoteStore;
+
+	private final Striped<Lock> mySearchLocks = Striped.lock(64);
+
+	/**
+	 * Constructor for a service which only uses a local store
+	 */
+	public CompactSearchResultCacheSvcImpl(@Nonnull ISearchResultPidStore theLocalStore) {
+		this(theLocalStore, null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theLocalStore  The store which is checked first, typically a {@link MemorySearchResultPidStore}
+	 * @param theRemoteStore The store which is checked if the local store does not contain a search's results. May be <code>null</code>.
+	 */
+	public CompactSearchResultCacheSvcImpl(
+			@Nonnull ISearchResultPidStore theLocalStore, @Nullable ISearchResultPidStore theRemoteStore) {
+		Validate.notNull(theLocalStore, "theLocalStore must not be null");
+		myLocalStore = theLocalStore;
+		myRemoteStore = theRemoteStore;
+	}
+
+	@Override
+	public void storeResults(
+			Search theSearch,
+			List<JpaPid> thePreviouslyStoredResourcePids,
+			List<JpaPid> theNewResourcePids,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		Long searchPid = theSearch.getId();
+		Validate.notNull(searchPid, "Search has not been saved");
+
+		Lock lock = mySearchLocks.get(searchPid);
+		lock.lock();
+		try {
+			byte[] encoded = load(theSearch, thePreviouslyStoredResourcePids.size());
+			if (encoded != null && SearchResultPidCodec.size(encoded) != thePreviouslyStoredResourcePids.size()) {
+				ourLog.debug("Stored results for search {} are out of date, replacing them", theSearch.getUuid());
+				encoded = null;
+			}
+			if (encoded == null && !thePreviouslyStoredResourcePids.isEmpty()) {
+				encoded = SearchResultPidCodec.append(null, thePreviouslyStoredResourcePids);
+			}
+
+			encoded = SearchResultPidCodec.append(encoded, theNewResourcePids);
+			ourLog.debug(
+					"Storing {} results with {} previous for search, {} bytes total",
+					theNewResourcePids.size(),
+					thePreviouslyStoredResourcePids.size(),
+					encoded.length);
+
+			myLocalStore.put(searchPid, encoded);
+			if (myRemoteStore != null) {
+				myRemoteStore.put(searchPid, encoded);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Nullable
+	@Override
+	public List<JpaPid> fetchResultPids(
+			Search theSearch,
+			int theFrom,
+			int theTo,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		byte[] encoded = load(theSearch, Math.min(theTo, theSearch.getNumFound()));
+		if (encoded == null) {
+			return null;
+		}
+
+		List<JpaPid> retVal = SearchResultPidCodec.decode(encoded, theFrom, theTo);
+		ourLog.debug("fetchResultPids for range {}-{} returned {} pids", theFrom, theTo, retVal.size());
+		return retVal;
+	}
+
+	@Nullable
+	@Override
+	public List<JpaPid> fetchAllResultPids(
+			Search theSearch, RequestDetails theRequestDetails, RequestPartitionId theRequestPartitionId) {
+		byte[] encoded = load(theSearch, theSearch.getNumFound());
+		if (encoded == null) {
+			return null;
+		}
+
+		List<JpaPid> retVal = SearchResultPidCodec.decode(encoded, 0, Integer.MAX_VALUE);
+		ourLog.trace("fetchAllResultPids returned {} pids", retVal.size());
+		return retVal;
+	}
+
+	@Override
+	public boolean isStoringResultsInDatabase() {
+		return false;
+	}
+
+	@Override
+	public void deleteResults(Collection<Long> theSearchPids) {
+		myLocalStore.remove(theSearchPids);
+		if (myRemoteStore != null) {
+			myRemoteStore.remove(theSearchPids);
+		}
+	}
+
+	/**
+	 * Loads the stored results for a search
+	 *
+	 * @param theSearch       The search
+	 * @param theMinimumCount The number of results which are known to have been stored. If the local store holds
+	 *                        fewer than this, the results are read from the remote store instead.
+	 */
+	@Nullable
+	private byte[] load(Search theSearch, int theMinimumCount) {
+		Long searchPid = theSearch.getId();
+		if (searchPid == null) {
+			return null;
+		}
+
+		byte[] retVal = myLocalStore.get(searchPid);
+		if (myRemoteStore != null && (retVal == null || SearchResultPidCodec.size(retVal) < theMinimumCount)) {
+			byte[] remote = myRemoteStore.get(searchPid);
+			if (remote != null) {
+				retVal = remote;
+				if (theSearch.getStatus() == SearchStatusEnum.FINISHED) {
+					myLocalStore.put(searchPid, remote);
+				}
+			}
+		}
+		return retVal;
+	}
+}
@@ -88,6 +88,9 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 	@Autowired
 	private ISearchIncludeDao mySearchIncludeDao;
 
+	@Autowired
+	private ISearchResultCacheSvc mySearchResultCacheSvc;
+
 	@Autowired
 	private IHapiTransactionService myTransactionService;
 
@@ -273,6 +276,14 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 
 			myDeleteSearchBatch.add(theSearchPid);
 
+			if (!mySearchResultCacheSvc.isStoringResultsInDatabase()) {
+				// There are no SearchResult rows to delete
+				if (myDeleteSearchBatch.size() > ourMaximumResultsToDeleteInOneStatement) {
+					flushSearchAndIncludeDeletes();
+				}
+				return;
+			}
+
 			if (theNumberOfResults > ourMaximumResultsToDeleteInOneCommit) {
 				// don't buffer this one - do it inline
 				deleteSearchResultsByChunk(theSearchPid, theNumberOfResults);
@@ -320,8 +331,11 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 			// referential integrity requires we delete includes before the search
 			mySearchIncludeDao.deleteForSearch(myDeleteSearchBatch);
 			mySearchDao.deleteByPids(myDeleteSearchBatch);
-			myDeleteSearchBatch.clear();
 			commitOpenChanges();
+			if (!mySearchResultCacheSvc.isStoringResultsInDatabase()) {
+				mySearchResultCacheSvc.deleteResults(myDeleteSearchBatch);
+			}
+			myDeleteSearchBatch.clear();
 		}
 
 		private void flushSearchResultDeletes() {
@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+/**
+ * A {@link ISearchResultPidStore} which writes the encoded results of each search to a file in a
+ * local directory. Files are written to a temporary name and then moved into place, so a reader
+ * never sees a partially written file. Files are removed when the search they belong to is
+ * deleted by the stale search cleanup job.
+ *
+ * @since 8.4.0
+ */
+public class FileSystemSearchResultPidStore implements ISearchResultPidStore {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(FileSystemSearchResultPidStore.class);
+	private static final String FILE_SUFFIX = ".pids";
+
+	private final Path myDirectory;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theDirectory The directory to store files in. It will be created if it does not exist.
+	 */
+	public FileSystemSearchResultPidStore(Path theDirectory) {
+		Validate.notNull(theDirectory, "theDirectory must not be null");
+		myDirectory = theDirectory;
+		try {
+			Files.createDirectories(myDirectory);
+		} catch (IOException e) {
+			throw new InternalErrorException(
+					Msg.code(2795) + "Failed to create search result directory " + myDirectory + ": " + e, e);
+		}
+	}
+
+	@Override
+	public void put(long theSearchPid, byte[] theEncodedPids) {
+		Path file = getFile(theSearchPid);
+		try {
+			Path tempFile = Files.createTempFile(myDirectory, theSearchPid + "-", ".tmp");
+			Files.write(tempFile, theEncodedPids);
+			try {
+				Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new InternalErrorException(
+					Msg.code(2796) + "Failed to write search results to " + file + ": " + e, e);
+		}
+	}
+
+	@Nullable
+	@Override
+	public byte[] get(long theSearchPid) {
+		Path file = getFile(theSearchPid);
+		try {
+			return Files.readAllBytes(file);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw new InternalErrorException(
+					Msg.code(2797) + "Failed to read search results from " + file + ": " + e, e);
+		}
+	}
+
+	@Override
+	public void remove(Collection<Long> theSearchPids) {
+		for (Long next : theSearchPids) {
+			Path file = getFile(next);
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				// The search is being deleted anyhow, so there is no reason to fail
+				ourLog.warn("Failed to delete search results file {}: {}", file, e.toString());
+			}
+		}
+	}
+
+	private Path getFile(long theSearchPid) {
+		return myDirectory.resolve(theSearchPid + FILE_SUFFIX);
+	}
+}
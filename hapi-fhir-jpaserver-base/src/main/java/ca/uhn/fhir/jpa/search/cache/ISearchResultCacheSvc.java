@@ -25,6 +25,7 @@ import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import jakarta.annotation.Nullable;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ISearchResultCacheSvc {
@@ -67,4 +68,26 @@ public interface ISearchResultCacheSvc {
 	@Nullable
 	List<JpaPid> fetchAllResultPids(
 			Search theSearch, RequestDetails theRequestDetails, RequestPartitionId theRequestPartitionId);
+
+	/**
+	 * Are search results stored in the <code>HFJ_SEARCH_RESULT</code> table? If not, the stale search
+	 * cleanup job does not need to delete rows from that table when it deletes expired searches, and
+	 * calls {@link #deleteResults(Collection)} instead.
+	 *
+	 * @since 8.4.0
+	 */
+	default boolean isStoringResultsInDatabase() {
+		return true;
+	}
+
+	/**
+	 * Removes any results stored for the given searches, which are being deleted. This is not called
+	 * if {@link #isStoringResultsInDatabase()} returns <code>true</code>.
+	 *
+	 * @param theSearchPids The PIDs of the searches being deleted
+	 * @since 8.4.0
+	 */
+	default void deleteResults(Collection<Long> theSearchPids) {
+		// nothing
+	}
 }
@@ -0,0 +1,55 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import jakarta.annotation.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Storage for the encoded result PIDs of searches, used by {@link CompactSearchResultCacheSvcImpl}
+ * to keep search results out of the <code>HFJ_SEARCH_RESULT</code> table. Entries are keyed by the
+ * PID of the {@link ca.uhn.fhir.jpa.entity.Search} and the contents are opaque to the store.
+ * <p>
+ * Implementations must be thread safe. A store which is shared between servers (e.g. one backed by
+ * a distributed cache) can be used as the remote tier of a {@link CompactSearchResultCacheSvcImpl}
+ * so that any server in a cluster can return pages of a search started by another one.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public interface ISearchResultPidStore {
+
+	/**
+	 * Stores the encoded PIDs for a search, replacing any previous contents
+	 */
+	void put(long theSearchPid, byte[] theEncodedPids);
+
+	/**
+	 * Returns the encoded PIDs for a search, or <code>null</code> if none are stored
+	 */
+	@Nullable
+	byte[] get(long theSearchPid);
+
+	/**
+	 * Removes the encoded PIDs for the given searches, if any are stored
+	 */
+	void remove(Collection<Long> theSearchPids);
+}
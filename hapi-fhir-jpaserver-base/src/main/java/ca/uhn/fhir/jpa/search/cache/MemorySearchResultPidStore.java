@@ -0,0 +1,83 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Collection;
+
+/**
+ * A {@link ISearchResultPidStore} which keeps encoded search results in local memory, bounded by
+ * the total number of bytes stored. Entries which have not been read or written for longer than
+ * the expiry time, or which are evicted to stay within the maximum size, are lost, so a search
+ * whose results are only stored here will return <code>410 Gone</code> for further pages once
+ * that happens. This store is also local to the server, so it should only be used on its own
+ * when there is a single server, or when load balancing pins each client to one server.
+ *
+ * @since 8.4.0
+ */
+public class MemorySearchResultPidStore implements ISearchResultPidStore {
+
+	/**
+	 * Approximate per-entry overhead of the cache and the array header
+	 */
+	private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+	private final Cache<Long, byte[]> myCache;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumBytes  The maximum total size of the stored search results
+	 * @param theExpiryMillis  The time after the last access to a search's results that they will be removed
+	 */
+	public MemorySearchResultPidStore(long theMaximumBytes, long theExpiryMillis) {
+		Validate.isTrue(theMaximumBytes > 0, "theMaximumBytes must be positive");
+		Validate.isTrue(theExpiryMillis > 0, "theExpiryMillis must be positive");
+		myCache = CacheFactory.buildWeighted(theExpiryMillis, theMaximumBytes, v -> v.length + ENTRY_OVERHEAD_BYTES);
+	}
+
+	@Override
+	public void put(long theSearchPid, byte[] theEncodedPids) {
+		myCache.put(theSearchPid, theEncodedPids);
+	}
+
+	@Nullable
+	@Override
+	public byte[] get(long theSearchPid) {
+		return myCache.getIfPresent(theSearchPid);
+	}
+
+	@Override
+	public void remove(Collection<Long> theSearchPids) {
+		myCache.invalidateAll(theSearchPids);
+	}
+
+	/**
+	 * Returns the approximate number of searches with stored results
+	 */
+	public long size() {
+		myCache.cleanUp();
+		return myCache.estimatedSize();
+	}
+}
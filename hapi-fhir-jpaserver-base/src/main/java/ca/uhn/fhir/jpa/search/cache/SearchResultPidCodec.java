@@ -0,0 +1,174 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding for the ordered list of resource PIDs belonging to a search.
+ * <p>
+ * The encoded form is a sequence of chunks, one per call to
+ * {@link ISearchResultCacheSvc#storeResults(ca.uhn.fhir.jpa.entity.Search, List, List, ca.uhn.fhir.rest.api.server.RequestDetails, ca.uhn.fhir.interceptor.model.RequestPartitionId) storeResults(..)},
+ * so that new results can be appended without decoding the ones already stored. Each chunk
+ * starts with the number of PIDs and the number of bytes which follow, so that chunks before
+ * the requested range can be skipped without being decoded. Within a chunk, each PID is stored
+ * as the zig-zag varint encoded difference from the previous PID, followed by a varint holding
+ * the partition ID plus one (or zero for no partition). Search results are usually sorted or
+ * clustered by PID, so most entries take only two or three bytes.
+ * </p>
+ */
+final class SearchResultPidCodec {
+
+	/**
+	 * Non instantiable
+	 */
+	private SearchResultPidCodec() {}
+
+	/**
+	 * Appends the given PIDs as a new chunk to the end of an existing encoded list
+	 *
+	 * @param theEncoded The existing encoded PIDs, or <code>null</code> to start a new list
+	 * @param thePids    The PIDs to append
+	 */
+	static byte[] append(byte[] theEncoded, List<JpaPid> thePids) {
+		// At most 10 bytes for the ID difference and 5 for the partition
+		byte[] body = new byte[thePids.size() * 15];
+		int bodyLength = 0;
+		long previousId = 0;
+		for (JpaPid next : thePids) {
+			long id = next.getId();
+			bodyLength = writeVarLong(body, bodyLength, zigZag(id - previousId));
+			Integer partitionId = next.getPartitionId();
+			bodyLength = writeVarLong(body, bodyLength, partitionId != null ? zigZag(partitionId) + 1 : 0);
+			previousId = id;
+		}
+
+		byte[] header = new byte[20];
+		int headerLength = writeVarLong(header, 0, thePids.size());
+		headerLength = writeVarLong(header, headerLength, bodyLength);
+
+		int offset = theEncoded != null ? theEncoded.length : 0;
+		byte[] retVal = theEncoded != null
+				? Arrays.copyOf(theEncoded, offset + headerLength + bodyLength)
+				: new byte[headerLength + bodyLength];
+		System.arraycopy(header, 0, retVal, offset, headerLength);
+		System.arraycopy(body, 0, retVal, offset + headerLength, bodyLength);
+		return retVal;
+	}
+
+	/**
+	 * Returns the total number of PIDs in the encoded list
+	 */
+	static int size(byte[] theEncoded) {
+		int retVal = 0;
+		int[] position = new int[1];
+		while (position[0] < theEncoded.length) {
+			retVal += (int) readVarLong(theEncoded, position);
+			int bodyLength = (int) readVarLong(theEncoded, position);
+			position[0] += bodyLength;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Decodes a range of PIDs
+	 *
+	 * @param theFrom The index of the first PID to return (inclusive)
+	 * @param theTo   The index of the last PID to return (exclusive). This may be larger than the number of PIDs.
+	 */
+	static List<JpaPid> decode(byte[] theEncoded, int theFrom, int theTo) {
+		Validate.isTrue(theFrom >= 0 && theFrom <= theTo, "Invalid range %s-%s", theFrom, theTo);
+		List<JpaPid> retVal = new ArrayList<>(Math.min(theTo - theFrom, 1000));
+
+		int chunkStart = 0;
+		int[] position = new int[1];
+		while (position[0] < theEncoded.length && chunkStart < theTo) {
+			int chunkSize = (int) readVarLong(theEncoded, position);
+			int bodyLength = (int) readVarLong(theEncoded, position);
+			int bodyEnd = position[0] + bodyLength;
+			if (bodyEnd > theEncoded.length) {
+				throw new InternalErrorException(Msg.code(2793) + "Encoded search results are truncated");
+			}
+
+			if (chunkStart + chunkSize > theFrom) {
+				long previousId = 0;
+				for (int i = chunkStart; i < chunkStart + chunkSize && i < theTo; i++) {
+					long id = previousId + unZigZag(readVarLong(theEncoded, position));
+					long partitionValue = readVarLong(theEncoded, position);
+					previousId = id;
+					if (i >= theFrom) {
+						Integer partitionId = partitionValue == 0 ? null : (int) unZigZag(partitionValue - 1);
+						retVal.add(JpaPid.fromId(id, partitionId));
+					}
+				}
+			}
+
+			position[0] = bodyEnd;
+			chunkStart += chunkSize;
+		}
+
+		return retVal;
+	}
+
+	private static int writeVarLong(byte[] theTarget, int theOffset, long theValue) {
+		int offset = theOffset;
+		long value = theValue;
+		while ((value & ~0x7FL) != 0) {
+			theTarget[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		theTarget[offset++] = (byte) value;
+		return offset;
+	}
+
+	private static long readVarLong(byte[] theSource, int[] thePosition) {
+		long retVal = 0;
+		int shift = 0;
+		int position = thePosition[0];
+		while (true) {
+			if (position >= theSource.length || shift > 63) {
+				throw new InternalErrorException(Msg.code(2794) + "Encoded search results are corrupt");
+			}
+			byte next = theSource[position++];
+			retVal |= (long) (next & 0x7F) << shift;
+			if ((next & 0x80) == 0) {
+				break;
+			}
+			shift += 7;
+		}
+		thePosition[0] = position;
+		return retVal;
+	}
+
+	private static long zigZag(long theValue) {
+		return (theValue << 1) ^ (theValue >> 63);
+	}
+
+	private static long unZigZag(long theValue) {
+		return (theValue >>> 1) ^ -(theValue & 1);
+	}
+}
@@ -0,0 +1,270 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.reindex;
+
+import ca.uhn.fhir.batch2.api.IJobCoordinator;
+import ca.uhn.fhir.batch2.jobs.parameters.PartitionedUrl;
+import ca.uhn.fhir.batch2.jobs.reindex.ReindexJobParameters;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.batch2.model.JobInstanceStartRequest;
+import ca.uhn.fhir.batch2.model.StatusEnum;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static ca.uhn.fhir.batch2.jobs.reindex.ReindexUtils.JOB_REINDEX;
+
+/**
+ * Periodically submits a batch2 reindex job for the resources in append-only partitions which have
+ * not yet been indexed. These resources are stored with a <code>null</code> index status, which acts
+ * as a durable queue: a resource stays in it until a reindex job has processed it, so resources
+ * are picked up again by a later pass if a job fails or the server is restarted. A resource which
+ * can not be reindexed is marked as {@link ca.uhn.fhir.jpa.model.entity.EntityIndexStatusEnum#INDEXING_FAILED}
+ * and so leaves the queue rather than being resubmitted by every pass.
+ * <p>
+ * The pass runs as a clustered job, so whether a previously submitted job is still running is
+ * determined from the batch2 job instances rather than from the state of any one server.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public class DeferredIndexingSvcImpl implements IDeferredIndexingSvc, IHasScheduledJobs {
+
+	public static final long JOB_INTERVAL_MILLIS = 10 * DateUtils.MILLIS_PER_SECOND;
+	static final int MAX_RESOURCES_PER_JOB = 10000;
+	static final int MAX_IDS_PER_URL = 100;
+	private static final int MAX_RUNNING_JOBS_TO_CHECK = 100;
+	private static final Logger ourLog = LoggerFactory.getLogger(DeferredIndexingSvcImpl.class);
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	@Autowired
+	private IJobCoordinator myJobCoordinator;
+
+	private final AtomicBoolean myRefreshingIndexedThrough = new AtomicBoolean(false);
+	private volatile IndexedThrough myIndexedThrough;
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		ScheduledJobDefinition jobDetail = new ScheduledJobDefinition();
+		jobDetail.setId(getClass().getName());
+		jobDetail.setJobClass(Job.class);
+		theSchedulerService.scheduleClusteredJob(JOB_INTERVAL_MILLIS, jobDetail);
+	}
+
+	@Override
+	public void runDeferredIndexingPass() {
+		if (!myStorageSettings.isSchedulingDisabled()) {
+			submitIndexingJob();
+		}
+	}
+
+	@Nullable
+	@Override
+	public synchronized String submitIndexingJob() {
+		Set<Integer> partitionIds = myStorageSettings.getAppendOnlyPartitionIds();
+		if (partitionIds.isEmpty()) {
+			return null;
+		}
+
+		if (isIndexingJobRunning(partitionIds)) {
+			ourLog.debug("A deferred indexing job is still running");
+			return null;
+		}
+
+		Date now = new Date();
+		List<Object[]> unindexed = findUnindexedResources(partitionIds, MAX_RESOURCES_PER_JOB);
+		updateIndexedThrough(unindexed, now);
+		if (unindexed.isEmpty()) {
+			return null;
+		}
+
+		ListMultimap<Pair<Integer, String>, String> partitionAndTypeToIds = ArrayListMultimap.create();
+		for (Object[] next : unindexed) {
+			String resourceType = (String) next[0];
+			String fhirId = (String) next[1];
+			Integer partitionId = (Integer) next[2];
+			partitionAndTypeToIds.put(Pair.of(partitionId, resourceType), fhirId);
+		}
+
+		ReindexJobParameters params = new ReindexJobParameters();
+		for (Map.Entry<Pair<Integer, String>, Collection<String>> next : partitionAndTypeToIds.asMap().entrySet()) {
+			RequestPartitionId requestPartitionId = RequestPartitionId.fromPartitionId(next.getKey().getLeft());
+			String resourceType = next.getKey().getRight();
+			for (List<String> ids : Lists.partition(new ArrayList<>(next.getValue()), MAX_IDS_PER_URL)) {
+				String url = resourceType + "?" + Constants.PARAM_ID + "=" + String.join(",", ids);
+				params.addPartitionedUrl(new PartitionedUrl().setUrl(url).setRequestPartitionId(requestPartitionId));
+			}
+		}
+
+		JobInstanceStartRequest request = new JobInstanceStartRequest();
+		request.setJobDefinitionId(JOB_REINDEX);
+		request.setParameters(params);
+		Batch2JobStartResponse response = myJobCoordinator.startInstance(new SystemRequestDetails(), request);
+
+		ourLog.info(
+				"Submitted reindex job {} for {} resources in append-only partitions",
+				response.getInstanceId(),
+				unindexed.size());
+		return response.getInstanceId();
+	}
+
+	@Nullable
+	@Override
+	public Date getIndexedThrough(RequestPartitionId theRequestPartitionId) {
+		Set<Integer> partitionIds = myStorageSettings.getAppendOnlyPartitionIds();
+		if (partitionIds.isEmpty()) {
+			return null;
+		}
+		if (!theRequestPartitionId.isAllPartitions()
+				&& theRequestPartitionId.getPartitionIds().stream()
+						.filter(Objects::nonNull)
+						.noneMatch(partitionIds::contains)) {
+			return null;
+		}
+
+		/*
+		 * This is called for every search against an append-only partition, so callers never wait on
+		 * each other: once a value has been cached, a single caller refreshes it when it expires and
+		 * any other callers keep using the previous value in the meantime.
+		 */
+		IndexedThrough indexedThrough = myIndexedThrough;
+		if (indexedThrough == null) {
+			indexedThrough = refreshIndexedThrough(partitionIds);
+		} else if (System.currentTimeMillis() >= indexedThrough.myExpiry
+				&& myRefreshingIndexedThrough.compareAndSet(false, true)) {
+			try {
+				indexedThrough = refreshIndexedThrough(partitionIds);
+			} finally {
+				myRefreshingIndexedThrough.set(false);
+			}
+		}
+		return indexedThrough.myDate;
+	}
+
+	private IndexedThrough refreshIndexedThrough(Set<Integer> thePartitionIds) {
+		Date now = new Date();
+		return updateIndexedThrough(findUnindexedResources(thePartitionIds, 1), now);
+	}
+
+	/**
+	 * Records the last updated time of the oldest resource which is still waiting to be indexed.
+	 */
+	private IndexedThrough updateIndexedThrough(List<Object[]> theUnindexedResources, Date theNow) {
+		Date date = theNow;
+		if (!theUnindexedResources.isEmpty()) {
+			date = (Date) theUnindexedResources.get(0)[3];
+		}
+		IndexedThrough retVal = new IndexedThrough(date, theNow.getTime() + JOB_INTERVAL_MILLIS);
+		myIndexedThrough = retVal;
+		return retVal;
+	}
+
+	private List<Object[]> findUnindexedResources(Set<Integer> thePartitionIds, int theMaxCount) {
+		return myTransactionService
+				.withSystemRequestOnPartition(RequestPartitionId.fromPartitionIds(thePartitionIds))
+				.execute(() -> myResourceTableDao
+						.findTypesIdsAndUpdateTimesOfUnindexedResourcesForPartitionIds(
+								PageRequest.of(0, theMaxCount), thePartitionIds)
+						.getContent());
+	}
+
+	/**
+	 * Returns <code>true</code> if any reindex job which has not yet ended could be indexing resources in the
+	 * given partitions. This includes jobs submitted by this service on any server in the cluster, as well as
+	 * any other reindex job which covers these partitions.
+	 */
+	private boolean isIndexingJobRunning(Set<Integer> thePartitionIds) {
+		List<JobInstance> instances = myJobCoordinator.getJobInstancesByJobDefinitionIdAndStatuses(
+				JOB_REINDEX, StatusEnum.getNotEndedStatuses(), MAX_RUNNING_JOBS_TO_CHECK, 0);
+		for (JobInstance next : instances) {
+			List<PartitionedUrl> urls = next.getParameters(ReindexJobParameters.class).getPartitionedUrls();
+			if (urls.isEmpty()) {
+				return true;
+			}
+			for (PartitionedUrl url : urls) {
+				RequestPartitionId requestPartitionId = url.getRequestPartitionId();
+				if (requestPartitionId == null
+						|| requestPartitionId.isAllPartitions()
+						|| requestPartitionId.getPartitionIds().stream()
+								.filter(Objects::nonNull)
+								.anyMatch(thePartitionIds::contains)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static class IndexedThrough {
+		private final Date myDate;
+		private final long myExpiry;
+
+		private IndexedThrough(Date theDate, long theExpiry) {
+			myDate = theDate;
+			myExpiry = theExpiry;
+		}
+	}
+
+	public static class Job implements HapiJob {
+		@Autowired
+		private IDeferredIndexingSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			myTarget.runDeferredIndexingPass();
+		}
+	}
+}
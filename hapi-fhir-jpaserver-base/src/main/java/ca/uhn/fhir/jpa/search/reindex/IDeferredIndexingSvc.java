@@ -0,0 +1,59 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.reindex;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import jakarta.annotation.Nullable;
+
+import java.util.Date;
+
+/**
+ * Writes the search parameter indexes for resources created in append-only partitions, which are
+ * not indexed by the request that creates them.
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setAppendOnlyPartitionIds(java.util.Set)
+ * @since 8.4.0
+ */
+public interface IDeferredIndexingSvc {
+
+	/**
+	 * Submits a reindex job for resources in append-only partitions which have not yet been indexed,
+	 * unless scheduling is disabled. This is called periodically by the scheduler.
+	 */
+	void runDeferredIndexingPass();
+
+	/**
+	 * Submits a reindex job for resources in append-only partitions which have not yet been indexed.
+	 *
+	 * @return Returns the job instance ID, or <code>null</code> if there was nothing to index or if
+	 * 	a reindex job covering the append-only partitions, submitted by any server, is still running
+	 */
+	@Nullable
+	String submitIndexingJob();
+
+	/**
+	 * Returns the time up to which resources in the append-only partitions have been indexed, meaning
+	 * that any resource last updated before this time can be found by searches.
+	 *
+	 * @return Returns <code>null</code> if the given partition does not include any append-only partitions
+	 */
+	@Nullable
+	Date getIndexedThrough(RequestPartitionId theRequestPartitionId);
+}
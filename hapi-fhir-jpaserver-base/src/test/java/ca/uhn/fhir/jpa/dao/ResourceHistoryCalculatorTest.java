@@ -4,16 +4,21 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.parser.IJsonLikeParser;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import org.hl7.fhir.dstu3.hapi.ctx.FhirDstu3;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.hapi.ctx.FhirR4;
+import org.hl7.fhir.r4.model.DecimalType;
 import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
@@ -64,7 +69,9 @@ class ResourceHistoryCalculatorTest {
 			Arguments.of(FhirContext.forR4Cached(), true, ResourceEncodingEnum.ESR, EXCLUDED_ELEMENTS_1),
 			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.ESR, EXCLUDED_ELEMENTS_2),
 			Arguments.of(FhirContext.forR4Cached(), true, ResourceEncodingEnum.JSON, EXCLUDED_ELEMENTS_2),
-			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.JSON, EXCLUDED_ELEMENTS_1)
+			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.JSON, EXCLUDED_ELEMENTS_1),
+			Arguments.of(FhirContext.forR4Cached(), true, ResourceEncodingEnum.JSOND, EXCLUDED_ELEMENTS_1),
+			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.JSOND, EXCLUDED_ELEMENTS_2)
 		);
 	}
 
@@ -74,7 +81,7 @@ class ResourceHistoryCalculatorTest {
 	 * If this is for Oracle, the resource text will be driven off a binary with a given encoding with the
 	 * resource text effectively ignored.
 	 * If this is not Oracle, it will be driven off a JSON encoded text field with
-	 * the binary effectively ignored.
+	 * the binary effectively ignored, unless the encoding is always stored as a binary.
 	 */
 	@ParameterizedTest
 	@MethodSource("calculateResourceHistoryStateArguments")
@@ -84,7 +91,7 @@ class ResourceHistoryCalculatorTest {
 		final ResourceHistoryCalculator calculator = getCalculator(theFhirContext, theIsOracle);
 		final ResourceHistoryState result = calculator.calculateResourceHistoryState(patient, theResourceEncoding, theExcludedElements);
 
-		if (theIsOracle) {
+		if (theIsOracle || theResourceEncoding.isAlwaysStoredAsBinary()) {
 			assertNotNull(result.getResourceBinary()); // On Oracle: We use the resource binary to serve up the resource content
 			assertNull(result.getResourceText()); // On Oracle: We do NOT use the resource text to serve up the resource content
 			assertEquals(theResourceEncoding, result.getEncoding()); // On Oracle, the resource encoding is what we used to encode the binary
@@ -99,6 +106,77 @@ class ResourceHistoryCalculatorTest {
 	}
 
 
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	void calculateResourceHistoryState_Smile(boolean theIsOracle) {
+		final Patient patient = getPatientR4();
+		patient.addName().setFamily("Smith").addGiven("Ann");
+		patient.addExtension("http://example.com/weight", new DecimalType("70.50"));
+
+		final ResourceHistoryState result = getCalculator(theIsOracle).calculateResourceHistoryState(patient, ResourceEncodingEnum.SMILE, EXCLUDED_ELEMENTS_2);
+
+		// Smile is always stored as a binary, regardless of the dialect
+		assertNotNull(result.getResourceBinary());
+		assertNull(result.getResourceText());
+		assertEquals(ResourceEncodingEnum.SMILE, result.getEncoding());
+		assertEquals(SHA_256.hashBytes(result.getResourceBinary()), result.getHashCode());
+
+		final String expectedEncoding = CONTEXT.newJsonParser().setDontEncodeElements(EXCLUDED_ELEMENTS_2).encodeResourceToString(patient);
+		assertEquals(expectedEncoding, SmileUtil.toJson(result.getResourceBinary()));
+		final Patient parsed = SmileUtil.parseResource((IJsonLikeParser) CONTEXT.newJsonParser(), Patient.class, result.getResourceBinary());
+		assertEquals(expectedEncoding, CONTEXT.newJsonParser().encodeResourceToString(parsed));
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+		"true,  SMILE",
+		"false, SMILE",
+		"true,  JSOND",
+		"false, JSOND"
+	})
+	void conditionallyAlterHistoryEntity_ToBinaryOnlyEncoding(boolean theIsOracle, ResourceEncodingEnum theEncoding) {
+		final ResourceTable resourceTable = new ResourceTable();
+		resourceTable.setIdForUnitTest(123L);
+		final String resourceText = CONTEXT.newJsonParser().encodeResourceToString(getPatientR4());
+
+		final ResourceHistoryTable resourceHistoryTable = new ResourceHistoryTable();
+		resourceHistoryTable.setVersion(1);
+		resourceHistoryTable.setEncoding(ResourceEncodingEnum.JSON);
+		resourceHistoryTable.setResourceTextVc(resourceText);
+
+		assertTrue(getCalculator(theIsOracle).conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, resourceText, theEncoding));
+		assertNull(resourceHistoryTable.getResourceTextVc());
+		assertEquals(theEncoding, resourceHistoryTable.getEncoding());
+		assertEquals(resourceText, BaseHapiFhirDao.decodeResource(resourceHistoryTable.getResource(), theEncoding));
+
+		// Already converted
+		assertFalse(getCalculator(theIsOracle).conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, resourceText, theEncoding));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	void conditionallyAlterHistoryEntity_FromSmile(boolean theIsOracle) {
+		final ResourceTable resourceTable = new ResourceTable();
+		resourceTable.setIdForUnitTest(123L);
+		final String resourceText = CONTEXT.newJsonParser().encodeResourceToString(getPatientR4());
+
+		final ResourceHistoryTable resourceHistoryTable = new ResourceHistoryTable();
+		resourceHistoryTable.setVersion(1);
+		resourceHistoryTable.setEncoding(ResourceEncodingEnum.SMILE);
+		resourceHistoryTable.setResource(SmileUtil.fromJson(resourceText));
+
+		assertTrue(getCalculator(theIsOracle).conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, resourceText, ResourceEncodingEnum.JSONC));
+		if (theIsOracle) {
+			assertNull(resourceHistoryTable.getResourceTextVc());
+			assertEquals(ResourceEncodingEnum.JSONC, resourceHistoryTable.getEncoding());
+			assertEquals(resourceText, GZipUtil.decompress(resourceHistoryTable.getResource()));
+		} else {
+			assertNull(resourceHistoryTable.getResource());
+			assertEquals(ResourceEncodingEnum.JSON, resourceHistoryTable.getEncoding());
+			assertEquals(resourceText, resourceHistoryTable.getResourceTextVc());
+		}
+	}
+
 	private static Stream<Arguments> conditionallyAlterHistoryEntityArguments() {
 		return Stream.of(
 			Arguments.of(true, ResourceEncodingEnum.JSONC, ENCODED_RESOURCE_1),
@@ -190,7 +268,9 @@ class ResourceHistoryCalculatorTest {
 			Arguments.of(ResourceEncodingEnum.ESR, ENCODED_RESOURCE_1),
 			Arguments.of(ResourceEncodingEnum.ESR, ENCODED_RESOURCE_2),
 			Arguments.of(ResourceEncodingEnum.JSON, ENCODED_RESOURCE_1),
-			Arguments.of(ResourceEncodingEnum.JSON, ENCODED_RESOURCE_2)
+			Arguments.of(ResourceEncodingEnum.JSON, ENCODED_RESOURCE_2),
+			Arguments.of(ResourceEncodingEnum.JSOND, ENCODED_RESOURCE_1),
+			Arguments.of(ResourceEncodingEnum.JSOND, ENCODED_RESOURCE_2)
 		);
 	}
 
@@ -206,6 +286,12 @@ class ResourceHistoryCalculatorTest {
 			case JSONC:
 				assertArrayEquals(GZipUtil.compress(theEncodedResource), resourceBinary);
 				break;
+			case SMILE:
+				assertArrayEquals(SmileUtil.fromJson(theEncodedResource), resourceBinary);
+				break;
+			case JSOND:
+				assertEquals(theEncodedResource, DictionaryDeflateUtil.decompress(resourceBinary));
+				break;
 			case DEL :
 			case ESR :
 			default:
@@ -245,6 +331,18 @@ class ResourceHistoryCalculatorTest {
 		}
 	}
 
+	@Test
+	void isResourceHistoryChanged_SmileComparesBinary() {
+		final byte[] existingBytes = SmileUtil.fromJson("{\"resourceType\":\"Patient\",\"active\":true}");
+
+		final ResourceHistoryTable resourceHistoryTable = new ResourceHistoryTable();
+		resourceHistoryTable.setEncoding(ResourceEncodingEnum.SMILE);
+		resourceHistoryTable.setResource(existingBytes);
+
+		assertFalse(CALCULATOR_NON_ORACLE.isResourceHistoryChanged(resourceHistoryTable, existingBytes.clone(), null));
+		assertTrue(CALCULATOR_NON_ORACLE.isResourceHistoryChanged(resourceHistoryTable, SmileUtil.fromJson("{\"resourceType\":\"Patient\",\"active\":false}"), null));
+	}
+
 	private static Stream<Arguments> populateEncodedResourceArguments() {
 		return Stream.of(
 			Arguments.of(true, ResourceEncodingEnum.JSONC, ENCODED_RESOURCE_1),
@@ -0,0 +1,84 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SearchResultLoadingExecutorTest {
+
+	private final JpaStorageSettings myStorageSettings = new JpaStorageSettings();
+	private final SearchResultLoadingExecutor mySvc = new SearchResultLoadingExecutor(myStorageSettings);
+
+	@AfterEach
+	public void after() {
+		mySvc.shutdown();
+	}
+
+	@Test
+	public void testInvokeAll_ResultsInChunkOrder() {
+		myStorageSettings.setSearchResultLoadingParallelism(3);
+		List<Integer> chunks = IntStream.range(0, 20).boxed().toList();
+
+		List<Integer> outcome = mySvc.invokeAll(chunks, t -> t * 2, t -> t * 2);
+
+		assertThat(outcome).containsExactlyElementsOf(chunks.stream().map(t -> t * 2).toList());
+	}
+
+	@Test
+	public void testInvokeAll_WorkersBusy_ChunksProcessedOnCallingThread() throws InterruptedException {
+		myStorageSettings.setSearchResultLoadingParallelism(2);
+
+		// Occupy every worker thread
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		Executor executor = mySvc.getExecutor();
+		for (int i = 0; i < 2; i++) {
+			executor.execute(() -> {
+				started.countDown();
+				awaitQuietly(release);
+			});
+		}
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		try {
+			List<String> outcome = mySvc.invokeAll(
+					List.of("A", "B", "C"), t -> "worker-" + t, t -> Thread.currentThread().getName() + "-" + t);
+
+			String caller = Thread.currentThread().getName();
+			assertThat(outcome).containsExactly(caller + "-A", caller + "-B", caller + "-C");
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testGetExecutor_ParallelismChanged_PoolIsResizedNotReplaced() {
+		myStorageSettings.setSearchResultLoadingParallelism(2);
+		Executor executor = mySvc.getExecutor();
+
+		myStorageSettings.setSearchResultLoadingParallelism(4);
+		assertSame(executor, mySvc.getExecutor());
+		myStorageSettings.setSearchResultLoadingParallelism(2);
+		assertSame(executor, mySvc.getExecutor());
+
+		List<Integer> outcome = mySvc.invokeAll(List.of(1, 2, 3), t -> t + 1, t -> t + 1);
+		assertThat(outcome).containsExactly(2, 3, 4);
+	}
+
+	private static void awaitQuietly(CountDownLatch theLatch) {
+		try {
+			theLatch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
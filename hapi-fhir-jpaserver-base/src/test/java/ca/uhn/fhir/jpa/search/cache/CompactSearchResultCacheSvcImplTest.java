@@ -0,0 +1,166 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompactSearchResultCacheSvcImplTest {
+
+	private final RequestPartitionId myPartitionId = RequestPartitionId.allPartitions();
+
+	@TempDir
+	private Path myTempDir;
+
+	@Test
+	public void testStoreAndFetch() {
+		CompactSearchResultCacheSvcImpl svc = new CompactSearchResultCacheSvcImpl(newMemoryStore());
+		Search search = newSearch(1L);
+
+		List<JpaPid> first = pids(0, 20);
+		List<JpaPid> second = pids(20, 35);
+		svc.storeResults(search, List.of(), first, null, myPartitionId);
+		svc.storeResults(search, first, second, null, myPartitionId);
+
+		assertFalse(svc.isStoringResultsInDatabase());
+		assertThat(ids(svc.fetchResultPids(search, 0, 10, null, myPartitionId))).containsExactlyElementsOf(ids(pids(0, 10)));
+		assertThat(ids(svc.fetchResultPids(search, 15, 25, null, myPartitionId))).containsExactlyElementsOf(ids(pids(15, 25)));
+		assertThat(ids(svc.fetchAllResultPids(search, null, myPartitionId))).containsExactlyElementsOf(ids(pids(0, 35)));
+	}
+
+	@Test
+	public void testFetchUnknownSearch() {
+		CompactSearchResultCacheSvcImpl svc = new CompactSearchResultCacheSvcImpl(newMemoryStore());
+
+		assertNull(svc.fetchResultPids(newSearch(1L), 0, 10, null, myPartitionId));
+		assertNull(svc.fetchAllResultPids(newSearch(1L), null, myPartitionId));
+	}
+
+	@Test
+	public void testStoreResults_PreviousResultsLost() {
+		MemorySearchResultPidStore localStore = newMemoryStore();
+		CompactSearchResultCacheSvcImpl svc = new CompactSearchResultCacheSvcImpl(localStore);
+		Search search = newSearch(1L);
+
+		List<JpaPid> first = pids(0, 20);
+		svc.storeResults(search, List.of(), first, null, myPartitionId);
+		localStore.remove(List.of(1L));
+		svc.storeResults(search, first, pids(20, 30), null, myPartitionId);
+
+		assertThat(ids(svc.fetchAllResultPids(search, null, myPartitionId))).containsExactlyElementsOf(ids(pids(0, 30)));
+	}
+
+	@Test
+	public void testRemoteStore() {
+		FileSystemSearchResultPidStore remoteStore = new FileSystemSearchResultPidStore(myTempDir);
+		CompactSearchResultCacheSvcImpl svc = new CompactSearchResultCacheSvcImpl(newMemoryStore(), remoteStore);
+		Search search = newSearch(1L);
+		svc.storeResults(search, List.of(), pids(0, 20), null, myPartitionId);
+
+		// Another server sharing the same remote store
+		CompactSearchResultCacheSvcImpl otherSvc =
+				new CompactSearchResultCacheSvcImpl(newMemoryStore(), new FileSystemSearchResultPidStore(myTempDir));
+		assertThat(ids(otherSvc.fetchResultPids(search, 5, 10, null, myPartitionId))).containsExactlyElementsOf(ids(pids(5, 10)));
+
+		svc.deleteResults(List.of(1L));
+		assertNull(remoteStore.get(1L));
+		assertNull(svc.fetchAllResultPids(search, null, myPartitionId));
+	}
+
+	@Test
+	public void testRemoteStore_SearchStillLoadingOnOtherServer() {
+		CompactSearchResultCacheSvcImpl svc = new CompactSearchResultCacheSvcImpl(
+				newMemoryStore(), new FileSystemSearchResultPidStore(myTempDir));
+		Search search = newSearch(1L);
+		when(search.getStatus()).thenReturn(SearchStatusEnum.LOADING);
+		when(search.getNumFound()).thenReturn(20);
+		svc.storeResults(search, List.of(), pids(0, 20), null, myPartitionId);
+
+		// Another server sharing the same remote store serves the first page
+		MemorySearchResultPidStore otherLocalStore = newMemoryStore();
+		CompactSearchResultCacheSvcImpl otherSvc =
+				new CompactSearchResultCacheSvcImpl(otherLocalStore, new FileSystemSearchResultPidStore(myTempDir));
+		assertThat(ids(otherSvc.fetchResultPids(search, 0, 10, null, myPartitionId))).containsExactlyElementsOf(ids(pids(0, 10)));
+		assertNull(otherLocalStore.get(1L));
+
+		// More results are appended, and the other server serves the second page
+		svc.storeResults(search, pids(0, 20), pids(20, 35), null, myPartitionId);
+		when(search.getNumFound()).thenReturn(35);
+		assertThat(ids(otherSvc.fetchResultPids(search, 20, 30, null, myPartitionId))).containsExactlyElementsOf(ids(pids(20, 30)));
+		assertNull(otherLocalStore.get(1L));
+
+		// Once the search has finished, the results are kept locally
+		when(search.getStatus()).thenReturn(SearchStatusEnum.FINISHED);
+		assertThat(ids(otherSvc.fetchAllResultPids(search, null, myPartitionId))).containsExactlyElementsOf(ids(pids(0, 35)));
+		assertNotNull(otherLocalStore.get(1L));
+	}
+
+	@Test
+	public void testRemoteStore_LocalCopyOutOfDate() {
+		FileSystemSearchResultPidStore remoteStore = new FileSystemSearchResultPidStore(myTempDir);
+		MemorySearchResultPidStore localStore = newMemoryStore();
+		CompactSearchResultCacheSvcImpl svc = new CompactSearchResultCacheSvcImpl(localStore, remoteStore);
+		Search search = newSearch(1L);
+		when(search.getStatus()).thenReturn(SearchStatusEnum.PASSCMPLET);
+		when(search.getNumFound()).thenReturn(20);
+		svc.storeResults(search, List.of(), pids(0, 20), null, myPartitionId);
+
+		// The search is continued by another server, which only updates the remote store
+		CompactSearchResultCacheSvcImpl otherSvc =
+				new CompactSearchResultCacheSvcImpl(newMemoryStore(), new FileSystemSearchResultPidStore(myTempDir));
+		otherSvc.storeResults(search, pids(0, 20), pids(20, 35), null, myPartitionId);
+		when(search.getNumFound()).thenReturn(35);
+
+		assertThat(ids(svc.fetchResultPids(search, 20, 40, null, myPartitionId))).containsExactlyElementsOf(ids(pids(20, 35)));
+	}
+
+	@Test
+	public void testMemoryStoreMaximumSize() {
+		MemorySearchResultPidStore store = new MemorySearchResultPidStore(1000, DateUtils.MILLIS_PER_HOUR);
+		for (long i = 0; i < 100; i++) {
+			store.put(i, new byte[100]);
+		}
+
+		assertThat(store.size()).isLessThan(10);
+	}
+
+	private static MemorySearchResultPidStore newMemoryStore() {
+		return new MemorySearchResultPidStore(1024 * 1024, DateUtils.MILLIS_PER_HOUR);
+	}
+
+	private static Search newSearch(Long theId) {
+		Search retVal = mock(Search.class);
+		when(retVal.getId()).thenReturn(theId);
+		return retVal;
+	}
+
+	private static List<JpaPid> pids(int theFrom, int theTo) {
+		List<JpaPid> retVal = new ArrayList<>();
+		for (int i = theFrom; i < theTo; i++) {
+			retVal.add(JpaPid.fromId(500L - (i * 7L), i % 3 == 0 ? null : i % 3));
+		}
+		return retVal;
+	}
+
+	private static List<String> ids(List<JpaPid> thePids) {
+		List<String> retVal = new ArrayList<>();
+		for (JpaPid next : thePids) {
+			retVal.add(next.getId() + "/" + next.getPartitionId());
+		}
+		return retVal;
+	}
+}
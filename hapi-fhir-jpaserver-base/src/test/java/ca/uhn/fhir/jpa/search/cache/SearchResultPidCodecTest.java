@@ -0,0 +1,83 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SearchResultPidCodecTest {
+
+	@Test
+	public void testRoundTrip() {
+		List<JpaPid> pids = List.of(
+				JpaPid.fromId(100L),
+				JpaPid.fromId(5L, 1),
+				JpaPid.fromId(Long.MAX_VALUE, -1),
+				JpaPid.fromId(-3L, 0),
+				JpaPid.fromId(101L, Integer.MAX_VALUE));
+
+		byte[] encoded = SearchResultPidCodec.append(null, pids);
+
+		assertEquals(5, SearchResultPidCodec.size(encoded));
+		assertPidsEqual(pids, SearchResultPidCodec.decode(encoded, 0, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testAppendAndDecodeRanges() {
+		List<JpaPid> all = new ArrayList<>();
+		byte[] encoded = null;
+		for (int chunk = 0; chunk < 4; chunk++) {
+			List<JpaPid> next = new ArrayList<>();
+			for (int i = 0; i < 25; i++) {
+				next.add(JpaPid.fromId(1000L + (chunk * 25L) + i, chunk % 2 == 0 ? null : chunk));
+			}
+			all.addAll(next);
+			encoded = SearchResultPidCodec.append(encoded, next);
+		}
+
+		assertEquals(100, SearchResultPidCodec.size(encoded));
+		assertPidsEqual(all.subList(0, 10), SearchResultPidCodec.decode(encoded, 0, 10));
+		assertPidsEqual(all.subList(20, 60), SearchResultPidCodec.decode(encoded, 20, 60));
+		assertPidsEqual(all.subList(90, 100), SearchResultPidCodec.decode(encoded, 90, 200));
+		assertThat(SearchResultPidCodec.decode(encoded, 100, 110)).isEmpty();
+		assertThat(SearchResultPidCodec.decode(encoded, 50, 50)).isEmpty();
+	}
+
+	@Test
+	public void testSequentialPidsAreCompact() {
+		List<JpaPid> pids = new ArrayList<>();
+		for (long i = 0; i < 1000; i++) {
+			pids.add(JpaPid.fromId(1_000_000_000L + i));
+		}
+
+		byte[] encoded = SearchResultPidCodec.append(null, pids);
+
+		// The first PID takes 5 bytes, and the rest take 1 byte each plus 1 byte for the partition
+		assertThat(encoded.length).isLessThan(2020);
+	}
+
+	@Test
+	public void testDecodeTruncated() {
+		byte[] encoded = SearchResultPidCodec.append(null, List.of(JpaPid.fromId(1L), JpaPid.fromId(2L)));
+		byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+		InternalErrorException e = assertThrows(
+				InternalErrorException.class, () -> SearchResultPidCodec.decode(truncated, 0, 10));
+		assertThat(e.getMessage()).startsWith("HAPI-2793: ");
+	}
+
+	private static void assertPidsEqual(List<JpaPid> theExpected, List<JpaPid> theActual) {
+		assertEquals(theExpected.size(), theActual.size());
+		for (int i = 0; i < theExpected.size(); i++) {
+			assertEquals(theExpected.get(i).getId(), theActual.get(i).getId());
+			assertEquals(theExpected.get(i).getPartitionId(), theActual.get(i).getPartitionId());
+		}
+	}
+}
@@ -24,6 +24,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.fhirpath.FhirPathExecutionException;
+import ca.uhn.fhir.fhirpath.FhirPathExpressionCache;
 import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
@@ -165,7 +166,8 @@ public class HfqlExecutor implements IHfqlExecutor {
 			limit = limit == null ? statement.getLimit() : Math.min(limit, statement.getLimit());
 		}
 
-		HfqlExecutionContext executionContext = new HfqlExecutionContext(myFhirContext.newFhirPath());
+		HfqlExecutionContext executionContext =
+				new HfqlExecutionContext(myFhirContext.newFhirPath(), myFhirContext.getFhirPathExpressionCache());
 		IBundleProvider outcome = dao.search(map, theRequestDetails);
 		Predicate<IBaseResource> whereClausePredicate = newWhereClausePredicate(executionContext, statement);
 
@@ -392,7 +394,8 @@ public class HfqlExecutor implements IHfqlExecutor {
 			Integer theLimit,
 			RequestDetails theRequestDetails) {
 		IBundleProvider resultList = myPagingProvider.retrieveResultList(theRequestDetails, theSearchId);
-		HfqlExecutionContext executionContext = new HfqlExecutionContext(myFhirContext.newFhirPath());
+		HfqlExecutionContext executionContext =
+				new HfqlExecutionContext(myFhirContext.newFhirPath(), myFhirContext.getFhirPathExpressionCache());
 		Predicate<IBaseResource> whereClausePredicate = newWhereClausePredicate(executionContext, theStatement);
 		return new LocalSearchHfqlExecutionResult(
 				theStatement,
@@ -1015,11 +1018,12 @@ public class HfqlExecutor implements IHfqlExecutor {
 
 	public static class HfqlExecutionContext {
 
-		private final Map<String, IFhirPath.IParsedExpression> myFhirPathExpressionMap = new HashMap<>();
 		private final IFhirPath myFhirPath;
+		private final FhirPathExpressionCache myFhirPathExpressionCache;
 
-		public HfqlExecutionContext(IFhirPath theFhirPath) {
+		public HfqlExecutionContext(IFhirPath theFhirPath, FhirPathExpressionCache theFhirPathExpressionCache) {
 			myFhirPath = theFhirPath;
+			myFhirPathExpressionCache = theFhirPathExpressionCache;
 		}
 
 		public <T extends IBase> List<T> evaluate(IBase theInput, String thePath, Class<T> theReturnType) {
@@ -1033,16 +1037,11 @@ public class HfqlExecutor implements IHfqlExecutor {
 		}
 
 		private IFhirPath.IParsedExpression getParsedExpression(String thePath) {
-			IFhirPath.IParsedExpression parsedExpression = myFhirPathExpressionMap.get(thePath);
-			if (parsedExpression == null) {
-				try {
-					parsedExpression = myFhirPath.parse(thePath);
-				} catch (Exception e) {
-					throw new InvalidRequestException(Msg.code(2404) + e.getMessage(), e);
-				}
-				myFhirPathExpressionMap.put(thePath, parsedExpression);
+			try {
+				return myFhirPathExpressionCache.getOrParse(myFhirPath, thePath);
+			} catch (Exception e) {
+				throw new InvalidRequestException(Msg.code(2404) + e.getMessage(), e);
 			}
-			return parsedExpression;
 		}
 	}
 }
@@ -0,0 +1,401 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.dao;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@link JpaPid resource PIDs} which stores the resource ID and partition ID of each
+ * member in primitive arrays (using open addressing with linear probing) instead of retaining
+ * a {@link JpaPid} object and a hash entry for each member the way that a
+ * {@link java.util.HashSet} does. Searches with large numbers of results use sets like this
+ * to de-duplicate results, so this saves a large amount of heap and garbage collection work.
+ * <p>
+ * Membership is determined by the resource ID only, consistent with {@link JpaPid#equals(Object)}.
+ * Only the resource ID and partition ID of each member are stored, so the objects returned by
+ * {@link #iterator()} are newly created and do not have a version, resource type or associated
+ * resource ID even if the objects which were added did. This class should therefore only be used
+ * where those values are not needed. The iterator does not support {@link Iterator#remove()}.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @since 8.4.0
+ */
+public class JpaPidSet extends AbstractSet<JpaPid> {
+
+	/**
+	 * Resource IDs are generated by a sequence, so they are never zero in practice. Zero is
+	 * nonetheless supported, and is tracked separately since it marks an empty slot.
+	 */
+	private static final long EMPTY = 0;
+
+	/**
+	 * Stored in place of a <code>null</code> partition ID
+	 */
+	private static final int NULL_PARTITION_ID = Integer.MIN_VALUE;
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private long[] myIds;
+
+	/**
+	 * Most servers (and most searches on partitioned servers) only ever see a single partition,
+	 * so this is only allocated once a second distinct partition ID is added. Until then every
+	 * member has {@link #myCommonPartitionId}.
+	 */
+	private int[] myPartitionIds;
+
+	private int myCommonPartitionId;
+	private boolean myHaveCommonPartitionId;
+	private int myMask;
+	private int mySize;
+	private int myResizeThreshold;
+	private boolean myContainsZero;
+	private int myZeroPartitionId;
+	private int myModCount;
+
+	/**
+	 * Constructor
+	 */
+	public JpaPidSet() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExpectedSize The number of members the set is expected to hold. The set will grow beyond this if needed.
+	 */
+	public JpaPidSet(int theExpectedSize) {
+		Validate.isTrue(theExpectedSize >= 0, "theExpectedSize must not be negative");
+		allocate(capacityFor(theExpectedSize));
+	}
+
+	/**
+	 * Constructor which copies the given PIDs
+	 */
+	public JpaPidSet(@Nonnull Collection<JpaPid> thePids) {
+		if (thePids instanceof JpaPidSet) {
+			JpaPidSet source = (JpaPidSet) thePids;
+			myIds = source.myIds.clone();
+			myPartitionIds = source.myPartitionIds != null ? source.myPartitionIds.clone() : null;
+			myCommonPartitionId = source.myCommonPartitionId;
+			myHaveCommonPartitionId = source.myHaveCommonPartitionId;
+			myMask = source.myMask;
+			myResizeThreshold = source.myResizeThreshold;
+			mySize = source.mySize;
+			myContainsZero = source.myContainsZero;
+			myZeroPartitionId = source.myZeroPartitionId;
+		} else {
+			allocate(capacityFor(thePids.size()));
+			addAll(thePids);
+		}
+	}
+
+	@Override
+	public boolean add(@Nonnull JpaPid thePid) {
+		Validate.notNull(thePid, "thePid must not be null");
+		Long id = thePid.getId();
+		Validate.notNull(id, "Can not add a PID with no ID");
+		return add(id, thePid.getPartitionId());
+	}
+
+	/**
+	 * Adds a PID to the set if a PID with the same resource ID is not already present
+	 *
+	 * @return Returns <code>true</code> if the set did not already contain the resource ID
+	 */
+	public boolean add(long theId, @Nullable Integer thePartitionId) {
+		int partitionId = thePartitionId != null ? thePartitionId : NULL_PARTITION_ID;
+		if (theId == EMPTY) {
+			if (myContainsZero) {
+				return false;
+			}
+			myContainsZero = true;
+			myZeroPartitionId = partitionId;
+			mySize++;
+			myModCount++;
+			return true;
+		}
+
+		int slot = slotFor(theId);
+		while (myIds[slot] != EMPTY) {
+			if (myIds[slot] == theId) {
+				return false;
+			}
+			slot = (slot + 1) & myMask;
+		}
+		myIds[slot] = theId;
+		setPartitionId(slot, partitionId);
+		mySize++;
+		myModCount++;
+
+		if (mySize > myResizeThreshold) {
+			rehash(myIds.length * 2);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object theObject) {
+		if (theObject instanceof JpaPid) {
+			Long id = ((JpaPid) theObject).getId();
+			return id != null && contains(id.longValue());
+		}
+		return false;
+	}
+
+	/**
+	 * Does the set contain a PID with the given resource ID
+	 */
+	public boolean contains(long theId) {
+		if (theId == EMPTY) {
+			return myContainsZero;
+		}
+		return findSlot(theId) >= 0;
+	}
+
+	@Override
+	public boolean remove(Object theObject) {
+		if (theObject instanceof JpaPid) {
+			Long id = ((JpaPid) theObject).getId();
+			return id != null && remove(id.longValue());
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the PID with the given resource ID, if present
+	 *
+	 * @return Returns <code>true</code> if the set contained the resource ID
+	 */
+	public boolean remove(long theId) {
+		if (theId == EMPTY) {
+			if (!myContainsZero) {
+				return false;
+			}
+			myContainsZero = false;
+			mySize--;
+			myModCount++;
+			return true;
+		}
+
+		int slot = findSlot(theId);
+		if (slot < 0) {
+			return false;
+		}
+
+		// Backward shift deletion: move any following members of the same probe
+		// sequence into the freed slot so that lookups never stop early
+		int free = slot;
+		int next = (free + 1) & myMask;
+		while (myIds[next] != EMPTY) {
+			int home = slotFor(myIds[next]);
+			boolean canMove = free <= next ? (home <= free || home > next) : (home <= free && home > next);
+			if (canMove) {
+				myIds[free] = myIds[next];
+				if (myPartitionIds != null) {
+					myPartitionIds[free] = myPartitionIds[next];
+				}
+				free = next;
+			}
+			next = (next + 1) & myMask;
+		}
+		myIds[free] = EMPTY;
+		mySize--;
+		myModCount++;
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> theObjects) {
+		boolean retVal = false;
+		for (Object next : theObjects) {
+			retVal |= remove(next);
+		}
+		return retVal;
+	}
+
+	@Override
+	public int size() {
+		return mySize;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(myIds, EMPTY);
+		myPartitionIds = null;
+		myHaveCommonPartitionId = false;
+		myContainsZero = false;
+		mySize = 0;
+		myModCount++;
+	}
+
+	/**
+	 * Returns the resource IDs in the set, in ascending order
+	 */
+	public long[] toSortedIdArray() {
+		long[] retVal = new long[mySize];
+		int index = 0;
+		if (myContainsZero) {
+			retVal[index++] = 0;
+		}
+		for (long next : myIds) {
+			if (next != EMPTY) {
+				retVal[index++] = next;
+			}
+		}
+		Arrays.sort(retVal);
+		return retVal;
+	}
+
+	@Nonnull
+	@Override
+	public Iterator<JpaPid> iterator() {
+		return new PidIterator();
+	}
+
+	private int findSlot(long theId) {
+		int slot = slotFor(theId);
+		long next;
+		while ((next = myIds[slot]) != EMPTY) {
+			if (next == theId) {
+				return slot;
+			}
+			slot = (slot + 1) & myMask;
+		}
+		return -1;
+	}
+
+	private int slotFor(long theId) {
+		// Resource IDs are mostly sequential, so spread the bits before masking
+		long hash = theId * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & myMask;
+	}
+
+	private void setPartitionId(int theSlot, int thePartitionId) {
+		if (myPartitionIds == null) {
+			if (!myHaveCommonPartitionId) {
+				myCommonPartitionId = thePartitionId;
+				myHaveCommonPartitionId = true;
+				return;
+			} else if (myCommonPartitionId == thePartitionId) {
+				return;
+			}
+			myPartitionIds = new int[myIds.length];
+			Arrays.fill(myPartitionIds, myCommonPartitionId);
+		}
+		myPartitionIds[theSlot] = thePartitionId;
+	}
+
+	private int getPartitionId(int theSlot) {
+		return myPartitionIds != null ? myPartitionIds[theSlot] : myCommonPartitionId;
+	}
+
+	private void allocate(int theCapacity) {
+		myIds = new long[theCapacity];
+		if (myPartitionIds != null) {
+			myPartitionIds = new int[theCapacity];
+		}
+		myMask = theCapacity - 1;
+		myResizeThreshold = theCapacity / 2;
+	}
+
+	private void rehash(int theNewCapacity) {
+		long[] oldIds = myIds;
+		int[] oldPartitionIds = myPartitionIds;
+		allocate(theNewCapacity);
+		for (int i = 0; i < oldIds.length; i++) {
+			long id = oldIds[i];
+			if (id != EMPTY) {
+				int slot = slotFor(id);
+				while (myIds[slot] != EMPTY) {
+					slot = (slot + 1) & myMask;
+				}
+				myIds[slot] = id;
+				if (oldPartitionIds != null) {
+					myPartitionIds[slot] = oldPartitionIds[i];
+				}
+			}
+		}
+	}
+
+	private static int capacityFor(int theExpectedSize) {
+		// Keep the load factor at or below 0.5
+		long capacity = Math.max(MINIMUM_CAPACITY, (long) theExpectedSize * 2);
+		Validate.isTrue(capacity <= (1 << 30), "Too many PIDs: %s", theExpectedSize);
+		return Integer.highestOneBit((int) capacity - 1) << 1;
+	}
+
+	private static JpaPid toPid(long theId, int thePartitionId) {
+		return JpaPid.fromId(theId, thePartitionId != NULL_PARTITION_ID ? thePartitionId : null);
+	}
+
+	private class PidIterator implements Iterator<JpaPid> {
+
+		private final int myExpectedModCount = myModCount;
+		private boolean myZeroPending = myContainsZero;
+		private int myNextSlot = -1;
+
+		private PidIterator() {
+			advance();
+		}
+
+		private void advance() {
+			myNextSlot++;
+			while (myNextSlot < myIds.length && myIds[myNextSlot] == EMPTY) {
+				myNextSlot++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return myZeroPending || myNextSlot < myIds.length;
+		}
+
+		@Override
+		public JpaPid next() {
+			if (myModCount != myExpectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (myZeroPending) {
+				myZeroPending = false;
+				return toPid(EMPTY, myZeroPartitionId);
+			}
+			if (myNextSlot >= myIds.length) {
+				throw new NoSuchElementException();
+			}
+			JpaPid retVal = toPid(myIds[myNextSlot], getPartitionId(myNextSlot));
+			advance();
+			return retVal;
+		}
+	}
+}
@@ -40,6 +40,18 @@ public enum ResourceEncodingEnum {
 	 */
 	JSONC,
 
+	/**
+	 * Smile (binary JSON) - Always stored in the binary resource column, regardless
+	 * of the database dialect
+	 */
+	SMILE,
+
+	/**
+	 * Json compressed using deflate with a preset dictionary of common FHIR JSON content - Always
+	 * stored in the binary resource column, regardless of the database dialect
+	 */
+	JSOND,
+
 	/**
 	 * Resource was deleted - No contents expected
 	 */
@@ -51,6 +63,15 @@ public enum ResourceEncodingEnum {
 	 */
 	ESR;
 
+	/**
+	 * Returns {@literal true} if resources using this encoding are stored in the binary
+	 * resource column on all databases. Other encodings are only stored as a binary on
+	 * databases that do not store resource text inline.
+	 */
+	public boolean isAlwaysStoredAsBinary() {
+		return this == SMILE || this == JSOND;
+	}
+
 	public IParser newParser(FhirContext theContext) {
 		return theContext.newJsonParser();
 	}
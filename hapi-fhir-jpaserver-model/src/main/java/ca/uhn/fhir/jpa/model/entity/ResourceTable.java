@@ -105,7 +105,8 @@ import static ca.uhn.fhir.jpa.model.entity.ResourceTable.IDX_RES_TYPE_FHIR_ID;
 			@Index(
 					name = "IDX_RES_TYPE_DEL_UPDATED",
 					columnList = "RES_TYPE,RES_DELETED_AT,RES_UPDATED,PARTITION_ID,RES_ID"),
-			@Index(name = "IDX_RES_RESID_UPDATED", columnList = "RES_ID, RES_UPDATED, PARTITION_ID")
+			@Index(name = "IDX_RES_RESID_UPDATED", columnList = "RES_ID, RES_UPDATED, PARTITION_ID"),
+			@Index(name = "IDX_RES_IDXSTATUS_UPDATED", columnList = "SP_INDEX_STATUS, PARTITION_ID, RES_UPDATED")
 		})
 @NamedEntityGraph(name = "Resource.noJoins")
 public class ResourceTable extends BaseHasResource<JpaPid> implements Serializable, IBasePersistedResource<JpaPid> {
@@ -367,6 +368,9 @@ public class ResourceTable extends BaseHasResource<JpaPid> implements Serializab
 	@Transient
 	private transient boolean myUnchangedInCurrentOperation;
 
+	@Transient
+	private transient boolean myIndexingDeferred;
+
 	/**
 	 * The id of the Resource.
 	 * Will contain either the client-assigned id, or the sequence value.
@@ -878,6 +882,24 @@ public class ResourceTable extends BaseHasResource<JpaPid> implements Serializab
 		myUnchangedInCurrentOperation = theUnchangedInCurrentOperation;
 	}
 
+	/**
+	 * Transient (not saved in DB) flag indicating that this resource is being created in an append-only
+	 * partition, so its search parameter indexes will be written in the background instead of by the
+	 * current operation
+	 */
+	public boolean isIndexingDeferred() {
+		return myIndexingDeferred;
+	}
+
+	/**
+	 * Transient (not saved in DB) flag indicating that this resource is being created in an append-only
+	 * partition, so its search parameter indexes will be written in the background instead of by the
+	 * current operation
+	 */
+	public void setIndexingDeferred(boolean theIndexingDeferred) {
+		myIndexingDeferred = theIndexingDeferred;
+	}
+
 	public String getContentText() {
 		return myContentText;
 	}
@@ -284,6 +284,14 @@ public class JpaConstants {
 	 */
 	public static final String HEADER_REWRITE_HISTORY = "X-Rewrite-History";
 
+	/**
+	 * Response header added to searches in append-only partitions. Resources in these partitions
+	 * which were last updated before the given time have been indexed and can be found by searches.
+	 *
+	 * @since 8.4.0
+	 */
+	public static final String HEADER_INDEXED_THROUGH = "X-Indexed-Through";
+
 	public static final String SKIP_REINDEX_ON_UPDATE = "SKIP-REINDEX-ON-UPDATE";
 	/**
 	 * IPS Generation operation name
@@ -0,0 +1,144 @@
+package ca.uhn.fhir.jpa.model.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static ca.uhn.fhir.jpa.model.dao.JpaPid.fromId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JpaPidSetTest {
+
+	@Test
+	void testAddContainsRemove() {
+		JpaPidSet set = new JpaPidSet();
+
+		assertTrue(set.add(fromId(1L)));
+		assertTrue(set.add(fromId(2L, 5)));
+		assertFalse(set.add(fromId(2L, 7)));
+		assertEquals(2, set.size());
+
+		assertTrue(set.contains(fromId(2L)));
+		assertTrue(set.contains(2L));
+		assertFalse(set.contains(fromId(3L)));
+		assertFalse(set.contains("2"));
+
+		assertTrue(set.remove(fromId(1L)));
+		assertFalse(set.remove(1L));
+		assertEquals(1, set.size());
+		assertEquals(Set.of(fromId(2L)), set);
+	}
+
+	@Test
+	void testIteratorRetainsPartitionId() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L, 3), fromId(2L), fromId(0L, 4)));
+
+		List<JpaPid> members = List.copyOf(set);
+		assertThat(members).containsExactlyInAnyOrder(fromId(0L), fromId(1L), fromId(2L));
+		for (JpaPid next : members) {
+			if (next.getId() == 0L) {
+				assertEquals(4, next.getPartitionId());
+			} else if (next.getId() == 1L) {
+				assertEquals(3, next.getPartitionId());
+			} else {
+				assertNull(next.getPartitionId());
+			}
+		}
+	}
+
+	@Test
+	void testPartitionIdsAfterGrowing() {
+		JpaPidSet set = new JpaPidSet();
+		for (long id = 1; id <= 1000; id++) {
+			set.add(id, 7);
+		}
+		for (long id = 1001; id <= 2000; id++) {
+			set.add(id, (int) (id % 3));
+		}
+		set.remove(500L);
+
+		assertEquals(1999, set.size());
+		for (JpaPid next : set) {
+			Integer expected = next.getId() <= 1000 ? 7 : (int) (next.getId() % 3);
+			assertEquals(expected, next.getPartitionId(), "ID " + next.getId());
+		}
+	}
+
+	@Test
+	void testIteratorFailsOnConcurrentModification() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L), fromId(2L)));
+		Iterator<JpaPid> iterator = set.iterator();
+		iterator.next();
+		set.add(fromId(3L));
+
+		assertThrows(ConcurrentModificationException.class, iterator::next);
+	}
+
+	@Test
+	void testRemoveAll() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L), fromId(2L), fromId(3L)));
+		Set<JpaPid> other = new HashSet<>(List.of(fromId(1L), fromId(2L), fromId(3L), fromId(4L)));
+
+		assertTrue(other.removeAll(set));
+		assertEquals(Set.of(fromId(4L)), other);
+
+		assertTrue(set.removeAll(List.of(fromId(1L), fromId(3L))));
+		assertArrayEquals(new long[] {2L}, set.toSortedIdArray());
+	}
+
+	@Test
+	void testCopy() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(0L, 1), fromId(1L, 2)));
+		JpaPidSet copy = new JpaPidSet(set);
+		copy.add(fromId(2L));
+		set.remove(0L);
+
+		assertArrayEquals(new long[] {1L}, set.toSortedIdArray());
+		assertArrayEquals(new long[] {0L, 1L, 2L}, copy.toSortedIdArray());
+		assertTrue(copy.contains(fromId(0L)));
+	}
+
+	@Test
+	void testClear() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(0L), fromId(1L)));
+		set.clear();
+
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0L));
+		assertFalse(set.contains(1L));
+	}
+
+	@Test
+	void testBehavesLikeHashSet() {
+		Random random = new Random(12345);
+		JpaPidSet set = new JpaPidSet();
+		Set<Long> expected = new HashSet<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			// A small key space with frequent removes exercises probe chains and deletion
+			long id = random.nextInt(5000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(id), set.remove(id));
+			} else {
+				assertEquals(expected.add(id), set.add(id, null));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+
+		for (long id = 0; id < 5000; id++) {
+			assertEquals(expected.contains(id), set.contains(id), "ID " + id);
+		}
+		assertArrayEquals(expected.stream().mapToLong(t -> t).sorted().toArray(), set.toSortedIdArray());
+	}
+}
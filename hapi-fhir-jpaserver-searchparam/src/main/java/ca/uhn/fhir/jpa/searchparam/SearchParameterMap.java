@@ -71,6 +71,8 @@ public class SearchParameterMap implements Serializable {
 	private final HashMap<String, List<List<IQueryParameterType>>> mySearchParameterMap = new LinkedHashMap<>();
 	private Integer myCount;
 	private Integer myOffset;
+	private boolean myKeysetPaging;
+	private String mySearchAfter;
 	private EverythingModeEnum myEverythingMode = null;
 	private Set<Include> myIncludes;
 	private DateRangeParam myLastUpdated;
@@ -122,6 +124,8 @@ public class SearchParameterMap implements Serializable {
 		map.setNearDistanceParam(getNearDistanceParam());
 		map.setLoadSynchronousUpTo(getLoadSynchronousUpTo());
 		map.setOffset(getOffset());
+		map.setKeysetPaging(isKeysetPaging());
+		map.setSearchAfter(getSearchAfter());
 		map.setSearchContainedMode(getSearchContainedMode());
 
 		for (Map.Entry<String, List<List<IQueryParameterType>>> entry : mySearchParameterMap.entrySet()) {
@@ -280,6 +284,47 @@ public class SearchParameterMap implements Serializable {
 		myOffset = theOffset;
 	}
 
+	/**
+	 * If <code>true</code>, this search is paged using a keyset (seek) query, where each page starts
+	 * after the sort key of the last result on the previous page instead of at an offset
+	 *
+	 * @since 8.4.0
+	 */
+	public boolean isKeysetPaging() {
+		return myKeysetPaging;
+	}
+
+	/**
+	 * If <code>true</code>, this search is paged using a keyset (seek) query, where each page starts
+	 * after the sort key of the last result on the previous page instead of at an offset
+	 *
+	 * @since 8.4.0
+	 */
+	public void setKeysetPaging(boolean theKeysetPaging) {
+		myKeysetPaging = theKeysetPaging;
+	}
+
+	/**
+	 * For a {@link #isKeysetPaging() keyset paged} search, returns the opaque key (passed in the
+	 * <code>_searchAfter</code> parameter) of the last result on the previous page, or <code>null</code>
+	 * if this is the first page
+	 *
+	 * @since 8.4.0
+	 */
+	public String getSearchAfter() {
+		return mySearchAfter;
+	}
+
+	/**
+	 * For a {@link #isKeysetPaging() keyset paged} search, sets the opaque key (passed in the
+	 * <code>_searchAfter</code> parameter) of the last result on the previous page
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchAfter(String theSearchAfter) {
+		mySearchAfter = theSearchAfter;
+	}
+
 	public EverythingModeEnum getEverythingMode() {
 		return myEverythingMode;
 	}
@@ -531,6 +576,13 @@ public class SearchParameterMap implements Serializable {
 			b.append(getOffset());
 		}
 
+		if (getSearchAfter() != null) {
+			addUrlParamSeparator(b);
+			b.append(Constants.PARAM_SEARCH_AFTER);
+			b.append('=');
+			b.append(UrlUtil.escapeUrlParam(getSearchAfter()));
+		}
+
 		// Summary mode (_summary)
 		if (getSummaryMode() != null) {
 			addUrlParamSeparator(b);
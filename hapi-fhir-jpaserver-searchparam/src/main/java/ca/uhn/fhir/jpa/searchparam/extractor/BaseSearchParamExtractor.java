@@ -27,6 +27,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
@@ -172,6 +173,7 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	private BaseRuntimeChildDefinition myPatientCommunicationLanguageValueChild;
 	private BaseRuntimeChildDefinition myCodeableReferenceConcept;
 	private BaseRuntimeChildDefinition myCodeableReferenceReference;
+	private volatile IFhirPath myFhirPathForParsing;
 
 	// allow extraction of Resource-level search param values
 	private boolean myExtractResourceLevelParams = false;
@@ -973,6 +975,20 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		return myContext;
 	}
 
+	/**
+	 * Returns the parsed form of a search parameter path expression from the
+	 * {@link FhirContext#getFhirPathExpressionCache() FhirContext expression cache}, so that
+	 * each path is only parsed once no matter how many resources are indexed
+	 */
+	protected IFhirPath.IParsedExpression getParsedFhirPathExpression(String theExpression) {
+		IFhirPath fhirPath = myFhirPathForParsing;
+		if (fhirPath == null) {
+			fhirPath = myContext.newFhirPath();
+			myFhirPathForParsing = fhirPath;
+		}
+		return myContext.getFhirPathExpressionCache().getOrParse(fhirPath, theExpression);
+	}
+
 	@VisibleForTesting
 	public void setContext(FhirContext theContext) {
 		myContext = theContext;
@@ -26,8 +26,10 @@ import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.PostConstruct;
 import org.hl7.fhir.dstu3.context.IWorkerContext;
+import org.hl7.fhir.dstu3.fhirpath.ExpressionNode;
 import org.hl7.fhir.dstu3.fhirpath.FHIRPathEngine;
 import org.hl7.fhir.dstu3.hapi.ctx.HapiWorkerContext;
+import org.hl7.fhir.dstu3.hapi.fluentpath.FhirPathDstu3;
 import org.hl7.fhir.dstu3.model.Base;
 import org.hl7.fhir.instance.model.api.IBase;
 
@@ -61,7 +63,8 @@ public class SearchParamExtractorDstu3 extends BaseSearchParamExtractor implemen
 	public IValueExtractor getPathValueExtractor(IBase theResource, String theSinglePath) {
 		return () -> {
 			List<IBase> values = new ArrayList<>();
-			List<Base> allValues = myFhirPathEngine.evaluate((Base) theResource, theSinglePath);
+			ExpressionNode parsed = FhirPathDstu3.getExpressionNode(getParsedFhirPathExpression(theSinglePath));
+			List<Base> allValues = myFhirPathEngine.evaluate((Base) theResource, parsed);
 			if (allValues.isEmpty() == false) {
 				values.addAll(allValues);
 			}
@@ -23,8 +23,6 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
-import ca.uhn.fhir.sl.cache.Cache;
-import ca.uhn.fhir.sl.cache.CacheFactory;
 import ca.uhn.fhir.util.BundleUtil;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.PostConstruct;
@@ -37,6 +35,7 @@ import org.hl7.fhir.r4b.fhirpath.FHIRPathEngine;
 import org.hl7.fhir.r4b.fhirpath.FHIRPathUtilityClasses.FunctionDetails;
 import org.hl7.fhir.r4b.fhirpath.TypeDetails;
 import org.hl7.fhir.r4b.hapi.ctx.HapiWorkerContext;
+import org.hl7.fhir.r4b.hapi.fhirpath.FhirPathR4B;
 import org.hl7.fhir.r4b.model.Base;
 import org.hl7.fhir.r4b.model.IdType;
 import org.hl7.fhir.r4b.model.Resource;
@@ -47,13 +46,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class SearchParamExtractorR4B extends BaseSearchParamExtractor implements ISearchParamExtractor {
 
-	private Cache<String, ExpressionNode> myParsedFhirPathCache;
 	private FHIRPathEngine myFhirPathEngine;
 
 	/**
@@ -78,7 +75,7 @@ public class SearchParamExtractorR4B extends BaseSearchParamExtractor implements
 	@Override
 	public IValueExtractor getPathValueExtractor(IBase theResource, String theSinglePath) {
 		return () -> {
-			ExpressionNode parsed = myParsedFhirPathCache.get(theSinglePath, path -> myFhirPathEngine.parse(path));
+			ExpressionNode parsed = FhirPathR4B.getExpressionNode(getParsedFhirPathExpression(theSinglePath));
 			return myFhirPathEngine.evaluate(
 					theResource, (Base) theResource, (Base) theResource, (Base) theResource, parsed);
 		};
@@ -97,8 +94,6 @@ public class SearchParamExtractorR4B extends BaseSearchParamExtractor implements
 		IWorkerContext worker = new HapiWorkerContext(getContext(), getContext().getValidationSupport());
 		myFhirPathEngine = new FHIRPathEngine(worker);
 		myFhirPathEngine.setHostServices(new SearchParamExtractorR4BHostServices());
-
-		myParsedFhirPathCache = CacheFactory.build(TimeUnit.MINUTES.toMillis(10));
 	}
 
 	private class SearchParamExtractorR4BHostServices implements FHIRPathEngine.IEvaluationContext {
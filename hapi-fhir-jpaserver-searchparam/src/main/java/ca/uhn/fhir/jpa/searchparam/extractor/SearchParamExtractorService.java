@@ -67,6 +67,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -80,6 +81,8 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class SearchParamExtractorService {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(SearchParamExtractorService.class);
+	private static final String PRE_EXTRACTED_PARAMS_KEY =
+			SearchParamExtractorService.class.getName() + "_PRE_EXTRACTED_PARAMS";
 
 	@Autowired
 	private ISearchParamExtractor mySearchParamExtractor;
@@ -138,9 +141,15 @@ public class SearchParamExtractorService {
 		myContext.newTerser().containResources(theResource, null, true);
 
 		// All search parameter types except Reference
-		ResourceIndexedSearchParams normalParams = ResourceIndexedSearchParams.withSets();
-		getExtractionUtil()
-				.extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
+		ResourceIndexedSearchParams normalParams = null;
+		if (theSearchParamFilter == ISearchParamExtractor.ALL_PARAMS) {
+			normalParams = removePreExtractedParams(theTransactionDetails, theResource);
+		}
+		if (normalParams == null) {
+			normalParams = ResourceIndexedSearchParams.withSets();
+			getExtractionUtil()
+					.extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
+		}
 		mergeParams(normalParams, theNewParams);
 
 		// Reference search parameters
@@ -225,6 +234,52 @@ public class SearchParamExtractorService {
 		theNewParams.setUpdatedTime(theTransactionDetails.getTransactionDate());
 	}
 
+	/**
+	 * Extracts all search parameter indexes except for references from the given resource. This
+	 * is the CPU-bound part of {@link #extractFromResource}, and it does not access the database,
+	 * so it may be called from any thread as long as no other thread is modifying the resource.
+	 * The result can be handed to {@link #addPreExtractedParams(TransactionDetails, IBaseResource,
+	 * ResourceIndexedSearchParams)} so that it is used when the resource is stored.
+	 *
+	 * @since 8.4.0
+	 */
+	public ResourceIndexedSearchParams preExtractFromResource(
+			RequestDetails theRequestDetails, IBaseResource theResource) {
+		myContext.newTerser().containResources(theResource, null, true);
+
+		ResourceIndexedSearchParams retVal = ResourceIndexedSearchParams.withSets();
+		getExtractionUtil()
+				.extractSearchIndexParameters(theRequestDetails, retVal, theResource, ISearchParamExtractor.ALL_PARAMS);
+		return retVal;
+	}
+
+	/**
+	 * Registers indexes produced by {@link #preExtractFromResource(RequestDetails, IBaseResource)}
+	 * for use the next time this exact resource instance is stored within the given transaction.
+	 * The resource must not be modified in between, other than by resolving references.
+	 *
+	 * @since 8.4.0
+	 */
+	public void addPreExtractedParams(
+			TransactionDetails theTransactionDetails,
+			IBaseResource theResource,
+			ResourceIndexedSearchParams theParams) {
+		IdentityHashMap<IBaseResource, ResourceIndexedSearchParams> preExtractedParams =
+				theTransactionDetails.getOrCreateUserData(PRE_EXTRACTED_PARAMS_KEY, IdentityHashMap::new);
+		preExtractedParams.put(theResource, theParams);
+	}
+
+	@Nullable
+	private static ResourceIndexedSearchParams removePreExtractedParams(
+			TransactionDetails theTransactionDetails, IBaseResource theResource) {
+		IdentityHashMap<IBaseResource, ResourceIndexedSearchParams> preExtractedParams =
+				theTransactionDetails.getUserData(PRE_EXTRACTED_PARAMS_KEY);
+		if (preExtractedParams == null) {
+			return null;
+		}
+		return preExtractedParams.remove(theResource);
+	}
+
 	private SearchParamExtractionUtil getExtractionUtil() {
 		if (mySearchParamExtractionUtil == null) {
 			mySearchParamExtractionUtil = new SearchParamExtractionUtil(
@@ -327,7 +382,10 @@ public class SearchParamExtractorService {
 						theEntity.getResourceType(),
 						searchParamName,
 						ISearchParamRegistry.SearchParamLookupContextEnum.INDEX);
-				Set<String> upliftRefchainCodes = searchParam.getUpliftRefchainCodes();
+				// Codes spanning more than one reference are handled separately
+				Set<String> upliftRefchainCodes = searchParam.getUpliftRefchainCodes().stream()
+						.filter(t -> t.indexOf('.') == -1)
+						.collect(Collectors.toSet());
 				if (upliftRefchainCodes.isEmpty()) {
 					return ISearchParamExtractor.NO_PARAMS;
 				}
@@ -338,44 +396,195 @@ public class SearchParamExtractorService {
 
 			@Override
 			public IBaseResource fetchResourceAtPath(@Nonnull PathAndRef thePathAndRef) {
-				// The PathAndRef will contain a resource if the SP path was inside a Bundle
-				// and pointed to a resource (e.g. Bundle.entry.resource) as opposed to
-				// pointing to a reference (e.g. Observation.subject)
-				if (thePathAndRef.getResource() != null) {
-					return thePathAndRef.getResource();
-				}
-
-				// Ok, it's a normal reference
-				IIdType reference = thePathAndRef.getRef().getReferenceElement();
-
-				// If we're processing a FHIR transaction, we store the resources
-				// mapped by their resolved resource IDs in theTransactionDetails
-				IBaseResource resolvedResource = theTransactionDetails.getResolvedResource(reference);
-
-				// And the usual case is that the reference points to a resource
-				// elsewhere in the repository, so we load it
-				if (resolvedResource == null
-						&& myResourceLinkResolver != null
-						&& !reference.getValue().startsWith("urn:uuid:")) {
-					RequestPartitionId targetRequestPartitionId = determineResolverPartitionId(theRequestPartitionId);
-					resolvedResource = myResourceLinkResolver.loadTargetResource(
-							targetRequestPartitionId,
-							theEntity.getResourceType(),
-							thePathAndRef,
-							theRequestDetails,
-							theTransactionDetails);
-					if (resolvedResource != null) {
-						ourLog.trace("Found target: {}", resolvedResource.getIdElement());
-						theTransactionDetails.addResolvedResource(
-								thePathAndRef.getRef().getReferenceElement(), resolvedResource);
-					}
-				}
-
-				return resolvedResource;
+				return fetchUpliftedRefchainTarget(
+						theRequestDetails,
+						theEntity.getResourceType(),
+						theRequestPartitionId,
+						theTransactionDetails,
+						thePathAndRef);
 			}
 		};
 		extractSearchIndexParametersForTargetResources(
 				theRequestDetails, theParams, theEntity, new HashSet<>(), strategy, theIndexedReferences, false, false);
+
+		extractSearchIndexParametersForMultiLevelUpliftedRefchains(
+				theRequestDetails,
+				theParams,
+				theEntity,
+				theRequestPartitionId,
+				theTransactionDetails,
+				theIndexedReferences);
+	}
+
+	/**
+	 * Extract search parameter indexes for uplifted refchains which span more than
+	 * one reference. E.g. if we are storing an Observation with a reference to a
+	 * Patient and the "Observation:subject" SearchParameter declares an uplifted
+	 * refchain with the code "organization.name", we follow Patient.managingOrganization
+	 * and might extract a String index on the Observation with
+	 * paramName="subject.organization.name" and value="Org Name"
+	 */
+	private void extractSearchIndexParametersForMultiLevelUpliftedRefchains(
+			RequestDetails theRequestDetails,
+			ResourceIndexedSearchParams theParams,
+			ResourceTable theEntity,
+			RequestPartitionId theRequestPartitionId,
+			TransactionDetails theTransactionDetails,
+			ISearchParamExtractor.SearchParamSet<PathAndRef> theIndexedReferences) {
+		for (PathAndRef nextPathAndRef : theIndexedReferences) {
+			String searchParamName = nextPathAndRef.getSearchParamName();
+			if (searchParamName == null || (nextPathAndRef.getRef() == null && nextPathAndRef.getResource() == null)) {
+				continue;
+			}
+
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+					theEntity.getResourceType(),
+					searchParamName,
+					ISearchParamRegistry.SearchParamLookupContextEnum.INDEX);
+			if (searchParam == null) {
+				continue;
+			}
+			List<String> chains = searchParam.getUpliftRefchainCodes().stream()
+					.filter(t -> t.indexOf('.') != -1)
+					.collect(Collectors.toList());
+			if (chains.isEmpty()) {
+				continue;
+			}
+
+			IBaseResource targetResource = fetchUpliftedRefchainTarget(
+					theRequestDetails,
+					theEntity.getResourceType(),
+					theRequestPartitionId,
+					theTransactionDetails,
+					nextPathAndRef);
+			if (targetResource == null) {
+				continue;
+			}
+
+			for (String nextChain : chains) {
+				Set<IBaseResource> alreadySeenResources = new HashSet<>();
+				alreadySeenResources.add(targetResource);
+				extractSearchIndexParametersForUpliftedRefchainPath(
+						theRequestDetails,
+						theParams,
+						theEntity,
+						theRequestPartitionId,
+						theTransactionDetails,
+						targetResource,
+						searchParamName,
+						nextChain,
+						alreadySeenResources);
+			}
+		}
+	}
+
+	/**
+	 * Follows one link of a multi-level uplifted refchain
+	 *
+	 * @param theResource The resource reached so far
+	 * @param theSpnamePrefix The links followed so far, e.g. "subject"
+	 * @param theChain The rest of the chain, e.g. "organization.name"
+	 */
+	private void extractSearchIndexParametersForUpliftedRefchainPath(
+			RequestDetails theRequestDetails,
+			ResourceIndexedSearchParams theParams,
+			ResourceTable theEntity,
+			RequestPartitionId theRequestPartitionId,
+			TransactionDetails theTransactionDetails,
+			IBaseResource theResource,
+			String theSpnamePrefix,
+			String theChain,
+			Set<IBaseResource> theAlreadySeenResources) {
+		int dotIdx = theChain.indexOf('.');
+		if (dotIdx == -1) {
+			ResourceIndexedSearchParams currParams = ResourceIndexedSearchParams.withSets();
+			ISearchParamExtractor.ISearchParamFilter searchParamsToIndex = sp -> sp.stream()
+					.filter(t -> t.getName().equals(theChain))
+					.collect(Collectors.toList());
+			getExtractionUtil()
+					.extractSearchIndexParameters(theRequestDetails, currParams, theResource, searchParamsToIndex);
+			currParams.updateSpnamePrefixForIndexOnUpliftedChain(theEntity.getResourceType(), theSpnamePrefix);
+			mergeParams(currParams, theParams);
+			return;
+		}
+
+		String link = theChain.substring(0, dotIdx);
+		String remainingChain = theChain.substring(dotIdx + 1);
+		String resourceType = myContext.getResourceType(theResource);
+		ISearchParamExtractor.SearchParamSet<PathAndRef> references =
+				mySearchParamExtractor.extractResourceLinks(theResource, false);
+		SearchParamExtractorService.handleWarnings(theRequestDetails, myInterceptorBroadcaster, references);
+
+		for (PathAndRef nextPathAndRef : references) {
+			if (!link.equals(nextPathAndRef.getSearchParamName())) {
+				continue;
+			}
+			IBaseResource targetResource = fetchUpliftedRefchainTarget(
+					theRequestDetails, resourceType, theRequestPartitionId, theTransactionDetails, nextPathAndRef);
+			if (targetResource == null || theAlreadySeenResources.contains(targetResource)) {
+				continue;
+			}
+
+			Set<IBaseResource> nextAlreadySeenResources = new HashSet<>(theAlreadySeenResources);
+			nextAlreadySeenResources.add(targetResource);
+			extractSearchIndexParametersForUpliftedRefchainPath(
+					theRequestDetails,
+					theParams,
+					theEntity,
+					theRequestPartitionId,
+					theTransactionDetails,
+					targetResource,
+					theSpnamePrefix + "." + link,
+					remainingChain,
+					nextAlreadySeenResources);
+		}
+	}
+
+	/**
+	 * Returns the resource a reference points to for indexing uplifted refchains, or
+	 * <code>null</code> if it can't be resolved
+	 */
+	@Nullable
+	private IBaseResource fetchUpliftedRefchainTarget(
+			RequestDetails theRequestDetails,
+			String theSourceResourceType,
+			RequestPartitionId theRequestPartitionId,
+			TransactionDetails theTransactionDetails,
+			PathAndRef thePathAndRef) {
+		// The PathAndRef will contain a resource if the SP path was inside a Bundle
+		// and pointed to a resource (e.g. Bundle.entry.resource) as opposed to
+		// pointing to a reference (e.g. Observation.subject)
+		if (thePathAndRef.getResource() != null) {
+			return thePathAndRef.getResource();
+		}
+
+		// Ok, it's a normal reference
+		IIdType reference = thePathAndRef.getRef().getReferenceElement();
+
+		// If we're processing a FHIR transaction, we store the resources
+		// mapped by their resolved resource IDs in theTransactionDetails
+		IBaseResource resolvedResource = theTransactionDetails.getResolvedResource(reference);
+
+		// And the usual case is that the reference points to a resource
+		// elsewhere in the repository, so we load it
+		if (resolvedResource == null
+				&& myResourceLinkResolver != null
+				&& !reference.getValue().startsWith("urn:uuid:")) {
+			RequestPartitionId targetRequestPartitionId = determineResolverPartitionId(theRequestPartitionId);
+			resolvedResource = myResourceLinkResolver.loadTargetResource(
+					targetRequestPartitionId,
+					theSourceResourceType,
+					thePathAndRef,
+					theRequestDetails,
+					theTransactionDetails);
+			if (resolvedResource != null) {
+				ourLog.trace("Found target: {}", resolvedResource.getIdElement());
+				theTransactionDetails.addResolvedResource(
+						thePathAndRef.getRef().getReferenceElement(), resolvedResource);
+			}
+		}
+
+		return resolvedResource;
 	}
 
 	/**
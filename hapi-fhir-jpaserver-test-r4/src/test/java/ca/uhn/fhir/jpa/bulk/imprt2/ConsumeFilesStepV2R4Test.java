@@ -191,8 +191,8 @@ public class ConsumeFilesStepV2R4Test extends BasePartitioningR4Test {
 
 		String sql = myCaptureQueriesListener.getSelectQueries().get(0).getSql(true, false);
 		assertThat(sql).satisfiesAnyOf(
-				s -> assertThat(s).contains("where (rt1_0.RES_TYPE='Patient' and rt1_0.FHIR_ID='B' or rt1_0.RES_TYPE='Patient' and rt1_0.FHIR_ID='A')"),
-				s -> assertThat(s).contains("where (rt1_0.RES_TYPE='Patient' and rt1_0.FHIR_ID='A' or rt1_0.RES_TYPE='Patient' and rt1_0.FHIR_ID='B')")
+				s -> assertThat(s).contains("where (rt1_0.RES_TYPE='Patient' and rt1_0.FHIR_ID in ('B','A'))"),
+				s -> assertThat(s).contains("where (rt1_0.RES_TYPE='Patient' and rt1_0.FHIR_ID in ('A','B'))")
 			);
 		assertEquals(50, myCaptureQueriesListener.countInsertQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countUpdateQueriesForCurrentThread());
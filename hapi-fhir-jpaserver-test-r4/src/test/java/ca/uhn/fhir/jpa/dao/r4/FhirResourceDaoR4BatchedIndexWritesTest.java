@@ -0,0 +1,127 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.BundleBuilder;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FhirResourceDaoR4BatchedIndexWritesTest extends BaseJpaR4Test {
+
+	@BeforeEach
+	public void before() {
+		myStorageSettings.setBatchedIndexWritesEnabled(true);
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setBatchedIndexWritesEnabled(new JpaStorageSettings().isBatchedIndexWritesEnabled());
+		myStorageSettings.setIndexStorageOptimized(new JpaStorageSettings().isIndexStorageOptimized());
+	}
+
+	@Test
+	public void testTransaction_IndexesWrittenAndSearchable() {
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 5; i++) {
+			Patient patient = new Patient();
+			patient.addIdentifier().setSystem("http://foo").setValue("id" + i);
+			patient.addName().setFamily("Family" + (i % 2));
+			patient.getBirthDateElement().setValueAsString("2020-01-0" + (i + 1));
+			bb.addTransactionCreateEntry(patient);
+		}
+		mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+
+		assertThat(searchPatients("identifier", new TokenParam("http://foo", "id3"))).hasSize(1);
+		assertThat(searchPatients("family", new StringParam("Family0"))).hasSize(3);
+		assertThat(searchPatients("birthdate", new DateParam("ge2020-01-04"))).hasSize(2);
+	}
+
+	@Test
+	public void testUpdate_ChangedIndexesReplaced() {
+		IIdType id = createPatient(withFamily("Simpson"), withIdentifier("http://foo", "A"));
+		int tokenRowCount = countIndexRows(myResourceIndexedSearchParamTokenDao, id);
+		int stringRowCount = countIndexRows(myResourceIndexedSearchParamStringDao, id);
+
+		Patient patient = new Patient();
+		patient.setId(id);
+		patient.addName().setFamily("Flanders");
+		patient.addIdentifier().setSystem("http://foo").setValue("B");
+		myPatientDao.update(patient, mySrd);
+
+		assertThat(searchPatients("family", new StringParam("Simpson"))).isEmpty();
+		assertThat(searchPatients("family", new StringParam("Flanders"))).containsExactly(id.getValue());
+		assertThat(searchPatients("identifier", new TokenParam("http://foo", "A"))).isEmpty();
+		assertThat(searchPatients("identifier", new TokenParam("http://foo", "B"))).containsExactly(id.getValue());
+		assertEquals(tokenRowCount, countIndexRows(myResourceIndexedSearchParamTokenDao, id));
+		assertEquals(stringRowCount, countIndexRows(myResourceIndexedSearchParamStringDao, id));
+	}
+
+	@Test
+	public void testCreateAndUpdateInSameTransaction_QueuedRowsReplaced() {
+		IIdType id = runInTransaction(() -> {
+			IIdType created = createPatient(withFamily("Simpson"));
+
+			Patient patient = new Patient();
+			patient.setId(created);
+			patient.addName().setFamily("Flanders");
+			myPatientDao.update(patient, mySrd);
+			return created;
+		});
+
+		assertThat(searchPatients("family", new StringParam("Simpson"))).isEmpty();
+		assertThat(searchPatients("family", new StringParam("Flanders"))).containsExactly(id.getValue());
+	}
+
+	@Test
+	public void testDelete_IndexesRemoved() {
+		IIdType id = createPatient(withFamily("Simpson"), withIdentifier("http://foo", "A"));
+		assertThat(countIndexRows(myResourceIndexedSearchParamTokenDao, id)).isPositive();
+
+		myPatientDao.delete(id, mySrd);
+
+		assertEquals(0, countIndexRows(myResourceIndexedSearchParamTokenDao, id));
+		assertEquals(0, countIndexRows(myResourceIndexedSearchParamStringDao, id));
+	}
+
+	@Test
+	public void testIndexStorageOptimized() {
+		myStorageSettings.setIndexStorageOptimized(true);
+
+		IIdType id = createPatient(withFamily("Simpson"));
+
+		assertThat(searchPatients("family", new StringParam("Simpson"))).containsExactly(id.getValue());
+		runInTransaction(() -> assertThat(myResourceIndexedSearchParamStringDao.findAll())
+				.filteredOn(t -> t.getResourcePid().equals(id.getIdPartAsLong()))
+				.isNotEmpty()
+				.allMatch(BaseResourceIndexedSearchParam::isIndexStorageOptimized)
+				.allMatch(t -> t.getUpdated() == null));
+	}
+
+	private List<String> searchPatients(String theParamName, IQueryParameterType theParam) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(theParamName, theParam);
+		return toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd));
+	}
+
+	private int countIndexRows(
+			JpaRepository<? extends BaseResourceIndexedSearchParam, ?> theRepository, IIdType theResourceId) {
+		return runInTransaction(() -> (int) theRepository.findAll().stream()
+				.filter(t -> t.getResourcePid().equals(theResourceId.getIdPartAsLong()))
+				.count());
+	}
+}
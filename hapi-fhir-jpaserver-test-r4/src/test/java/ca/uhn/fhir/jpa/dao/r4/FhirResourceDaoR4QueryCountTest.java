@@ -2305,7 +2305,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 	/**
 	 * See {@link ca.uhn.fhir.jpa.dao.TransactionProcessor#preFetchSearchParameterMapsToken(String, Set, TransactionDetails, RequestPartitionId, List, Set, Set)}
-	 * for an explanation of why only SINGLE_TOKEN has a small number of SELECTS.
+	 * for an explanation of why only SINGLE_TOKEN and MULTIPLE_TOKEN have a small number of SELECTS.
 	 * Others could potentially be optimized in the future so that they have a small number
 	 * of selects too, but this is tricky and may not be worth the effort.
 	 */
@@ -2313,8 +2313,8 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 	@CsvSource({
 		"SINGLE_TOKEN   , false, 1  2  1",
 		"SINGLE_TOKEN   , true,  1  0  0",
-		"MULTIPLE_TOKEN , false, 10 31 30",
-		"MULTIPLE_TOKEN , true,  10 0  0",
+		"MULTIPLE_TOKEN , false, 1  2  1",
+		"MULTIPLE_TOKEN , true,  1  0  0",
 		"STRING         , false, 10 31 30",
 		"STRING         , true,  10 0  0",
 	})
@@ -2374,7 +2374,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 	/**
 	 * See {@link ca.uhn.fhir.jpa.dao.TransactionProcessor#preFetchSearchParameterMaps(RequestDetails, TransactionDetails, RequestPartitionId, List, Set, Set)}
-	 * for an explanation of why only SINGLE_TOKEN has a small number of SELECTS.
+	 * for an explanation of why only SINGLE_TOKEN and MULTIPLE_TOKEN have a small number of SELECTS.
 	 * Others could potentially be optimized in the future so that they have a small number
 	 * of selects too, but this is tricky and may not be worth the effort.
 	 */
@@ -2382,8 +2382,8 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 	@CsvSource({
 		"SINGLE_TOKEN   , false, 1  4  4",
 		"SINGLE_TOKEN   , true,  1  3  3",
-		"MULTIPLE_TOKEN , false, 10 13 13",
-		"MULTIPLE_TOKEN , true,  10 3  3",
+		"MULTIPLE_TOKEN , false, 1  4  4",
+		"MULTIPLE_TOKEN , true,  1  3  3",
 		"STRING         , false, 10 13 13",
 		"STRING         , true,  10 3  3",
 	})
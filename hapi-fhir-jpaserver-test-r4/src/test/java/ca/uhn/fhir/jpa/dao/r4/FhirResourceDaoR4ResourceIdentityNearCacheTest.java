@@ -0,0 +1,109 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.svc.ResolveIdentityMode;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityInvalidation;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityInvalidationJsonMessage;
+import ca.uhn.fhir.jpa.dao.index.ResourceIdentityNearCache;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FhirResourceDaoR4ResourceIdentityNearCacheTest extends BaseJpaR4Test {
+
+	@Autowired
+	private ResourceIdentityNearCache myResourceIdentityNearCache;
+
+	@BeforeEach
+	public void beforeEnableNearCache() {
+		myStorageSettings.setResourceIdentityNearCacheEnabled(true);
+		myResourceIdentityNearCache.invalidateAllAfterCommit();
+	}
+
+	@AfterEach
+	public void after() {
+		myResourceIdentityNearCache.invalidateAllAfterCommit();
+		myStorageSettings.setResourceIdentityNearCacheEnabled(
+				new JpaStorageSettings().isResourceIdentityNearCacheEnabled());
+	}
+
+	@Test
+	public void testCreateReference_SecondLookupUsesNearCache() {
+		createPatient(withId("A"), withActiveTrue());
+
+		createObservationWithSubject("Patient/A");
+		assertEquals(1, myResourceIdentityNearCache.getEstimatedSize());
+
+		myCaptureQueriesListener.clear();
+		createObservationWithSubject("Patient/A");
+		myCaptureQueriesListener.logSelectQueries();
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.noneMatch(t -> t.getSql(false, false).contains("FHIR_ID"));
+	}
+
+	@Test
+	public void testDeleteEvictsNearCacheEntry() {
+		createPatient(withId("A"), withActiveTrue());
+		assertThat(resolve("Patient/A")).hasSize(1);
+		assertEquals(1, myResourceIdentityNearCache.getEstimatedSize());
+
+		myPatientDao.delete(new IdType("Patient/A"), mySrd);
+		assertEquals(0, myResourceIdentityNearCache.getEstimatedSize());
+
+		InvalidRequestException e =
+				assertThrows(InvalidRequestException.class, () -> createObservationWithSubject("Patient/A"));
+		assertThat(e.getMessage()).contains("Patient/A");
+
+		// Bringing the resource back evicts the deleted lookup too
+		createPatient(withId("A"), withActiveTrue());
+		createObservationWithSubject("Patient/A");
+	}
+
+	@Test
+	public void testInvalidationFromAnotherServer() {
+		createPatient(withId("A"), withActiveTrue());
+		createObservationWithSubject("Patient/A");
+		assertEquals(1, myResourceIdentityNearCache.getEstimatedSize());
+
+		// Invalidating a different resource leaves the entry in place
+		ResourceIdentityInvalidation invalidation =
+				new ResourceIdentityInvalidation("other-node", false, List.of("Patient/B"));
+		myResourceIdentityNearCache.handleMessage(new ResourceIdentityInvalidationJsonMessage(invalidation));
+		assertEquals(1, myResourceIdentityNearCache.getEstimatedSize());
+
+		invalidation = new ResourceIdentityInvalidation("other-node", false, List.of("Patient/A"));
+		myResourceIdentityNearCache.handleMessage(new ResourceIdentityInvalidationJsonMessage(invalidation));
+		assertEquals(0, myResourceIdentityNearCache.getEstimatedSize());
+	}
+
+	private Map<IIdType, IResourceLookup<JpaPid>> resolve(String theId) {
+		return runInTransaction(() -> myIdHelperService.resolveResourceIdentities(
+				RequestPartitionId.allPartitions(),
+				List.of(new IdType(theId)),
+				ResolveIdentityMode.excludeDeleted().noCacheUnlessDeletesDisabled()));
+	}
+
+	private void createObservationWithSubject(String theSubject) {
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		obs.getSubject().setReference(theSubject);
+		myObservationDao.create(obs, mySrd);
+	}
+}
@@ -0,0 +1,243 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ISearchCountViewDao;
+import ca.uhn.fhir.jpa.entity.SearchCountViewEntity;
+import ca.uhn.fhir.jpa.search.SearchCountViewSvc;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.SummaryEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FhirResourceDaoR4SearchCountViewTest extends BaseJpaR4Test {
+
+	@Autowired
+	private SearchCountViewSvc mySearchCountViewSvc;
+
+	@Autowired
+	private ISearchCountViewDao mySearchCountViewDao;
+
+	@BeforeEach
+	public void before() {
+		mySearchCountViewSvc.setRegistrationGraceMillisForUnitTest(0);
+	}
+
+	@AfterEach
+	public void after() {
+		mySearchCountViewSvc.unregisterAllCountViews();
+		mySearchCountViewSvc.setAfterCountQueryListenerForUnitTest(null);
+		mySearchCountViewSvc.setRegistrationGraceMillisForUnitTest(DateUtils.MILLIS_PER_MINUTE);
+		myStorageSettings.setSearchCountViewMaxStalenessMillis(
+				new JpaStorageSettings().getSearchCountViewMaxStalenessMillis());
+		myStorageSettings.setMassIngestionMode(new JpaStorageSettings().isMassIngestionMode());
+	}
+
+	@Test
+	public void testInMemoryCountView_MaintainedIncrementally() {
+		IIdType male = createPatient(Enumerations.AdministrativeGender.MALE);
+		createPatient(Enumerations.AdministrativeGender.MALE);
+		createPatient(Enumerations.AdministrativeGender.FEMALE);
+		mySearchCountViewSvc.registerCountView("Patient?gender=male");
+		mySearchCountViewSvc.recountChangedViews();
+		assertEquals(2, countMalePatients());
+
+		createPatient(Enumerations.AdministrativeGender.MALE);
+		assertEquals(3, countMalePatients());
+
+		Patient patient = myPatientDao.read(male, mySrd);
+		patient.setGender(Enumerations.AdministrativeGender.FEMALE);
+		myPatientDao.update(patient, mySrd);
+		assertEquals(2, countMalePatients());
+
+		myPatientDao.delete(createPatient(Enumerations.AdministrativeGender.MALE), mySrd);
+		assertEquals(2, countMalePatients());
+		assertFalse(mySearchCountViewSvc.isChangedForUnitTest("Patient?gender=male"));
+
+		// The count comes from the view
+		myCaptureQueriesListener.clear();
+		assertEquals(2, countMalePatients());
+		assertThat(myCaptureQueriesListener.getSelectQueriesForCurrentThread())
+				.noneMatch(t -> t.getSql(true, false).toLowerCase().contains("count("));
+	}
+
+	@Test
+	public void testCountView_NotInMemory_RecountedWhenChanged() {
+		IIdType patientId = createPatient(Enumerations.AdministrativeGender.MALE);
+		createObservation(patientId);
+		String criteria = "Observation?subject.gender=male";
+		mySearchCountViewSvc.registerCountView(criteria);
+		mySearchCountViewSvc.recountChangedViews();
+		assertEquals(1, countObservations());
+
+		// The view can't be kept up to date, so a count query is used until it has been recounted
+		createObservation(patientId);
+		assertTrue(mySearchCountViewSvc.isChangedForUnitTest(criteria));
+		assertEquals(2, countObservations());
+
+		mySearchCountViewSvc.recountChangedViews();
+		assertFalse(mySearchCountViewSvc.isChangedForUnitTest(criteria));
+		assertEquals(2, countObservations());
+	}
+
+	@Test
+	public void testCountView_Stale_UsedWithinMaxStaleness() {
+		IIdType patientId = createPatient(Enumerations.AdministrativeGender.MALE);
+		createObservation(patientId);
+		mySearchCountViewSvc.registerCountView("Observation?subject.gender=male");
+		mySearchCountViewSvc.recountChangedViews();
+		myStorageSettings.setSearchCountViewMaxStalenessMillis(60000);
+
+		createObservation(patientId);
+		assertEquals(1, countObservations());
+	}
+
+	@Test
+	public void testInMemoryCountView_UpdateWithoutPreviousContents_Recounted() {
+		IIdType male = createPatient(Enumerations.AdministrativeGender.MALE);
+		mySearchCountViewSvc.registerCountView("Patient?gender=male");
+		mySearchCountViewSvc.recountChangedViews();
+		assertEquals(1, countMalePatients());
+
+		// In mass ingestion mode the previous contents aren't available, so the update can't be counted
+		myStorageSettings.setMassIngestionMode(true);
+		Patient patient = new Patient();
+		patient.setId(male);
+		patient.setGender(Enumerations.AdministrativeGender.MALE);
+		patient.setActive(true);
+		myPatientDao.update(patient, mySrd);
+		assertTrue(mySearchCountViewSvc.isChangedForUnitTest("Patient?gender=male"));
+		assertEquals(1, countMalePatients());
+
+		mySearchCountViewSvc.recountChangedViews();
+		assertFalse(mySearchCountViewSvc.isChangedForUnitTest("Patient?gender=male"));
+		assertEquals(1, countMalePatients());
+	}
+
+	@Test
+	public void testCountView_CountReadFromDatabase() {
+		createPatient(Enumerations.AdministrativeGender.MALE);
+		mySearchCountViewSvc.registerCountView("Patient?gender=male");
+		mySearchCountViewSvc.recountChangedViews();
+		assertEquals(1, countMalePatients());
+
+		// Simulate another server committing a change to the count
+		runInTransaction(() -> mySearchCountViewDao.adjustCount(
+				mySearchCountViewDao.findAllViews().get(0).getId(), 5));
+		assertEquals(6, countMalePatients());
+	}
+
+	@Test
+	public void testCountView_NotCountedUntilEveryServerCouldHaveLoadedIt() {
+		createPatient(Enumerations.AdministrativeGender.MALE);
+		mySearchCountViewSvc.setRegistrationGraceMillisForUnitTest(DateUtils.MILLIS_PER_MINUTE);
+		mySearchCountViewSvc.registerCountView("Patient?gender=male");
+
+		mySearchCountViewSvc.recountChangedViews();
+		assertTrue(mySearchCountViewSvc.isChangedForUnitTest("Patient?gender=male"));
+		assertEquals(1, countMalePatients());
+	}
+
+	@Test
+	public void testInMemoryCountView_MatchingCreateCommittedDuringRecount() {
+		createPatient(Enumerations.AdministrativeGender.MALE);
+		mySearchCountViewSvc.registerCountView("Patient?gender=male");
+
+		// Another transaction commits a matching resource after the count query has run
+		mySearchCountViewSvc.setAfterCountQueryListenerForUnitTest(
+				() -> createPatient(Enumerations.AdministrativeGender.MALE));
+		mySearchCountViewSvc.recountChangedViews();
+		mySearchCountViewSvc.setAfterCountQueryListenerForUnitTest(null);
+
+		assertFalse(mySearchCountViewSvc.isChangedForUnitTest("Patient?gender=male"));
+		myCaptureQueriesListener.clear();
+		assertEquals(2, countMalePatients());
+		assertThat(myCaptureQueriesListener.getSelectQueriesForCurrentThread())
+				.noneMatch(t -> t.getSql(true, false).toLowerCase().contains("count("));
+	}
+
+	@Test
+	public void testCountView_NotInMemory_ChangeCommittedDuringRecount() {
+		IIdType patientId = createPatient(Enumerations.AdministrativeGender.MALE);
+		createObservation(patientId);
+		String criteria = "Observation?subject.gender=male";
+		mySearchCountViewSvc.registerCountView(criteria);
+
+		// The count is stored, but the view stays marked as changed until the next recount
+		mySearchCountViewSvc.setAfterCountQueryListenerForUnitTest(() -> createObservation(patientId));
+		mySearchCountViewSvc.recountChangedViews();
+		mySearchCountViewSvc.setAfterCountQueryListenerForUnitTest(null);
+		assertTrue(mySearchCountViewSvc.isChangedForUnitTest(criteria));
+		assertEquals(1L, runInTransaction(() -> mySearchCountViewDao.findAllViews().get(0).getCount()));
+		assertEquals(2, countObservations());
+
+		mySearchCountViewSvc.recountChangedViews();
+		assertFalse(mySearchCountViewSvc.isChangedForUnitTest(criteria));
+		assertEquals(2, countObservations());
+	}
+
+	@Test
+	public void testCountView_DuplicateRowRejected() {
+		mySearchCountViewSvc.registerCountView("Patient?gender=male");
+
+		// Simulates another server registering the same criteria at the same time
+		assertThrows(DataIntegrityViolationException.class, () -> runInTransaction(() -> {
+			mySearchCountViewDao.save(new SearchCountViewEntity()
+					.setResourceType("Patient")
+					.setCriteria("Patient?gender=male")
+					.setRegistered(new Date()));
+		}));
+		assertThat(mySearchCountViewSvc.getCountViewCriteria()).containsExactly("Patient?gender=male");
+	}
+
+	@Test
+	public void testRegisterCountView_UnknownResourceType() {
+		assertThrows(InvalidRequestException.class, () -> mySearchCountViewSvc.registerCountView("Foo?name=bar"));
+	}
+
+	private int countMalePatients() {
+		SearchParameterMap map = new SearchParameterMap().add(Patient.SP_GENDER, new TokenParam("male"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		map.setLoadSynchronous(true);
+		return myPatientDao.search(map, mySrd).size();
+	}
+
+	private int countObservations() {
+		SearchParameterMap map = new SearchParameterMap()
+				.add(Observation.SP_SUBJECT, new ReferenceParam("gender", "male"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		map.setLoadSynchronous(true);
+		return myObservationDao.search(map, mySrd).size();
+	}
+
+	private IIdType createPatient(Enumerations.AdministrativeGender theGender) {
+		Patient patient = new Patient();
+		patient.setGender(theGender);
+		return myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+	}
+
+	private void createObservation(IIdType thePatientId) {
+		Observation observation = new Observation();
+		observation.getSubject().setReference(thePatientId.getValue());
+		myObservationDao.create(observation, mySrd);
+	}
+}
@@ -966,8 +966,8 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 			myCaptureQueriesListener.logSelectQueriesForCurrentThread();
 			String selectQuery = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(true, false);
 			assertThat(selectQuery).containsAnyOf(
-				"where (rt1_0.RES_TYPE='Observation' and rt1_0.FHIR_ID='A' or rt1_0.RES_TYPE='Observation' and rt1_0.FHIR_ID='" + obs2id + "')",
-				"where (rt1_0.RES_TYPE='Observation' and rt1_0.FHIR_ID='" + obs2id + "' or rt1_0.RES_TYPE='Observation' and rt1_0.FHIR_ID='A')"
+				"where (rt1_0.RES_TYPE='Observation' and rt1_0.FHIR_ID in ('A','" + obs2id + "'))",
+				"where (rt1_0.RES_TYPE='Observation' and rt1_0.FHIR_ID in ('" + obs2id + "','A'))"
 			);
 			assertEquals(3, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		}
@@ -1581,7 +1581,7 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 		// Forced ID resolution
 		resultingQueryNotFormatted = queries.get(0);
 		assertThat(resultingQueryNotFormatted).contains("RES_TYPE='Organization'");
-		assertThat(resultingQueryNotFormatted).contains("rt1_0.RES_TYPE='Organization' and rt1_0.FHIR_ID='ORG1' or rt1_0.RES_TYPE='Organization' and rt1_0.FHIR_ID='ORG2'");
+		assertThat(resultingQueryNotFormatted).contains("rt1_0.RES_TYPE='Organization' and rt1_0.FHIR_ID in ('ORG0','ORG1','ORG2','ORG3','ORG4')");
 
 		// The search itself
 		resultingQueryNotFormatted = queries.get(1);
@@ -0,0 +1,151 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.search.builder.SearchResultLoadingExecutor;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.jpa.util.SqlQuery;
+import ca.uhn.fhir.jpa.util.SqlQueryList;
+import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FhirResourceDaoR4SearchParallelLoadingTest extends BaseJpaR4Test {
+
+	@BeforeEach
+	public void beforeCreateResources() {
+		for (int i = 0; i < 120; i++) {
+			Organization org = new Organization();
+			org.setName("ORG" + i);
+			String orgId = myOrganizationDao.create(org, mySrd).getId().toUnqualifiedVersionless().getValue();
+
+			Patient patient = new Patient();
+			// Names sort in the opposite order to creation, so results aren't in PID order
+			patient.addName().setFamily("FAMILY" + (1000 - i));
+			patient.getMeta().addTag("http://tags", "tag" + (i % 3), null);
+			patient.getManagingOrganization().setReference(orgId);
+			myPatientDao.create(patient, mySrd);
+		}
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setSearchResultLoadingParallelism(new JpaStorageSettings().getSearchResultLoadingParallelism());
+	}
+
+	@Test
+	public void testSynchronousSearch_SameResultsAsSequential() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous().setSort(new SortSpec(Patient.SP_FAMILY));
+
+		List<IBaseResource> sequential = myPatientDao.search(map, mySrd).getAllResources();
+
+		myStorageSettings.setSearchResultLoadingParallelism(4);
+		myCaptureQueriesListener.clear();
+		List<IBaseResource> parallel = myPatientDao.search(map, mySrd).getAllResources();
+
+		assertThat(parallel).hasSize(120);
+		assertEquals(toIdsAndTags(sequential), toIdsAndTags(parallel));
+		assertThat(((Patient) parallel.get(0)).getNameFirstRep().getFamily()).isEqualTo("FAMILY1000");
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.anyMatch(t -> t.getThreadName().startsWith(SearchResultLoadingExecutor.THREAD_PREFIX));
+	}
+
+	@Test
+	public void testPagedSearchWithInclude_SameResultsAsSequential() {
+		SearchParameterMap map = new SearchParameterMap()
+				.setSort(new SortSpec(Patient.SP_FAMILY))
+				.addInclude(Patient.INCLUDE_ORGANIZATION);
+		map.setCount(100);
+
+		List<IBaseResource> sequential = myPatientDao.search(map, mySrd).getResources(0, 100);
+
+		myStorageSettings.setSearchResultLoadingParallelism(3);
+		myCaptureQueriesListener.clear();
+		IBundleProvider outcome = myPatientDao.search(map, mySrd);
+		List<IBaseResource> parallel = outcome.getResources(0, 100);
+
+		// The order of included resources depends on the order they are found in, so
+		// only the matches are compared by position
+		assertThat(parallel).hasSize(200);
+		assertThat(toIdsAndTags(parallel)).containsExactlyInAnyOrderElementsOf(toIdsAndTags(sequential));
+		assertEquals(
+				toIdsAndTags(sequential.stream().filter(t -> t instanceof Patient).toList()),
+				toIdsAndTags(parallel.stream().filter(t -> t instanceof Patient).toList()));
+		for (IBaseResource next : parallel) {
+			BundleEntrySearchModeEnum expected = next instanceof Patient
+					? BundleEntrySearchModeEnum.MATCH
+					: BundleEntrySearchModeEnum.INCLUDE;
+			assertEquals(expected, ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.get(next));
+		}
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.anyMatch(t -> t.getThreadName().startsWith(SearchResultLoadingExecutor.THREAD_PREFIX));
+	}
+
+	@Test
+	public void testSynchronousSearchWithIncludes_IncludeQueriesRunInParallel() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.addInclude(Patient.INCLUDE_ORGANIZATION)
+				.addInclude(Patient.INCLUDE_GENERAL_PRACTITIONER);
+
+		List<String> sequential = toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd));
+
+		myStorageSettings.setSearchResultLoadingParallelism(2);
+		myCaptureQueriesListener.clear();
+		List<String> parallel = toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd));
+
+		assertThat(parallel).hasSize(240).containsExactlyInAnyOrderElementsOf(sequential);
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.anyMatch(t -> t.getThreadName().startsWith(SearchResultLoadingExecutor.THREAD_PREFIX)
+						&& t.getSql(false, false).contains("hfj_res_link"));
+	}
+
+	@Test
+	public void testSynchronousSearchWithIncludes_WorkerQueriesReportedToRawSqlHook() {
+		List<SqlQuery> reported = new ArrayList<>();
+		IAnonymousInterceptor interceptor = (pointcut, params) -> reported.addAll(params.get(SqlQueryList.class));
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.JPA_PERFTRACE_RAW_SQL, interceptor);
+		try {
+			SearchParameterMap map = SearchParameterMap.newSynchronous()
+					.addInclude(Patient.INCLUDE_ORGANIZATION)
+					.addInclude(Patient.INCLUDE_GENERAL_PRACTITIONER);
+
+			myStorageSettings.setSearchResultLoadingParallelism(2);
+			myCaptureQueriesListener.clear();
+			assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(240);
+
+			List<SqlQuery> workerIncludeQueries = myCaptureQueriesListener.getSelectQueries().stream()
+					.filter(t -> t.getThreadName().startsWith(SearchResultLoadingExecutor.THREAD_PREFIX))
+					.filter(t -> t.getSql(false, false).contains("hfj_res_link"))
+					.toList();
+			assertThat(workerIncludeQueries).isNotEmpty();
+			assertThat(reported)
+					.filteredOn(t -> t.getThreadName().startsWith(SearchResultLoadingExecutor.THREAD_PREFIX))
+					.filteredOn(t -> t.getSql(false, false).contains("hfj_res_link"))
+					.hasSameSizeAs(workerIncludeQueries);
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+	}
+
+	private List<String> toIdsAndTags(List<IBaseResource> theResources) {
+		return theResources.stream()
+				.map(t -> t.getIdElement().toUnqualifiedVersionless().getValue() + " "
+						+ t.getMeta().getTag().stream().map(tag -> tag.getCode()).toList())
+				.toList();
+	}
+}
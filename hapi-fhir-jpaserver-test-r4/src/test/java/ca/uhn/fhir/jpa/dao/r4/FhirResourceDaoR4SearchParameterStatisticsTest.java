@@ -0,0 +1,205 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
+import ca.uhn.fhir.jpa.model.util.UcumServiceUtil;
+import ca.uhn.fhir.jpa.provider.SearchParameterStatisticsProvider;
+import ca.uhn.fhir.jpa.search.SearchParameterStatisticsSvc;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import org.hl7.fhir.r4.model.BooleanType;
+import org.hl7.fhir.r4.model.DateType;
+import org.hl7.fhir.r4.model.IntegerType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class FhirResourceDaoR4SearchParameterStatisticsTest extends BaseJpaR4Test {
+
+	@Autowired
+	private SearchParameterStatisticsSvc mySearchParameterStatisticsSvc;
+
+	@Autowired
+	private SearchParameterStatisticsProvider mySearchParameterStatisticsProvider;
+
+	@BeforeEach
+	public void beforeCreateResources() {
+		for (int i = 0; i < 10; i++) {
+			createPatient(i, i < 2);
+		}
+		myStorageSettings.setSearchParameterStatisticsEnabled(true);
+		mySearchParameterStatisticsSvc.refresh();
+	}
+
+	@AfterEach
+	public void after() {
+		JpaStorageSettings defaults = new JpaStorageSettings();
+		myStorageSettings.setSearchParameterStatisticsEnabled(defaults.isSearchParameterStatisticsEnabled());
+		myStorageSettings.setSearchParameterStatisticsSynchronousThreshold(
+				defaults.getSearchParameterStatisticsSynchronousThreshold());
+		myStorageSettings.setSearchParameterStatisticsRefreshIntervalMillis(
+				defaults.getSearchParameterStatisticsRefreshIntervalMillis());
+		myStorageSettings.setNormalizedQuantitySearchLevel(defaults.getNormalizedQuantitySearchLevel());
+		mySearchParameterStatisticsSvc.clear();
+	}
+
+	@Test
+	public void testStatistics() {
+		RequestPartitionId partition = RequestPartitionId.defaultPartition();
+		assertEquals(10L, mySearchParameterStatisticsSvc.getResourceCount("Patient"));
+		assertEquals(10L, mySearchParameterStatisticsSvc.getIndexRowCount("Patient", partition, Patient.SP_FAMILY));
+		assertEquals(20L, mySearchParameterStatisticsSvc.getIndexRowCount("Patient", partition, Patient.SP_IDENTIFIER));
+		assertEquals(2L, mySearchParameterStatisticsSvc.getIndexRowCount("Patient", partition, Patient.SP_BIRTHDATE));
+		assertTrue(mySearchParameterStatisticsSvc.isFanOut("Patient", partition, Patient.SP_IDENTIFIER));
+		assertFalse(mySearchParameterStatisticsSvc.isFanOut("Patient", partition, Patient.SP_FAMILY));
+
+		SearchParameterMap map = new SearchParameterMap()
+				.add(Patient.SP_FAMILY, new StringParam("FAMILY1"))
+				.add(Patient.SP_BIRTHDATE, new DateParam("2020-01-01"));
+		assertEquals(2, mySearchParameterStatisticsSvc.estimateMatchCount("Patient", partition, map));
+
+		// Modified parameters can't be estimated
+		map = new SearchParameterMap().add(Patient.SP_BIRTHDATE, new DateParam().setMissing(true));
+		assertEquals(10, mySearchParameterStatisticsSvc.estimateMatchCount("Patient", partition, map));
+	}
+
+	@Test
+	public void testFanOutTokenParameter_UsesSubquery() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_FAMILY, new StringParam("FAMILY3"))
+				.add(Patient.SP_IDENTIFIER, new TokenParam("http://ids", "ID3"));
+
+		myCaptureQueriesListener.clear();
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(1);
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(true, false);
+		assertThat(sql).contains(" IN (SELECT ");
+	}
+
+	@Test
+	public void testEstimatedSmallSearch_LoadedSynchronously() {
+		myStorageSettings.setSearchParameterStatisticsSynchronousThreshold(5);
+		when(mySrd.getServer().getPagingProvider()).thenReturn(myPagingProvider);
+
+		SearchParameterMap map = new SearchParameterMap().add(Patient.SP_BIRTHDATE, new DateParam("2020-01-01"));
+		IBundleProvider outcome = myPatientDao.search(map, mySrd);
+		assertNull(outcome.getUuid());
+		assertThat(toUnqualifiedVersionlessIdValues(outcome)).hasSize(2);
+
+		// Too many results for the threshold
+		map = new SearchParameterMap().add(Patient.SP_FAMILY, new StringParam("FAMILY"));
+		outcome = myPatientDao.search(map, mySrd);
+		assertNotNull(outcome.getUuid());
+	}
+
+	@Test
+	public void testEstimatedSmallSearch_Underestimated_FallsBackToAsynchronous() {
+		myStorageSettings.setSearchParameterStatisticsSynchronousThreshold(5);
+		when(mySrd.getServer().getPagingProvider()).thenReturn(myPagingProvider);
+
+		// The statistics don't know about these yet
+		for (int i = 10; i < 40; i++) {
+			createPatient(i, true);
+		}
+
+		SearchParameterMap map = new SearchParameterMap().add(Patient.SP_BIRTHDATE, new DateParam("2020-01-01"));
+		IBundleProvider outcome = myPatientDao.search(map, mySrd);
+		assertNotNull(outcome.getUuid());
+		assertThat(toUnqualifiedVersionlessIdValues(outcome)).hasSize(32);
+	}
+
+	@Test
+	public void testSearchStatisticsOperation() {
+		createPatient(10, false);
+
+		Parameters outcome =
+				(Parameters) mySearchParameterStatisticsProvider.searchStatistics(new BooleanType(true));
+
+		assertEquals(2, ((IntegerType) outcome.getParameterValue("generation")).getValue());
+		Parameters.ParametersParameterComponent patient = outcome.getParameters("resourceType").stream()
+				.filter(t -> t.getPart().get(0).getValue().primitiveValue().equals("Patient"))
+				.findFirst()
+				.orElseThrow();
+		assertEquals("11", patient.getPart().get(1).getValue().primitiveValue());
+		assertThat(patient.getPart())
+				.anyMatch(t -> t.getName().equals("searchParameter")
+						&& t.getPart().get(0).getValue().primitiveValue().equals(Patient.SP_IDENTIFIER)
+						&& t.getPart().get(1).getValue().primitiveValue().equals("22"));
+	}
+
+	@Test
+	public void testStatisticsLoadedFromDatabase() {
+		// Simulate a server which hasn't sampled the statistics itself
+		mySearchParameterStatisticsSvc.clear();
+		assertNull(mySearchParameterStatisticsSvc.getResourceCount("Patient"));
+
+		mySearchParameterStatisticsSvc.loadIfChanged();
+
+		assertEquals(10L, mySearchParameterStatisticsSvc.getResourceCount("Patient"));
+		assertEquals(
+				20L,
+				mySearchParameterStatisticsSvc.getIndexRowCount(
+						"Patient", RequestPartitionId.defaultPartition(), Patient.SP_IDENTIFIER));
+	}
+
+	@Test
+	public void testSampleIfDue() {
+		int generation = mySearchParameterStatisticsSvc.getGeneration();
+
+		// Sampled recently
+		mySearchParameterStatisticsSvc.sampleIfDue();
+		assertEquals(generation, mySearchParameterStatisticsSvc.getGeneration());
+
+		myStorageSettings.setSearchParameterStatisticsRefreshIntervalMillis(1);
+		mySearchParameterStatisticsSvc.sampleIfDue();
+		assertEquals(generation + 1, mySearchParameterStatisticsSvc.getGeneration());
+	}
+
+	@Test
+	public void testQuantityWithNormalizedRows_CountedOnce() {
+		myStorageSettings.setNormalizedQuantitySearchLevel(
+				NormalizedQuantitySearchLevel.NORMALIZED_QUANTITY_STORAGE_SUPPORTED);
+		for (int i = 0; i < 3; i++) {
+			Observation observation = new Observation();
+			observation.setValue(
+					new Quantity().setValue(i).setSystem(UcumServiceUtil.UCUM_CODESYSTEM_URL).setCode("mg"));
+			myObservationDao.create(observation, mySrd);
+		}
+		assertThat(myResourceIndexedSearchParamQuantityNormalizedDao.findAll()).hasSize(3);
+
+		mySearchParameterStatisticsSvc.refresh();
+
+		assertEquals(
+				3L,
+				mySearchParameterStatisticsSvc.getIndexRowCount(
+						"Observation", RequestPartitionId.defaultPartition(), Observation.SP_VALUE_QUANTITY));
+	}
+
+	private void createPatient(int theIndex, boolean theWithBirthDate) {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://ids").setValue("ID" + theIndex);
+		patient.addIdentifier().setSystem("http://other-ids").setValue("OTHER" + theIndex);
+		patient.addName().setFamily("FAMILY" + theIndex);
+		if (theWithBirthDate) {
+			patient.setBirthDateElement(new DateType("2020-01-01"));
+		}
+		myPatientDao.create(patient, mySrd);
+	}
+}
@@ -0,0 +1,130 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryPlanCache;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenOrListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
+import ca.uhn.fhir.rest.param.UriParam;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FhirResourceDaoR4SearchQueryPlanCacheTest extends BaseJpaR4Test {
+
+	@Autowired
+	private SearchQueryPlanCache mySearchQueryPlanCache;
+
+	@BeforeEach
+	public void beforeCreateResources() {
+		for (int i = 0; i < 10; i++) {
+			Patient patient = new Patient();
+			patient.addIdentifier().setSystem("http://ids").setValue("ID" + i);
+			patient.addName().setFamily("FAMILY" + i);
+			patient.setGender(i % 2 == 0 ? Enumerations.AdministrativeGender.MALE : Enumerations.AdministrativeGender.FEMALE);
+			myPatientDao.create(patient, mySrd);
+		}
+		mySearchQueryPlanCache.invalidateAll();
+		myStorageSettings.setSearchQueryPlanCacheEnabled(true);
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setSearchQueryPlanCacheEnabled(new JpaStorageSettings().isSearchQueryPlanCacheEnabled());
+		mySearchQueryPlanCache.invalidateAll();
+	}
+
+	@Test
+	public void testSameShape_DifferentValues_ReusesSql() {
+		long hitsBefore = mySearchQueryPlanCache.getHitCount();
+
+		for (int i = 0; i < 5; i++) {
+			SearchParameterMap map = SearchParameterMap.newSynchronous()
+					.add(Patient.SP_IDENTIFIER, new TokenParam("http://ids", "ID" + i))
+					.add(Patient.SP_FAMILY, new StringParam("FAMILY" + i));
+			List<String> ids = toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd));
+			assertThat(ids).hasSize(1);
+			Patient patient = myPatientDao.read(new IdType(ids.get(0)), mySrd);
+			assertEquals("FAMILY" + i, patient.getNameFirstRep().getFamily());
+		}
+
+		assertEquals(4, mySearchQueryPlanCache.getHitCount() - hitsBefore);
+		assertThat(mySearchQueryPlanCache.getHitRate()).isGreaterThan(0);
+		assertThat(mySearchQueryPlanCache.getAverageTimeSavedPerSearchNanos()).isGreaterThanOrEqualTo(0);
+	}
+
+	@Test
+	public void testDifferentShapes_NotShared() {
+		long hitsBefore = mySearchQueryPlanCache.getHitCount();
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_GENDER, new TokenParam("male"));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(5);
+
+		// More OR values
+		map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_GENDER, new TokenOrListParam().add("male").add("female"));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(10);
+
+		// Same parameter with a modifier
+		map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_GENDER, new TokenParam("male").setModifier(TokenParamModifier.NOT));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(5);
+
+		// Sorted
+		map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_GENDER, new TokenParam("female"))
+				.setSort(new SortSpec(Patient.SP_FAMILY));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(5);
+
+		assertEquals(0, mySearchQueryPlanCache.getHitCount() - hitsBefore);
+		assertEquals(4, mySearchQueryPlanCache.getSize());
+	}
+
+	@Test
+	public void testChainedSearch_NotCached() {
+		long hitsBefore = mySearchQueryPlanCache.getHitCount();
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_ORGANIZATION, new ReferenceParam("name", "FOO"));
+		myPatientDao.search(map, mySrd);
+		myPatientDao.search(map, mySrd);
+
+		assertEquals(0, mySearchQueryPlanCache.getSize());
+		assertEquals(0, mySearchQueryPlanCache.getHitCount() - hitsBefore);
+	}
+
+	@Test
+	public void testSourceUriAndRequestId_DifferentShapes() {
+		Patient patient = new Patient();
+		patient.getMeta().setSource("http://source#request-id");
+		String id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless().getValue();
+		mySearchQueryPlanCache.invalidateAll();
+		long hitsBefore = mySearchQueryPlanCache.getHitCount();
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.add(Constants.PARAM_SOURCE, new UriParam("http://source"));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).containsExactly(id);
+
+		map = SearchParameterMap.newSynchronous().add(Constants.PARAM_SOURCE, new UriParam("#request-id"));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).containsExactly(id);
+
+		assertEquals(0, mySearchQueryPlanCache.getHitCount() - hitsBefore);
+		assertEquals(2, mySearchQueryPlanCache.getSize());
+	}
+}
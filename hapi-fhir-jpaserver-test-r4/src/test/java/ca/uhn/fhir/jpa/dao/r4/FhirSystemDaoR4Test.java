@@ -5258,4 +5258,38 @@ public class FhirSystemDaoR4Test extends BaseJpaR4SystemTest {
 	}
 
 
+	/**
+	 * Conditional URLs consisting of several token parameters are resolved
+	 * together in a single query, so make sure that a URL only matches a
+	 * resource having all of its parameter values.
+	 */
+	@Test
+	public void testTransactionWithConditionalCreates_MultipleTokenParams() {
+		IIdType id1 = createPatient(withIdentifier("http://foo", "1"), withActiveTrue());
+		IIdType id2 = createPatient(withIdentifier("http://foo", "2"), withActiveFalse());
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		Patient pt = new Patient();
+		pt.addIdentifier().setSystem("http://foo").setValue("1");
+		bb.addTransactionCreateEntry(pt).conditional("Patient?identifier=http://foo|1&active=true");
+		pt = new Patient();
+		pt.addIdentifier().setSystem("http://foo").setValue("2");
+		bb.addTransactionCreateEntry(pt).conditional("Patient?active=false&identifier=http://foo|2");
+		pt = new Patient();
+		pt.addIdentifier().setSystem("http://foo").setValue("1");
+		bb.addTransactionCreateEntry(pt).conditional("Patient?identifier=http://foo|1&active=false");
+		pt = new Patient();
+		pt.addIdentifier().setSystem("http://foo").setValue("3");
+		bb.addTransactionCreateEntry(pt).conditional("Patient?identifier=http://foo|3&active=true");
+
+		Bundle outcome = mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+		assertEquals("200 OK", outcome.getEntry().get(0).getResponse().getStatus());
+		assertThat(outcome.getEntry().get(0).getResponse().getLocation()).startsWith(id1.getValue() + "/");
+		assertEquals("200 OK", outcome.getEntry().get(1).getResponse().getStatus());
+		assertThat(outcome.getEntry().get(1).getResponse().getLocation()).startsWith(id2.getValue() + "/");
+		assertEquals("201 Created", outcome.getEntry().get(2).getResponse().getStatus());
+		assertEquals("201 Created", outcome.getEntry().get(3).getResponse().getStatus());
+	}
+
+
 }
@@ -0,0 +1,186 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.dao.TransactionProcessor;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.BundleBuilder;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class FhirSystemDaoR4TransactionIndexingParallelismTest extends BaseJpaR4Test {
+
+	@Autowired
+	private TransactionProcessor myTransactionProcessor;
+
+	@Autowired
+	private SearchParamExtractorService mySearchParamExtractorService;
+
+	@BeforeEach
+	public void before() {
+		myStorageSettings.setTransactionIndexingParallelism(4);
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setTransactionIndexingParallelism(
+				new JpaStorageSettings().getTransactionIndexingParallelism());
+		myTransactionProcessor.setSearchParamExtractorServiceForUnitTest(mySearchParamExtractorService);
+	}
+
+	@Test
+	public void testTransaction_SearchParametersExtractedOnWorkerThreads() {
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		SearchParamExtractorService extractorService = spy(mySearchParamExtractorService);
+		doAnswer(t -> {
+					threadNames.add(Thread.currentThread().getName());
+					return t.callRealMethod();
+				})
+				.when(extractorService)
+				.preExtractFromResource(any(), any());
+		myTransactionProcessor.setSearchParamExtractorServiceForUnitTest(extractorService);
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 10; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("Family" + i);
+			bb.addTransactionCreateEntry(patient);
+		}
+		mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+
+		verify(extractorService, times(10)).addPreExtractedParams(any(), any(), any());
+		assertThat(threadNames).isNotEmpty().allMatch(t -> t.startsWith("transaction-indexing-"));
+		assertThat(searchIds(myPatientDao, SearchParameterMap.newSynchronous("family", new StringParam("Family3"))))
+				.hasSize(1);
+	}
+
+	@Test
+	public void testTransactionWithUpdates_PrestorageHookModifiesResources_ModificationsIndexed() {
+		createPatient(withId("A"), withFamily("Simpson"));
+		createPatient(withId("B"), withFamily("Flanders"));
+
+		// Each invocation replaces the identifier, so only the last one is stored
+		AtomicInteger counter = new AtomicInteger();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> {
+			Patient patient = (Patient) theArgs.get(IBaseResource.class, 1);
+			patient.getIdentifier().clear();
+			patient.addIdentifier().setSystem("http://hook").setValue("call-" + counter.incrementAndGet());
+		};
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.STORAGE_PRESTORAGE_RESOURCE_UPDATED, interceptor);
+		try {
+			BundleBuilder bb = new BundleBuilder(myFhirContext);
+			for (String id : List.of("A", "B")) {
+				Patient patient = new Patient();
+				patient.setId("Patient/" + id);
+				patient.addName().setFamily("Updated");
+				bb.addTransactionUpdateEntry(patient);
+			}
+			mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+
+		for (String id : List.of("A", "B")) {
+			Patient patient = myPatientDao.read(new IdType("Patient/" + id), mySrd);
+			String value = patient.getIdentifierFirstRep().getValue();
+			assertThat(searchIds(
+							myPatientDao,
+							SearchParameterMap.newSynchronous("identifier", new TokenParam("http://hook", value))))
+					.containsExactly("Patient/" + id);
+		}
+	}
+
+	@Test
+	public void testTransactionWithPlaceholderReferences_AllResourcesIndexed() {
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 10; i++) {
+			Patient patient = new Patient();
+			patient.setId(IdType.newRandomUuid());
+			patient.addIdentifier().setSystem("http://foo").setValue("P" + i);
+			patient.addName().setFamily("Family" + i);
+			bb.addTransactionCreateEntry(patient);
+
+			for (int j = 0; j < 5; j++) {
+				Observation observation = new Observation();
+				observation.setSubject(new Reference(patient.getIdElement()));
+				observation.getCode().addCoding().setSystem("http://loinc.org").setCode("code" + j);
+				observation.setValue(new Quantity(j));
+				bb.addTransactionCreateEntry(observation);
+			}
+		}
+		Bundle response = mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+		assertThat(response.getEntry()).hasSize(60);
+
+		List<String> patientIds =
+				searchIds(myPatientDao, SearchParameterMap.newSynchronous("family", new StringParam("Family3")));
+		assertThat(patientIds).hasSize(1);
+		assertThat(searchIds(
+						myPatientDao,
+						SearchParameterMap.newSynchronous("identifier", new TokenParam("http://foo", "P3"))))
+				.containsExactlyElementsOf(patientIds);
+
+		assertThat(searchIds(
+						myObservationDao,
+						SearchParameterMap.newSynchronous("subject", new ReferenceParam(patientIds.get(0)))))
+				.hasSize(5);
+		assertThat(searchIds(
+						myObservationDao,
+						SearchParameterMap.newSynchronous("code", new TokenParam("http://loinc.org", "code2"))))
+				.hasSize(10);
+	}
+
+	@Test
+	public void testTransactionWithConditionalReferences_AllResourcesIndexed() {
+		createPatient(withId("A"), withIdentifier("http://foo", "A"), withFamily("Simpson"));
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 5; i++) {
+			Observation observation = new Observation();
+			observation.setSubject(new Reference("Patient?identifier=http://foo|A"));
+			observation.getCode().addCoding().setSystem("http://loinc.org").setCode("code" + i);
+			bb.addTransactionCreateEntry(observation);
+		}
+		mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+
+		assertThat(searchIds(
+						myObservationDao,
+						SearchParameterMap.newSynchronous("subject", new ReferenceParam("Patient/A"))))
+				.hasSize(5);
+		assertThat(searchIds(
+						myObservationDao,
+						SearchParameterMap.newSynchronous("code", new TokenParam("http://loinc.org", "code4"))))
+				.hasSize(1);
+	}
+
+	private List<String> searchIds(IFhirResourceDao<?> theDao, SearchParameterMap theParams) {
+		return toUnqualifiedVersionlessIdValues(theDao.search(theParams, mySrd));
+	}
+}
@@ -0,0 +1,96 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.TransactionWriteStatistics;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.BundleBuilder;
+import org.hibernate.Session;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FhirSystemDaoR4TransactionWriteBatchSizeTest extends BaseJpaR4Test {
+
+	@Autowired
+	private TransactionWriteStatistics myTransactionWriteStatistics;
+
+	@BeforeEach
+	public void before() {
+		myStorageSettings.setTransactionWriteJdbcBatchSize(200);
+		myTransactionWriteStatistics.reset();
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setTransactionWriteJdbcBatchSize(
+				new JpaStorageSettings().getTransactionWriteJdbcBatchSize());
+	}
+
+	@Test
+	public void testTransaction_ResourcesWrittenAndStatisticsRecorded() {
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 100; i++) {
+			Patient patient = new Patient();
+			patient.addIdentifier().setSystem("http://foo").setValue("P" + i);
+			patient.getMeta().addTag("http://tags", "tag" + (i % 3), null);
+			bb.addTransactionCreateEntry(patient);
+		}
+		Bundle response = mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+		assertThat(response.getEntry()).hasSize(100);
+
+		runInTransaction(() -> {
+			assertEquals(100, myResourceTableDao.count());
+			assertEquals(100, myResourceHistoryTableDao.count());
+			assertEquals(100, myResourceTagDao.count());
+		});
+		SearchParameterMap map = SearchParameterMap.newSynchronous("identifier", new TokenParam("http://foo", "P42"));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).hasSize(1);
+
+		assertEquals(1, myTransactionWriteStatistics.getFlushCount());
+		assertEquals(100, myTransactionWriteStatistics.getResourceCount());
+		assertThat(myTransactionWriteStatistics.getInsertCount()).isGreaterThanOrEqualTo(300);
+	}
+
+	@Test
+	public void testTransaction_BatchSizeAppliedToSession() {
+		List<Integer> batchSizes = new ArrayList<>();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) ->
+				batchSizes.add(myEntityManager.unwrap(Session.class).getJdbcBatchSize());
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.STORAGE_PRESTORAGE_RESOURCE_CREATED, interceptor);
+		try {
+			BundleBuilder bb = new BundleBuilder(myFhirContext);
+			for (int i = 0; i < 3; i++) {
+				Patient patient = new Patient();
+				patient.addIdentifier().setSystem("http://foo").setValue("P" + i);
+				bb.addTransactionCreateEntry(patient);
+			}
+			mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+
+			// Outside of a transaction bundle the configured batch size isn't used
+			myPatientDao.create(new Patient(), mySrd);
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+
+		assertThat(batchSizes).containsExactly(200, 200, 200, null);
+	}
+
+	@Test
+	public void testInvalidBatchSize() {
+		assertThrows(IllegalArgumentException.class, () -> myStorageSettings.setTransactionWriteJdbcBatchSize(0));
+	}
+}
@@ -0,0 +1,176 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.entity.EntityIndexStatusEnum;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.jpa.search.reindex.IDeferredIndexingSvc;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.DateUtils;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class PartitioningAppendOnlyR4Test extends BasePartitioningR4Test {
+
+	@Autowired
+	private IDeferredIndexingSvc myDeferredIndexingSvc;
+
+	@Override
+	@BeforeEach
+	public void before() throws Exception {
+		super.before();
+		myStorageSettings.setAppendOnlyPartitionIds(Set.of(myPartitionId));
+	}
+
+	@Override
+	@AfterEach
+	public void after() {
+		super.after();
+		myStorageSettings.setAppendOnlyPartitionIds(new JpaStorageSettings().getAppendOnlyPartitionIds());
+	}
+
+	@Test
+	public void testCreate_IndexedByDeferredIndexingJob() {
+		IIdType id = createObservation(withCreatePartition(myPartitionId), withObservationCode("http://foo", "A"));
+
+		runInTransaction(() -> {
+			ResourceTable entity = myResourceTableDao.findById(id.getIdPartAsLong()).orElseThrow();
+			assertNull(entity.getIndexStatus());
+			assertEquals(1, myResourceHistoryTableDao.count());
+			assertEquals(0, myResourceIndexedSearchParamTokenDao.count());
+		});
+		assertThat(searchObservations(myPartitionId, "A")).isEmpty();
+
+		String instanceId = myDeferredIndexingSvc.submitIndexingJob();
+		assertNotNull(instanceId);
+		myBatch2JobHelper.awaitJobCompletion(instanceId);
+
+		runInTransaction(() -> {
+			ResourceTable entity = myResourceTableDao.findById(id.getIdPartAsLong()).orElseThrow();
+			assertThat(entity.getIndexStatus())
+					.isIn(EntityIndexStatusEnum.INDEXED_ALL, EntityIndexStatusEnum.INDEXED_RDBMS_ONLY);
+		});
+		assertThat(searchObservations(myPartitionId, "A")).containsExactly(id.toUnqualifiedVersionless().getValue());
+
+		// Nothing left to index
+		assertNull(myDeferredIndexingSvc.submitIndexingJob());
+	}
+
+	@Test
+	public void testCreateInOtherPartition_IndexedSynchronously() {
+		IIdType id = createObservation(withCreatePartition(myPartitionId2), withObservationCode("http://foo", "A"));
+
+		runInTransaction(() -> {
+			ResourceTable entity = myResourceTableDao.findById(id.getIdPartAsLong()).orElseThrow();
+			assertThat(entity.getIndexStatus())
+					.isIn(EntityIndexStatusEnum.INDEXED_ALL, EntityIndexStatusEnum.INDEXED_RDBMS_ONLY);
+		});
+		assertThat(searchObservations(myPartitionId2, "A")).containsExactly(id.toUnqualifiedVersionless().getValue());
+		assertNull(myDeferredIndexingSvc.submitIndexingJob());
+	}
+
+	@Test
+	public void testSearch_IndexedThroughHeaderAddedForAppendOnlyPartition() {
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		addNextTargetPartitionsForRead(myPartitionId);
+		myObservationDao.search(SearchParameterMap.newSynchronous(), mySrd, response);
+		verify(response).addHeader(eq(JpaConstants.HEADER_INDEXED_THROUGH), anyString());
+
+		response = mock(HttpServletResponse.class);
+		addNextTargetPartitionsForRead(myPartitionId2);
+		myObservationDao.search(SearchParameterMap.newSynchronous(), mySrd, response);
+		verify(response, never()).addHeader(eq(JpaConstants.HEADER_INDEXED_THROUGH), anyString());
+	}
+
+	@Test
+	public void testSearch_IndexedThroughHeaderValue() {
+		IIdType id = createObservation(withCreatePartition(myPartitionId), withObservationCode("http://foo", "A"));
+		Date lastUpdated = runInTransaction(() -> myResourceTableDao
+				.findById(id.getIdPartAsLong())
+				.orElseThrow()
+				.getUpdatedDate());
+
+		// The oldest resource waiting to be indexed holds back the header
+		String instanceId = myDeferredIndexingSvc.submitIndexingJob();
+		assertNotNull(instanceId);
+		assertEquals(DateUtils.formatDate(lastUpdated), searchForIndexedThroughHeader(myPartitionId));
+
+		// Once it has been indexed, the header catches up
+		myBatch2JobHelper.awaitJobCompletion(instanceId);
+		assertNull(myDeferredIndexingSvc.submitIndexingJob());
+		Date indexedThrough = DateUtils.parseDate(searchForIndexedThroughHeader(myPartitionId));
+		assertThat(indexedThrough)
+				.isAfterOrEqualTo(org.apache.commons.lang3.time.DateUtils.truncate(lastUpdated, Calendar.SECOND));
+	}
+
+	@Test
+	public void testReindexFails_ResourceNotResubmitted() {
+		IIdType id = createObservation(withCreatePartition(myPartitionId), withObservationCode("http://foo", "A"));
+
+		// Make the stored resource unparseable so that reindexing it fails
+		runInTransaction(() -> {
+			ResourceTable entity = myResourceTableDao.findById(id.getIdPartAsLong()).orElseThrow();
+			ResourceHistoryTable version = myResourceHistoryTableDao.findForIdAndVersion(entity.getId().toFk(), 1L);
+			version.setEncoding(ResourceEncodingEnum.JSON);
+			version.setResourceTextVc("{\"resourceType\":\"FOO\"}");
+			myResourceHistoryTableDao.save(version);
+		});
+
+		String instanceId = myDeferredIndexingSvc.submitIndexingJob();
+		assertNotNull(instanceId);
+		myBatch2JobHelper.awaitJobCompletion(instanceId);
+
+		runInTransaction(() -> {
+			ResourceTable entity = myResourceTableDao.findById(id.getIdPartAsLong()).orElseThrow();
+			assertEquals(EntityIndexStatusEnum.INDEXING_FAILED, entity.getIndexStatus());
+		});
+
+		// The failed resource has left the queue, so it is not submitted again and does not hold back the header
+		assertNull(myDeferredIndexingSvc.submitIndexingJob());
+		Date indexedThrough = DateUtils.parseDate(searchForIndexedThroughHeader(myPartitionId));
+		Date lastUpdated = runInTransaction(() -> myResourceTableDao
+				.findById(id.getIdPartAsLong())
+				.orElseThrow()
+				.getUpdatedDate());
+		assertThat(indexedThrough)
+				.isAfterOrEqualTo(org.apache.commons.lang3.time.DateUtils.truncate(lastUpdated, Calendar.SECOND));
+	}
+
+	private String searchForIndexedThroughHeader(int thePartitionId) {
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		addNextTargetPartitionsForRead(thePartitionId);
+		myObservationDao.search(SearchParameterMap.newSynchronous(), mySrd, response);
+		ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+		verify(response).addHeader(eq(JpaConstants.HEADER_INDEXED_THROUGH), captor.capture());
+		return captor.getValue();
+	}
+
+	private List<String> searchObservations(int thePartitionId, String theCode) {
+		addNextTargetPartitionsForRead(thePartitionId);
+		SearchParameterMap map = SearchParameterMap.newSynchronous("code", new TokenParam("http://foo", theCode));
+		return toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd));
+	}
+}
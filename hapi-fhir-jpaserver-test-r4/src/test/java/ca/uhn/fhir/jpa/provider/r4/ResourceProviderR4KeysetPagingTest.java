@@ -0,0 +1,102 @@
+package ca.uhn.fhir.jpa.provider.r4;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.provider.BaseResourceProviderR4Test;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResourceProviderR4KeysetPagingTest extends BaseResourceProviderR4Test {
+
+	@BeforeEach
+	public void beforeCreatePatients() {
+		// Created quickly enough that several share a last updated time, which the PID tie breaker handles
+		for (int i = 0; i < 25; i++) {
+			Patient patient = new Patient();
+			patient.setId("P" + (100 + i));
+			patient.setActive(true);
+			myPatientDao.update(patient, mySrd);
+		}
+		myStorageSettings.setKeysetPagingEnabled(true);
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setKeysetPagingEnabled(new JpaStorageSettings().isKeysetPagingEnabled());
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+		"_lastUpdated, ASC",
+		"_lastUpdated, DESC",
+		"_id,          ASC",
+		"_id,          DESC"
+	})
+	public void testPageThroughResults(String theSortParam, SortOrderEnum theOrder) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.setSort(new SortSpec(theSortParam, theOrder).setChain(new SortSpec(Constants.PARAM_PID, theOrder)));
+		List<String> expected = toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd));
+		assertThat(expected).hasSize(25);
+
+		Bundle page = myClient.search()
+				.forResource(Patient.class)
+				.sort(new SortSpec(theSortParam, theOrder))
+				.count(10)
+				.returnBundle(Bundle.class)
+				.execute();
+
+		List<String> actual = new ArrayList<>(toUnqualifiedVersionlessIdValues(page));
+		int pages = 1;
+		while (page.getLink(Constants.LINK_NEXT) != null) {
+			String next = page.getLink(Constants.LINK_NEXT).getUrl();
+			assertThat(next).contains(Constants.PARAM_SEARCH_AFTER + "=");
+			assertThat(next).doesNotContain(Constants.PARAM_OFFSET);
+			assertThat(next).doesNotContain(Constants.PARAM_PAGINGACTION);
+			assertNull(page.getLink(Constants.LINK_PREVIOUS));
+
+			page = myClient.loadPage().next(page).execute();
+			actual.addAll(toUnqualifiedVersionlessIdValues(page));
+			pages++;
+		}
+
+		assertEquals(3, pages);
+		assertEquals(expected, actual);
+		assertEquals(0, mySearchEntityDao.count());
+	}
+
+	@Test
+	public void testSearchAfter_InvalidKey() {
+		InvalidRequestException exception = assertThrows(InvalidRequestException.class, () -> myClient.search()
+				.byUrl("Patient?_sort=_lastUpdated&_count=10&" + Constants.PARAM_SEARCH_AFTER + "=foo")
+				.returnBundle(Bundle.class)
+				.execute());
+		assertThat(exception.getMessage()).contains(Msg.code(2802));
+	}
+
+	@Test
+	public void testSearchAfter_KeysetPagingNotSupported() {
+		InvalidRequestException exception = assertThrows(InvalidRequestException.class, () -> myClient.search()
+				.byUrl("Patient?_sort=active&_count=10&" + Constants.PARAM_SEARCH_AFTER + "=1-1")
+				.returnBundle(Bundle.class)
+				.execute());
+		assertThat(exception.getMessage()).contains(Msg.code(2801));
+	}
+}
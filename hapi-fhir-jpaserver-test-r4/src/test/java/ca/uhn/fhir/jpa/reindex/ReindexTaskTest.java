@@ -14,6 +14,7 @@ import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.dao.JpaPidFk;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryProvenanceEntity;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedComboStringUnique;
@@ -28,14 +29,17 @@ import jakarta.annotation.PostConstruct;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Stream;
@@ -43,6 +47,7 @@ import java.util.stream.Stream;
 import static ca.uhn.fhir.batch2.jobs.reindex.ReindexUtils.JOB_REINDEX;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -73,6 +78,7 @@ public class ReindexTaskTest extends BaseJpaR4Test {
 		myStorageSettings.setStoreMetaSourceInformation(defaults.getStoreMetaSourceInformation());
 		myStorageSettings.setPreserveRequestIdInResourceBody(defaults.isPreserveRequestIdInResourceBody());
 		myStorageSettings.setAccessMetaSourceInformationFromProvenanceTable(defaults.isAccessMetaSourceInformationFromProvenanceTable());
+		myStorageSettings.setResourceEncoding(defaults.getResourceEncoding());
 	}
 
 	@Test
@@ -184,6 +190,78 @@ public class ReindexTaskTest extends BaseJpaR4Test {
 
 	}
 
+	@ParameterizedTest
+	@EnumSource(value = ResourceEncodingEnum.class, names = {"SMILE", "JSOND"})
+	public void testOptimizeStorage_BinaryOnlyEncoding(ResourceEncodingEnum theEncoding) {
+		// Setup
+		IIdType patientId = createPatient(withActiveTrue(), withFamily("Simpson"));
+		for (int i = 0; i < 4; i++) {
+			Patient p = new Patient();
+			p.setId(patientId.toUnqualifiedVersionless());
+			p.setActive(true);
+			p.addIdentifier().setValue(String.valueOf(i));
+			myPatientDao.update(p, mySrd);
+		}
+		Observation obs = new Observation();
+		obs.setValue(new Quantity().setValue(new BigDecimal("70.50")).setUnit("kg"));
+		IIdType observationId = myObservationDao.create(obs, mySrd).getId().toUnqualifiedVersionless();
+
+		// Convert to the binary encoding
+		myStorageSettings.setResourceEncoding(theEncoding);
+		runReindexOptimizeStorage(ReindexParameters.OptimizeStorageModeEnum.ALL_VERSIONS);
+
+		runInTransaction(()->{
+			assertEquals(6, myResourceHistoryTableDao.count());
+			for (ResourceHistoryTable history : myResourceHistoryTableDao.findAll()) {
+				assertEquals(theEncoding, history.getEncoding());
+				assertNull(history.getResourceTextVc());
+				assertNotNull(history.getResource());
+			}
+		});
+		Patient patient = myPatientDao.read(patientId, mySrd);
+		assertTrue(patient.getActive());
+		assertEquals("3", patient.getIdentifierFirstRep().getValue());
+		assertEquals("Simpson", myPatientDao.read(patientId.withVersion("1"), mySrd).getNameFirstRep().getFamily());
+		assertEquals("70.50", myObservationDao.read(observationId, mySrd).getValueQuantity().getValueElement().getValueAsString());
+
+		// New writes also use the binary encoding
+		Patient p = new Patient();
+		p.setId(patientId.toUnqualifiedVersionless());
+		p.setActive(false);
+		myPatientDao.update(p, mySrd);
+		runInTransaction(()->{
+			ResourceHistoryTable history = myResourceHistoryTableDao.findForIdAndVersion(JpaPidFk.fromId(patientId.getIdPartAsLong()), 6);
+			assertEquals(theEncoding, history.getEncoding());
+		});
+		assertFalse(myPatientDao.read(patientId, mySrd).getActive());
+
+		// Convert back
+		myStorageSettings.setResourceEncoding(new JpaStorageSettings().getResourceEncoding());
+		runReindexOptimizeStorage(ReindexParameters.OptimizeStorageModeEnum.ALL_VERSIONS);
+
+		runInTransaction(()->{
+			assertEquals(7, myResourceHistoryTableDao.count());
+			for (ResourceHistoryTable history : myResourceHistoryTableDao.findAll()) {
+				assertEquals(ResourceEncodingEnum.JSON, history.getEncoding());
+				assertNotNull(history.getResourceTextVc());
+				assertNull(history.getResource());
+			}
+		});
+		assertEquals("70.50", myObservationDao.read(observationId, mySrd).getValueQuantity().getValueElement().getValueAsString());
+	}
+
+	private void runReindexOptimizeStorage(ReindexParameters.OptimizeStorageModeEnum theOptimizeStorageMode) {
+		JobInstanceStartRequest startRequest = new JobInstanceStartRequest();
+		startRequest.setJobDefinitionId(JOB_REINDEX);
+		startRequest.setParameters(
+			new ReindexJobParameters()
+				.setOptimizeStorage(theOptimizeStorageMode)
+				.setReindexSearchParameters(ReindexParameters.ReindexSearchParametersEnum.NONE)
+		);
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(mySrd, startRequest);
+		myBatch2JobHelper.awaitJobCompletion(startResponse);
+	}
+
 	@Test
 	public void testOptimizeStorage_AllVersions_SingleResourceWithMultipleVersion() {
 
@@ -12,6 +12,7 @@ import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.config.TestHSearchAddInConfig;
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.param.ReferenceOrListParam;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
@@ -511,8 +512,8 @@ public class UpliftedRefchainsAndChainedSortingR5Test extends BaseJpaR5Test {
 	}
 
 	/**
-	 * Only single chains are supported. Should fall back to a normal
-	 * search otherwise.
+	 * The double chain isn't uplifted, only "name" is. Should fall back to a normal
+	 * search.
 	 */
 	@Test
 	public void testSearch_UsingUpliftRefchain_DoubleChain() {
@@ -546,6 +547,88 @@ public class UpliftedRefchainsAndChainedSortingR5Test extends BaseJpaR5Test {
 		assertThat(countMatches(querySql, "HASH_IDENTITY")).as(querySql).isEqualTo(0);
 	}
 
+	@Test
+	public void testCreate_MultiLevelUplift() {
+		// Setup
+
+		createSearchParam_EncounterSubject_WithUpliftOnName("organization.name");
+
+		createOrganizationO1_SpringfieldHospital();
+		createPractitionerPr1_BarneyGumble();
+		createPatientP1_HomerSimpson(ORGANIZATION_O1);
+		createPatientP2_MargeSimpson();
+
+		// Test
+
+		createEncounter(ENCOUNTER_E1, PATIENT_P1);
+		createEncounter(ENCOUNTER_E2, PATIENT_P2);
+
+		// Verify
+		logAllStringIndexes();
+		List<String> stringsSpParams = getIndexedSearchParameters(myResourceIndexedSearchParamStringDao);
+		assertThat(stringsSpParams).as(stringsSpParams.toString())
+			.containsExactlyInAnyOrder("subject.organization.name Springfield Hospital");
+	}
+
+	@Test
+	public void testSearch_UsingUpliftRefchain_DoubleChain_MultiLevelUplift() {
+		// Setup
+
+		createSearchParam_EncounterSubject_WithUpliftOnName("name", "organization.name");
+
+		createOrganizationO1_SpringfieldHospital();
+		createPractitionerPr1_BarneyGumble();
+		createPatientP1_HomerSimpson(ORGANIZATION_O1);
+		createPatientP2_MargeSimpson();
+		createEncounter(ENCOUNTER_E1, PATIENT_P1);
+		createEncounter(ENCOUNTER_E2, PATIENT_P2);
+
+		// Test
+
+		SearchParameterMap map = SearchParameterMap
+			.newSynchronous("subject", new ReferenceParam("organization.name", "springfield"));
+		myCaptureQueriesListener.clear();
+		IBundleProvider outcome = myEncounterDao.search(map, mySrd);
+
+		// Verify
+		List<String> actual = toUnqualifiedVersionlessIdValues(outcome);
+		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
+		assertThat(actual).containsExactly(ENCOUNTER_E1);
+		String querySql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(true, false);
+		assertThat(countMatches(querySql, "HFJ_SPIDX_STRING")).as(querySql).isEqualTo(1);
+		assertThat(countMatches(querySql, "HASH_NORM_PREFIX")).as(querySql).isEqualTo(1);
+		assertThat(countMatches(querySql, "HFJ_RES_LINK")).as(querySql).isEqualTo(0);
+	}
+
+	/**
+	 * A multi-level chain mixed with one which isn't uplifted can't use the
+	 * uplifted index, so both should be searched normally
+	 */
+	@Test
+	public void testSearch_UsingUpliftRefchain_DoubleChain_MixedWithNonUplifted() {
+		// Setup
+
+		createSearchParam_EncounterSubject_WithUpliftOnName("organization.name");
+
+		createOrganizationO1_SpringfieldHospital();
+		createPractitionerPr1_BarneyGumble();
+		createPatientP1_HomerSimpson(ORGANIZATION_O1);
+		createPatientP2_MargeSimpson();
+		createEncounter(ENCOUNTER_E1, PATIENT_P1);
+		createEncounter(ENCOUNTER_E2, PATIENT_P2);
+
+		// Test
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous();
+		map.add("subject", new ReferenceOrListParam()
+			.addOr(new ReferenceParam("organization.name", "springfield"))
+			.addOr(new ReferenceParam("organization.identifier", "http://foo|bar")));
+		IBundleProvider outcome = myEncounterDao.search(map, mySrd);
+
+		// Verify
+		assertThat(toUnqualifiedVersionlessIdValues(outcome)).containsExactly(ENCOUNTER_E1);
+	}
+
 	@Test
 	public void testSearch_SortOnUpliftRefchain_SingleChain() {
 		// Setup
@@ -1015,10 +1098,16 @@ public class UpliftedRefchainsAndChainedSortingR5Test extends BaseJpaR5Test {
 	}
 
 	private void createSearchParam_EncounterSubject_WithUpliftOnName() {
+		createSearchParam_EncounterSubject_WithUpliftOnName("name");
+	}
+
+	private void createSearchParam_EncounterSubject_WithUpliftOnName(String... theCodes) {
 		RuntimeSearchParam subjectSp = mySearchParamRegistry.getRuntimeSearchParam("Encounter", "subject", null);
 		SearchParameter sp = new SearchParameter();
-		Extension upliftRefChain = sp.addExtension().setUrl(HapiExtensions.EXTENSION_SEARCHPARAM_UPLIFT_REFCHAIN);
-		upliftRefChain.addExtension(HapiExtensions.EXTENSION_SEARCHPARAM_UPLIFT_REFCHAIN_PARAM_CODE, new CodeType("name"));
+		for (String code : theCodes) {
+			Extension upliftRefChain = sp.addExtension().setUrl(HapiExtensions.EXTENSION_SEARCHPARAM_UPLIFT_REFCHAIN);
+			upliftRefChain.addExtension(HapiExtensions.EXTENSION_SEARCHPARAM_UPLIFT_REFCHAIN_PARAM_CODE, new CodeType(code));
+		}
 
 		sp.setId(subjectSp.getId());
 		sp.setCode(subjectSp.getName());
@@ -107,6 +107,30 @@ public interface IBundleProvider {
 		return null;
 	}
 
+	/**
+	 * Returns <code>true</code> if the results in this bundle were produced using a keyset (seek)
+	 * query, where each page starts after the sort key of the last result on the previous page. If so,
+	 * {@link #getCurrentPageOffset()} and {@link #getCurrentPageSize()} must also return non-null values,
+	 * and the server will form next links that use <code>_searchAfter</code> (see
+	 * {@link #getNextPageSearchAfter()}) instead of <code>_offset</code>. No previous links are formed.
+	 *
+	 * @since 8.4.0
+	 */
+	default boolean isKeysetPaging() {
+		return false;
+	}
+
+	/**
+	 * If {@link #isKeysetPaging()} returns <code>true</code>, returns the opaque key to pass as the
+	 * <code>_searchAfter</code> parameter in order to fetch the next page, or <code>null</code> if
+	 * this is the last page.
+	 *
+	 * @since 8.4.0
+	 */
+	default String getNextPageSearchAfter() {
+		return null;
+	}
+
 	/**
 	 * Returns the instant as of which this result was created. The
 	 * result of this value is used to populate the <code>lastUpdated</code>
@@ -268,22 +268,63 @@ public class RestfulServerUtils {
 		params.put(Constants.PARAM_OFFSET, new String[] {String.valueOf(theOffset)});
 		params.put(Constants.PARAM_COUNT, new String[] {String.valueOf(theCount)});
 
+		appendSortedParameters(b, params);
+
+		return b.toString();
+	}
+
+	/**
+	 * Creates a link to the next page of a keyset paged search, which repeats the original
+	 * request with the given <code>_searchAfter</code> key in place of any <code>_offset</code>
+	 *
+	 * @since 8.4.0
+	 */
+	public static String createSearchAfterPagingLink(
+			BundleLinks theBundleLinks,
+			String requestPath,
+			String tenantId,
+			String theSearchAfter,
+			Integer theCount,
+			Map<String, String[]> theRequestParameters) {
+		StringBuilder b = new StringBuilder();
+		b.append(theBundleLinks.serverBase);
+
+		if (isNotBlank(requestPath)) {
+			b.append('/');
+			if (isNotBlank(tenantId) && requestPath.startsWith(tenantId + "/")) {
+				b.append(requestPath.substring(tenantId.length() + 1));
+			} else {
+				b.append(requestPath);
+			}
+		}
+
+		Map<String, String[]> params = Maps.newLinkedHashMap(theRequestParameters);
+		params.remove(Constants.PARAM_OFFSET);
+		params.put(Constants.PARAM_SEARCH_AFTER, new String[] {theSearchAfter});
+		if (theCount != null) {
+			params.put(Constants.PARAM_COUNT, new String[] {String.valueOf(theCount)});
+		}
+
+		appendSortedParameters(b, params);
+
+		return b.toString();
+	}
+
+	private static void appendSortedParameters(StringBuilder theBuilder, Map<String, String[]> theParams) {
 		boolean first = true;
-		for (String nextParamName : new TreeSet<>(params.keySet())) {
-			for (String nextParamValue : params.get(nextParamName)) {
+		for (String nextParamName : new TreeSet<>(theParams.keySet())) {
+			for (String nextParamValue : theParams.get(nextParamName)) {
 				if (first) {
-					b.append('?');
+					theBuilder.append('?');
 					first = false;
 				} else {
-					b.append('&');
+					theBuilder.append('&');
 				}
-				b.append(UrlUtil.escapeUrlParam(nextParamName));
-				b.append('=');
-				b.append(UrlUtil.escapeUrlParam(nextParamValue));
+				theBuilder.append(UrlUtil.escapeUrlParam(nextParamName));
+				theBuilder.append('=');
+				theBuilder.append(UrlUtil.escapeUrlParam(nextParamValue));
 			}
 		}
-
-		return b.toString();
 	}
 
 	public static String createPagingLink(
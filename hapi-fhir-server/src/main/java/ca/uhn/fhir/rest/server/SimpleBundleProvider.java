@@ -41,6 +41,8 @@ public class SimpleBundleProvider implements IBundleProvider {
 	private IPrimitiveType<Date> myPublished = InstantDt.withCurrentTime();
 	private Integer myCurrentPageOffset;
 	private Integer myCurrentPageSize;
+	private boolean myKeysetPaging;
+	private String myNextPageSearchAfter;
 	private ResponsePage.ResponsePageBuilder myPageBuilder;
 
 	/**
@@ -127,6 +129,36 @@ public class SimpleBundleProvider implements IBundleProvider {
 		myCurrentPageSize = theCurrentPageSize;
 	}
 
+	/**
+	 * @since 8.4.0
+	 */
+	@Override
+	public boolean isKeysetPaging() {
+		return myKeysetPaging;
+	}
+
+	/**
+	 * @since 8.4.0
+	 */
+	public void setKeysetPaging(boolean theKeysetPaging) {
+		myKeysetPaging = theKeysetPaging;
+	}
+
+	/**
+	 * @since 8.4.0
+	 */
+	@Override
+	public String getNextPageSearchAfter() {
+		return myNextPageSearchAfter;
+	}
+
+	/**
+	 * @since 8.4.0
+	 */
+	public void setNextPageSearchAfter(String theNextPageSearchAfter) {
+		myNextPageSearchAfter = theNextPageSearchAfter;
+	}
+
 	/**
 	 * Returns the results stored in this provider
 	 */
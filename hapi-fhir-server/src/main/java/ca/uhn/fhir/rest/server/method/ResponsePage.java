@@ -161,7 +161,9 @@ public class ResponsePage {
 			return;
 		}
 
-		if (isBundleProviderOffsetPaging()) {
+		if (myBundleProvider != null && myBundleProvider.isKeysetPaging()) {
+			myPagingStyle = PagingStyle.KEYSET;
+		} else if (isBundleProviderOffsetPaging()) {
 			myPagingStyle = PagingStyle.BUNDLE_PROVIDER_OFFSETS;
 		} else if (myIsUsingOffsetPages) {
 			myPagingStyle = PagingStyle.NONCACHED_OFFSET;
@@ -197,6 +199,8 @@ public class ResponsePage {
 	private boolean hasNextPage() {
 		determinePagingStyle();
 		switch (myPagingStyle) {
+			case KEYSET:
+				return StringUtils.isNotBlank(myBundleProvider.getNextPageSearchAfter());
 			case BUNDLE_PROVIDER_OFFSETS:
 			case BUNDLE_PROVIDER_PAGE_IDS:
 				return StringUtils.isNotBlank(myBundleProvider.getNextPageId());
@@ -275,6 +279,15 @@ public class ResponsePage {
 		if (hasNextPage()) {
 			String next;
 			switch (myPagingStyle) {
+				case KEYSET:
+					next = RestfulServerUtils.createSearchAfterPagingLink(
+							theLinks,
+							myResponseBundleRequest.requestDetails.getRequestPath(),
+							myResponseBundleRequest.requestDetails.getTenantId(),
+							myBundleProvider.getNextPageSearchAfter(),
+							myRequestedPage.limit,
+							myResponseBundleRequest.getRequestParameters());
+					break;
 				case BUNDLE_PROVIDER_OFFSETS:
 					next = RestfulServerUtils.createOffsetPagingLink(
 							theLinks,
@@ -490,6 +503,9 @@ public class ResponsePage {
 
 	/**
 	 * First we determine what kind of paging we use:
+	 * * Keyset				- the bundle provider produced the page using a keyset (seek) query and
+	 * 							provides the key that the next page starts after. Only next links
+	 * 							are available.
 	 * * Bundle Provider Offsets - the bundle provider has offset counts that it uses
 	 * 							to determine the page. For legacy reasons, it's not enough
 	 * 							that the bundle provider has a currentOffsetPage. Sometimes
@@ -505,6 +521,11 @@ public class ResponsePage {
 	 * 							uses to page through results.
 	 */
 	private enum PagingStyle {
+		/**
+		 * Paging is done by keyset; the bundle provider
+		 * provides the sort key of the last result on the page
+		 */
+		KEYSET,
 		/**
 		 * Paging is done by offsets; pages are not cached
 		 */
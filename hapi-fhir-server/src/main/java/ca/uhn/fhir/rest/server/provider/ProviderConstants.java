@@ -195,6 +195,11 @@ public class ProviderConstants {
 	 */
 	public static final String OPERATION_REINDEX_DRYRUN = "$reindex-dryrun";
 
+	/**
+	 * Operation name for the $search-statistics operation
+	 */
+	public static final String OPERATION_SEARCH_STATISTICS = "$search-statistics";
+
 	/**
 	 * Operation name for the $invalidate-expansion operation
 	 */
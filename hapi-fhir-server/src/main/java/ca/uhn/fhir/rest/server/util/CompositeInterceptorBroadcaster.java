@@ -31,6 +31,7 @@ import jakarta.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -77,14 +78,29 @@ public class CompositeInterceptorBroadcaster implements IInterceptorBroadcaster
 	@Override
 	@Nonnull
 	public List<IInvoker> getInvokersForPointcut(Pointcut thePointcut) {
-		List<IInvoker> invokers = new ArrayList<>();
+		List<IInvoker> firstServiceInvokers = null;
+		List<IInvoker> invokers = null;
 		for (IInterceptorBroadcaster services : myServices) {
 			if (services.hasHooks(thePointcut)) {
 				List<IInvoker> serviceInvokers = services.getInvokersForPointcut(thePointcut);
 				assert serviceInvokers != null;
-				invokers.addAll(serviceInvokers);
+				if (firstServiceInvokers == null) {
+					firstServiceInvokers = serviceInvokers;
+				} else {
+					if (invokers == null) {
+						invokers = new ArrayList<>(firstServiceInvokers.size() + serviceInvokers.size());
+						invokers.addAll(firstServiceInvokers);
+					}
+					invokers.addAll(serviceInvokers);
+				}
 			}
 		}
+
+		// The invokers from a single service are already sorted, so there is
+		// only any need to merge and sort when more than one service has hooks
+		if (invokers == null) {
+			return firstServiceInvokers != null ? firstServiceInvokers : Collections.emptyList();
+		}
 		invokers.sort(Comparator.naturalOrder());
 		return invokers;
 	}
@@ -24,6 +24,7 @@ import ca.uhn.fhir.i18n.Msg;
 
 import java.util.Iterator;
 import java.util.ServiceLoader;
+import java.util.function.ToIntFunction;
 
 @SuppressWarnings("unchecked")
 public class CacheFactory {
@@ -67,4 +68,10 @@ public class CacheFactory {
 		CacheProvider<K, V> cacheProvider = getCacheProvider();
 		return cacheProvider.create(theTimeoutMillis, theMaximumSize, cacheLoader);
 	}
+
+	public static <K, V> Cache<K, V> buildWeighted(
+			long theExpireAfterAccessMillis, long theMaximumWeight, ToIntFunction<V> theWeigher) {
+		CacheProvider<K, V> cacheProvider = getCacheProvider();
+		return cacheProvider.createWeighted(theExpireAfterAccessMillis, theMaximumWeight, theWeigher);
+	}
 }
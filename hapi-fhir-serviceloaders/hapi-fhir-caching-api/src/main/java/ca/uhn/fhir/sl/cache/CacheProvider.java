@@ -20,6 +20,10 @@ package ca.uhn.fhir.sl.cache;
  * #L%
  */
 
+import ca.uhn.fhir.i18n.Msg;
+
+import java.util.function.ToIntFunction;
+
 public interface CacheProvider<K, V> {
 	Cache create(long timeoutMillis);
 
@@ -30,4 +34,15 @@ public interface CacheProvider<K, V> {
 	LoadingCache create(long timeoutMillis, CacheLoader<K, V> cacheLoader);
 
 	LoadingCache create(long timeoutMillis, long maximumSize, CacheLoader<K, V> cacheLoader);
+
+	/**
+	 * Creates a cache which is bounded by the total weight of its values rather than by the number of
+	 * entries, and which removes entries that have not been read or written for the given time.
+	 *
+	 * @since 8.4.0
+	 */
+	default Cache createWeighted(long expireAfterAccessMillis, long maximumWeight, ToIntFunction<V> weigher) {
+		throw new UnsupportedOperationException(
+				Msg.code(2810) + "Cache provider " + getClass().getName() + " does not support weighted caches");
+	}
 }
@@ -21,6 +21,7 @@ import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class CacheLoaderTest {
@@ -56,4 +57,15 @@ public class CacheLoaderTest {
 		});
 		assertNull(cache.get("1"));
 	}
+
+	@Order(2)
+	@Test
+	void weightedCacheTest() {
+		Cache<Integer, byte[]> cache = CacheFactory.buildWeighted(60000, 1000, v -> v.length);
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, new byte[100]);
+		}
+		cache.cleanUp();
+		assertTrue(cache.estimatedSize() <= 10);
+	}
 }
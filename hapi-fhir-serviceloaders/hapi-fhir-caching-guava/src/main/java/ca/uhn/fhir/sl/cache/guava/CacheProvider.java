@@ -26,6 +26,7 @@ import ca.uhn.fhir.sl.cache.LoadingCache;
 import com.google.common.cache.CacheBuilder;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 
 public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K, V> {
 
@@ -72,4 +73,13 @@ public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K
 					}
 				}));
 	}
+
+	@Override
+	public Cache<K, V> createWeighted(long expireAfterAccessMillis, long maximumWeight, ToIntFunction<V> weigher) {
+		return new CacheDelegator<K, V>(CacheBuilder.newBuilder()
+				.expireAfterAccess(expireAfterAccessMillis, TimeUnit.MILLISECONDS)
+				.maximumWeight(maximumWeight)
+				.<K, V>weigher((k, v) -> weigher.applyAsInt(v))
+				.build());
+	}
 }
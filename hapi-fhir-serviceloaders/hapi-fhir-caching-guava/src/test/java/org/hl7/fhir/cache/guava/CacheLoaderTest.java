@@ -1,10 +1,12 @@
 package ca.uhn.fhir.sl.cache.guava;
 
+import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheFactory;
 import ca.uhn.fhir.sl.cache.LoadingCache;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CacheLoaderTest {
 	@Test
@@ -14,4 +16,14 @@ public class CacheLoaderTest {
 		});
 		assertNull(cache.get("1"));
 	}
+
+	@Test
+	void weightedCacheTest() {
+		Cache<Integer, byte[]> cache = CacheFactory.buildWeighted(60000, 1000, v -> v.length);
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, new byte[100]);
+		}
+		cache.cleanUp();
+		assertTrue(cache.estimatedSize() <= 10);
+	}
 }
@@ -179,6 +179,61 @@ public class JpaStorageSettings extends StorageSettings {
 	 * update setter javadoc if default changes
 	 */
 	private long myExpireSearchResultsAfterMillis = DateUtils.MILLIS_PER_HOUR;
+
+	private SearchResultStorageEnum mySearchResultStorage = SearchResultStorageEnum.DATABASE;
+	private String mySearchResultStorageDirectory;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private long mySearchResultStorageMaximumMemoryBytes = 64 * FileUtils.ONE_MB;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private int mySearchResultLoadingParallelism = 1;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private boolean myResourceIdentityNearCacheEnabled = false;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private boolean mySearchQueryPlanCacheEnabled = false;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private boolean myKeysetPagingEnabled = false;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private boolean mySearchParameterStatisticsEnabled = false;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private int mySearchParameterStatisticsSynchronousThreshold = 0;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private long mySearchParameterStatisticsRefreshIntervalMillis = 10 * DateUtils.MILLIS_PER_MINUTE;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private long mySearchCountViewMaxStalenessMillis = 0;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private boolean myBatchedIndexWritesEnabled = false;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private int myTransactionIndexingParallelism = 1;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private Integer myTransactionWriteJdbcBatchSize = null;
+	/**
+	 * update setter javadoc if default changes
+	 */
+	private Set<Integer> myAppendOnlyPartitionIds = Collections.emptySet();
 	/**
 	 * update setter javadoc if default changes
 	 */
@@ -960,6 +1015,461 @@ public class JpaStorageSettings extends StorageSettings {
 		myExpireSearchResultsAfterMillis = theExpireSearchResultsAfterMillis;
 	}
 
+	/**
+	 * Where the result PIDs of searches are stored so that they can be paged over multiple requests.
+	 * See {@link #setSearchResultStorage(SearchResultStorageEnum)} for details.
+	 *
+	 * @since 8.4.0
+	 */
+	public SearchResultStorageEnum getSearchResultStorage() {
+		return mySearchResultStorage;
+	}
+
+	/**
+	 * Where the result PIDs of searches are stored so that they can be paged over multiple requests.
+	 * By default ({@link SearchResultStorageEnum#DATABASE}) a row is written to the
+	 * <code>HFJ_SEARCH_RESULT</code> table for each result. The other options store a compact encoded
+	 * list of PIDs outside of the database instead, which removes a large share of the write load
+	 * on the database for servers which handle many paged searches.
+	 * <p>
+	 * This setting is read when the server starts, changing it afterward has no effect.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchResultStorage(@Nonnull SearchResultStorageEnum theSearchResultStorage) {
+		Validate.notNull(theSearchResultStorage, "theSearchResultStorage must not be null");
+		mySearchResultStorage = theSearchResultStorage;
+	}
+
+	/**
+	 * The directory used to store search results if {@link #getSearchResultStorage()} is
+	 * {@link SearchResultStorageEnum#FILE_SYSTEM}
+	 *
+	 * @since 8.4.0
+	 */
+	public String getSearchResultStorageDirectory() {
+		return mySearchResultStorageDirectory;
+	}
+
+	/**
+	 * The directory used to store search results if {@link #getSearchResultStorage()} is
+	 * {@link SearchResultStorageEnum#FILE_SYSTEM}. The directory is created if it does not exist.
+	 * When several servers are clustered, every server must use the same shared directory (e.g. a
+	 * network file system mount), since otherwise a search can only be paged on the server which
+	 * performed it.
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchResultStorageDirectory(String theSearchResultStorageDirectory) {
+		mySearchResultStorageDirectory = theSearchResultStorageDirectory;
+	}
+
+	/**
+	 * The maximum number of bytes of encoded search results to hold in memory if
+	 * {@link #getSearchResultStorage()} is not {@link SearchResultStorageEnum#DATABASE}.
+	 * Default is 64 MB.
+	 *
+	 * @since 8.4.0
+	 */
+	public long getSearchResultStorageMaximumMemoryBytes() {
+		return mySearchResultStorageMaximumMemoryBytes;
+	}
+
+	/**
+	 * The maximum number of bytes of encoded search results to hold in memory if
+	 * {@link #getSearchResultStorage()} is not {@link SearchResultStorageEnum#DATABASE}.
+	 * Most results take two to three bytes each, so the default of 64 MB holds
+	 * roughly twenty million results.
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchResultStorageMaximumMemoryBytes(long theSearchResultStorageMaximumMemoryBytes) {
+		Validate.isTrue(
+				theSearchResultStorageMaximumMemoryBytes > 0,
+				"theSearchResultStorageMaximumMemoryBytes must be positive");
+		mySearchResultStorageMaximumMemoryBytes = theSearchResultStorageMaximumMemoryBytes;
+	}
+
+	/**
+	 * The maximum number of threads used to load and parse the resources for a page of search
+	 * results. Default is 1, meaning that resources are loaded and parsed on the thread
+	 * handling the request.
+	 *
+	 * @since 8.4.0
+	 */
+	public int getSearchResultLoadingParallelism() {
+		return mySearchResultLoadingParallelism;
+	}
+
+	/**
+	 * The maximum number of threads used to load and parse the resources for a page of search
+	 * results. If set to a value greater than 1, the resource PIDs for a page of results (including
+	 * <code>_include</code> and <code>$everything</code> results) are split into chunks which are
+	 * fetched concurrently, each using its own database connection, and parsed on a shared pool of
+	 * this many worker threads. Results are returned in the same order as when loading sequentially.
+	 * <p>
+	 * Parallel loading is only used when the resources are being loaded in a read-only transaction,
+	 * since the worker threads can not see uncommitted changes made by the calling transaction. Since
+	 * each worker uses a database connection, the connection pool should be sized to allow for this.
+	 * </p>
+	 * <p>
+	 * Default is 1, meaning that resources are loaded and parsed on the thread handling the request.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchResultLoadingParallelism(int theSearchResultLoadingParallelism) {
+		Validate.isTrue(theSearchResultLoadingParallelism >= 1, "theSearchResultLoadingParallelism must be at least 1");
+		mySearchResultLoadingParallelism = theSearchResultLoadingParallelism;
+	}
+
+	/**
+	 * If enabled, resource identities (the mapping between a resource type and FHIR ID and the
+	 * internal PID) are cached even when deletes are enabled, and entries are invalidated across
+	 * the cluster whenever the deleted status of a resource changes.
+	 *
+	 * @since 8.4.0
+	 */
+	public boolean isResourceIdentityNearCacheEnabled() {
+		return myResourceIdentityNearCacheEnabled;
+	}
+
+	/**
+	 * If enabled, resource identities (the mapping between a resource type and FHIR ID and the
+	 * internal PID) are cached even when deletes are enabled. Normally the identity cache is only
+	 * used for references and conditional operations when {@link #setDeleteEnabled(boolean) deletes are disabled},
+	 * since otherwise a cached entry could hide the fact that a resource has since been deleted.
+	 * <p>
+	 * When this setting is enabled, every change to the deleted status of a resource (a delete, or
+	 * an update that brings a deleted resource back) evicts the corresponding entry on the local
+	 * server immediately, and on every other server in the cluster once the transaction commits
+	 * by publishing an invalidation message using the {@link ca.uhn.fhir.broker.api.IBrokerClient}.
+	 * Expunge operations invalidate the whole cache on all servers. The broker channel must
+	 * deliver every message to every server in the cluster (i.e. it must behave like a topic
+	 * rather than a work queue), otherwise servers may keep stale entries for up to one hour.
+	 * </p>
+	 * <p>
+	 * This setting must be configured before the server is started.
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setResourceIdentityNearCacheEnabled(boolean theResourceIdentityNearCacheEnabled) {
+		myResourceIdentityNearCacheEnabled = theResourceIdentityNearCacheEnabled;
+	}
+
+	/**
+	 * If enabled, the SQL generated for a search is cached and reused by later searches with the
+	 * same shape (the same parameters, modifiers, prefixes, number of values, sort, etc. but
+	 * possibly different values).
+	 *
+	 * @since 8.4.0
+	 */
+	public boolean isSearchQueryPlanCacheEnabled() {
+		return mySearchQueryPlanCacheEnabled;
+	}
+
+	/**
+	 * If enabled, the SQL generated for a search is cached and reused by later searches with the
+	 * same shape (the same parameters, modifiers, prefixes, number of values, sort, etc. but
+	 * possibly different values). The query still needs to be planned for every search in order to
+	 * produce the bind variable values, but rendering the SQL text is skipped when the shape has
+	 * been seen before. Searches using chained references, <code>_has</code>, <code>_filter</code>,
+	 * <code>_text</code>, <code>_content</code>, <code>_list</code> and <code>$everything</code>
+	 * are never cached.
+	 * <p>
+	 * Cached SQL is not invalidated if other settings which affect the structure of the generated
+	 * SQL are changed while the server is running, so this setting should only be enabled on servers
+	 * whose configuration does not change after startup.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchQueryPlanCacheEnabled(boolean theSearchQueryPlanCacheEnabled) {
+		mySearchQueryPlanCacheEnabled = theSearchQueryPlanCacheEnabled;
+	}
+
+	/**
+	 * If enabled, searches sorted on only <code>_lastUpdated</code> or only <code>_id</code> are paged
+	 * using keyset (seek) queries.
+	 *
+	 * @since 8.4.0
+	 */
+	public boolean isKeysetPagingEnabled() {
+		return myKeysetPagingEnabled;
+	}
+
+	/**
+	 * If enabled, searches sorted on only <code>_lastUpdated</code> or only <code>_id</code> (ascending or
+	 * descending) which specify a page size and no <code>_offset</code> are paged using keyset (seek) queries.
+	 * These searches are performed synchronously, so their results are never stored in the search cache.
+	 * The next link carries the sort key of the last result on the page in a <code>_searchAfter</code>
+	 * parameter, and the next page is fetched with a predicate that starts after that key. This means that
+	 * the cost of fetching a page does not grow with its depth, unlike <code>_offset</code> paging. Only
+	 * next links are provided.
+	 * <p>
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setKeysetPagingEnabled(boolean theKeysetPagingEnabled) {
+		myKeysetPagingEnabled = theKeysetPagingEnabled;
+	}
+
+	/**
+	 * If enabled, the number of index rows for each search parameter is periodically sampled
+	 * and used when planning searches.
+	 *
+	 * @since 8.4.0
+	 */
+	public boolean isSearchParameterStatisticsEnabled() {
+		return mySearchParameterStatisticsEnabled;
+	}
+
+	/**
+	 * If enabled, the number of rows in each of the <code>HFJ_SPIDX_*</code> index tables is
+	 * periodically sampled for each search parameter (by hash identity), along with the number
+	 * of resources of each type. These statistics are used to:
+	 * <ul>
+	 * <li>Join the most selective search parameters first</li>
+	 * <li>Use a subquery instead of a join for token parameters which have more index rows than
+	 * there are resources of the given type, since joining them multiplies the intermediate rows</li>
+	 * <li>Perform searches synchronously if they are estimated to fit in a single page (see
+	 * {@link #setSearchParameterStatisticsSynchronousThreshold(int)})</li>
+	 * </ul>
+	 * The statistics can be inspected using the <code>$search-statistics</code> operation.
+	 * <p>
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchParameterStatisticsEnabled(boolean theSearchParameterStatisticsEnabled) {
+		mySearchParameterStatisticsEnabled = theSearchParameterStatisticsEnabled;
+	}
+
+	/**
+	 * @see #setSearchParameterStatisticsSynchronousThreshold(int)
+	 * @since 8.4.0
+	 */
+	public int getSearchParameterStatisticsSynchronousThreshold() {
+		return mySearchParameterStatisticsSynchronousThreshold;
+	}
+
+	/**
+	 * If {@link #setSearchParameterStatisticsEnabled(boolean) search parameter statistics} are enabled
+	 * and this is set to a value greater than zero, searches which are estimated to match no more than
+	 * this number of resources (and no more than a single page of results) are performed synchronously,
+	 * so their results are never stored in the search cache. If a search turns out to match more
+	 * results than a single page, it falls back to a normal asynchronous search before any resources
+	 * are loaded.
+	 * <p>
+	 * Default is <code>0</code>, meaning that the statistics are never used to pick synchronous searches.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchParameterStatisticsSynchronousThreshold(
+			int theSearchParameterStatisticsSynchronousThreshold) {
+		mySearchParameterStatisticsSynchronousThreshold = theSearchParameterStatisticsSynchronousThreshold;
+	}
+
+	/**
+	 * @see #setSearchParameterStatisticsRefreshIntervalMillis(long)
+	 * @since 8.4.0
+	 */
+	public long getSearchParameterStatisticsRefreshIntervalMillis() {
+		return mySearchParameterStatisticsRefreshIntervalMillis;
+	}
+
+	/**
+	 * If {@link #setSearchParameterStatisticsEnabled(boolean) search parameter statistics} are enabled,
+	 * this is the minimum time between samples. Sampling is performed by a clustered job, so only one
+	 * server samples the statistics, and the other servers load the result from the database.
+	 * <p>
+	 * Default is 10 minutes.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchParameterStatisticsRefreshIntervalMillis(
+			long theSearchParameterStatisticsRefreshIntervalMillis) {
+		Validate.isTrue(
+				theSearchParameterStatisticsRefreshIntervalMillis > 0,
+				"theSearchParameterStatisticsRefreshIntervalMillis must be positive");
+		mySearchParameterStatisticsRefreshIntervalMillis = theSearchParameterStatisticsRefreshIntervalMillis;
+	}
+
+	/**
+	 * @see #setSearchCountViewMaxStalenessMillis(long)
+	 * @since 8.4.0
+	 */
+	public long getSearchCountViewMaxStalenessMillis() {
+		return mySearchCountViewMaxStalenessMillis;
+	}
+
+	/**
+	 * Count views (registered with <code>SearchCountViewSvc</code>) whose criteria can be evaluated
+	 * in memory are kept exact as resources are created, updated and deleted. Other count views, and
+	 * views affected by an update whose previous contents aren't known (e.g. in mass ingestion mode), are
+	 * marked as changed and recounted in the background. This setting controls how long such a view may
+	 * still be used after it has changed. If it is older than this, searches perform a normal count query
+	 * until the view has been recounted.
+	 * <p>
+	 * Default is <code>0</code>, meaning that changed views are never used. Changes which bypass the
+	 * storage pointcuts (e.g. <code>$delete-expunge</code>) are not reflected until the next periodic
+	 * recount of the view regardless of this setting.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setSearchCountViewMaxStalenessMillis(long theSearchCountViewMaxStalenessMillis) {
+		mySearchCountViewMaxStalenessMillis = theSearchCountViewMaxStalenessMillis;
+	}
+
+	/**
+	 * @see #setBatchedIndexWritesEnabled(boolean)
+	 * @since 8.4.0
+	 */
+	public boolean isBatchedIndexWritesEnabled() {
+		return myBatchedIndexWritesEnabled;
+	}
+
+	/**
+	 * If enabled, newly created and removed search parameter index rows (the <code>HFJ_SPIDX_xxx</code>
+	 * tables) are not persisted as individual Hibernate entities. Instead they are collected as plain
+	 * rows and written using one JDBC batch per table just before the transaction commits. This
+	 * significantly reduces the overhead of ingesting large numbers of resources, e.g. using large
+	 * transaction bundles.
+	 * <p>
+	 * Because the rows are only written at commit, searches performed later in the same
+	 * transaction will not see the index rows of resources written earlier in that transaction.
+	 * Resource links and combo indexes are always persisted as entities.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setBatchedIndexWritesEnabled(boolean theBatchedIndexWritesEnabled) {
+		myBatchedIndexWritesEnabled = theBatchedIndexWritesEnabled;
+	}
+
+	/**
+	 * @see #setTransactionIndexingParallelism(int)
+	 * @since 8.4.0
+	 */
+	public int getTransactionIndexingParallelism() {
+		return myTransactionIndexingParallelism;
+	}
+
+	/**
+	 * The maximum number of threads used to extract search parameter indexes from the resources
+	 * in a FHIR transaction. If set to a value greater than 1, once all placeholder references in
+	 * the transaction have been resolved, the (non-reference) search parameter values for all
+	 * resources are extracted concurrently on a shared pool of this many worker threads. The
+	 * resources are then stored one at a time on the thread handling the request, as before.
+	 * <p>
+	 * Resources with references that are automatically versioned are always indexed on the
+	 * thread handling the request, since their references depend on other resources being stored first.
+	 * The same applies to updated resources if any <code>STORAGE_PRESTORAGE_RESOURCE_UPDATED</code>
+	 * hooks are registered, since these may modify the resources just before they are stored.
+	 * </p>
+	 * <p>
+	 * Default is 1, meaning that all indexing happens on the thread handling the request.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setTransactionIndexingParallelism(int theTransactionIndexingParallelism) {
+		Validate.isTrue(theTransactionIndexingParallelism >= 1, "theTransactionIndexingParallelism must be at least 1");
+		myTransactionIndexingParallelism = theTransactionIndexingParallelism;
+	}
+
+	/**
+	 * @see #setTransactionWriteJdbcBatchSize(Integer)
+	 * @since 8.4.0
+	 */
+	public Integer getTransactionWriteJdbcBatchSize() {
+		return myTransactionWriteJdbcBatchSize;
+	}
+
+	/**
+	 * If set, the JDBC batch size used by Hibernate is overridden with this value while the write
+	 * operations of a FHIR transaction are being processed. Since inserts are ordered by table before
+	 * the session is flushed, the rows for {@literal HFJ_RESOURCE}, {@literal HFJ_RES_VER} and the tag
+	 * tables are each sent in batches of up to this many rows, so a value larger than the default
+	 * configured for Hibernate (30) reduces the number of database round trips for large transactions.
+	 * <p>
+	 * Version 2 of the bulk import job stores each chunk of resources as a FHIR transaction, so it
+	 * also uses this batch size. Version 1 jobs store each resource with a separate update, and are
+	 * not affected.
+	 * </p>
+	 * <p>
+	 * Resource PIDs are allocated in blocks by the sequence generator, so no additional queries
+	 * are needed to assign IDs to the rows being batched.
+	 * </p>
+	 * <p>
+	 * Default is <code>null</code>, meaning that the batch size configured for Hibernate
+	 * ({@literal hibernate.jdbc.batch_size}) is always used.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setTransactionWriteJdbcBatchSize(Integer theTransactionWriteJdbcBatchSize) {
+		Validate.isTrue(
+				theTransactionWriteJdbcBatchSize == null || theTransactionWriteJdbcBatchSize > 0,
+				"theTransactionWriteJdbcBatchSize must be positive");
+		myTransactionWriteJdbcBatchSize = theTransactionWriteJdbcBatchSize;
+	}
+
+	/**
+	 * Returns the IDs of the partitions in which resources are stored in append-only mode.
+	 *
+	 * @see #setAppendOnlyPartitionIds(Set)
+	 * @since 8.4.0
+	 */
+	@Nonnull
+	public Set<Integer> getAppendOnlyPartitionIds() {
+		return myAppendOnlyPartitionIds;
+	}
+
+	/**
+	 * Resources created in any of the partitions with the given IDs are stored in append-only mode.
+	 * This is intended for partitions receiving a high volume of resources which are never updated
+	 * after they are created, such as device Observations.
+	 * <p>
+	 * In append-only mode the resource row and its history row are committed synchronously, but the
+	 * search parameter index rows are not written by the request that creates the resource. Instead,
+	 * the resource is stored with a <code>null</code> index status and a scheduled job periodically
+	 * submits reindex batch jobs for these resources. Because batch jobs persist their work chunks,
+	 * resources are indexed eventually even if the server is restarted before this happens. Searches
+	 * will not find a newly created resource until it has been indexed, and search responses for these
+	 * partitions include an {@literal X-Indexed-Through} header indicating how current the indexes are.
+	 * References are also only checked when the resource is indexed, so a resource with an invalid
+	 * reference is stored and then marked as having failed indexing.
+	 * </p>
+	 * <p>
+	 * Conditional creates, as well as updates and deletes, are always indexed synchronously.
+	 * </p>
+	 * <p>
+	 * Default is an empty set, meaning that all resources are indexed synchronously.
+	 * </p>
+	 *
+	 * @since 8.4.0
+	 */
+	public void setAppendOnlyPartitionIds(@Nonnull Set<Integer> theAppendOnlyPartitionIds) {
+		Validate.notNull(theAppendOnlyPartitionIds, "theAppendOnlyPartitionIds must not be null");
+		myAppendOnlyPartitionIds = theAppendOnlyPartitionIds;
+	}
+
 	/**
 	 * Gets the default maximum number of results to load in a query.
 	 * <p>
@@ -1096,6 +1606,18 @@ public class JpaStorageSettings extends StorageSettings {
 		return myResourceEncoding;
 	}
 
+	/**
+	 * Sets the encoding used to store resource contents in the resource history table.
+	 * <p>
+	 * {@link ResourceEncodingEnum#SMILE} stores resources in the binary Smile format, which is
+	 * smaller than JSON text and is faster to parse when resources are read. Resources stored
+	 * with a different encoding remain readable, and can be converted by a reindex using the
+	 * <code>optimizeStorage</code> parameter.
+	 * </p>
+	 * <p>
+	 * Default is {@link ResourceEncodingEnum#JSONC}
+	 * </p>
+	 */
 	public void setResourceEncoding(ResourceEncodingEnum theResourceEncoding) {
 		myResourceEncoding = theResourceEncoding;
 	}
@@ -2827,6 +3349,34 @@ public class JpaStorageSettings extends StorageSettings {
 		ANY
 	}
 
+	/**
+	 * @since 8.4.0
+	 */
+	public enum SearchResultStorageEnum {
+
+		/**
+		 * Search results are stored in the <code>HFJ_SEARCH_RESULT</code> table, with one row per result
+		 */
+		DATABASE,
+
+		/**
+		 * Search results are stored in memory only, bounded by
+		 * {@link #setSearchResultStorageMaximumMemoryBytes(long)}. Searches whose results have been
+		 * evicted, or which were started by a different server, can not be paged and return
+		 * <code>410 Gone</code>, so this should only be used with a single server (or with
+		 * clients pinned to one server).
+		 */
+		MEMORY,
+
+		/**
+		 * Search results are stored in files in the directory given by
+		 * {@link #setSearchResultStorageDirectory(String)}, and the most recently used ones are also
+		 * held in memory. Searches remain pageable until they expire as long as every server in a
+		 * cluster uses the same (shared) directory.
+		 */
+		FILE_SYSTEM
+	}
+
 	public enum TagStorageModeEnum {
 
 		/**
@@ -1864,16 +1864,9 @@ public abstract class BaseTransactionProcessor {
 		FhirTerser terser = myContext.newTerser();
 		theTransactionStopWatch.startTask("Index " + theIdToPersistedOutcome.size() + " resources");
 		IdentityHashMap<DaoMethodOutcome, Set<IBaseReference>> deferredIndexesForAutoVersioning = null;
-		int i = 0;
+		List<DaoMethodOutcome> outcomesToIndexNow = new ArrayList<>();
 		for (DaoMethodOutcome nextOutcome : theIdToPersistedOutcome.values()) {
 
-			if (i++ % 250 == 0) {
-				ourLog.debug(
-						"Have indexed {} entities out of {} in transaction",
-						i,
-						theIdToPersistedOutcome.values().size());
-			}
-
 			if (nextOutcome.isNop()) {
 				continue;
 			}
@@ -1889,20 +1882,20 @@ public abstract class BaseTransactionProcessor {
 					BaseStorageDao.extractReferencesToAvoidReplacement(myContext, nextResource);
 
 			if (referencesToAutoVersion.isEmpty()) {
-				// no references to autoversion - we can do the resolve and save now
-				resolveReferencesThenSaveAndIndexResource(
-						theRequest,
+				/*
+				 * No references to autoversion - We can resolve the references now, since
+				 * they only depend on the placeholder IDs assigned when the entries were
+				 * first written, not on the outcome of saving other resources
+				 */
+				resolveReferences(
 						theTransactionDetails,
 						theIdSubstitutions,
 						theIdToPersistedOutcome,
-						theEntriesToProcess,
-						theNonUpdatedEntities,
-						theUpdatedEntities,
 						terser,
-						nextOutcome,
 						nextResource,
 						referencesToAutoVersion, // this is empty
 						referencesToKeepClientSuppliedVersion);
+				outcomesToIndexNow.add(nextOutcome);
 			} else {
 				// we have autoversioned things to defer until later
 				if (deferredIndexesForAutoVersioning == null) {
@@ -1912,6 +1905,38 @@ public abstract class BaseTransactionProcessor {
 			}
 		}
 
+		/*
+		 * All references are resolved, so CPU-bound indexing work can happen up front. Updated
+		 * resources are passed to STORAGE_PRESTORAGE_RESOURCE_UPDATED hooks as they are saved,
+		 * and these may modify them, so they are left out if any such hooks are registered.
+		 */
+		IInterceptorBroadcaster compositeBroadcaster =
+				CompositeInterceptorBroadcaster.newCompositeBroadcaster(myInterceptorBroadcaster, theRequest);
+		boolean haveUpdateHooks = compositeBroadcaster.hasHooks(Pointcut.STORAGE_PRESTORAGE_RESOURCE_UPDATED);
+		List<IBaseResource> resourcesToIndexNow = outcomesToIndexNow.stream()
+				.filter(t -> !haveUpdateHooks || !theUpdatedEntities.contains(t.getEntity()))
+				.map(DaoMethodOutcome::getResource)
+				.collect(Collectors.toList());
+		preIndexResources(theRequest, theTransactionDetails, resourcesToIndexNow);
+
+		int i = 0;
+		for (DaoMethodOutcome nextOutcome : outcomesToIndexNow) {
+			if (i++ % 250 == 0) {
+				ourLog.debug("Have indexed {} entities out of {} in transaction", i, outcomesToIndexNow.size());
+			}
+
+			saveAndIndexResource(
+					theRequest,
+					theTransactionDetails,
+					theIdSubstitutions,
+					theEntriesToProcess,
+					theNonUpdatedEntities,
+					theUpdatedEntities,
+					nextOutcome,
+					nextOutcome.getResource(),
+					Set.of());
+		}
+
 		// If we have any resources we'll be auto-versioning, index these next
 		if (deferredIndexesForAutoVersioning != null) {
 			for (Map.Entry<DaoMethodOutcome, Set<IBaseReference>> nextEntry :
@@ -1939,6 +1964,19 @@ public abstract class BaseTransactionProcessor {
 		}
 	}
 
+	/**
+	 * Subclasses may override this to perform CPU-bound indexing work for the given resources
+	 * (e.g. search parameter extraction) before they are saved one at a time. This is called
+	 * once all references in these resources have been resolved, and the resources will not
+	 * be modified by the transaction processor or passed to any hooks which could modify them
+	 * before they are saved. Results should be stored in the {@link TransactionDetails} so
+	 * that they can be picked up when each resource is saved.
+	 */
+	protected void preIndexResources(
+			RequestDetails theRequest, TransactionDetails theTransactionDetails, List<IBaseResource> theResources) {
+		// nothing
+	}
+
 	private void resolveReferencesThenSaveAndIndexResource(
 			RequestDetails theRequest,
 			TransactionDetails theTransactionDetails,
@@ -1952,6 +1990,38 @@ public abstract class BaseTransactionProcessor {
 			IBaseResource theResource,
 			Set<IBaseReference> theReferencesToAutoVersion,
 			Set<IBaseReference> theReferencesToKeepClientSuppliedVersion) {
+		resolveReferences(
+				theTransactionDetails,
+				theIdSubstitutions,
+				theIdToPersistedOutcome,
+				theTerser,
+				theResource,
+				theReferencesToAutoVersion,
+				theReferencesToKeepClientSuppliedVersion);
+		saveAndIndexResource(
+				theRequest,
+				theTransactionDetails,
+				theIdSubstitutions,
+				theEntriesToProcess,
+				theNonUpdatedEntities,
+				theUpdatedEntities,
+				theDaoMethodOutcome,
+				theResource,
+				theReferencesToAutoVersion);
+	}
+
+	/**
+	 * Replaces placeholder and conditional references and URIs in the resource
+	 * with the IDs assigned in this transaction
+	 */
+	private void resolveReferences(
+			TransactionDetails theTransactionDetails,
+			IdSubstitutionMap theIdSubstitutions,
+			Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome,
+			FhirTerser theTerser,
+			IBaseResource theResource,
+			Set<IBaseReference> theReferencesToAutoVersion,
+			Set<IBaseReference> theReferencesToKeepClientSuppliedVersion) {
 		// References
 		List<ResourceReferenceInfo> allRefs = theTerser.getAllResourceReferences(theResource);
 		for (ResourceReferenceInfo nextRef : allRefs) {
@@ -2064,7 +2134,18 @@ public abstract class BaseTransactionProcessor {
 				}
 			}
 		}
+	}
 
+	private void saveAndIndexResource(
+			RequestDetails theRequest,
+			TransactionDetails theTransactionDetails,
+			IdSubstitutionMap theIdSubstitutions,
+			EntriesToProcessMap theEntriesToProcess,
+			Set<IIdType> theNonUpdatedEntities,
+			Set<IBasePersistedResource> theUpdatedEntities,
+			DaoMethodOutcome theDaoMethodOutcome,
+			IBaseResource theResource,
+			Set<IBaseReference> theReferencesToAutoVersion) {
 		IPrimitiveType<Date> deletedInstantOrNull = ResourceMetadataKeyEnum.DELETED_AT.get(theResource);
 		Date deletedTimestampOrNull = deletedInstantOrNull != null ? deletedInstantOrNull.getValue() : null;
 
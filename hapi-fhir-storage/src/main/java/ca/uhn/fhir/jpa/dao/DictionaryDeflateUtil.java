@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.util.ClasspathUtil;
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses resource text using raw deflate with a preset dictionary of common FHIR JSON
+ * fragments. Because most stored resources are small, a plain GZip stream spends most of its
+ * output on content that the dictionary already contains (property names, coding systems, etc.).
+ * <p>
+ * The first byte of every compressed value is the version of the dictionary used to compress it.
+ * Dictionaries are loaded from the classpath and must <b>never</b> be modified once released,
+ * since stored values can only be decompressed with the exact dictionary used to compress them.
+ * Improved dictionaries must be added as a new version.
+ * </p>
+ */
+public class DictionaryDeflateUtil {
+
+	static final int CURRENT_DICTIONARY_VERSION = 1;
+
+	/**
+	 * Indexed by version. The SHA-256 of each dictionary is verified when it is loaded.
+	 */
+	private static final byte[][] ourDictionaries = {
+		null, loadDictionary(1, "7e6da053a9abc95d6e866784c696eba84a9cec0975980cb9085c0b129eccddc1")
+	};
+
+	/**
+	 * Non instantiable
+	 */
+	private DictionaryDeflateUtil() {}
+
+	public static byte[] compress(String theEncoded) {
+		byte[] input = theEncoded.getBytes(StandardCharsets.UTF_8);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			deflater.setDictionary(ourDictionaries[CURRENT_DICTIONARY_VERSION]);
+			deflater.setInput(input);
+			deflater.finish();
+
+			ByteArrayOutputStream os = new ByteArrayOutputStream(input.length / 4 + 16);
+			os.write(CURRENT_DICTIONARY_VERSION);
+			byte[] buffer = new byte[4096];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				os.write(buffer, 0, count);
+			}
+			return os.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	public static String decompress(byte[] theResource) {
+		int version = theResource.length > 0 ? theResource[0] : 0;
+		if (version <= 0 || version >= ourDictionaries.length) {
+			throw new DataFormatException(
+					Msg.code(2787) + "Failed to decompress contents, unknown dictionary version: " + version);
+		}
+
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setDictionary(ourDictionaries[version]);
+			inflater.setInput(theResource, 1, theResource.length - 1);
+
+			ByteArrayOutputStream os = new ByteArrayOutputStream(theResource.length * 4);
+			byte[] buffer = new byte[4096];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				// A call which makes no progress means the input is truncated or corrupt, so stop
+				// rather than looping forever
+				if (count == 0 && !inflater.finished()) {
+					throw new DataFormatException(
+							Msg.code(2788) + "Failed to decompress contents, input is truncated or corrupt");
+				}
+				os.write(buffer, 0, count);
+			}
+			return os.toString(StandardCharsets.UTF_8);
+		} catch (java.util.zip.DataFormatException e) {
+			throw new DataFormatException(Msg.code(2789) + "Failed to decompress contents", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static byte[] loadDictionary(int theVersion, String theSha256) {
+		byte[] retVal = ClasspathUtil.loadResourceAsByteArray(
+				"/ca/uhn/fhir/jpa/dao/deflate-dictionary-v" + theVersion + ".txt");
+		String actual = Hashing.sha256().hashBytes(retVal).toString();
+		if (!actual.equals(theSha256)) {
+			throw new ConfigurationException(Msg.code(2790) + "Compression dictionary version " + theVersion
+					+ " has been modified, expected SHA-256 " + theSha256 + " but was " + actual);
+		}
+		return retVal;
+	}
+}
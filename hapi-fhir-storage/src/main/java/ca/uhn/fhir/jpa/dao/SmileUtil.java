@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2025 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.IJsonLikeParser;
+import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
+import ca.uhn.fhir.parser.json.jackson.JacksonWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads and writes resources using the <a href="https://github.com/FasterXML/smile-format-specification">Smile</a>
+ * binary JSON format. Smile documents have the same structure as the FHIR JSON encoding, but property
+ * names and repeated short string values (e.g. coding systems) are written once per document and referred
+ * back to afterward, and no text escaping or number formatting is needed when reading.
+ */
+public class SmileUtil {
+
+	private static final ObjectMapper ourSmileMapper = createSmileMapper();
+	private static final ObjectMapper ourJsonMapper = createJsonMapper();
+
+	/**
+	 * Non instantiable
+	 */
+	private SmileUtil() {}
+
+	/**
+	 * Encodes a resource as Smile using the given JSON parser, so that the parser's configuration
+	 * (e.g. elements to exclude) is respected
+	 */
+	public static byte[] encodeResource(IJsonLikeParser theParser, IBaseResource theResource) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try {
+			JsonGenerator generator = ourSmileMapper.getFactory().createGenerator(os);
+			JacksonWriter writer = new JacksonWriter(generator);
+			theParser.encodeResourceToJsonLikeWriter(theResource, writer);
+			writer.close();
+		} catch (IOException e) {
+			throw new DataFormatException(Msg.code(2782) + "Failed to encode resource as Smile", e);
+		}
+		return os.toByteArray();
+	}
+
+	/**
+	 * Parses a resource from Smile contents using the given JSON parser
+	 */
+	public static <T extends IBaseResource> T parseResource(
+			IJsonLikeParser theParser, Class<T> theResourceType, byte[] theResource) {
+		JacksonStructure structure = new JacksonStructure();
+		structure.setNativeObject(readObject(theResource));
+		return theParser.parseResource(theResourceType, structure);
+	}
+
+	/**
+	 * Converts Smile contents into the equivalent JSON text
+	 */
+	public static String toJson(byte[] theResource) {
+		try {
+			return ourJsonMapper.writeValueAsString(readObject(theResource));
+		} catch (IOException e) {
+			throw new DataFormatException(Msg.code(2783) + "Failed to convert Smile contents to JSON", e);
+		}
+	}
+
+	/**
+	 * Converts JSON text into the equivalent Smile contents
+	 */
+	public static byte[] fromJson(String theResource) {
+		try {
+			JsonNode tree = ourJsonMapper.readTree(theResource);
+			return ourSmileMapper.writeValueAsBytes(tree);
+		} catch (IOException e) {
+			throw new DataFormatException(Msg.code(2784) + "Failed to convert JSON contents to Smile", e);
+		}
+	}
+
+	private static ObjectNode readObject(byte[] theResource) {
+		JsonNode tree;
+		try {
+			tree = ourSmileMapper.readTree(theResource);
+		} catch (IOException e) {
+			throw new DataFormatException(Msg.code(2785) + "Failed to read Smile contents: " + e.getMessage(), e);
+		}
+		if (!(tree instanceof ObjectNode)) {
+			throw new DataFormatException(Msg.code(2786) + "Smile contents do not contain a resource");
+		}
+		return (ObjectNode) tree;
+	}
+
+	private static ObjectMapper createSmileMapper() {
+		SmileFactory factory = SmileFactory.builder()
+				.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+				.streamReadConstraints(createStreamReadConstraints())
+				.build();
+		return configure(SmileMapper.builder(factory).build());
+	}
+
+	private static ObjectMapper createJsonMapper() {
+		ObjectMapper retVal = JsonMapper.builder().build();
+		retVal.getFactory().setStreamReadConstraints(createStreamReadConstraints());
+		return configure(retVal);
+	}
+
+	/**
+	 * Decimals are read as exact values so that precision and scale survive a round trip,
+	 * the same way that {@link JacksonStructure} reads them
+	 */
+	private static ObjectMapper configure(ObjectMapper theMapper) {
+		theMapper.setNodeFactory(new JsonNodeFactory(true));
+		theMapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+		return theMapper;
+	}
+
+	private static StreamReadConstraints createStreamReadConstraints() {
+		return StreamReadConstraints.builder()
+				.maxStringLength(Integer.MAX_VALUE)
+				.build();
+	}
+}
@@ -23,6 +23,7 @@ import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
 import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
 import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.fhirpath.FhirPathExecutionException;
 import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.util.FhirPathUtils;
@@ -79,6 +80,7 @@ public class FhirPatch {
 	public static final String PARAMETER_VALUE = "value";
 
 	private final FhirContext myContext;
+	private IFhirPath myFhirPath;
 	private boolean myIncludePreviousValueInDiff;
 	private Set<EncodeContextPath> myIgnorePaths = Collections.emptySet();
 
@@ -127,6 +129,35 @@ public class FhirPatch {
 		}
 	}
 
+	private IFhirPath getFhirPath() {
+		if (myFhirPath == null) {
+			myFhirPath = myContext.newFhirPath();
+		}
+		return myFhirPath;
+	}
+
+	/**
+	 * Patch paths are parsed using the context's expression cache, since the same paths
+	 * tend to be applied to many resources and many elements within each resource
+	 */
+	private List<IBase> evaluate(IFhirPath theFhirPath, IBase theInput, String thePath) {
+		return theFhirPath.evaluate(theInput, parse(theFhirPath, thePath), IBase.class);
+	}
+
+	private Optional<IBase> evaluateFirst(IFhirPath theFhirPath, IBase theInput, String thePath) {
+		return theFhirPath.evaluateFirst(theInput, parse(theFhirPath, thePath), IBase.class);
+	}
+
+	private IFhirPath.IParsedExpression parse(IFhirPath theFhirPath, String thePath) {
+		try {
+			return myContext.getFhirPathExpressionCache().getOrParse(theFhirPath, thePath);
+		} catch (FhirPathExecutionException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw new FhirPathExecutionException(Msg.code(2792) + e, e);
+		}
+	}
+
 	private void handleAddOperation(IBaseResource theResource, IBase theParameters) {
 
 		String path = ParametersUtil.getParameterPartValueAsString(myContext, theParameters, PARAMETER_PATH);
@@ -134,7 +165,7 @@ public class FhirPatch {
 
 		String containingPath = defaultString(path);
 
-		List<IBase> containingElements = myContext.newFhirPath().evaluate(theResource, containingPath, IBase.class);
+		List<IBase> containingElements = evaluate(getFhirPath(), theResource, containingPath);
 		for (IBase nextElement : containingElements) {
 			ChildDefinition childDefinition = findChildDefinition(nextElement, elementName);
 
@@ -155,7 +186,7 @@ public class FhirPatch {
 		Integer insertIndex = ParametersUtil.getParameterPartValueAsInteger(myContext, theParameters, PARAMETER_INDEX)
 				.orElseThrow(() -> new InvalidRequestException("No index supplied for insert operation"));
 
-		List<IBase> containingElements = myContext.newFhirPath().evaluate(theResource, containingPath, IBase.class);
+		List<IBase> containingElements = evaluate(getFhirPath(), theResource, containingPath);
 		for (IBase nextElement : containingElements) {
 
 			ChildDefinition childDefinition = findChildDefinition(nextElement, elementName);
@@ -184,12 +215,10 @@ public class FhirPatch {
 		path = defaultString(path);
 
 		ParsedPath parsedPath = ParsedPath.parse(path);
-		List<IBase> containingElements = myContext
-				.newFhirPath()
-				.evaluate(
-						theResource,
-						parsedPath.getEndsWithAFilterOrIndex() ? parsedPath.getContainingPath() : path,
-						IBase.class);
+		List<IBase> containingElements = evaluate(
+				getFhirPath(),
+				theResource,
+				parsedPath.getEndsWithAFilterOrIndex() ? parsedPath.getContainingPath() : path);
 
 		for (IBase nextElement : containingElements) {
 			if (parsedPath.getEndsWithAFilterOrIndex()) {
@@ -210,8 +239,7 @@ public class FhirPatch {
 
 		List<IBase> existingValues = new ArrayList<>(
 				childDefinition.getUseableChildDef().getAccessor().getValues(theContainingElement));
-		List<IBase> elementsToRemove =
-				myContext.newFhirPath().evaluate(theResource, theElementToDeletePath, IBase.class);
+		List<IBase> elementsToRemove = evaluate(getFhirPath(), theResource, theElementToDeletePath);
 		existingValues.removeAll(elementsToRemove);
 
 		childDefinition.getUseableChildDef().getMutator().setValue(theContainingElement, null);
@@ -225,7 +253,7 @@ public class FhirPatch {
 		path = defaultString(path);
 
 		ParsedFhirPath parsedFhirPath = ParsedFhirPath.parse(path);
-		IFhirPath fhirPath = myContext.newFhirPath();
+		IFhirPath fhirPath = getFhirPath();
 
 		FhirPathChildDefinition parentDef = new FhirPathChildDefinition();
 
@@ -447,7 +475,7 @@ public class FhirPatch {
 				subpathRef.set(subpath);
 				replaceables = existing.stream()
 						.filter(item -> {
-							Optional<IBase> matched = theFhirPath.evaluateFirst(item, subpathRef.get(), IBase.class);
+							Optional<IBase> matched = evaluateFirst(theFhirPath, item, subpathRef.get());
 							return matched.isPresent();
 						})
 						.toList();
@@ -571,7 +599,7 @@ public class FhirPatch {
 		Integer removeIndex = ParametersUtil.getParameterPartValueAsInteger(myContext, theParameters, PARAMETER_SOURCE)
 				.orElseThrow(() -> new InvalidRequestException("No index supplied for move operation"));
 
-		List<IBase> containingElements = myContext.newFhirPath().evaluate(theResource, containingPath, IBase.class);
+		List<IBase> containingElements = evaluate(getFhirPath(), theResource, containingPath);
 		for (IBase nextElement : containingElements) {
 
 			ChildDefinition childDefinition = findChildDefinition(nextElement, elementName);
@@ -674,7 +702,7 @@ public class FhirPatch {
 
 			// get all direct children
 			ParsedFhirPath.FhirPathNode newHead = newPath.getHead();
-			List<IBase> allChildren = theFhirPath.evaluate(theBase, directChildName, IBase.class);
+			List<IBase> allChildren = evaluate(theFhirPath, theBase, directChildName);
 
 			// go through the children and take only the ones that match the path we have
 			String filterPath = childFilteringPath;
@@ -719,7 +747,7 @@ public class FhirPatch {
 					if (allChildren.size() > 1) {
 						childs = allChildren.stream()
 								.filter(el -> {
-									Optional<IBase> match = theFhirPath.evaluateFirst(el, ref.get(), IBase.class);
+									Optional<IBase> match = evaluateFirst(theFhirPath, el, ref.get());
 									return match.isPresent();
 								})
 								.toList();
@@ -730,7 +758,7 @@ public class FhirPatch {
 						// eg: everything has "extension" on it
 						childs = allChildren.stream()
 								.filter(el -> {
-									Optional<IBase> match = theFhirPath.evaluateFirst(el, ref.get(), IBase.class);
+									Optional<IBase> match = evaluateFirst(theFhirPath, el, ref.get());
 									return match.isPresent();
 								})
 								.findFirst()
@@ -0,0 +1,92 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Quantity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DictionaryDeflateUtilTest {
+
+	private final FhirContext myCtx = FhirContext.forR4Cached();
+
+	@Test
+	public void testRoundTrip() {
+		String encoded = myCtx.newJsonParser().encodeResourceToString(createObservation());
+
+		byte[] compressed = DictionaryDeflateUtil.compress(encoded);
+
+		assertEquals(DictionaryDeflateUtil.CURRENT_DICTIONARY_VERSION, compressed[0]);
+		assertEquals(encoded, DictionaryDeflateUtil.decompress(compressed));
+	}
+
+	@Test
+	public void testRoundTrip_Empty() {
+		assertEquals("", DictionaryDeflateUtil.decompress(DictionaryDeflateUtil.compress("")));
+	}
+
+	@Test
+	public void testRoundTrip_NonAscii() {
+		String encoded = "{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Ünal 山田 😀\"}]}";
+		assertEquals(encoded, DictionaryDeflateUtil.decompress(DictionaryDeflateUtil.compress(encoded)));
+	}
+
+	@Test
+	public void testCompressedSmallerThanGZip() {
+		String encoded = myCtx.newJsonParser().encodeResourceToString(createObservation());
+
+		assertThat(DictionaryDeflateUtil.compress(encoded).length).isLessThan(GZipUtil.compress(encoded).length);
+	}
+
+	@Test
+	public void testDecompress_UnknownDictionaryVersion() {
+		byte[] compressed = DictionaryDeflateUtil.compress("{}");
+		compressed[0] = 99;
+
+		DataFormatException e = assertThrows(DataFormatException.class, () -> DictionaryDeflateUtil.decompress(compressed));
+		assertEquals("HAPI-2787: Failed to decompress contents, unknown dictionary version: 99", e.getMessage());
+	}
+
+	@Test
+	public void testDecompress_Truncated() {
+		String encoded = myCtx.newJsonParser().encodeResourceToString(createObservation());
+		byte[] compressed = DictionaryDeflateUtil.compress(encoded);
+		byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+		DataFormatException e = assertThrows(DataFormatException.class, () -> DictionaryDeflateUtil.decompress(truncated));
+		assertThat(e.getMessage()).startsWith("HAPI-2788: ");
+	}
+
+	@Test
+	public void testDecompress_NoCompressedData() {
+		byte[] versionOnly = {DictionaryDeflateUtil.CURRENT_DICTIONARY_VERSION};
+
+		DataFormatException e = assertThrows(DataFormatException.class, () -> DictionaryDeflateUtil.decompress(versionOnly));
+		assertThat(e.getMessage()).startsWith("HAPI-2788: ");
+	}
+
+	private Observation createObservation() {
+		Observation obs = new Observation();
+		obs.setId("Observation/123");
+		obs.getMeta().setVersionId("1").setLastUpdated(new java.util.Date(1700000000000L));
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		obs.addCategory().addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+				.setCode("vital-signs")
+				.setDisplay("Vital Signs");
+		obs.getCode().addCoding().setSystem("http://loinc.org").setCode("29463-7").setDisplay("Body Weight");
+		obs.getSubject().setReference("Patient/456");
+		obs.setValue(new Quantity()
+				.setValue(70.5)
+				.setUnit("kg")
+				.setSystem("http://unitsofmeasure.org")
+				.setCode("kg"));
+		return obs;
+	}
+}
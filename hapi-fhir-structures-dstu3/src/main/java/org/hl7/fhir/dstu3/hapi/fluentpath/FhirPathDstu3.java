@@ -85,6 +85,14 @@ public class FhirPathDstu3 implements IFhirPath {
 		return new ParsedExpression(myEngine.parse(theExpression));
 	}
 
+	/**
+	 * Returns the underlying expression of a parsed expression returned by {@link #parse(String)},
+	 * for callers which evaluate it using their own {@link FHIRPathEngine}
+	 */
+	public static ExpressionNode getExpressionNode(IParsedExpression theParsedExpression) {
+		return ((ParsedExpression) theParsedExpression).myParsedExpression;
+	}
+
 	@Override
 	public void setEvaluationContext(@Nonnull IFhirPathEvaluationContext theEvaluationContext) {
 		myEngine.setHostServices(new FHIRPathEngine.IEvaluationContext() {
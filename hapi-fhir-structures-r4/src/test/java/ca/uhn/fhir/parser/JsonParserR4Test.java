@@ -68,8 +68,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -1490,6 +1493,120 @@ public class JsonParserR4Test extends BaseTest {
 		assertThat(patientStringXML).containsOnlyOnce("<modifierExtension");
 	}
 
+	@Test
+	public void testParseBundleEntries() {
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.setTotal(3);
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("FAMILY" + i);
+			input.addEntry()
+				.setFullUrl("urn:uuid:0000000" + i)
+				.setResource(patient)
+				.getRequest()
+				.setMethod(Bundle.HTTPVerb.POST)
+				.setUrl("Patient");
+		}
+		input.addLink().setRelation("self").setUrl("http://example.com/fhir");
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(input);
+
+		List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
+		Bundle output = ourCtx.newJsonParser().parseBundleEntries(Bundle.class, new StringReader(encoded), t -> entries.add((Bundle.BundleEntryComponent) t));
+
+		assertEquals(Bundle.BundleType.TRANSACTION, output.getType());
+		assertEquals(3, output.getTotal());
+		assertEquals("http://example.com/fhir", output.getLink("self").getUrl());
+		assertThat(output.getEntry()).isEmpty();
+
+		assertThat(entries).hasSize(3);
+		for (int i = 0; i < 3; i++) {
+			Bundle.BundleEntryComponent entry = entries.get(i);
+			assertEquals("urn:uuid:0000000" + i, entry.getFullUrl());
+			assertEquals("urn:uuid:0000000" + i, entry.getResource().getIdElement().getValue());
+			assertEquals("FAMILY" + i, ((Patient) entry.getResource()).getNameFirstRep().getFamily());
+			assertEquals(Bundle.HTTPVerb.POST, entry.getRequest().getMethod());
+		}
+	}
+
+	@Test
+	public void testParseBundleEntries_PropertiesAfterEntries() {
+		String input = """
+			{
+			  "entry": [
+			    { "fullUrl": "http://example.com/fhir/Patient/123", "resource": { "resourceType": "Patient", "id": "123", "active": true } },
+			    { "fullUrl": "http://example.com/fhir/Patient/456", "resource": { "resourceType": "Patient", "id": "456", "active": false } }
+			  ],
+			  "resourceType": "Bundle",
+			  "type": "searchset",
+			  "total": 2
+			}""";
+
+		List<String> ids = new ArrayList<>();
+		try (JsonBundleEntryReader<Bundle> reader = ((JsonParser) ourCtx.newJsonParser()).newBundleEntryReader(Bundle.class, new StringReader(input))) {
+			while (reader.hasNext()) {
+				Bundle.BundleEntryComponent entry = (Bundle.BundleEntryComponent) reader.next();
+				ids.add(entry.getResource().getIdElement().getValue());
+			}
+			Bundle bundle = reader.getBundle();
+			assertEquals(Bundle.BundleType.SEARCHSET, bundle.getType());
+			assertEquals(2, bundle.getTotal());
+		} catch (IOException e) {
+			fail(e);
+		}
+
+		assertThat(ids).containsExactly("http://example.com/fhir/Patient/123", "http://example.com/fhir/Patient/456");
+	}
+
+	@Test
+	public void testParseBundleEntries_WrongResourceType() {
+		String input = """
+			{ "resourceType": "Patient", "active": true }""";
+
+		IParser parser = ourCtx.newJsonParser();
+		StringReader reader = new StringReader(input);
+		DataFormatException e = assertThrows(DataFormatException.class, () -> parser.parseBundleEntries(Bundle.class, reader, t -> fail()));
+		assertEquals(Msg.code(2779) + "Expected a resource of type Bundle, found: Patient", e.getMessage());
+	}
+
+	@Test
+	public void testParseBundleEntries_EntryNotAnArray() {
+		String input = """
+			{ "resourceType": "Bundle", "entry": { "fullUrl": "http://example.com/fhir/Patient/123" } }""";
+
+		IParser parser = ourCtx.newJsonParser();
+		StringReader reader = new StringReader(input);
+		DataFormatException e = assertThrows(DataFormatException.class, () -> parser.parseBundleEntries(Bundle.class, reader, t -> fail()));
+		assertEquals(Msg.code(2778) + "Bundle.entry must be a JSON array, found: START_OBJECT", e.getMessage());
+	}
+
+	@Test
+	public void testEncodeBundleToWriter() throws IOException {
+		String expected = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(createBundleForStreamingEncode(5));
+
+		Bundle bundle = createBundleForStreamingEncode(5);
+		List<Bundle.BundleEntryComponent> entries = new ArrayList<>(bundle.getEntry().subList(1, 5));
+		bundle.getEntry().subList(1, 5).clear();
+
+		StringWriter writer = new StringWriter();
+		ourCtx.newJsonParser().setPrettyPrint(true).encodeBundleToWriter(bundle, entries.iterator(), writer);
+
+		assertEquals(expected, writer.toString());
+		assertThat(bundle.getEntry()).hasSize(1);
+	}
+
+	@Test
+	public void testEncodeBundleToWriter_NoEntries() throws IOException {
+		Bundle bundle = createBundleForStreamingEncode(0);
+		String expected = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		StringWriter writer = new StringWriter();
+		ourCtx.newJsonParser().encodeBundleToWriter(bundle, Collections.emptyIterator(), writer);
+
+		assertEquals(expected, writer.toString());
+		assertThat(writer.toString()).doesNotContain("\"entry\"");
+	}
+
 	static List<String> patientStrs() {
 		List<String> resources = new ArrayList<>();
 
@@ -1975,6 +2092,30 @@ public class JsonParserR4Test extends BaseTest {
 	}
 
 	@Nonnull
+	public static Bundle createBundleForStreamingEncode(int theEntryCount) {
+		Bundle retVal = new Bundle();
+		retVal.setId("bundle-id");
+		retVal.setType(Bundle.BundleType.SEARCHSET);
+		retVal.setTotal(theEntryCount);
+		retVal.addLink().setRelation("self").setUrl("http://example.com/fhir/Observation");
+		for (int i = 0; i < theEntryCount; i++) {
+			Patient patient = new Patient();
+			patient.setId("#patient" + i);
+			patient.addName().setFamily("FAMILY" + i);
+			Observation observation = new Observation();
+			observation.setId("Observation/O" + i);
+			observation.setStatus(Observation.ObservationStatus.FINAL);
+			observation.getSubject().setResource(patient);
+			retVal.addEntry()
+				.setFullUrl("http://example.com/fhir/Observation/O" + i)
+				.setResource(observation)
+				.getSearch()
+				.setMode(Bundle.SearchEntryMode.MATCH);
+		}
+		retVal.getSignature().setWho(new Reference("Practitioner/123")).setSigFormat("application/jose");
+		return retVal;
+	}
+
 	public static Bundle createBundleWithCrossReferenceFullUrlsAndNoIds() {
 		Bundle bundle = new Bundle();
 
@@ -6,15 +6,21 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.DecimalType;
 import org.hl7.fhir.r4.model.HumanName;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -30,6 +36,23 @@ public class RDFParserR4Test {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testEncodeBundleToWriter_EntriesAreRestored() throws IOException {
+		String expected = ourCtx.newRDFParser().encodeResourceToString(JsonParserR4Test.createBundleForStreamingEncode(2));
+
+		Bundle bundle = JsonParserR4Test.createBundleForStreamingEncode(2);
+		Bundle.BundleEntryComponent firstEntry = bundle.getEntry().get(0);
+		List<Bundle.BundleEntryComponent> entries = new ArrayList<>(bundle.getEntry().subList(1, 2));
+		bundle.getEntry().remove(1);
+
+		StringWriter writer = new StringWriter();
+		ourCtx.newRDFParser().encodeBundleToWriter(bundle, entries.iterator(), writer);
+
+		assertEquals(expected, writer.toString());
+		assertEquals(1, bundle.getEntry().size());
+		assertSame(firstEntry, bundle.getEntry().get(0));
+	}
+
 	@Test
 	public void testEncodeToString_Resource() {
 		Patient p = new Patient();
@@ -29,9 +29,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URL;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
+import static ca.uhn.fhir.parser.JsonParserR4Test.createBundleForStreamingEncode;
 import static ca.uhn.fhir.parser.JsonParserR4Test.createBundleWithCrossReferenceFullUrlsAndNoIds;
 import static ca.uhn.fhir.parser.JsonParserR4Test.createBundleWithCrossReferenceFullUrlsAndNoIds_NestedInParameters;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -56,6 +61,36 @@ public class XmlParserR4Test extends BaseTest {
 	}
 
 
+	@Test
+	public void testParseBundleEntries() {
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.COLLECTION);
+		input.addEntry().setFullUrl("http://example.com/fhir/Patient/A").setResource(new Patient().setActive(true));
+		input.addEntry().setFullUrl("http://example.com/fhir/Patient/B").setResource(new Patient().setActive(false));
+		String encoded = ourCtx.newXmlParser().encodeResourceToString(input);
+
+		List<String> fullUrls = new ArrayList<>();
+		Bundle output = ourCtx.newXmlParser().parseBundleEntries(Bundle.class, new StringReader(encoded), t -> fullUrls.add(((Bundle.BundleEntryComponent) t).getFullUrl()));
+
+		assertEquals(Bundle.BundleType.COLLECTION, output.getType());
+		assertThat(output.getEntry()).isEmpty();
+		assertThat(fullUrls).containsExactly("http://example.com/fhir/Patient/A", "http://example.com/fhir/Patient/B");
+	}
+
+	@Test
+	public void testEncodeBundleToWriter() throws IOException {
+		String expected = ourCtx.newXmlParser().setPrettyPrint(true).encodeResourceToString(createBundleForStreamingEncode(3));
+
+		Bundle bundle = createBundleForStreamingEncode(3);
+		List<Bundle.BundleEntryComponent> entries = new ArrayList<>(bundle.getEntry());
+		bundle.getEntry().clear();
+
+		StringWriter writer = new StringWriter();
+		ourCtx.newXmlParser().setPrettyPrint(true).encodeBundleToWriter(bundle, entries.iterator(), writer);
+
+		assertEquals(expected, writer.toString());
+	}
+
 	/**
 	 * See #3890
 	 */
@@ -0,0 +1,76 @@
+package ca.uhn.fhir.fhirpath;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FhirPathExpressionCacheTest {
+
+	private final FhirContext myCtx = FhirContext.forR4Cached();
+
+	@Test
+	public void testGetOrParse_ReturnsCachedExpression() throws Exception {
+		FhirPathExpressionCache cache = new FhirPathExpressionCache();
+		IFhirPath fhirPath = myCtx.newFhirPath();
+
+		IFhirPath.IParsedExpression first = cache.getOrParse(fhirPath, "Patient.name.family");
+		IFhirPath.IParsedExpression second = cache.getOrParse(myCtx.newFhirPath(), "Patient.name.family");
+
+		assertSame(first, second);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getSize());
+		assertEquals(0.5, cache.getHitRate());
+
+		Patient patient = new Patient();
+		patient.addName().setFamily("Simpson");
+		List<IBase> outcome = fhirPath.evaluate(patient, second, IBase.class);
+		assertThat(outcome).hasSize(1);
+	}
+
+	@Test
+	public void testGetOrParse_InvalidExpressionIsNotCached() {
+		FhirPathExpressionCache cache = new FhirPathExpressionCache();
+		IFhirPath fhirPath = myCtx.newFhirPath();
+
+		assertThrows(RuntimeException.class, () -> cache.getOrParse(fhirPath, "Patient....name"));
+		assertThrows(RuntimeException.class, () -> cache.getOrParse(fhirPath, "Patient....name"));
+
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void testGetOrParse_MaximumSize() {
+		FhirPathExpressionCache cache = new FhirPathExpressionCache(2);
+		IFhirPath fhirPath = myCtx.newFhirPath();
+
+		cache.getOrParse(fhirPath, "Patient.name");
+		cache.getOrParse(fhirPath, "Patient.gender");
+		cache.getOrParse(fhirPath, "Patient.birthDate");
+
+		assertEquals(2, cache.getMaximumSize());
+		assertEquals(2, cache.getSize());
+
+		cache.invalidateAll();
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testContextCacheIsShared() {
+		FhirContext ctx = FhirContext.forR4();
+		assertSame(ctx.getFhirPathExpressionCache(), ctx.getFhirPathExpressionCache());
+
+		FhirPathExpressionCache cache = new FhirPathExpressionCache(10);
+		ctx.setFhirPathExpressionCache(cache);
+		assertSame(cache, ctx.getFhirPathExpressionCache());
+	}
+}